@@ -0,0 +1,169 @@
+package jama.blas.vector;
+
+import jama.blas.Elementwise;
+import jama.blas.ElementwiseBackend;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * <p>
+ * {@link ElementwiseBackend} on top of the incubating Vector API. Each kernel
+ * processes the operands in vectors of the preferred width of the platform
+ * (e.g. four doubles with AVX2) and the remaining elements in a scalar loop.
+ * </p>
+ *
+ * <p>
+ * The backend is registered as a service and picked up by
+ * {@link Elementwise} when this module is on the class path and the JVM is
+ * started with {@code --add-modules jdk.incubator.vector}.
+ * </p>
+ *
+ * @since 2.0.0
+ */
+public class VectorElementwise implements ElementwiseBackend {
+
+    private static final VectorSpecies<Double> D = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> F = FloatVector.SPECIES_PREFERRED;
+
+    /* ====================================================== */
+    /* ================ Double precision ==================== */
+    /* ====================================================== */
+
+    @Override
+    public void add(double[] a, double[] b, double[] c, int n) {
+        int j = 0;
+        for (int bound = D.loopBound(n); j < bound; j += D.length()) {
+            DoubleVector.fromArray(D, a, j).add(DoubleVector.fromArray(D, b, j)).intoArray(c, j);
+        }
+        for (; j < n; j++) {
+            c[j] = a[j] + b[j];
+        }
+    }
+
+    @Override
+    public void subtract(double[] a, double[] b, double[] c, int n) {
+        int j = 0;
+        for (int bound = D.loopBound(n); j < bound; j += D.length()) {
+            DoubleVector.fromArray(D, a, j).sub(DoubleVector.fromArray(D, b, j)).intoArray(c, j);
+        }
+        for (; j < n; j++) {
+            c[j] = a[j] - b[j];
+        }
+    }
+
+    @Override
+    public void multiply(double[] a, double[] b, double[] c, int n) {
+        int j = 0;
+        for (int bound = D.loopBound(n); j < bound; j += D.length()) {
+            DoubleVector.fromArray(D, a, j).mul(DoubleVector.fromArray(D, b, j)).intoArray(c, j);
+        }
+        for (; j < n; j++) {
+            c[j] = a[j] * b[j];
+        }
+    }
+
+    @Override
+    public void divide(double[] a, double[] b, double[] c, int n) {
+        int j = 0;
+        for (int bound = D.loopBound(n); j < bound; j += D.length()) {
+            DoubleVector.fromArray(D, a, j).div(DoubleVector.fromArray(D, b, j)).intoArray(c, j);
+        }
+        for (; j < n; j++) {
+            c[j] = a[j] / b[j];
+        }
+    }
+
+    @Override
+    public void scale(double s, double[] a, double[] c, int n) {
+        int j = 0;
+        for (int bound = D.loopBound(n); j < bound; j += D.length()) {
+            DoubleVector.fromArray(D, a, j).mul(s).intoArray(c, j);
+        }
+        for (; j < n; j++) {
+            c[j] = s * a[j];
+        }
+    }
+
+    @Override
+    public void axpy(double s, double[] a, double[] c, int n) {
+        // No fused multiply-add, so that the results match the plain loop.
+        int j = 0;
+        for (int bound = D.loopBound(n); j < bound; j += D.length()) {
+            DoubleVector.fromArray(D, a, j).mul(s).add(DoubleVector.fromArray(D, c, j)).intoArray(c, j);
+        }
+        for (; j < n; j++) {
+            c[j] += s * a[j];
+        }
+    }
+
+    /* ====================================================== */
+    /* ================ Single precision ==================== */
+    /* ====================================================== */
+
+    @Override
+    public void add(float[] a, float[] b, float[] c, int n) {
+        int j = 0;
+        for (int bound = F.loopBound(n); j < bound; j += F.length()) {
+            FloatVector.fromArray(F, a, j).add(FloatVector.fromArray(F, b, j)).intoArray(c, j);
+        }
+        for (; j < n; j++) {
+            c[j] = a[j] + b[j];
+        }
+    }
+
+    @Override
+    public void subtract(float[] a, float[] b, float[] c, int n) {
+        int j = 0;
+        for (int bound = F.loopBound(n); j < bound; j += F.length()) {
+            FloatVector.fromArray(F, a, j).sub(FloatVector.fromArray(F, b, j)).intoArray(c, j);
+        }
+        for (; j < n; j++) {
+            c[j] = a[j] - b[j];
+        }
+    }
+
+    @Override
+    public void multiply(float[] a, float[] b, float[] c, int n) {
+        int j = 0;
+        for (int bound = F.loopBound(n); j < bound; j += F.length()) {
+            FloatVector.fromArray(F, a, j).mul(FloatVector.fromArray(F, b, j)).intoArray(c, j);
+        }
+        for (; j < n; j++) {
+            c[j] = a[j] * b[j];
+        }
+    }
+
+    @Override
+    public void divide(float[] a, float[] b, float[] c, int n) {
+        int j = 0;
+        for (int bound = F.loopBound(n); j < bound; j += F.length()) {
+            FloatVector.fromArray(F, a, j).div(FloatVector.fromArray(F, b, j)).intoArray(c, j);
+        }
+        for (; j < n; j++) {
+            c[j] = a[j] / b[j];
+        }
+    }
+
+    @Override
+    public void scale(float s, float[] a, float[] c, int n) {
+        int j = 0;
+        for (int bound = F.loopBound(n); j < bound; j += F.length()) {
+            FloatVector.fromArray(F, a, j).mul(s).intoArray(c, j);
+        }
+        for (; j < n; j++) {
+            c[j] = s * a[j];
+        }
+    }
+
+    @Override
+    public void axpy(float s, float[] a, float[] c, int n) {
+        int j = 0;
+        for (int bound = F.loopBound(n); j < bound; j += F.length()) {
+            FloatVector.fromArray(F, a, j).mul(s).add(FloatVector.fromArray(F, c, j)).intoArray(c, j);
+        }
+        for (; j < n; j++) {
+            c[j] += s * a[j];
+        }
+    }
+}
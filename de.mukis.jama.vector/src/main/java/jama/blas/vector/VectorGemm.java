@@ -0,0 +1,88 @@
+package jama.blas.vector;
+
+import jama.blas.Gemm;
+import jama.blas.GemmBackend;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * <p>
+ * {@link GemmBackend} on top of the incubating Vector API. Each row of the 4x4
+ * tile is one vector of four lanes, 256 bits for doubles and 128 bits for
+ * floats, which is updated with one broadcast multiply and one add per step
+ * of the k loop. Multiply and add are not fused, so the tile is bit for bit
+ * the one of the scalar micro-kernel.
+ * </p>
+ *
+ * <p>
+ * The backend is registered as a service and picked up by {@link Gemm} when
+ * this module is on the class path and the JVM is started with
+ * {@code --add-modules jdk.incubator.vector}. On platforms whose preferred
+ * vectors are narrower than a tile row it refuses to be instantiated, and the
+ * scalar micro-kernel is used.
+ * </p>
+ *
+ * @since 2.0.0
+ */
+public class VectorGemm implements GemmBackend {
+
+    private static final VectorSpecies<Double> D = DoubleVector.SPECIES_256;
+    private static final VectorSpecies<Float> F = FloatVector.SPECIES_128;
+
+    /**
+     * @exception UnsupportedOperationException The platform has no 256 bit
+     *                vectors.
+     */
+    public VectorGemm() {
+        if (DoubleVector.SPECIES_PREFERRED.vectorBitSize() < D.vectorBitSize()) {
+            throw new UnsupportedOperationException("No " + D.vectorBitSize() + " bit vectors on this platform.");
+        }
+    }
+
+    @Override
+    public void kernel(int kc, double[] Ap, int ao, double[] Bp, int bo, double[] tile) {
+        DoubleVector c0 = DoubleVector.zero(D);
+        DoubleVector c1 = DoubleVector.zero(D);
+        DoubleVector c2 = DoubleVector.zero(D);
+        DoubleVector c3 = DoubleVector.zero(D);
+        int a = ao;
+        int b = bo;
+        for (int p = 0; p < kc; p++) {
+            DoubleVector bv = DoubleVector.fromArray(D, Bp, b);
+            c0 = c0.add(bv.mul(Ap[a]));
+            c1 = c1.add(bv.mul(Ap[a + 1]));
+            c2 = c2.add(bv.mul(Ap[a + 2]));
+            c3 = c3.add(bv.mul(Ap[a + 3]));
+            a += 4;
+            b += 4;
+        }
+        c0.intoArray(tile, 0);
+        c1.intoArray(tile, 4);
+        c2.intoArray(tile, 8);
+        c3.intoArray(tile, 12);
+    }
+
+    @Override
+    public void kernel(int kc, float[] Ap, int ao, float[] Bp, int bo, float[] tile) {
+        FloatVector c0 = FloatVector.zero(F);
+        FloatVector c1 = FloatVector.zero(F);
+        FloatVector c2 = FloatVector.zero(F);
+        FloatVector c3 = FloatVector.zero(F);
+        int a = ao;
+        int b = bo;
+        for (int p = 0; p < kc; p++) {
+            FloatVector bv = FloatVector.fromArray(F, Bp, b);
+            c0 = c0.add(bv.mul(Ap[a]));
+            c1 = c1.add(bv.mul(Ap[a + 1]));
+            c2 = c2.add(bv.mul(Ap[a + 2]));
+            c3 = c3.add(bv.mul(Ap[a + 3]));
+            a += 4;
+            b += 4;
+        }
+        c0.intoArray(tile, 0);
+        c1.intoArray(tile, 4);
+        c2.intoArray(tile, 8);
+        c3.intoArray(tile, 12);
+    }
+}
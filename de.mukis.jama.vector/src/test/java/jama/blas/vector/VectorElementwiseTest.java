@@ -0,0 +1,141 @@
+package jama.blas.vector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import jama.blas.Elementwise;
+import jama.blas.ElementwiseBackend;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class VectorElementwiseTest {
+
+    private final VectorElementwise vector = new VectorElementwise();
+    private final Random random = new Random(42);
+
+    @Test
+    public void testDiscovered() {
+        assertTrue(Elementwise.getBackend() instanceof VectorElementwise);
+    }
+
+    @Test
+    public void testMatchesPlainLoops() {
+        ElementwiseBackend backend = Elementwise.getBackend();
+        Elementwise.setBackend(null);
+        try {
+            // all lengths around the vector widths, to cover the scalar tails
+            for (int n = 0; n < 40; n++) {
+                double[] a = randomDoubles(n + 3);
+                double[] b = randomDoubles(n + 3);
+                double s = random.nextGaussian();
+                for (int op = 0; op < 6; op++) {
+                    double[] expected = randomDoubles(n + 3);
+                    double[] actual = expected.clone();
+                    apply(null, op, s, a, b, expected, n);
+                    apply(vector, op, s, a, b, actual, n);
+                    assertArrayEquals("op " + op + ", n = " + n, expected, actual, 0.);
+                }
+
+                float[] x = randomFloats(n + 3);
+                float[] y = randomFloats(n + 3);
+                float t = (float) s;
+                for (int op = 0; op < 6; op++) {
+                    float[] expected = randomFloats(n + 3);
+                    float[] actual = expected.clone();
+                    apply(null, op, t, x, y, expected, n);
+                    apply(vector, op, t, x, y, actual, n);
+                    assertArrayEquals("op " + op + ", n = " + n, expected, actual, 0f);
+                }
+            }
+        } finally {
+            Elementwise.setBackend(backend);
+        }
+    }
+
+    @Test
+    public void testInPlace() {
+        double[] a = randomDoubles(21);
+        double[] b = randomDoubles(21);
+        double[] expected = new double[21];
+        for (int j = 0; j < 21; j++) {
+            expected[j] = a[j] - b[j];
+        }
+        vector.subtract(a, b, a, 21);
+        assertArrayEquals(expected, a, 0.);
+    }
+
+    /** Runs operation op, with the plain loops if backend is null. */
+    private static void apply(ElementwiseBackend backend, int op, double s, double[] a, double[] b, double[] c, int n) {
+        ElementwiseBackend previous = Elementwise.getBackend();
+        Elementwise.setBackend(backend);
+        try {
+            switch (op) {
+            case 0:
+                Elementwise.add(a, b, c, n);
+                break;
+            case 1:
+                Elementwise.subtract(a, b, c, n);
+                break;
+            case 2:
+                Elementwise.multiply(a, b, c, n);
+                break;
+            case 3:
+                Elementwise.divide(a, b, c, n);
+                break;
+            case 4:
+                Elementwise.scale(s, a, c, n);
+                break;
+            default:
+                Elementwise.axpy(s, a, c, n);
+            }
+        } finally {
+            Elementwise.setBackend(previous);
+        }
+    }
+
+    /** Single precision variant of apply. */
+    private static void apply(ElementwiseBackend backend, int op, float s, float[] a, float[] b, float[] c, int n) {
+        ElementwiseBackend previous = Elementwise.getBackend();
+        Elementwise.setBackend(backend);
+        try {
+            switch (op) {
+            case 0:
+                Elementwise.add(a, b, c, n);
+                break;
+            case 1:
+                Elementwise.subtract(a, b, c, n);
+                break;
+            case 2:
+                Elementwise.multiply(a, b, c, n);
+                break;
+            case 3:
+                Elementwise.divide(a, b, c, n);
+                break;
+            case 4:
+                Elementwise.scale(s, a, c, n);
+                break;
+            default:
+                Elementwise.axpy(s, a, c, n);
+            }
+        } finally {
+            Elementwise.setBackend(previous);
+        }
+    }
+
+    private double[] randomDoubles(int n) {
+        double[] v = new double[n];
+        for (int i = 0; i < n; i++) {
+            v[i] = random.nextGaussian();
+        }
+        return v;
+    }
+
+    private float[] randomFloats(int n) {
+        float[] v = new float[n];
+        for (int i = 0; i < n; i++) {
+            v[i] = (float) random.nextGaussian();
+        }
+        return v;
+    }
+}
@@ -0,0 +1,99 @@
+package jama.blas.vector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import jama.blas.Gemm;
+import jama.blas.GemmBackend;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class VectorGemmTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void testDiscovered() {
+        assertTrue(Gemm.getBackend() instanceof VectorGemm);
+    }
+
+    @Test
+    public void testMatchesScalarKernel() {
+        // 67x129 leaves partial tiles, k = 300 spans two packed panels
+        int m = 67, n = 129, k = 300;
+        double[][] A = randomDoubles(m, k);
+        double[][] B = randomDoubles(k, n);
+        float[][] F = randomFloats(m, k);
+        float[][] G = randomFloats(k, n);
+        double[][] expected = new double[m][n];
+        double[][] actual = new double[m][n];
+        float[][] expectedFloat = new float[m][n];
+        float[][] actualFloat = new float[m][n];
+        double[] a = new double[m * k];
+        double[] b = new double[k * n];
+        for (int i = 0; i < m; i++) {
+            System.arraycopy(A[i], 0, a, i * k, k);
+        }
+        for (int i = 0; i < k; i++) {
+            System.arraycopy(B[i], 0, b, i * n, n);
+        }
+        double[] expectedFlat = new double[m * n];
+        double[] actualFlat = new double[m * n];
+
+        GemmBackend backend = Gemm.getBackend();
+        Gemm.setBackend(null);
+        try {
+            Gemm.dgemm(true, false, m, n, k, 0.5, transpose(A), 0, 0, B, 0, 0, 0.0, expected, 0, 0);
+            Gemm.sgemm(F, G, expectedFloat, m, n, k);
+            Gemm.dgemm(m, n, k, 1.0, a, 0, k, 1, b, 0, n, 1, 0.0, expectedFlat, 0, 1, m);
+        } finally {
+            Gemm.setBackend(backend);
+        }
+        Gemm.setBackend(new VectorGemm());
+        try {
+            Gemm.dgemm(true, false, m, n, k, 0.5, transpose(A), 0, 0, B, 0, 0, 0.0, actual, 0, 0);
+            Gemm.sgemm(F, G, actualFloat, m, n, k);
+            Gemm.dgemm(m, n, k, 1.0, a, 0, k, 1, b, 0, n, 1, 0.0, actualFlat, 0, 1, m);
+        } finally {
+            Gemm.setBackend(backend);
+        }
+
+        // multiply and add are not fused, so the results are identical
+        for (int i = 0; i < m; i++) {
+            assertArrayEquals("row " + i, expected[i], actual[i], 0.);
+            assertArrayEquals("row " + i, expectedFloat[i], actualFloat[i], 0f);
+        }
+        assertArrayEquals(expectedFlat, actualFlat, 0.);
+    }
+
+    private static double[][] transpose(double[][] X) {
+        double[][] T = new double[X[0].length][X.length];
+        for (int i = 0; i < X.length; i++) {
+            for (int j = 0; j < X[0].length; j++) {
+                T[j][i] = X[i][j];
+            }
+        }
+        return T;
+    }
+
+    private double[][] randomDoubles(int m, int n) {
+        double[][] X = new double[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                X[i][j] = random.nextGaussian();
+            }
+        }
+        return X;
+    }
+
+    private float[][] randomFloats(int m, int n) {
+        float[][] X = new float[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                X[i][j] = (float) random.nextGaussian();
+            }
+        }
+        return X;
+    }
+}
@@ -0,0 +1,42 @@
+package jama;
+
+/**
+ * <p>
+ * Implicitly restarted Arnoldi method for a few eigenpairs of a large general
+ * operator. The projection H is upper Hessenberg, and its Ritz values are
+ * computed by the Hessenberg QR algorithm of {@link EigenvalueDecomposition}.
+ * </p>
+ *
+ * <p>
+ * Eigenvalues may be complex. A complex conjugate pair is never split, so
+ * one more eigenvalue than requested is returned when the last wanted one
+ * has its conjugate as neighbour; the eigenvectors of a pair are returned as
+ * real and imaginary part, like in {@link EigenvalueDecomposition#getV()}.
+ * </p>
+ *
+ * @see LanczosEigenSolver
+ * @since 2.0.0
+ */
+public class ArnoldiEigenSolver extends KrylovEigenSolver {
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    /**
+     * @param A square operator
+     * @exception IllegalArgumentException Matrix must be square.
+     */
+    public ArnoldiEigenSolver(LinearOperator A) {
+        super(A);
+    }
+
+    /* ================================================ */
+    /* ============= Package Methods ================== */
+    /* ================================================ */
+
+    @Override
+    boolean isSymmetric() {
+        return false;
+    }
+}
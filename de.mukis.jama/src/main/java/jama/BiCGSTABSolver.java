@@ -0,0 +1,111 @@
+package jama;
+
+import jama.blas.Elementwise;
+
+/**
+ * <p>
+ * Biconjugate gradient stabilized method (BiCGSTAB) of van der Vorst for
+ * general square systems. Each iteration costs two products with A, four dot
+ * products and six vector updates, and memory stays at eight vectors of
+ * length n, independent of the number of iterations. Convergence is usually
+ * smoother than that of BiCG, but not monotone.
+ * </p>
+ *
+ * <p>
+ * A preconditioner is applied from the right, so the residual is that of the
+ * original system.
+ * </p>
+ *
+ * <p>
+ * The method can break down when an inner product of the recurrence
+ * vanishes. The iteration then stops without converging; restarting it from
+ * the returned iterate ({@link #solve(double[], double[])}) often helps.
+ * </p>
+ *
+ * @see IterativeSolver
+ * @since 2.0.0
+ */
+public class BiCGSTABSolver extends IterativeSolver {
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    /**
+     * BiCGSTAB solver.
+     *
+     * @param A square operator
+     * @exception IllegalArgumentException Matrix must be square.
+     */
+    public BiCGSTABSolver(LinearOperator A) {
+        super(A);
+    }
+
+    /* ================================================ */
+    /* ============= Package Methods ================== */
+    /* ================================================ */
+
+    @Override
+    boolean iterate(double[] b, double[] x) {
+        double[] r = new double[n];
+        residual(b, x, r);
+        if (report(0, norm(r))) {
+            return true;
+        }
+        double[] rhat = r.clone();
+        double[] p = new double[n];
+        double[] v = new double[n];
+        double[] s = new double[n];
+        double[] t = new double[n];
+        double[] z = new double[n];
+        double rho = 1.0;
+        double alpha = 1.0;
+        double omega = 1.0;
+        for (int k = 1; k <= getMaxIterations(); k++) {
+            double rhoNew = dot(rhat, r);
+            if (rhoNew == 0.0) {
+                return false;
+            }
+            // p = r + beta * (p - omega * v)
+            double beta = (rhoNew / rho) * (alpha / omega);
+            Elementwise.axpy(-omega, v, p, n);
+            Elementwise.scale(beta, p, p, n);
+            Elementwise.add(r, p, p, n);
+            rho = rhoNew;
+
+            precondition(p, z);
+            A.apply(z, v);
+            double rv = dot(rhat, v);
+            if (rv == 0.0) {
+                return false;
+            }
+            alpha = rho / rv;
+
+            // s = r - alpha * v, and stop early if it is small enough.
+            System.arraycopy(r, 0, s, 0, n);
+            Elementwise.axpy(-alpha, v, s, n);
+            double snrm = norm(s);
+            Elementwise.axpy(alpha, z, x, n);
+            if (check(snrm)) {
+                return report(k, snrm);
+            }
+
+            precondition(s, z);
+            A.apply(z, t);
+            double tt = dot(t, t);
+            omega = tt == 0.0 ? 0.0 : dot(t, s) / tt;
+            Elementwise.axpy(omega, z, x, n);
+
+            // r = s - omega * t
+            System.arraycopy(s, 0, r, 0, n);
+            Elementwise.axpy(-omega, t, r, n);
+            if (report(k, norm(r))) {
+                return true;
+            }
+            if (omega == 0.0) {
+                return false;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,113 @@
+package jama;
+
+import jama.blas.Gemv;
+
+import java.io.Serializable;
+
+/**
+ * <p>
+ * Block Jacobi preconditioner. The index range is cut into consecutive blocks
+ * of a fixed size, and M is the block diagonal part of A. Each diagonal block
+ * is inverted once by its {@link LUDecomposition}, so applying M^-1 is one
+ * small dense matrix-vector product per block.
+ * </p>
+ *
+ * <p>
+ * Compared to {@link JacobiPreconditioner} it also captures the coupling
+ * within a block, which pays off when unknowns that belong together are
+ * numbered consecutively, such as the components of a node or the points of
+ * a grid line. Building it costs O(n * blockSize^2) work and memory. M is
+ * symmetric and positive definite if A is.
+ * </p>
+ *
+ * @see JacobiPreconditioner
+ * @since 2.0.0
+ */
+public class BlockJacobiPreconditioner implements Preconditioner, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Order of A.
+     *
+     * @serial matrix dimension.
+     */
+    private final int n;
+
+    /**
+     * Size of the blocks, the last one may be smaller.
+     *
+     * @serial block size.
+     */
+    private final int blockSize;
+
+    /**
+     * Inverses of the diagonal blocks.
+     *
+     * @serial block inverses.
+     */
+    private final double[][][] inv;
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    /**
+     * Block Jacobi preconditioner.
+     *
+     * @param A square matrix
+     * @param blockSize size of the diagonal blocks
+     * @exception IllegalArgumentException Matrix must be square, or block
+     *                size not positive.
+     * @exception RuntimeException Matrix is singular, if a diagonal block is.
+     */
+    public BlockJacobiPreconditioner(CSRMatrix A, int blockSize) {
+        n = A.getRowDimension();
+        if (A.getColumnDimension() != n) {
+            throw new IllegalArgumentException("Matrix must be square.");
+        }
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        this.blockSize = blockSize;
+        int[] ptr = A.s.ptr;
+        int[] idx = A.s.idx;
+        double[] val = A.s.val;
+        int nblocks = (n + blockSize - 1) / blockSize;
+        inv = new double[nblocks][][];
+        for (int b = 0; b < nblocks; b++) {
+            int i0 = b * blockSize;
+            int bs = Math.min(blockSize, n - i0);
+            double[][] D = new double[bs][bs];
+            for (int i = 0; i < bs; i++) {
+                for (int p = ptr[i0 + i]; p < ptr[i0 + i + 1]; p++) {
+                    int j = idx[p] - i0;
+                    if (j >= 0 && j < bs) {
+                        D[i][j] = val[p];
+                    }
+                }
+            }
+            inv[b] = new LUDecomposition(D, bs, bs).inverse().getArray();
+        }
+    }
+
+    /*
+     * ------------------------ Public Methods ------------------------
+     */
+
+    /**
+     * @return size of the diagonal blocks
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    @Override
+    public void apply(double[] r, double[] z) {
+        for (int b = 0; b < inv.length; b++) {
+            int i0 = b * blockSize;
+            int bs = Math.min(blockSize, n - i0);
+            Gemv.dgemv(false, bs, bs, 1.0, inv[b], 0, 0, r, i0, 0.0, z, i0);
+        }
+    }
+}
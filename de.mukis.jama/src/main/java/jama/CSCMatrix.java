@@ -0,0 +1,251 @@
+package jama;
+
+import java.io.Serializable;
+
+/**
+ * <p>
+ * Sparse matrix in compressed sparse column (CSC) format. Only the non-zeros
+ * are stored, so memory grows with their number nnz rather than with m*n: the
+ * non-zeros of column j are
+ * {@code getValues()[getColumnPointers()[j]..getColumnPointers()[j+1]-1]},
+ * their rows are the corresponding entries of {@link #getRowIndices()} in
+ * ascending order.
+ * </p>
+ *
+ * <p>
+ * The storage is that of a {@link CSRMatrix} of the transpose, so conversions
+ * between the two formats and the transpose cost one counting sort of the
+ * non-zeros. Columns are contiguous, which suits column-oriented algorithms
+ * and products with A'; products A*x scatter into the result and run
+ * serially.
+ * </p>
+ *
+ * @see CSRMatrix
+ * @see SparseMatrixBuilder
+ * @since 2.0.0
+ */
+public class CSCMatrix implements Serializable, LinearOperator {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Columns compressed by column index.
+     *
+     * @serial compressed storage.
+     */
+    final CompressedStorage s;
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    /**
+     * Construct a CSC matrix from its arrays, which are referenced, not
+     * copied.
+     *
+     * @param m number of rows
+     * @param n number of columns
+     * @param colPtr n + 1 offsets into rowIdx and values, starting at 0
+     * @param rowIdx row of each non-zero, strictly ascending within each column
+     * @param values value of each non-zero
+     * @exception IllegalArgumentException inconsistent array lengths,
+     *                decreasing colPtr, or rowIdx entries out of range or not
+     *                strictly ascending within a column
+     */
+    public CSCMatrix(int m, int n, int[] colPtr, int[] rowIdx, double[] values) {
+        this(new CompressedStorage(n, m, colPtr, rowIdx, values));
+    }
+
+    /**
+     * Construct a CSC matrix from the non-zeros of a dense matrix.
+     *
+     * @param A matrix to compress
+     */
+    public CSCMatrix(Matrix A) {
+        this(CompressedStorage.fromDense(A.getArray(), A.getRowDimension(), A.getColumnDimension(), false));
+    }
+
+    CSCMatrix(CompressedStorage s) {
+        this.s = s;
+    }
+
+    /*
+     * ------------------------ Public Methods ------------------------
+     */
+
+    /**
+     * @return number of rows
+     */
+    @Override
+    public int getRowDimension() {
+        return s.minor;
+    }
+
+    /**
+     * @return number of columns
+     */
+    @Override
+    public int getColumnDimension() {
+        return s.major;
+    }
+
+    /**
+     * @return number of stored non-zeros
+     */
+    public int getNonZeros() {
+        return s.nnz();
+    }
+
+    /**
+     * @return offsets of the columns, n + 1 entries (backing array)
+     */
+    public int[] getColumnPointers() {
+        return s.ptr;
+    }
+
+    /**
+     * @return row index of each non-zero (backing array)
+     */
+    public int[] getRowIndices() {
+        return s.idx;
+    }
+
+    /**
+     * @return value of each non-zero (backing array)
+     */
+    public double[] getValues() {
+        return s.val;
+    }
+
+    /**
+     * Get a single element by binary search in its column.
+     *
+     * @param i row index
+     * @param j column index
+     * @return A(i,j), zero if it is not stored
+     * @exception ArrayIndexOutOfBoundsException index outside of the matrix
+     */
+    public double get(int i, int j) {
+        return s.get(j, i);
+    }
+
+    /**
+     * Multiply by a scalar, keeping the sparsity structure.
+     *
+     * @param alpha scalar
+     * @return alpha*A
+     */
+    public CSCMatrix times(double alpha) {
+        return new CSCMatrix(s.times(alpha));
+    }
+
+    /**
+     * Sparse matrix-vector product.
+     *
+     * @param x vector of n elements
+     * @return A*x
+     * @exception IllegalArgumentException Matrix inner dimensions must agree.
+     */
+    public double[] times(double[] x) {
+        double[] y = new double[s.minor];
+        times(x, y);
+        return y;
+    }
+
+    /**
+     * Sparse matrix-vector product into an existing vector.
+     *
+     * @param x vector of n elements
+     * @param y vector of m elements, overwritten by A*x
+     * @exception IllegalArgumentException Matrix inner dimensions must agree.
+     */
+    public void times(double[] x, double[] y) {
+        if (x.length != s.major || y.length != s.minor) {
+            throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+        }
+        s.scatter(x, y);
+    }
+
+    /**
+     * Same as {@link #times(double[], double[])}.
+     */
+    @Override
+    public void apply(double[] x, double[] y) {
+        times(x, y);
+    }
+
+    /**
+     * Sparse-dense matrix product.
+     *
+     * @param B dense matrix with n rows
+     * @return dense A*B
+     * @exception IllegalArgumentException Matrix inner dimensions must agree.
+     */
+    public Matrix times(Matrix B) {
+        if (B.getRowDimension() != s.major) {
+            throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+        }
+        int nb = B.getColumnDimension();
+        double[][] C = new double[s.minor][nb];
+        s.scatter(B.getArray(), C, nb);
+        return new Matrix(C, s.minor, nb);
+    }
+
+    /**
+     * Sparse-sparse matrix product.
+     *
+     * @param B sparse matrix with n rows
+     * @return A*B in CSC format
+     * @exception IllegalArgumentException Matrix inner dimensions must agree.
+     */
+    public CSCMatrix times(CSCMatrix B) {
+        if (B.s.minor != s.major) {
+            throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+        }
+        // (A*B)' = B'*A', and the CSC arrays of a matrix are the CSR arrays of its transpose.
+        return new CSCMatrix(B.s.multiply(s));
+    }
+
+    /**
+     * Transposed matrix-vector product, without forming the transpose.
+     *
+     * @param x vector of m elements
+     * @return A'*x
+     * @exception IllegalArgumentException Matrix inner dimensions must agree.
+     */
+    public double[] transposeTimes(double[] x) {
+        if (x.length != s.minor) {
+            throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+        }
+        double[] y = new double[s.major];
+        s.gather(x, y);
+        return y;
+    }
+
+    /**
+     * Matrix transpose.
+     *
+     * @return A' in CSC format
+     */
+    public CSCMatrix transpose() {
+        return new CSCMatrix(s.transpose());
+    }
+
+    /**
+     * Convert to compressed sparse row format.
+     *
+     * @return A in CSR format
+     */
+    public CSRMatrix toCSR() {
+        return new CSRMatrix(s.transpose());
+    }
+
+    /**
+     * Convert to a dense matrix.
+     *
+     * @return A as Matrix
+     */
+    public Matrix toMatrix() {
+        return new Matrix(s.toDense(false), s.minor, s.major);
+    }
+}
@@ -0,0 +1,280 @@
+package jama;
+
+import java.io.Serializable;
+
+/**
+ * <p>
+ * Sparse matrix in compressed sparse row (CSR) format. Only the non-zeros are
+ * stored, so memory grows with their number nnz rather than with m*n: the
+ * non-zeros of row i are {@code getValues()[getRowPointers()[i]..getRowPointers()[i+1]-1]},
+ * their columns are the corresponding entries of {@link #getColumnIndices()}
+ * in ascending order.
+ * </p>
+ *
+ * <p>
+ * Rows are contiguous, which makes products with dense vectors and matrices
+ * fast and lets them be split across the {@link jama.blas.Parallel pool} by
+ * rows. Use {@link CSCMatrix} when columns are accessed, and a
+ * {@link SparseMatrixBuilder} to assemble a matrix from (row, column, value)
+ * triplets.
+ * </p>
+ *
+ * <pre>
+ * SparseMatrixBuilder b = new SparseMatrixBuilder(n, n);
+ * for (int i = 0; i &lt; n; i++) {
+ *     b.add(i, i, 2.0);
+ *     if (i &gt; 0) {
+ *         b.add(i, i - 1, -1.0);
+ *         b.add(i - 1, i, -1.0);
+ *     }
+ * }
+ * CSRMatrix L = b.toCSR();
+ * double[] y = L.times(x);
+ * </pre>
+ *
+ * <p>
+ * Instances are immutable apart from the arrays returned by the getters,
+ * which are the backing storage.
+ * </p>
+ *
+ * @see CSCMatrix
+ * @see SparseMatrixBuilder
+ * @since 2.0.0
+ */
+public class CSRMatrix implements Serializable, LinearOperator {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Rows compressed by row index.
+     *
+     * @serial compressed storage.
+     */
+    final CompressedStorage s;
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    /**
+     * Construct a CSR matrix from its arrays, which are referenced, not
+     * copied.
+     *
+     * @param m number of rows
+     * @param n number of columns
+     * @param rowPtr m + 1 offsets into colIdx and values, starting at 0
+     * @param colIdx column of each non-zero, strictly ascending within each row
+     * @param values value of each non-zero
+     * @exception IllegalArgumentException inconsistent array lengths,
+     *                decreasing rowPtr, or colIdx entries out of range or not
+     *                strictly ascending within a row
+     */
+    public CSRMatrix(int m, int n, int[] rowPtr, int[] colIdx, double[] values) {
+        this(new CompressedStorage(m, n, rowPtr, colIdx, values));
+    }
+
+    /**
+     * Construct a CSR matrix from the non-zeros of a dense matrix.
+     *
+     * @param A matrix to compress
+     */
+    public CSRMatrix(Matrix A) {
+        this(CompressedStorage.fromDense(A.getArray(), A.getRowDimension(), A.getColumnDimension(), true));
+    }
+
+    CSRMatrix(CompressedStorage s) {
+        this.s = s;
+    }
+
+    /*
+     * ------------------------ Public Methods ------------------------
+     */
+
+    /**
+     * @return number of rows
+     */
+    @Override
+    public int getRowDimension() {
+        return s.major;
+    }
+
+    /**
+     * @return number of columns
+     */
+    @Override
+    public int getColumnDimension() {
+        return s.minor;
+    }
+
+    /**
+     * @return number of stored non-zeros
+     */
+    public int getNonZeros() {
+        return s.nnz();
+    }
+
+    /**
+     * @return offsets of the rows, m + 1 entries (backing array)
+     */
+    public int[] getRowPointers() {
+        return s.ptr;
+    }
+
+    /**
+     * @return column index of each non-zero (backing array)
+     */
+    public int[] getColumnIndices() {
+        return s.idx;
+    }
+
+    /**
+     * @return value of each non-zero (backing array)
+     */
+    public double[] getValues() {
+        return s.val;
+    }
+
+    /**
+     * Get a single element by binary search in its row.
+     *
+     * @param i row index
+     * @param j column index
+     * @return A(i,j), zero if it is not stored
+     * @exception ArrayIndexOutOfBoundsException index outside of the matrix
+     */
+    public double get(int i, int j) {
+        return s.get(i, j);
+    }
+
+    /**
+     * Get the main diagonal.
+     *
+     * @return A(i,i) for i &lt; min(m,n), zero where not stored
+     */
+    public double[] getDiagonal() {
+        double[] d = new double[Math.min(s.major, s.minor)];
+        for (int i = 0; i < d.length; i++) {
+            d[i] = s.get(i, i);
+        }
+        return d;
+    }
+
+    /**
+     * Multiply by a scalar, keeping the sparsity structure.
+     *
+     * @param alpha scalar
+     * @return alpha*A
+     */
+    public CSRMatrix times(double alpha) {
+        return new CSRMatrix(s.times(alpha));
+    }
+
+    /**
+     * Sparse matrix-vector product.
+     *
+     * @param x vector of n elements
+     * @return A*x
+     * @exception IllegalArgumentException Matrix inner dimensions must agree.
+     */
+    public double[] times(double[] x) {
+        double[] y = new double[s.major];
+        times(x, y);
+        return y;
+    }
+
+    /**
+     * Sparse matrix-vector product into an existing vector.
+     *
+     * @param x vector of n elements
+     * @param y vector of m elements, overwritten by A*x
+     * @exception IllegalArgumentException Matrix inner dimensions must agree.
+     */
+    public void times(double[] x, double[] y) {
+        if (x.length != s.minor || y.length != s.major) {
+            throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+        }
+        s.gather(x, y);
+    }
+
+    /**
+     * Same as {@link #times(double[], double[])}.
+     */
+    @Override
+    public void apply(double[] x, double[] y) {
+        times(x, y);
+    }
+
+    /**
+     * Sparse-dense matrix product.
+     *
+     * @param B dense matrix with n rows
+     * @return dense A*B
+     * @exception IllegalArgumentException Matrix inner dimensions must agree.
+     */
+    public Matrix times(Matrix B) {
+        if (B.getRowDimension() != s.minor) {
+            throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+        }
+        int nb = B.getColumnDimension();
+        double[][] C = new double[s.major][nb];
+        s.gather(B.getArray(), C, nb);
+        return new Matrix(C, s.major, nb);
+    }
+
+    /**
+     * Sparse-sparse matrix product.
+     *
+     * @param B sparse matrix with n rows
+     * @return A*B in CSR format
+     * @exception IllegalArgumentException Matrix inner dimensions must agree.
+     */
+    public CSRMatrix times(CSRMatrix B) {
+        if (B.s.major != s.minor) {
+            throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+        }
+        return new CSRMatrix(s.multiply(B.s));
+    }
+
+    /**
+     * Transposed matrix-vector product, without forming the transpose.
+     *
+     * @param x vector of m elements
+     * @return A'*x
+     * @exception IllegalArgumentException Matrix inner dimensions must agree.
+     */
+    public double[] transposeTimes(double[] x) {
+        if (x.length != s.major) {
+            throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+        }
+        double[] y = new double[s.minor];
+        s.scatter(x, y);
+        return y;
+    }
+
+    /**
+     * Matrix transpose.
+     *
+     * @return A' in CSR format
+     */
+    public CSRMatrix transpose() {
+        return new CSRMatrix(s.transpose());
+    }
+
+    /**
+     * Convert to compressed sparse column format.
+     *
+     * @return A in CSC format
+     */
+    public CSCMatrix toCSC() {
+        return new CSCMatrix(s.transpose());
+    }
+
+    /**
+     * Convert to a dense matrix.
+     *
+     * @return A as Matrix
+     */
+    public Matrix toMatrix() {
+        return new Matrix(s.toDense(true), s.major, s.minor);
+    }
+}
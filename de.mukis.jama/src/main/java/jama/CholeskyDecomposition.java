@@ -1,4 +1,12 @@
 package jama;
+import jama.blas.Gemm;
+import jama.blas.Parallel;
+import jama.blas.Trsm;
+import jama.util.Maths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
    /** Cholesky Decomposition.
    <P>
@@ -8,6 +16,13 @@ package jama;
    If the matrix is not symmetric or positive definite, the constructor
    returns a partial decomposition and sets an internal flag that may
    be queried by the isSPD() method.
+   <P>
+   Matrices with more than 128 rows are factored by a blocked algorithm
+   whose symmetric trailing updates are matrix products executed in
+   parallel.
+   <P>
+   The decomposition of A + x*x' or A - x*x' is obtained from this one by
+   update or downdate with n^2 operations instead of a new factorization.
    */
 
 public class CholeskyDecomposition implements java.io.Serializable {
@@ -31,6 +46,11 @@ public class CholeskyDecomposition implements java.io.Serializable {
    */
    private boolean isspd;
 
+   /** Number of columns per block of the blocked factorization. Smaller
+       matrices are factored by the unblocked algorithm.
+   */
+   private static final int BLOCK_SIZE = 128;
+
 /* ------------------------
    Constructor
  * ------------------------ */
@@ -41,13 +61,37 @@ public class CholeskyDecomposition implements java.io.Serializable {
    */
 
    public CholeskyDecomposition (Matrix Arg) {
+      this(Arg.getArray(), Arg.getRowDimension(), Arg.getColumnDimension());
+   }
+
+   /** Decomposition with a known factor.
+   @param  L      lower triangular factor, owned by the decomposition
+   @param  n      dimension
+   @param  isspd  symmetric and positive definite flag
+   */
+
+   private CholeskyDecomposition (double[][] L, int n, boolean isspd) {
+      this.L = L;
+      this.n = n;
+      this.isspd = isspd;
+   }
+
+   /** Cholesky algorithm on an array, which is only read.
+   @param  A     m-by-n array, the lower triangle is used
+   @param  m     row dimension
+   @param  cols  column dimension
+   */
 
+   CholeskyDecomposition (double[][] A, int m, int cols) {
 
      // Initialize.
-      double[][] A = Arg.getArray();
-      n = Arg.getRowDimension();
+      n = m;
       L = new double[n][n];
-      isspd = (Arg.getColumnDimension() == n);
+      isspd = (cols == n);
+      if (isspd && n > BLOCK_SIZE) {
+         factorBlocked(A);
+         return;
+      }
       // Main loop.
       for (int j = 0; j < n; j++) {
          double[] Lrowj = L[j];
@@ -71,6 +115,166 @@ public class CholeskyDecomposition implements java.io.Serializable {
       }
    }
 
+   /** Rank one modification L*L' +/- x*x' by a sequence of rotations,
+       as in LINPACK dchud and dchdd, on a copy of L.
+   @param  x         vector with n elements, only read
+   @param  downdate  subtract x*x' instead of adding it
+   @return           new decomposition
+   */
+
+   private CholeskyDecomposition rankOne (double[] x, boolean downdate) {
+      if (x.length != n) {
+         throw new IllegalArgumentException("Vector length must agree.");
+      }
+      if (!isspd) {
+         throw new RuntimeException("Matrix is not symmetric positive definite.");
+      }
+      double[][] Lx = new double[n][];
+      for (int i = 0; i < n; i++) {
+         Lx[i] = L[i].clone();
+      }
+      double[] w = x.clone();
+      for (int k = 0; k < n; k++) {
+         double Lkk = Lx[k][k];
+         double r;
+         if (downdate) {
+            double d = (Lkk - w[k])*(Lkk + w[k]);
+            if (!(d > 0.0)) {
+               return new CholeskyDecomposition(Lx, n, false);
+            }
+            r = Math.sqrt(d);
+         } else {
+            r = Maths.hypot(Lkk, w[k]);
+         }
+         double c = r/Lkk;
+         double s = w[k]/Lkk;
+         Lx[k][k] = r;
+         for (int i = k+1; i < n; i++) {
+            double[] Lrowi = Lx[i];
+            Lrowi[k] = (downdate ? Lrowi[k] - s*w[i] : Lrowi[k] + s*w[i])/c;
+            w[i] = c*w[i] - s*Lrowi[k];
+         }
+      }
+      return new CholeskyDecomposition(Lx, n, true);
+   }
+
+   /** Right-looking blocked algorithm. For each block column the diagonal
+       block is factored, the panel below it is solved against the
+       transposed diagonal factor and the trailing matrix is updated with
+       A22 = A22 - L21*L21'. The update is split into block columns which
+       are computed in parallel on the pool of jama.blas.Parallel.
+   @param  A     n-by-n array, only read
+   */
+
+   private void factorBlocked (double[][] A) {
+
+      // Symmetry is checked upfront, the factorization reads the lower
+      // triangle only.
+      for (int j = 0; j < n & isspd; j++) {
+         for (int k = 0; k < j; k++) {
+            isspd = isspd & (A[k][j] == A[j][k]);
+         }
+      }
+      for (int j = 0; j < n; j++) {
+         System.arraycopy(A[j], 0, L[j], 0, j+1);
+      }
+
+      for (int k0 = 0; k0 < n; k0 += BLOCK_SIZE) {
+         int k1 = Math.min(k0 + BLOCK_SIZE, n);
+
+         // Factor the diagonal block and solve the panel below it,
+         // L21 = A21*inv(L11').
+         for (int j = k0; j < k1; j++) {
+            double[] Lrowj = L[j];
+            double d = Lrowj[j];
+            for (int p = k0; p < j; p++) {
+               d -= Lrowj[p]*Lrowj[p];
+            }
+            isspd = isspd & (d > 0.0);
+            Lrowj[j] = Math.sqrt(Math.max(d,0.0));
+            for (int i = j+1; i < n; i++) {
+               double[] Lrowi = L[i];
+               double s = Lrowi[j];
+               for (int p = k0; p < j; p++) {
+                  s -= Lrowi[p]*Lrowj[p];
+               }
+               Lrowi[j] = s/Lrowj[j];
+            }
+         }
+         if (k1 < n) {
+            updateTrailing(k0, k1);
+         }
+      }
+
+      // The trailing updates also touch the upper triangle of the
+      // diagonal blocks.
+      for (int j = 0; j < n; j++) {
+         for (int k = j+1; k < n; k++) {
+            L[j][k] = 0.0;
+         }
+      }
+   }
+
+   /** Symmetric rank-k update of the lower triangle of L(k1:n-1,k1:n-1)
+       with the panel L(k1:n-1,k0:k1-1).
+   */
+
+   private void updateTrailing (int k0, int k1) {
+      List<TrailingUpdate> tasks = new ArrayList<TrailingUpdate>();
+      for (int j0 = k1; j0 < n; j0 += BLOCK_SIZE) {
+         tasks.add(new TrailingUpdate(L, n, k0, k1, j0, Math.min(j0 + BLOCK_SIZE, n)));
+      }
+      long work = (long) (n - k1) * (n - k1) * (k1 - k0) / 2;
+      if (tasks.size() > 1 && Parallel.isWorthwhile(work)) {
+         Parallel.invoke(new TrailingUpdates(tasks));
+      } else {
+         for (TrailingUpdate task : tasks) {
+            task.compute();
+         }
+      }
+   }
+
+   /** Update of one block column of the trailing matrix,
+       L(c0:n-1,c0:c1-1) -= L(c0:n-1,p0:p1-1)*L(c0:c1-1,p0:p1-1)'.
+   */
+
+   private static class TrailingUpdate extends RecursiveAction {
+      private static final long serialVersionUID = 1L;
+      private final double[][] L;
+      private final int n, p0, p1, c0, c1;
+
+      TrailingUpdate (double[][] L, int n, int p0, int p1, int c0, int c1) {
+         this.L = L;
+         this.n = n;
+         this.p0 = p0;
+         this.p1 = p1;
+         this.c0 = c0;
+         this.c1 = c1;
+      }
+
+      @Override
+      protected void compute () {
+         Gemm.dgemm(false, true, n - c0, c1 - c0, p1 - p0, -1.0, L, c0, p0, L, c0, p0, 1.0, L, c0, c0);
+      }
+   }
+
+   /** Runs all block column updates of one step in parallel.
+   */
+
+   private static class TrailingUpdates extends RecursiveAction {
+      private static final long serialVersionUID = 1L;
+      private final List<TrailingUpdate> tasks;
+
+      TrailingUpdates (List<TrailingUpdate> tasks) {
+         this.tasks = tasks;
+      }
+
+      @Override
+      protected void compute () {
+         ForkJoinTask.invokeAll(tasks);
+      }
+   }
+
 /* ------------------------
    Temporary, experimental code.
  * ------------------------ *\
@@ -146,11 +350,36 @@ public class CholeskyDecomposition implements java.io.Serializable {
    }
 
    /** Return triangular factor.
-   @return     L
+   @return     L, a copy
    */
 
    public Matrix getL () {
-      return new Matrix(L,n,n);
+      return new Matrix(L,n,n).copy();
+   }
+
+   /** Rank one update, the decomposition of A + x*x'. This
+       decomposition is not changed.
+   @param  x   vector with n elements
+   @return     Cholesky decomposition of A + x*x'
+   @exception  IllegalArgumentException  Vector length must agree.
+   @exception  RuntimeException  Matrix is not symmetric positive definite.
+   */
+
+   public CholeskyDecomposition update (double[] x) {
+      return rankOne(x, false);
+   }
+
+   /** Rank one downdate, the decomposition of A - x*x'. This
+       decomposition is not changed. If A - x*x' is not positive
+       definite, isSPD() of the result is false.
+   @param  x   vector with n elements
+   @return     Cholesky decomposition of A - x*x'
+   @exception  IllegalArgumentException  Vector length must agree.
+   @exception  RuntimeException  Matrix is not symmetric positive definite.
+   */
+
+   public CholeskyDecomposition downdate (double[] x) {
+      return rankOne(x, true);
    }
 
    /** Solve A*X = B
@@ -172,27 +401,9 @@ public class CholeskyDecomposition implements java.io.Serializable {
       double[][] X = B.getArrayCopy();
       int nx = B.getColumnDimension();
 
-	      // Solve L*Y = B;
-	      for (int k = 0; k < n; k++) {
-	        for (int j = 0; j < nx; j++) {
-	           for (int i = 0; i < k ; i++) {
-	               X[k][j] -= X[i][j]*L[k][i];
-	           }
-	           X[k][j] /= L[k][k];
-	        }
-	      }
-	
-	      // Solve L'*X = Y;
-	      for (int k = n-1; k >= 0; k--) {
-	        for (int j = 0; j < nx; j++) {
-	           for (int i = k+1; i < n ; i++) {
-	               X[k][j] -= X[i][j]*L[i][k];
-	           }
-	           X[k][j] /= L[k][k];
-	        }
-	      }
-      
-      
+      // Solve L*Y = B, then L'*X = Y
+      Trsm.parallelDtrsm(false,false,false,n,nx,L,0,0,X,0,0);
+      Trsm.parallelDtrsm(false,true,false,n,nx,L,0,0,X,0,0);
       return new Matrix(X,n,nx);
    }
   private static final long serialVersionUID = 1;
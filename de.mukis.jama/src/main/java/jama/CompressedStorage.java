@@ -0,0 +1,404 @@
+package jama;
+
+import jama.blas.Elementwise;
+import jama.blas.Parallel;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>
+ * Compressed sparse storage shared by {@link CSRMatrix} and {@link CSCMatrix}.
+ * The non-zeros are grouped by their major index (the row for CSR, the column
+ * for CSC): the entries of major index a are {@code val[ptr[a]..ptr[a+1]-1]}
+ * with minor indices {@code idx[ptr[a]..ptr[a+1]-1]} in ascending order.
+ * </p>
+ *
+ * <p>
+ * The column-compressed form of a matrix is the row-compressed form of its
+ * transpose, so all kernels are written once in terms of major and minor
+ * indices. Kernels whose output is indexed by the major index ("gather") are
+ * split across the {@link Parallel#getPool() pool}; those indexed by the minor
+ * index ("scatter") run serially.
+ * </p>
+ *
+ * @since 2.0.0
+ */
+final class CompressedStorage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Smallest number of major indices handled by one parallel task. */
+    private static final int MIN_SPLIT = 256;
+
+    /** Number of major and minor indices. */
+    final int major, minor;
+
+    /** Start of each major index in idx and val, major + 1 entries. */
+    final int[] ptr;
+
+    /** Minor index of each non-zero. */
+    final int[] idx;
+
+    /** Value of each non-zero. */
+    final double[] val;
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    /**
+     * Wraps compressed arrays without copying them. The structure is checked
+     * in O(major + nnz), so that the kernels can rely on it.
+     *
+     * @exception IllegalArgumentException inconsistent arrays, a decreasing
+     *                pointer array, or minor indices out of range or not
+     *                strictly ascending within a major index
+     */
+    CompressedStorage(int major, int minor, int[] ptr, int[] idx, double[] val) {
+        if (major < 0 || minor < 0) {
+            throw new IllegalArgumentException("Negative dimension.");
+        }
+        if (ptr.length != major + 1 || ptr[0] != 0) {
+            throw new IllegalArgumentException("Pointer array must have " + (major + 1) + " entries starting at 0.");
+        }
+        for (int a = 0; a < major; a++) {
+            if (ptr[a + 1] < ptr[a]) {
+                throw new IllegalArgumentException("Pointer array decreases at " + (a + 1) + ".");
+            }
+        }
+        int nnz = ptr[major];
+        if (idx.length < nnz || val.length < nnz) {
+            throw new IllegalArgumentException("Index and value arrays must have at least " + nnz + " entries.");
+        }
+        for (int a = 0; a < major; a++) {
+            int last = -1;
+            for (int k = ptr[a]; k < ptr[a + 1]; k++) {
+                if (idx[k] <= last || idx[k] >= minor) {
+                    throw new IllegalArgumentException("Index " + idx[k] + " at " + k + " is out of range [0, " + minor
+                            + ") or not ascending.");
+                }
+                last = idx[k];
+            }
+        }
+        this.major = major;
+        this.minor = minor;
+        this.ptr = ptr;
+        this.idx = idx;
+        this.val = val;
+    }
+
+    /**
+     * Compresses triplets (a[k], b[k], v[k]), k &lt; count, by major index a.
+     * Duplicates are summed.
+     */
+    static CompressedStorage fromTriplets(int major, int minor, int[] a, int[] b, double[] v, int count) {
+        // Counting sort by minor index, then stable counting sort by major
+        // index, which leaves each major index sorted by minor index.
+        int[] byMinor = new int[count];
+        int[] start = new int[minor + 1];
+        for (int k = 0; k < count; k++) {
+            start[b[k] + 1]++;
+        }
+        for (int j = 0; j < minor; j++) {
+            start[j + 1] += start[j];
+        }
+        for (int k = 0; k < count; k++) {
+            byMinor[start[b[k]]++] = k;
+        }
+
+        int[] ptr = new int[major + 1];
+        for (int k = 0; k < count; k++) {
+            ptr[a[k] + 1]++;
+        }
+        for (int i = 0; i < major; i++) {
+            ptr[i + 1] += ptr[i];
+        }
+        int[] next = Arrays.copyOf(ptr, major);
+        int[] order = new int[count];
+        for (int k : byMinor) {
+            order[next[a[k]]++] = k;
+        }
+
+        // Sum duplicates while copying.
+        int[] idx = new int[count];
+        double[] val = new double[count];
+        int nnz = 0;
+        for (int i = 0; i < major; i++) {
+            int first = nnz;
+            for (int p = ptr[i]; p < ptr[i + 1]; p++) {
+                int k = order[p];
+                if (nnz > first && idx[nnz - 1] == b[k]) {
+                    val[nnz - 1] += v[k];
+                } else {
+                    idx[nnz] = b[k];
+                    val[nnz++] = v[k];
+                }
+            }
+            ptr[i] = first;
+        }
+        ptr[major] = nnz;
+        return new CompressedStorage(major, minor, ptr, trim(idx, nnz), trim(val, nnz));
+    }
+
+    /**
+     * Compresses the non-zeros of a dense array, by rows if byRow is set and
+     * by columns otherwise.
+     */
+    static CompressedStorage fromDense(double[][] A, int m, int n, boolean byRow) {
+        int major = byRow ? m : n;
+        int minor = byRow ? n : m;
+        int[] ptr = new int[major + 1];
+        int nnz = 0;
+        for (int i = 0; i < m; i++) {
+            double[] Arowi = A[i];
+            for (int j = 0; j < n; j++) {
+                if (Arowi[j] != 0.0) {
+                    ptr[(byRow ? i : j) + 1]++;
+                    nnz++;
+                }
+            }
+        }
+        for (int a = 0; a < major; a++) {
+            ptr[a + 1] += ptr[a];
+        }
+        int[] next = Arrays.copyOf(ptr, major);
+        int[] idx = new int[nnz];
+        double[] val = new double[nnz];
+        for (int i = 0; i < m; i++) {
+            double[] Arowi = A[i];
+            for (int j = 0; j < n; j++) {
+                if (Arowi[j] != 0.0) {
+                    int p = next[byRow ? i : j]++;
+                    idx[p] = byRow ? j : i;
+                    val[p] = Arowi[j];
+                }
+            }
+        }
+        return new CompressedStorage(major, minor, ptr, idx, val);
+    }
+
+    /*
+     * ------------------------ Package Methods ------------------------
+     */
+
+    /** Number of stored non-zeros. */
+    int nnz() {
+        return ptr[major];
+    }
+
+    /** Element (a, b), zero if it is not stored. */
+    double get(int a, int b) {
+        if (a < 0 || a >= major || b < 0 || b >= minor) {
+            throw new ArrayIndexOutOfBoundsException("Index (" + a + "," + b + ") outside of " + major + "x" + minor);
+        }
+        int p = Arrays.binarySearch(idx, ptr[a], ptr[a + 1], b);
+        return p >= 0 ? val[p] : 0.0;
+    }
+
+    /**
+     * The same matrix compressed by the other index, which is also the
+     * transpose in this compression.
+     */
+    CompressedStorage transpose() {
+        int nnz = nnz();
+        int[] tptr = new int[minor + 1];
+        for (int p = 0; p < nnz; p++) {
+            tptr[idx[p] + 1]++;
+        }
+        for (int b = 0; b < minor; b++) {
+            tptr[b + 1] += tptr[b];
+        }
+        int[] next = Arrays.copyOf(tptr, minor);
+        int[] tidx = new int[nnz];
+        double[] tval = new double[nnz];
+        for (int a = 0; a < major; a++) {
+            for (int p = ptr[a]; p < ptr[a + 1]; p++) {
+                int q = next[idx[p]]++;
+                tidx[q] = a;
+                tval[q] = val[p];
+            }
+        }
+        return new CompressedStorage(minor, major, tptr, tidx, tval);
+    }
+
+    /** s * this with the same structure. */
+    CompressedStorage times(double s) {
+        int nnz = nnz();
+        double[] sval = new double[nnz];
+        Elementwise.scale(s, val, sval, nnz);
+        return new CompressedStorage(major, minor, ptr.clone(), Arrays.copyOf(idx, nnz), sval);
+    }
+
+    /**
+     * Product this * B of two matrices compressed by their rows, by
+     * Gustavson's algorithm with a dense accumulator of B.minor entries.
+     */
+    CompressedStorage multiply(CompressedStorage B) {
+        int[] cptr = new int[major + 1];
+        int[] cidx = new int[Math.max(nnz(), B.nnz())];
+        double[] cval = new double[cidx.length];
+        double[] acc = new double[B.minor];
+        int[] mark = new int[B.minor];
+        Arrays.fill(mark, -1);
+        int nnz = 0;
+        for (int a = 0; a < major; a++) {
+            int first = nnz;
+            for (int p = ptr[a]; p < ptr[a + 1]; p++) {
+                int k = idx[p];
+                double s = val[p];
+                for (int q = B.ptr[k]; q < B.ptr[k + 1]; q++) {
+                    int b = B.idx[q];
+                    if (mark[b] != a) {
+                        mark[b] = a;
+                        acc[b] = 0.0;
+                        if (nnz == cidx.length) {
+                            cidx = Arrays.copyOf(cidx, Math.max(16, 2 * nnz));
+                            cval = Arrays.copyOf(cval, cidx.length);
+                        }
+                        cidx[nnz++] = b;
+                    }
+                    acc[b] += s * B.val[q];
+                }
+            }
+            Arrays.sort(cidx, first, nnz);
+            for (int q = first; q < nnz; q++) {
+                cval[q] = acc[cidx[q]];
+            }
+            cptr[a + 1] = nnz;
+        }
+        return new CompressedStorage(major, B.minor, cptr, trim(cidx, nnz), trim(cval, nnz));
+    }
+
+    /** Dense m-by-n array, where m = major if byRow is set and minor otherwise. */
+    double[][] toDense(boolean byRow) {
+        double[][] C = byRow ? new double[major][minor] : new double[minor][major];
+        for (int a = 0; a < major; a++) {
+            for (int p = ptr[a]; p < ptr[a + 1]; p++) {
+                if (byRow) {
+                    C[a][idx[p]] = val[p];
+                } else {
+                    C[idx[p]][a] = val[p];
+                }
+            }
+        }
+        return C;
+    }
+
+    /** y = this * x, y indexed by major index. Multi-threaded. */
+    void gather(double[] x, double[] y) {
+        if (!Parallel.isWorthwhile(nnz())) {
+            gather(0, major, x, y);
+            return;
+        }
+        Parallel.invoke(new GatherTask(this, 0, major, x, null, y, null, 0, grain()));
+    }
+
+    /** C = this * B, rows of C indexed by major index. Multi-threaded. */
+    void gather(double[][] B, double[][] C, int nb) {
+        if (!Parallel.isWorthwhile((long) nnz() * nb)) {
+            gather(0, major, B, C, nb);
+            return;
+        }
+        Parallel.invoke(new GatherTask(this, 0, major, null, B, null, C, nb, grain()));
+    }
+
+    /** y = this' * x, y indexed by minor index. */
+    void scatter(double[] x, double[] y) {
+        Arrays.fill(y, 0, minor, 0.0);
+        for (int a = 0; a < major; a++) {
+            double s = x[a];
+            if (s != 0.0) {
+                for (int p = ptr[a]; p < ptr[a + 1]; p++) {
+                    y[idx[p]] += val[p] * s;
+                }
+            }
+        }
+    }
+
+    /** C = this' * B, rows of C indexed by minor index. C must be zero. */
+    void scatter(double[][] B, double[][] C, int nb) {
+        for (int a = 0; a < major; a++) {
+            double[] Browa = B[a];
+            for (int p = ptr[a]; p < ptr[a + 1]; p++) {
+                Elementwise.axpy(val[p], Browa, C[idx[p]], nb);
+            }
+        }
+    }
+
+    /* ================================================ */
+    /* ============= Private Methods ================== */
+    /* ================================================ */
+
+    private void gather(int lo, int hi, double[] x, double[] y) {
+        for (int a = lo; a < hi; a++) {
+            double s = 0.0;
+            for (int p = ptr[a]; p < ptr[a + 1]; p++) {
+                s += val[p] * x[idx[p]];
+            }
+            y[a] = s;
+        }
+    }
+
+    /** Rows lo..hi-1 of C, which must be zero. */
+    private void gather(int lo, int hi, double[][] B, double[][] C, int nb) {
+        for (int a = lo; a < hi; a++) {
+            double[] Crowa = C[a];
+            for (int p = ptr[a]; p < ptr[a + 1]; p++) {
+                Elementwise.axpy(val[p], B[idx[p]], Crowa, nb);
+            }
+        }
+    }
+
+    private int grain() {
+        return Math.max(MIN_SPLIT, major / (4 * Parallel.getPool().getParallelism()));
+    }
+
+    private static int[] trim(int[] a, int length) {
+        return a.length == length ? a : Arrays.copyOf(a, length);
+    }
+
+    private static double[] trim(double[] a, int length) {
+        return a.length == length ? a : Arrays.copyOf(a, length);
+    }
+
+    /** Computes a range of major indices, halving it until it is below the grain size. */
+    private static final class GatherTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final CompressedStorage s;
+        private final int lo, hi, nb, grain;
+        private final double[] x, y;
+        private final double[][] B, C;
+
+        GatherTask(CompressedStorage s, int lo, int hi, double[] x, double[][] B, double[] y, double[][] C, int nb,
+                int grain) {
+            this.s = s;
+            this.lo = lo;
+            this.hi = hi;
+            this.x = x;
+            this.B = B;
+            this.y = y;
+            this.C = C;
+            this.nb = nb;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= grain) {
+                if (x != null) {
+                    s.gather(lo, hi, x, y);
+                } else {
+                    s.gather(lo, hi, B, C, nb);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new GatherTask(s, lo, mid, x, B, y, C, nb, grain), new GatherTask(s, mid, hi, x, B, y, C, nb,
+                    grain));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package jama;
+
+import jama.blas.Elementwise;
+
+/**
+ * <p>
+ * Conjugate gradient method for symmetric, positive definite systems. Each
+ * iteration costs one product with A, three dot products and three vector
+ * updates, and keeps five vectors of length n. In exact arithmetic the
+ * residual is minimized in the A-norm over a growing Krylov subspace, and the
+ * number of iterations grows with the square root of the condition number.
+ * </p>
+ *
+ * <p>
+ * With a preconditioner M^-1 the method becomes preconditioned CG, which
+ * requires M to be symmetric and positive definite as well, such as
+ * {@link JacobiPreconditioner} or {@link IncompleteCholeskyPreconditioner}.
+ * The iteration breaks off, without converging, if it finds a direction p
+ * with p'*A*p &lt;= 0, which shows that A is not positive definite.
+ * </p>
+ *
+ * @see IterativeSolver
+ * @since 2.0.0
+ */
+public class ConjugateGradientSolver extends IterativeSolver {
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    /**
+     * Conjugate gradient solver.
+     *
+     * @param A symmetric, positive definite operator
+     * @exception IllegalArgumentException Matrix must be square.
+     */
+    public ConjugateGradientSolver(LinearOperator A) {
+        super(A);
+    }
+
+    /* ================================================ */
+    /* ============= Package Methods ================== */
+    /* ================================================ */
+
+    @Override
+    boolean iterate(double[] b, double[] x) {
+        double[] r = new double[n];
+        double[] p = new double[n];
+        double[] q = new double[n];
+        double[] z = new double[n];
+        residual(b, x, r);
+        if (report(0, norm(r))) {
+            return true;
+        }
+        precondition(r, p);
+        double rz = dot(r, p);
+        for (int k = 1; k <= getMaxIterations(); k++) {
+            A.apply(p, q);
+            double pq = dot(p, q);
+            if (!(pq > 0.0)) {
+                return false;
+            }
+            double alpha = rz / pq;
+            Elementwise.axpy(alpha, p, x, n);
+            Elementwise.axpy(-alpha, q, r, n);
+            if (report(k, norm(r))) {
+                return true;
+            }
+
+            // p = z + beta * p with z = M^-1 * r
+            precondition(r, z);
+            double rzNew = dot(r, z);
+            Elementwise.scale(rzNew / rz, p, p, n);
+            Elementwise.add(z, p, p, n);
+            rz = rzNew;
+        }
+        return false;
+    }
+}
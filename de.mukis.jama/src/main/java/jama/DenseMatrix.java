@@ -0,0 +1,665 @@
+package jama;
+
+import jama.blas.Gemm;
+
+import java.io.Serializable;
+import java.nio.DoubleBuffer;
+
+/**
+ * <p>
+ * Dense matrix backed by a single one-dimensional {@code double[]}. The
+ * elements are stored either row by row ({@link Layout#ROW_MAJOR}) or column by
+ * column ({@link Layout#COLUMN_MAJOR}, as in Fortran and BLAS) with a leading
+ * dimension, which is the distance between two consecutive rows (row-major)
+ * or columns (column-major) in the backing array.
+ * </p>
+ *
+ * <p>
+ * In contrast to {@link Matrix}, whose rows are separate heap objects, the
+ * elements of a DenseMatrix are contiguous. Hot loops therefore run over a
+ * single array, packed copies are plain {@code System.arraycopy} calls and the
+ * data can be handed to native code or NIO buffers without repacking.
+ * Submatrices and the transpose are views which share the backing array.
+ * </p>
+ *
+ * <pre>
+ * DenseMatrix A = new DenseMatrix(matrix, Layout.COLUMN_MAJOR);
+ * DenseMatrix block = A.view(0, 99, 0, 99); // no copy
+ * DenseMatrix C = block.times(block.transpose());
+ * </pre>
+ *
+ * @since 2.0.0
+ */
+public class DenseMatrix implements Cloneable, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Order in which the elements are stored in the backing array.
+     */
+    public enum Layout {
+        /** Elements of a row are adjacent. */
+        ROW_MAJOR,
+        /** Elements of a column are adjacent. */
+        COLUMN_MAJOR
+    }
+
+    /**
+     * Backing array, possibly shared with other views.
+     *
+     * @serial backing array.
+     */
+    private final double[] data;
+
+    /**
+     * Index of element (0,0) in the backing array.
+     *
+     * @serial offset.
+     */
+    private final int offset;
+
+    /**
+     * Row and column dimensions.
+     *
+     * @serial row dimension.
+     * @serial column dimension.
+     */
+    private final int m, n;
+
+    /**
+     * Distance between two rows (row-major) or columns (column-major).
+     *
+     * @serial leading dimension.
+     */
+    private final int ld;
+
+    /**
+     * @serial storage layout.
+     */
+    private final Layout layout;
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    /**
+     * Construct an m-by-n row-major matrix of zeros.
+     *
+     * @param m Number of rows.
+     * @param n Number of colums.
+     */
+    public DenseMatrix(int m, int n) {
+        this(m, n, Layout.ROW_MAJOR);
+    }
+
+    /**
+     * Construct an m-by-n matrix of zeros.
+     *
+     * @param m Number of rows.
+     * @param n Number of colums.
+     * @param layout storage order
+     * @exception IllegalArgumentException Negative dimension or more than
+     *                Integer.MAX_VALUE elements.
+     */
+    public DenseMatrix(int m, int n, Layout layout) {
+        this(new double[size(m, n)], 0, m, n, Math.max(layout == Layout.ROW_MAJOR ? n : m, 1), layout);
+    }
+
+    /**
+     * Construct a matrix on top of an existing array without copying it.
+     *
+     * @param data backing array with at least m * n elements
+     * @param m Number of rows.
+     * @param n Number of colums.
+     * @param layout storage order of data
+     * @exception IllegalArgumentException Array too short.
+     */
+    public DenseMatrix(double[] data, int m, int n, Layout layout) {
+        this(data, 0, m, n, Math.max(layout == Layout.ROW_MAJOR ? n : m, 1), layout);
+    }
+
+    /**
+     * Construct a matrix on top of an existing array without copying it.
+     *
+     * @param data backing array
+     * @param offset index of element (0,0)
+     * @param m Number of rows.
+     * @param n Number of colums.
+     * @param ld leading dimension, at least n (row-major) or m (column-major),
+     *            and at least 1 unless there are no rows (row-major) or
+     *            columns (column-major)
+     * @param layout storage order of data
+     * @exception IllegalArgumentException Invalid leading dimension or array
+     *                too short.
+     */
+    public DenseMatrix(double[] data, int offset, int m, int n, int ld, Layout layout) {
+        if (m < 0 || n < 0 || offset < 0) {
+            throw new IllegalArgumentException("Negative dimension or offset.");
+        }
+        int minor = (layout == Layout.ROW_MAJOR ? n : m);
+        int major = (layout == Layout.ROW_MAJOR ? m : n);
+        if (ld < minor || (major > 0 && ld < 1)) {
+            throw new IllegalArgumentException("Leading dimension " + ld + " must be at least "
+                    + (major > 0 ? Math.max(minor, 1) : minor) + ".");
+        }
+        if (major > 0 && minor > 0 && offset + (long) (major - 1) * ld + minor > data.length) {
+            throw new IllegalArgumentException("Array length " + data.length + " is too short for a " + m + "x" + n
+                    + " matrix.");
+        }
+        this.data = data;
+        this.offset = offset;
+        this.m = m;
+        this.n = n;
+        this.ld = ld;
+        this.layout = layout;
+    }
+
+    /**
+     * Construct a matrix from a copy of a {@link Matrix}.
+     *
+     * @param A matrix to copy
+     * @param layout storage order of the copy
+     */
+    public DenseMatrix(Matrix A, Layout layout) {
+        this(A.getRowDimension(), A.getColumnDimension(), layout);
+        double[][] a = A.getArray();
+        if (layout == Layout.ROW_MAJOR) {
+            for (int i = 0; i < m; i++) {
+                System.arraycopy(a[i], 0, data, i * n, n);
+            }
+        } else {
+            for (int i = 0; i < m; i++) {
+                double[] arowi = a[i];
+                for (int j = 0; j < n; j++) {
+                    data[i + j * m] = arowi[j];
+                }
+            }
+        }
+    }
+
+    /*
+     * ------------------------ Public Methods ------------------------
+     */
+
+    /**
+     * Make a deep, contiguous copy with the same layout.
+     */
+    public DenseMatrix copy() {
+        return copy(layout);
+    }
+
+    /**
+     * Make a deep, contiguous copy.
+     *
+     * @param target storage order of the copy
+     */
+    public DenseMatrix copy(Layout target) {
+        DenseMatrix X = new DenseMatrix(m, n, target);
+        if (target == layout && isContiguous()) {
+            System.arraycopy(data, offset, X.data, 0, m * n);
+        } else {
+            X.assign(this);
+        }
+        return X;
+    }
+
+    /**
+     * Clone the DenseMatrix object.
+     */
+    @Override
+    public Object clone() {
+        return this.copy();
+    }
+
+    /**
+     * Converts to a {@link Matrix} with separate row arrays.
+     *
+     * @return copy of this matrix
+     */
+    public Matrix toMatrix() {
+        Matrix X = new Matrix(m, n);
+        double[][] C = X.getArray();
+        int rs = rowStride();
+        int cs = columnStride();
+        for (int i = 0; i < m; i++) {
+            double[] Crowi = C[i];
+            if (cs == 1 && n > 0) {
+                System.arraycopy(data, offset + i * rs, Crowi, 0, n);
+            } else {
+                int idx = offset + i * rs;
+                for (int j = 0; j < n; j++, idx += cs) {
+                    Crowi[j] = data[idx];
+                }
+            }
+        }
+        return X;
+    }
+
+    /**
+     * Access the backing array. Element (i,j) is stored at
+     * {@code getOffset() + i * ld + j} (row-major) or
+     * {@code getOffset() + i + j * ld} (column-major).
+     *
+     * @return the backing array, shared with all views of it
+     */
+    public double[] getData() {
+        return data;
+    }
+
+    /**
+     * @return index of element (0,0) in the backing array
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return distance between two rows (row-major) or columns (column-major)
+     */
+    public int getLeadingDimension() {
+        return ld;
+    }
+
+    /**
+     * @return storage order
+     */
+    public Layout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Get row dimension.
+     *
+     * @return m, the number of rows.
+     */
+    public int getRowDimension() {
+        return m;
+    }
+
+    /**
+     * Get column dimension.
+     *
+     * @return n, the number of columns.
+     */
+    public int getColumnDimension() {
+        return n;
+    }
+
+    /**
+     * @return true if the elements occupy a gap-free range of the backing
+     *         array
+     */
+    public boolean isContiguous() {
+        return ld == (layout == Layout.ROW_MAJOR ? n : m) || m <= 1 && layout == Layout.ROW_MAJOR
+                || n <= 1 && layout == Layout.COLUMN_MAJOR || m == 0 || n == 0;
+    }
+
+    /**
+     * Get a single element.
+     *
+     * @param i Row index.
+     * @param j Column index.
+     * @return A(i,j)
+     * @exception ArrayIndexOutOfBoundsException
+     */
+    public double get(int i, int j) {
+        return data[index(i, j)];
+    }
+
+    /**
+     * Set a single element.
+     *
+     * @param i Row index.
+     * @param j Column index.
+     * @param s A(i,j).
+     * @exception ArrayIndexOutOfBoundsException
+     */
+    public void set(int i, int j, double s) {
+        data[index(i, j)] = s;
+    }
+
+    /**
+     * Submatrix view which shares the backing array. Changes to the view are
+     * visible in this matrix and vice versa.
+     *
+     * @param i0 Initial row index
+     * @param i1 Final row index
+     * @param j0 Initial column index
+     * @param j1 Final column index
+     * @return A(i0:i1,j0:j1)
+     * @exception ArrayIndexOutOfBoundsException Submatrix indices
+     */
+    public DenseMatrix view(int i0, int i1, int j0, int j1) {
+        if (i0 < 0 || j0 < 0 || i1 >= m || j1 >= n || i1 < i0 - 1 || j1 < j0 - 1) {
+            throw new ArrayIndexOutOfBoundsException("Submatrix indices");
+        }
+        return new DenseMatrix(data, offset + i0 * rowStride() + j0 * columnStride(), i1 - i0 + 1, j1 - j0 + 1, ld,
+                layout);
+    }
+
+    /**
+     * Transpose as a view which shares the backing array. A row-major matrix
+     * becomes a column-major one and vice versa.
+     *
+     * @return A'
+     */
+    public DenseMatrix transpose() {
+        return new DenseMatrix(data, offset, n, m, ld, layout == Layout.ROW_MAJOR ? Layout.COLUMN_MAJOR
+                : Layout.ROW_MAJOR);
+    }
+
+    /**
+     * Make a one-dimensional column packed copy.
+     *
+     * @return Matrix elements packed in a one-dimensional array by columns.
+     */
+    public double[] getColumnPackedCopy() {
+        if (layout == Layout.COLUMN_MAJOR && isContiguous()) {
+            double[] vals = new double[size(m, n)];
+            System.arraycopy(data, offset, vals, 0, vals.length);
+            return vals;
+        }
+        return copy(Layout.COLUMN_MAJOR).data;
+    }
+
+    /**
+     * Make a one-dimensional row packed copy.
+     *
+     * @return Matrix elements packed in a one-dimensional array by rows.
+     */
+    public double[] getRowPackedCopy() {
+        if (layout == Layout.ROW_MAJOR && isContiguous()) {
+            double[] vals = new double[size(m, n)];
+            System.arraycopy(data, offset, vals, 0, vals.length);
+            return vals;
+        }
+        return copy(Layout.ROW_MAJOR).data;
+    }
+
+    /**
+     * Wraps the elements into a buffer without copying them. Only contiguous
+     * matrices can be wrapped, use {@link #copy()} first otherwise.
+     *
+     * @return buffer which shares the backing array, in the order given by
+     *         {@link #getLayout()}
+     * @exception IllegalStateException Matrix is not contiguous.
+     */
+    public DoubleBuffer asDoubleBuffer() {
+        if (!isContiguous()) {
+            throw new IllegalStateException("Matrix is not contiguous.");
+        }
+        return DoubleBuffer.wrap(data, offset, m * n).slice();
+    }
+
+    /**
+     * Copies the elements of B into this matrix.
+     *
+     * @param B matrix of the same dimensions
+     * @return this
+     */
+    public DenseMatrix assign(DenseMatrix B) {
+        checkMatrixDimensions(B);
+        if (overlaps(B)) {
+            B = B.copy();
+        }
+        if (layout == B.layout && isContiguous() && B.isContiguous()) {
+            System.arraycopy(B.data, B.offset, data, offset, m * n);
+            return this;
+        }
+        int rs = rowStride(), cs = columnStride();
+        int brs = B.rowStride(), bcs = B.columnStride();
+        for (int i = 0; i < m; i++) {
+            int idx = offset + i * rs;
+            int bidx = B.offset + i * brs;
+            for (int j = 0; j < n; j++, idx += cs, bidx += bcs) {
+                data[idx] = B.data[bidx];
+            }
+        }
+        return this;
+    }
+
+    /**
+     * C = A + B
+     *
+     * @param B another matrix
+     * @return A + B
+     */
+    public DenseMatrix plus(DenseMatrix B) {
+        return copy().plusEquals(B);
+    }
+
+    /**
+     * A = A + B
+     *
+     * @param B another matrix
+     * @return A + B
+     */
+    public DenseMatrix plusEquals(DenseMatrix B) {
+        return axpy(1.0, B);
+    }
+
+    /**
+     * C = A - B
+     *
+     * @param B another matrix
+     * @return A - B
+     */
+    public DenseMatrix minus(DenseMatrix B) {
+        return copy().minusEquals(B);
+    }
+
+    /**
+     * A = A - B
+     *
+     * @param B another matrix
+     * @return A - B
+     */
+    public DenseMatrix minusEquals(DenseMatrix B) {
+        return axpy(-1.0, B);
+    }
+
+    /**
+     * Multiply a matrix by a scalar, C = s*A
+     *
+     * @param s scalar
+     * @return s*A
+     */
+    public DenseMatrix times(double s) {
+        return copy().timesEquals(s);
+    }
+
+    /**
+     * Multiply a matrix by a scalar in place, A = s*A
+     *
+     * @param s scalar
+     * @return replace A by s*A
+     */
+    public DenseMatrix timesEquals(double s) {
+        if (isContiguous()) {
+            for (int idx = offset, end = offset + m * n; idx < end; idx++) {
+                data[idx] *= s;
+            }
+            return this;
+        }
+        int rs = rowStride(), cs = columnStride();
+        for (int i = 0; i < m; i++) {
+            int idx = offset + i * rs;
+            for (int j = 0; j < n; j++, idx += cs) {
+                data[idx] *= s;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Linear algebraic matrix multiplication, A * B. The result has the layout
+     * of this matrix.
+     *
+     * @param B another matrix
+     * @return Matrix product, A * B
+     * @exception IllegalArgumentException Matrix inner dimensions must agree.
+     */
+    public DenseMatrix times(DenseMatrix B) {
+        if (B.m != n) {
+            throw new IllegalArgumentException("Matrix inner dimensions must agree. (B.m != n) " + B.m + " != " + n);
+        }
+        DenseMatrix X = new DenseMatrix(m, B.n, layout);
+        Gemm.parallelDgemm(m, B.n, n, 1.0, data, offset, rowStride(), columnStride(), B.data, B.offset,
+                B.rowStride(), B.columnStride(), 0.0, X.data, X.offset, X.rowStride(), X.columnStride());
+        return X;
+    }
+
+    /**
+     * Frobenius norm
+     *
+     * @return sqrt of sum of squares of all elements.
+     */
+    public double normF() {
+        double scale = 0.0;
+        double ssq = 1.0;
+        int rs = rowStride(), cs = columnStride();
+        for (int i = 0; i < m; i++) {
+            int idx = offset + i * rs;
+            for (int j = 0; j < n; j++, idx += cs) {
+                double a = Math.abs(data[idx]);
+                if (a != 0.0) {
+                    if (scale < a) {
+                        ssq = 1.0 + ssq * (scale / a) * (scale / a);
+                        scale = a;
+                    } else {
+                        ssq += (a / scale) * (a / scale);
+                    }
+                }
+            }
+        }
+        return scale * Math.sqrt(ssq);
+    }
+
+    /* ================================================ */
+    /* ============= Hashcode and Equals ============== */
+    /* ================================================ */
+
+    @Override
+    public int hashCode() {
+        int result = 31 * m + n;
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                long bits = Double.doubleToLongBits(get(i, j));
+                result = 31 * result + (int) (bits ^ (bits >>> 32));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Two dense matrices are equal if they have the same dimensions and
+     * elements, regardless of their layout.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        DenseMatrix other = (DenseMatrix) obj;
+        if (m != other.m || n != other.n) {
+            return false;
+        }
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                if (Double.doubleToLongBits(get(i, j)) != Double.doubleToLongBits(other.get(i, j))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /* ================================================ */
+    /* ============= Private Methods ================== */
+    /* ================================================ */
+
+    private int rowStride() {
+        return layout == Layout.ROW_MAJOR ? ld : 1;
+    }
+
+    private int columnStride() {
+        return layout == Layout.ROW_MAJOR ? 1 : ld;
+    }
+
+    private int index(int i, int j) {
+        if (i < 0 || i >= m || j < 0 || j >= n) {
+            throw new ArrayIndexOutOfBoundsException("Index (" + i + "," + j + ") outside of " + m + "x" + n);
+        }
+        return offset + i * rowStride() + j * columnStride();
+    }
+
+    /** A = A + s * B */
+    private DenseMatrix axpy(double s, DenseMatrix B) {
+        checkMatrixDimensions(B);
+        if (overlaps(B)) {
+            B = B.copy();
+        }
+        if (layout == B.layout && isContiguous() && B.isContiguous()) {
+            double[] b = B.data;
+            for (int idx = offset, bidx = B.offset, end = offset + m * n; idx < end; idx++, bidx++) {
+                data[idx] += s * b[bidx];
+            }
+            return this;
+        }
+        int rs = rowStride(), cs = columnStride();
+        int brs = B.rowStride(), bcs = B.columnStride();
+        for (int i = 0; i < m; i++) {
+            int idx = offset + i * rs;
+            int bidx = B.offset + i * brs;
+            for (int j = 0; j < n; j++, idx += cs, bidx += bcs) {
+                data[idx] += s * B.data[bidx];
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Check if B shares elements with this matrix other than at the same
+     * positions, e.g. a transposed or shifted view of the same array. An
+     * element-wise loop would then read elements it has already written.
+     */
+    private boolean overlaps(DenseMatrix B) {
+        if (data != B.data || m == 0 || n == 0) {
+            return false;
+        }
+        int rs = rowStride(), cs = columnStride();
+        int brs = B.rowStride(), bcs = B.columnStride();
+        if (offset == B.offset && rs == brs && cs == bcs) {
+            return false;
+        }
+        long last = offset + (long) (m - 1) * rs + (long) (n - 1) * cs;
+        long blast = B.offset + (long) (m - 1) * brs + (long) (n - 1) * bcs;
+        return offset <= blast && B.offset <= last;
+    }
+
+    /** Number of elements of an m-by-n matrix, if it fits into an array. */
+    private static int size(int m, int n) {
+        if (m < 0 || n < 0) {
+            throw new IllegalArgumentException("Negative dimension.");
+        }
+        long size = (long) m * n;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A " + m + "x" + n + " matrix has more than " + Integer.MAX_VALUE
+                    + " elements.");
+        }
+        return (int) size;
+    }
+
+    /** Check if size(A) == size(B) **/
+    private void checkMatrixDimensions(DenseMatrix B) {
+        if (B.m != m || B.n != n) {
+            throw new IllegalArgumentException("Matrix dimensions must agree.");
+        }
+    }
+}
@@ -1,6 +1,12 @@
 package jama;
+import jama.blas.Gemm;
+import jama.blas.Gemv;
+import jama.blas.Parallel;
 import jama.gpu.*;
 import jama.util.Maths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.RecursiveAction;
 
 /** Eigenvalues and eigenvectors of a real matrix. 
 <P>
@@ -16,6 +22,18 @@ import jama.util.Maths;
     i.e. A.times(V) equals V.times(D).  The matrix V may be badly
     conditioned, or even singular, so the validity of the equation
     A = V*D*inverse(V) depends upon V.cond().
+<P>
+    Symmetric matrices are reduced to tridiagonal form and diagonalized
+    by the implicit QL algorithm unless Solver.DIVIDE_AND_CONQUER is
+    requested, which uses a blocked, parallel reduction and Cuppen's
+    divide-and-conquer algorithm and is considerably faster for large
+    matrices when all eigenvectors are needed.
+<P>
+    If only the eigenvalues are needed, the eigenvectors need not be
+    accumulated, which saves most of the work and the n-by-n matrix V.
+    For symmetric matrices a range of eigenpairs, for example the k
+    largest, can be computed by bisection and inverse iteration on the
+    tridiagonal form, with time and memory for V proportional to k.
 **/
 
 public class EigenvalueDecomposition implements java.io.Serializable {
@@ -44,6 +62,12 @@ public class EigenvalueDecomposition implements java.io.Serializable {
    */
    private double[][] V;
 
+   /** Eigenvectors flag, only used while computing. Not serialized, so
+       that streams without it still deserialize; V is null if only
+       eigenvalues were computed.
+   */
+   private transient boolean wantv = true;
+
    /** Array for internal storage of nonsymmetric Hessenberg form.
    @serial internal storage of nonsymmetric Hessenberg form.
    */
@@ -54,6 +78,29 @@ public class EigenvalueDecomposition implements java.io.Serializable {
    */
    private double[] ort;
 
+   /** Algorithms for symmetric matrices. Nonsymmetric matrices are always
+       reduced to Hessenberg and then real Schur form.
+   */
+
+   public enum Solver {
+      /** Householder tridiagonalization (tred2) and implicit QL (tql2). */
+      QL,
+      /** Blocked Householder tridiagonalization whose trailing updates
+          are matrix products, followed by the divide-and-conquer
+          tridiagonal eigensolver. Independent subproblems and the
+          eigenvector updates run on the pool of jama.blas.Parallel. */
+      DIVIDE_AND_CONQUER
+   }
+
+   /** Reflectors per block of the tridiagonal reduction and of the back
+       transformation.
+   */
+   private static final int TRD_BLOCK_SIZE = 32;
+
+   /** Tridiagonal subproblems up to this size are solved by tql2.
+   */
+   private static final int DC_LEAF_SIZE = 32;
+
 /* ------------------------
    Private Methods
  * ------------------------ */
@@ -177,12 +224,13 @@ public class EigenvalueDecomposition implements java.io.Serializable {
 
    // Symmetric tridiagonal QL algorithm.
    
-   private void tql2 () {
+   private static void tql2 (int n, double[] d, double[] e, double[][] V) {
 
    //  This is derived from the Algol procedures tql2, by
    //  Bowdler, Martin, Reinsch, and Wilkinson, Handbook for
    //  Auto. Comp., Vol.ii-Linear Algebra, and the corresponding
    //  Fortran subroutine in EISPACK.
+   //  If V is null, only the eigenvalues are computed (Algol's tql1).
    
       for (int i = 1; i < n; i++) {
          e[i-1] = e[i];
@@ -254,10 +302,12 @@ public class EigenvalueDecomposition implements java.io.Serializable {
    
                   // Accumulate transformation.
    
-                  for (int k = 0; k < n; k++) {
-                     h = V[k][i+1];
-                     V[k][i+1] = s * V[k][i] + c * h;
-                     V[k][i] = c * V[k][i] - s * h;
+                  if (V != null) {
+                     for (int k = 0; k < n; k++) {
+                        h = V[k][i+1];
+                        V[k][i+1] = s * V[k][i] + c * h;
+                        V[k][i] = c * V[k][i] - s * h;
+                     }
                   }
                }
                p = -s * s2 * c3 * el1 * e[l] / dl1;
@@ -286,7 +336,7 @@ public class EigenvalueDecomposition implements java.io.Serializable {
          if (k != i) {
             d[k] = d[i];
             d[i] = p;
-            for (int j = 0; j < n; j++) {
+            for (int j = 0; V != null && j < n; j++) {
                p = V[j][i];
                V[j][i] = V[j][k];
                V[j][k] = p;
@@ -295,6 +345,725 @@ public class EigenvalueDecomposition implements java.io.Serializable {
       }
    }
 
+   // Symmetry test.
+
+   private static boolean isSymmetric (double[][] A, int n) {
+      boolean issymmetric = true;
+      for (int j = 0; (j < n) & issymmetric; j++) {
+         for (int i = 0; (i < n) & issymmetric; i++) {
+            issymmetric = (A[i][j] == A[j][i]);
+         }
+      }
+      return issymmetric;
+   }
+
+   // Number of eigenvalues of the symmetric tridiagonal matrix less than x.
+
+   private static int sturmCount (int n, double[] d, double[] sub, double x, double pivmin) {
+
+   //  The signs of the pivots of the LDL' factorization of T - x*I,
+   //  as in LAPACK dlaebz.
+
+      int count = 0;
+      double q = d[0] - x;
+      for (int i = 0; ; i++) {
+         if (Math.abs(q) < pivmin) {
+            q = -pivmin;
+         }
+         if (q < 0) {
+            count++;
+         }
+         if (i == n-1) {
+            return count;
+         }
+         q = (d[i+1] - x) - sub[i]*sub[i]/q;
+      }
+   }
+
+   // Eigenvalues il..iu of the symmetric tridiagonal matrix by bisection.
+
+   private static double[] bisect (int n, double[] d, double[] sub, int il, int iu) {
+      final double eps = Math.pow(2.0,-52.0);
+
+      // Scale T to norm about 1, so that pivmin does not limit the
+      // accuracy for a tiny T.
+      double scale = 1.0/normScale(n, d, sub);
+      double[] ds = new double[n];
+      double[] ss = new double[n];
+      for (int i = 0; i < n; i++) {
+         ds[i] = scale*d[i];
+         ss[i] = scale*sub[i];
+      }
+      d = ds;
+      sub = ss;
+
+      // Gershgorin interval containing all eigenvalues.
+      double gl = Double.MAX_VALUE;
+      double gu = -Double.MAX_VALUE;
+      double pivmin = Double.MIN_NORMAL;
+      for (int i = 0; i < n; i++) {
+         double r = (i > 0 ? Math.abs(sub[i-1]) : 0.0) + (i < n-1 ? Math.abs(sub[i]) : 0.0);
+         gl = Math.min(gl, d[i] - r);
+         gu = Math.max(gu, d[i] + r);
+         if (i < n-1) {
+            pivmin = Math.max(pivmin, sub[i]*sub[i]*Double.MIN_NORMAL);
+         }
+      }
+      double tnorm = Math.max(Math.abs(gl), Math.abs(gu));
+      gl -= 2.0*eps*tnorm*n + 2.0*pivmin;
+      gu += 2.0*eps*tnorm*n + 2.0*pivmin;
+
+      // Bisect for each index, reusing the bracket of the previous one.
+      double[] w = new double[iu - il + 1];
+      double lo = gl;
+      for (int j = il; j <= iu; j++) {
+         double hi = gu;
+         while (hi - lo > 2.0*eps*Math.max(Math.abs(lo), Math.abs(hi)) + pivmin) {
+            double mid = lo + (hi - lo)/2.0;
+            if (mid <= lo || mid >= hi) {
+               break;
+            }
+            if (sturmCount(n, d, sub, mid, pivmin) > j) {
+               hi = mid;
+            } else {
+               lo = mid;
+            }
+         }
+         w[j-il] = (lo + (hi - lo)/2.0)/scale;
+      }
+      return w;
+   }
+
+   // A power of two close to the norm of the symmetric tridiagonal
+   // matrix, 1 for the zero matrix. Scaling by it is exact.
+
+   private static double normScale (int n, double[] d, double[] sub) {
+      double tnorm = 0.0;
+      for (int i = 0; i < n; i++) {
+         tnorm = Math.max(tnorm, Math.abs(d[i]) + (i > 0 ? Math.abs(sub[i-1]) : 0.0)
+                                               + (i < n-1 ? Math.abs(sub[i]) : 0.0));
+      }
+      return (tnorm > 0.0 ? Math.scalb(1.0, Math.getExponent(tnorm)) : 1.0);
+   }
+
+   // Eigenvectors of the symmetric tridiagonal matrix for the ascending
+   // eigenvalues w by inverse iteration.
+
+   private static void inverseIteration (int n, double[] d, double[] sub, double[] w, double[][] Z) {
+
+   //  This follows LAPACK dstein. T - lambda*I is factored by Gaussian
+   //  elimination with partial pivoting, the eigenvector is found by a
+   //  few solves starting from a pseudo-random vector. Vectors of close
+   //  eigenvalues are kept orthogonal by Gram-Schmidt, and equal
+   //  eigenvalues are perturbed slightly. T is scaled to norm about 1,
+   //  so that the tolerances neither vanish nor become subnormal for a
+   //  zero or tiny T. Equal eigenvalues, e.g. of blocks split off by
+   //  zero off-diagonals, always fall into one cluster.
+
+      final double eps = Math.pow(2.0,-52.0);
+      int k = w.length;
+      double scale = 1.0/normScale(n, d, sub);
+      double[] ds = new double[n];
+      double[] ss = new double[n];
+      for (int i = 0; i < n; i++) {
+         ds[i] = scale*d[i];
+         ss[i] = scale*sub[i];
+      }
+      double ortol = 1e-3;
+      double pivtiny = eps;
+
+      double[] a = new double[n];
+      double[] b = new double[n];
+      double[] c = new double[n];
+      double[] mult = new double[n];
+      boolean[] swap = new boolean[n];
+      double[] x = new double[n];
+      java.util.Random random = new java.util.Random(1L);
+      int cluster = 0;
+      double prev = 0.0;
+      for (int j = 0; j < k; j++) {
+         double lambda = scale*w[j];
+         if (j > 0 && lambda - scale*w[j-1] >= ortol) {
+            cluster = j;
+         }
+         if (j > 0 && lambda - prev < 10.0*eps*Math.max(Math.abs(lambda), 1.0)) {
+            lambda = prev + 10.0*eps*Math.max(Math.abs(prev), 1.0);
+         }
+         prev = lambda;
+
+         // Factor P*(T - lambda*I) = L*U, U with two superdiagonals.
+         for (int i = 0; i < n; i++) {
+            a[i] = ds[i] - lambda;
+            b[i] = (i < n-1 ? ss[i] : 0.0);
+            c[i] = 0.0;
+         }
+         for (int i = 0; i < n-1; i++) {
+            double s = ss[i];
+            if (Math.abs(a[i]) >= Math.abs(s)) {
+               swap[i] = false;
+               mult[i] = (s == 0.0 ? 0.0 : s/a[i]);
+               a[i+1] -= mult[i]*b[i];
+            } else {
+               swap[i] = true;
+               mult[i] = a[i]/s;
+               double ai1 = a[i+1];
+               double bi1 = b[i+1];
+               a[i+1] = b[i] - mult[i]*ai1;
+               a[i] = s;
+               b[i] = ai1;
+               c[i] = bi1;
+               b[i+1] = -mult[i]*bi1;
+            }
+            if (Math.abs(a[i]) < pivtiny) {
+               a[i] = (a[i] < 0.0 ? -pivtiny : pivtiny);
+            }
+         }
+         if (Math.abs(a[n-1]) < pivtiny) {
+            a[n-1] = (a[n-1] < 0.0 ? -pivtiny : pivtiny);
+         }
+
+         for (int i = 0; i < n; i++) {
+            x[i] = random.nextDouble() - 0.5;
+         }
+         for (int iter = 0; iter < 3; iter++) {
+
+            // Solve L*U*x = P*x.
+            for (int i = 0; i < n-1; i++) {
+               if (swap[i]) {
+                  double t = x[i];
+                  x[i] = x[i+1];
+                  x[i+1] = t;
+               }
+               x[i+1] -= mult[i]*x[i];
+            }
+            x[n-1] /= a[n-1];
+            if (n > 1) {
+               x[n-2] = (x[n-2] - b[n-2]*x[n-1])/a[n-2];
+            }
+            for (int i = n-3; i >= 0; i--) {
+               x[i] = (x[i] - b[i]*x[i+1] - c[i]*x[i+2])/a[i];
+            }
+
+            // Orthogonalize against the cluster and normalize.
+            for (int p = cluster; p < j; p++) {
+               double dot = 0.0;
+               for (int i = 0; i < n; i++) {
+                  dot += Z[i][p]*x[i];
+               }
+               for (int i = 0; i < n; i++) {
+                  x[i] -= dot*Z[i][p];
+               }
+            }
+            double nrm = 0.0;
+            for (int i = 0; i < n; i++) {
+               nrm = Maths.hypot(nrm, x[i]);
+            }
+            for (int i = 0; i < n; i++) {
+               x[i] /= nrm;
+            }
+         }
+         for (int i = 0; i < n; i++) {
+            Z[i][j] = x[i];
+         }
+      }
+   }
+
+   // Blocked symmetric Householder reduction to tridiagonal form.
+
+   private static void tridiagonalize (double[][] A, int n, double[] d, double[] sub, double[] tau) {
+
+   //  This follows the LAPACK routines dsytrd and dlatrd. The reflectors
+   //  H(c) = I - tau(c)*v*v', v(c+1) = 1, of a block of columns are
+   //  applied to the trailing matrix at once as A = A - V*W' - W*V',
+   //  two matrix products. The trailing matrix is kept in full.
+   //  On return d is the diagonal and sub the subdiagonal of
+   //  T = Q'*A*Q with Q = H(0)*...*H(n-2), v(c+2:n-1) is stored
+   //  in A(c+2:n-1,c).
+
+      int nb = TRD_BLOCK_SIZE;
+      if (n == 0) {
+         return;
+      }
+      double[][] Vb = new double[n][nb];
+      double[][] Wb = new double[n][nb];
+      double[] v = new double[n];
+      double[] w = new double[n];
+      double[] t1 = new double[nb];
+      double[] t2 = new double[nb];
+
+      for (int k0 = 0; k0 < n-1; k0 += nb) {
+         int k1 = Math.min(k0 + nb, n-1);
+         for (int i = 0; i < k1 - k0; i++) {
+            int c = k0 + i;
+
+            // Apply the previous reflectors of the block to column c.
+
+            if (i > 0) {
+               double[] Vrowc = Vb[c];
+               double[] Wrowc = Wb[c];
+               for (int r = c; r < n; r++) {
+                  double[] Vrowr = Vb[r];
+                  double[] Wrowr = Wb[r];
+                  double s = 0.0;
+                  for (int p = 0; p < i; p++) {
+                     s += Vrowr[p]*Wrowc[p] + Wrowr[p]*Vrowc[p];
+                  }
+                  A[r][c] -= s;
+               }
+            }
+            d[c] = A[c][c];
+
+            // Generate the reflector annihilating A(c+2:n-1,c).
+
+            double alpha = A[c+1][c];
+            double xnorm = 0.0;
+            for (int r = c+2; r < n; r++) {
+               xnorm = Maths.hypot(xnorm, A[r][c]);
+            }
+            double beta = alpha;
+            double t = 0.0;
+            if (xnorm != 0.0) {
+               beta = -Math.copySign(Maths.hypot(alpha, xnorm), alpha);
+               t = (beta - alpha)/beta;
+               double scale = 1.0/(alpha - beta);
+               for (int r = c+2; r < n; r++) {
+                  A[r][c] *= scale;
+               }
+            }
+            sub[c] = beta;
+            tau[c] = t;
+            int m2 = n-c-1;
+            v[0] = 1.0;
+            Vb[c+1][i] = 1.0;
+            for (int r = c+2; r < n; r++) {
+               v[r-c-1] = Vb[r][i] = A[r][c];
+            }
+
+            // w = tau*(A22 - V*W' - W*V')*v, corrected so that the
+            // rank-2 update is A22 - v*w' - w*v'.
+
+            Gemv.parallelDgemv(false, m2, m2, 1.0, A, c+1, c+1, v, 0, 0.0, w, 0);
+            if (i > 0) {
+               for (int p = 0; p < i; p++) {
+                  t1[p] = 0.0;
+                  t2[p] = 0.0;
+               }
+               for (int r = c+1; r < n; r++) {
+                  double[] Vrowr = Vb[r];
+                  double[] Wrowr = Wb[r];
+                  double vr = v[r-c-1];
+                  for (int p = 0; p < i; p++) {
+                     t1[p] += Wrowr[p]*vr;
+                     t2[p] += Vrowr[p]*vr;
+                  }
+               }
+               for (int r = c+1; r < n; r++) {
+                  double[] Vrowr = Vb[r];
+                  double[] Wrowr = Wb[r];
+                  double s = 0.0;
+                  for (int p = 0; p < i; p++) {
+                     s += Vrowr[p]*t1[p] + Wrowr[p]*t2[p];
+                  }
+                  w[r-c-1] -= s;
+               }
+            }
+            double dot = 0.0;
+            for (int q = 0; q < m2; q++) {
+               w[q] *= t;
+               dot += w[q]*v[q];
+            }
+            double a = -0.5*t*dot;
+            for (int q = 0; q < m2; q++) {
+               Wb[c+1+q][i] = w[q] + a*v[q];
+            }
+         }
+
+         // Update the trailing matrix, A22 = A22 - V*W' - W*V'.
+
+         int jb = k1 - k0;
+         Gemm.parallelDgemm(false, true, n-k1, n-k1, jb, -1.0, Vb, k1, 0, Wb, k1, 0, 1.0, A, k1, k1);
+         Gemm.parallelDgemm(false, true, n-k1, n-k1, jb, -1.0, Wb, k1, 0, Vb, k1, 0, 1.0, A, k1, k1);
+      }
+      d[n-1] = A[n-1][n-1];
+   }
+
+   // Z = Q*Z, Z with nz columns, for the reflectors left in A by
+   // tridiagonalize.
+
+   private static void backTransform (double[][] A, int n, double[] tau, double[][] Z, int nz) {
+
+   //  Q = H(0)*...*H(n-2) is applied backwards in blocks of nb
+   //  reflectors, each in the compact WY form I - V*T*V' (LAPACK dlarft,
+   //  dlarfb), so the work is done by matrix products.
+
+      int nb = TRD_BLOCK_SIZE;
+      if (n < 2 || nz == 0) {
+         return;
+      }
+      for (int c0 = (n-2)/nb*nb; c0 >= 0; c0 -= nb) {
+         int c1 = Math.min(c0 + nb, n-1);
+         int jb = c1 - c0;
+         int mm = n-c0-1;
+
+         // V(r,j) is v of reflector c0+j at row c0+1+r.
+         double[][] V = new double[mm][jb];
+         for (int j = 0; j < jb; j++) {
+            V[j][j] = 1.0;
+            for (int r = j+1; r < mm; r++) {
+               V[r][j] = A[c0+1+r][c0+j];
+            }
+         }
+         double[][] T = new double[jb][jb];
+         double[] x = new double[jb];
+         for (int j = 0; j < jb; j++) {
+            double t = tau[c0+j];
+            if (t == 0.0) {
+               continue;
+            }
+            for (int p = 0; p < j; p++) {
+               x[p] = 0.0;
+            }
+            for (int r = j; r < mm; r++) {
+               double[] Vrowr = V[r];
+               for (int p = 0; p < j; p++) {
+                  x[p] += Vrowr[p]*Vrowr[j];
+               }
+            }
+            for (int p = 0; p < j; p++) {
+               double s = 0.0;
+               for (int q = p; q < j; q++) {
+                  s += T[p][q]*x[q];
+               }
+               T[p][j] = -t*s;
+            }
+            T[j][j] = t;
+         }
+
+         // W = T*(V'*Z(c0+1:n-1,:)), Z(c0+1:n-1,:) -= V*W
+         double[][] W = new double[jb][nz];
+         Gemm.parallelDgemm(true, false, jb, nz, mm, 1.0, V, 0, 0, Z, c0+1, 0, 0.0, W, 0, 0);
+         for (int p = 0; p < jb; p++) {
+            double[] Wrowp = W[p];
+            double tpp = T[p][p];
+            for (int c = 0; c < nz; c++) {
+               Wrowp[c] *= tpp;
+            }
+            for (int q = p+1; q < jb; q++) {
+               double tpq = T[p][q];
+               if (tpq != 0.0) {
+                  double[] Wrowq = W[q];
+                  for (int c = 0; c < nz; c++) {
+                     Wrowp[c] += tpq*Wrowq[c];
+                  }
+               }
+            }
+         }
+         Gemm.parallelDgemm(false, false, mm, nz, jb, -1.0, V, 0, 0, W, 0, 0, 1.0, Z, c0+1, 0);
+      }
+   }
+
+   // Divide-and-conquer eigensolver for symmetric tridiagonal matrices.
+
+   private static class DivideAndConquer extends RecursiveAction {
+
+   //  Cuppen's method as in LAPACK dstedc/dlaed0-dlaed4. T(lo:hi-1) is
+   //  split into two halves by a rank-one tear, T = diag(T1,T2) + rho*u*u',
+   //  the halves are diagonalized recursively, and the eigenvalues of
+   //  D + rho*z*z' are the roots of the secular equation. The
+   //  eigenvectors of T are diag(Q1,Q2) times those of D + rho*z*z',
+   //  a matrix product. On return d(lo:hi-1) holds the eigenvalues in
+   //  ascending order and Z(lo:hi-1,lo:hi-1) the eigenvectors.
+
+      private static final long serialVersionUID = 1L;
+      private final double[] d, e;
+      private final int lo, hi;
+      private final double[][] Z;
+
+      DivideAndConquer (double[] d, double[] e, int lo, int hi, double[][] Z) {
+         this.d = d;
+         this.e = e;
+         this.lo = lo;
+         this.hi = hi;
+         this.Z = Z;
+      }
+
+      @Override
+      protected void compute () {
+         int nn = hi - lo;
+         if (nn <= DC_LEAF_SIZE) {
+            double[] dl = new double[nn];
+            double[] el = new double[nn];
+            double[][] Vl = new double[nn][nn];
+            for (int i = 0; i < nn; i++) {
+               dl[i] = d[lo+i];
+               el[i] = (i > 0 ? e[lo+i-1] : 0.0);
+               Vl[i][i] = 1.0;
+            }
+            tql2(nn, dl, el, Vl);
+            for (int i = 0; i < nn; i++) {
+               d[lo+i] = dl[i];
+               System.arraycopy(Vl[i], 0, Z[lo+i], lo, nn);
+            }
+            return;
+         }
+
+         // Tear T(mid-1,mid) off and subtract |beta| from the touched
+         // diagonal elements, so that rho = |beta| >= 0.
+         int mid = lo + nn/2;
+         double beta = e[mid-1];
+         d[mid-1] -= Math.abs(beta);
+         d[mid] -= Math.abs(beta);
+         DivideAndConquer upper = new DivideAndConquer(d, e, lo, mid, Z);
+         DivideAndConquer lower = new DivideAndConquer(d, e, mid, hi, Z);
+         if (Parallel.isWorthwhile((long) nn*nn*nn)) {
+            invokeAll(upper, lower);
+         } else {
+            upper.compute();
+            lower.compute();
+         }
+         merge(mid, beta);
+      }
+
+      private void merge (int mid, double beta) {
+         final int nn = hi - lo;
+         final double eps = Math.pow(2.0,-52.0);
+
+         // z = Q'*u is the last row of Q1 and the first row of Q2.
+         double rho = Math.abs(beta);
+         double[] z = new double[nn];
+         for (int i = 0; i < nn; i++) {
+            z[i] = (i < mid-lo ? Z[mid-1][lo+i] : Math.copySign(1.0, beta)*Z[mid][lo+i]);
+         }
+         double znorm = 0.0;
+         for (int i = 0; i < nn; i++) {
+            znorm = Maths.hypot(znorm, z[i]);
+         }
+         rho *= znorm*znorm;
+
+         // Sort the eigenvalues of the halves, gather the columns of Q.
+         Integer[] order = new Integer[nn];
+         for (int i = 0; i < nn; i++) {
+            order[i] = i;
+         }
+         final double[] D0 = Arrays.copyOfRange(d, lo, hi);
+         Arrays.sort(order, new Comparator<Integer>() {
+            public int compare (Integer a, Integer b) {
+               return Double.compare(D0[a], D0[b]);
+            }
+         });
+         double[] D = new double[nn];
+         double[] zs = new double[nn];
+         double[][] Q = new double[nn][nn];
+         double dmax = 0.0;
+         for (int j = 0; j < nn; j++) {
+            int o = order[j];
+            D[j] = D0[o];
+            zs[j] = (znorm == 0.0 ? 0.0 : z[o]/znorm);
+            dmax = Math.max(dmax, Math.abs(D[j]));
+            for (int r = 0; r < nn; r++) {
+               Q[r][j] = Z[lo+r][lo+o];
+            }
+         }
+
+         // Deflation: negligible components of z, and pairs of close
+         // eigenvalues, which are combined by a Givens rotation.
+         double tol = 8.0*eps*Math.max(dmax, rho);
+         boolean[] deflated = new boolean[nn];
+         int prev = -1;
+         for (int j = 0; j < nn; j++) {
+            if (rho*Math.abs(zs[j]) <= tol) {
+               deflated[j] = true;
+               continue;
+            }
+            if (prev >= 0) {
+               double s = zs[prev];
+               double c = zs[j];
+               double tau = Maths.hypot(c, s);
+               double t = D[j] - D[prev];
+               c /= tau;
+               s = -s/tau;
+               if (Math.abs(t*c*s) <= tol) {
+                  zs[j] = tau;
+                  zs[prev] = 0.0;
+                  for (int r = 0; r < nn; r++) {
+                     double[] Qrowr = Q[r];
+                     double qp = Qrowr[prev];
+                     double qj = Qrowr[j];
+                     Qrowr[prev] = c*qp + s*qj;
+                     Qrowr[j] = c*qj - s*qp;
+                  }
+                  double dp = D[prev]*c*c + D[j]*s*s;
+                  D[j] = D[prev]*s*s + D[j]*c*c;
+                  D[prev] = dp;
+                  deflated[prev] = true;
+               }
+            }
+            prev = j;
+         }
+         int k = 0;
+         int[] K = new int[nn];
+         for (int j = 0; j < nn; j++) {
+            if (!deflated[j]) {
+               K[k++] = j;
+            }
+         }
+
+         double[] lambda = new double[nn];
+         double[][] X = new double[nn][];
+         for (int j = 0; j < nn; j++) {
+            if (deflated[j]) {
+               lambda[j] = D[j];
+               X[j] = null;
+            }
+         }
+         if (k > 0) {
+            double[] dk = new double[k];
+            double[] zk = new double[k];
+            double zz = 0.0;
+            for (int i = 0; i < k; i++) {
+               dk[i] = D[K[i]];
+               zk[i] = zs[K[i]];
+               zz += zk[i]*zk[i];
+            }
+
+            // Roots lambda(j) = dk(origin(j)) + delta(j) of the secular
+            // equation 1 + rho*sum(zk(i)^2/(dk(i)-lambda)) = 0.
+            int[] origin = new int[k];
+            double[] delta = new double[k];
+            for (int j = 0; j < k; j++) {
+               secularRoot(dk, zk, k, rho, zz, j, origin, delta);
+            }
+
+            // Recompute z from the roots (Gu and Eisenstat), so that the
+            // eigenvectors are numerically orthogonal.
+            double[] zh = new double[k];
+            for (int i = 0; i < k; i++) {
+               double w = -((dk[i] - dk[origin[i]]) - delta[i]);
+               for (int j = 0; j < k; j++) {
+                  if (j != i) {
+                     w *= ((dk[i] - dk[origin[j]]) - delta[j])/(dk[i] - dk[j]);
+                  }
+               }
+               zh[i] = Math.copySign(Math.sqrt(Math.abs(w)), zk[i]);
+            }
+
+            // Eigenvectors of D + rho*z*z', S(:,j) = zh./(dk-lambda(j)).
+            double[][] S = new double[k][k];
+            for (int j = 0; j < k; j++) {
+               double nrm = 0.0;
+               for (int i = 0; i < k; i++) {
+                  double s = zh[i]/((dk[i] - dk[origin[j]]) - delta[j]);
+                  S[i][j] = s;
+                  nrm = Maths.hypot(nrm, s);
+               }
+               for (int i = 0; i < k; i++) {
+                  S[i][j] /= nrm;
+               }
+            }
+
+            // Eigenvectors of T, Q(:,K)*S.
+            double[][] QK = new double[nn][k];
+            for (int r = 0; r < nn; r++) {
+               double[] Qrowr = Q[r];
+               double[] QKrowr = QK[r];
+               for (int i = 0; i < k; i++) {
+                  QKrowr[i] = Qrowr[K[i]];
+               }
+            }
+            double[][] QS = new double[nn][k];
+            Gemm.parallelDgemm(false, false, nn, k, k, 1.0, QK, 0, 0, S, 0, 0, 0.0, QS, 0, 0);
+            for (int j = 0; j < k; j++) {
+               lambda[K[j]] = dk[origin[j]] + delta[j];
+               double[] x = new double[nn];
+               for (int r = 0; r < nn; r++) {
+                  x[r] = QS[r][j];
+               }
+               X[K[j]] = x;
+            }
+         }
+
+         // Write back the eigenpairs in ascending order.
+         final double[] lam = lambda;
+         Integer[] sorted = new Integer[nn];
+         for (int i = 0; i < nn; i++) {
+            sorted[i] = i;
+         }
+         Arrays.sort(sorted, new Comparator<Integer>() {
+            public int compare (Integer a, Integer b) {
+               return Double.compare(lam[a], lam[b]);
+            }
+         });
+         for (int j = 0; j < nn; j++) {
+            int o = sorted[j];
+            d[lo+j] = lam[o];
+            double[] x = X[o];
+            for (int r = 0; r < nn; r++) {
+               Z[lo+r][lo+j] = (x != null ? x[r] : Q[r][o]);
+            }
+         }
+      }
+   }
+
+   // Root j of the secular equation, found by Newton's method safeguarded
+   // with bisection. The root is represented relative to the nearest pole,
+   // lambda = dk(origin) + delta, so that dk(i) - lambda is accurate.
+
+   private static void secularRoot (double[] dk, double[] zk, int k, double rho, double zz, int j,
+                                    int[] origin, double[] delta) {
+      final double eps = Math.pow(2.0,-52.0);
+      int o;
+      double lo;
+      double hi;
+      if (j < k-1) {
+         double mid = (dk[j+1] - dk[j])/2.0;
+         double f = 1.0;
+         for (int i = 0; i < k; i++) {
+            f += rho*zk[i]*zk[i]/((dk[i] - dk[j]) - mid);
+         }
+         if (f >= 0) {
+            o = j;
+            lo = 0.0;
+            hi = mid;
+         } else {
+            o = j+1;
+            lo = -mid;
+            hi = 0.0;
+         }
+      } else {
+         o = k-1;
+         lo = 0.0;
+         hi = rho*zz;
+      }
+      double tau = (lo + hi)/2.0;
+      for (int iter = 0; iter < 200; iter++) {
+         double f = 1.0;
+         double fp = 0.0;
+         for (int i = 0; i < k; i++) {
+            double q = zk[i]/((dk[i] - dk[o]) - tau);
+            f += rho*zk[i]*q;
+            fp += rho*q*q;
+         }
+         if (f == 0.0) {
+            break;
+         }
+         if (f < 0.0) {
+            lo = tau;
+         } else {
+            hi = tau;
+         }
+         if (hi - lo <= 2.0*eps*Math.max(Math.abs(lo), Math.abs(hi))) {
+            break;
+         }
+         double next = tau - f/fp;
+         if (!(next > lo && next < hi)) {
+            next = (lo + hi)/2.0;
+         }
+         tau = next;
+      }
+      origin[j] = o;
+      delta[j] = tau;
+   }
+
    // Nonsymmetric reduction to Hessenberg form.
 
    private void orthes () {
@@ -362,6 +1131,9 @@ public class EigenvalueDecomposition implements java.io.Serializable {
    
       // Accumulate transformations (Algol's ortran).
 
+      if (!wantv) {
+         return;
+      }
       for (int i = 0; i < n; i++) {
          for (int j = 0; j < n; j++) {
             V[i][j] = (i == j ? 1.0 : 0.0);
@@ -416,6 +1188,8 @@ public class EigenvalueDecomposition implements java.io.Serializable {
       //  by Martin and Wilkinson, Handbook for Auto. Comp.,
       //  Vol.ii-Linear Algebra, and the corresponding
       //  Fortran subroutine in EISPACK.
+      //  Without eigenvectors, the transformations are only applied to
+      //  the active block H(l:n,l:n) as in Algol's hqr.
    
       // Initialize
    
@@ -505,7 +1279,7 @@ public class EigenvalueDecomposition implements java.io.Serializable {
    
                // Row modification
    
-               for (int j = n-1; j < nn; j++) {
+               for (int j = n-1; wantv && j < nn; j++) {
                   z = H[n-1][j];
                   H[n-1][j] = q * z + p * H[n][j];
                   H[n][j] = q * H[n][j] - p * z;
@@ -513,7 +1287,7 @@ public class EigenvalueDecomposition implements java.io.Serializable {
    
                // Column modification
    
-               for (int i = 0; i <= n; i++) {
+               for (int i = 0; wantv && i <= n; i++) {
                   z = H[i][n-1];
                   H[i][n-1] = q * z + p * H[i][n];
                   H[i][n] = q * H[i][n] - p * z;
@@ -521,7 +1295,7 @@ public class EigenvalueDecomposition implements java.io.Serializable {
    
                // Accumulate transformations
    
-               for (int i = low; i <= high; i++) {
+               for (int i = low; wantv && i <= high; i++) {
                   z = V[i][n-1];
                   V[i][n-1] = q * z + p * V[i][n];
                   V[i][n] = q * V[i][n] - p * z;
@@ -654,7 +1428,7 @@ public class EigenvalueDecomposition implements java.io.Serializable {
    
                   // Row modification
    
-                  for (int j = k; j < nn; j++) {
+                  for (int j = k; j <= (wantv ? nn-1 : n); j++) {
                      p = H[k][j] + q * H[k+1][j];
                      if (notlast) {
                         p = p + r * H[k+2][j];
@@ -666,7 +1440,7 @@ public class EigenvalueDecomposition implements java.io.Serializable {
    
                   // Column modification
    
-                  for (int i = 0; i <= Math.min(n,k+3); i++) {
+                  for (int i = (wantv ? 0 : l); i <= Math.min(n,k+3); i++) {
                      p = x * H[i][k] + y * H[i][k+1];
                      if (notlast) {
                         p = p + z * H[i][k+2];
@@ -678,7 +1452,7 @@ public class EigenvalueDecomposition implements java.io.Serializable {
    
                   // Accumulate transformations
    
-                  for (int i = low; i <= high; i++) {
+                  for (int i = low; wantv && i <= high; i++) {
                      p = x * V[i][k] + y * V[i][k+1];
                      if (notlast) {
                         p = p + z * V[i][k+2];
@@ -694,7 +1468,7 @@ public class EigenvalueDecomposition implements java.io.Serializable {
       
       // Backsubstitute to find vectors of upper triangular form
 
-      if (norm == 0.0) {
+      if (norm == 0.0 || !wantv) {
          return;
       }
    
@@ -861,20 +1635,176 @@ public class EigenvalueDecomposition implements java.io.Serializable {
    */
 
    public EigenvalueDecomposition (Matrix Arg) {
-      double[][] A = Arg.getArray();
+      this(Arg.getArray(), Arg.getColumnDimension(), Solver.QL);
+   }
+
+   /** Check for symmetry, then construct the eigenvalue decomposition
+       with the given algorithm for symmetric matrices.
+   @param Arg      Square matrix
+   @param solver   algorithm used if Arg is symmetric
+   */
+
+   public EigenvalueDecomposition (Matrix Arg, Solver solver) {
+      this(Arg.getArray(), Arg.getColumnDimension(), solver);
+   }
+
+   /** Check for symmetry, then construct the eigenvalue decomposition,
+       optionally without eigenvectors.
+   @param Arg      Square matrix
+   @param wantv    false to compute the eigenvalues only
+   */
+
+   public EigenvalueDecomposition (Matrix Arg, boolean wantv) {
+      this(Arg, Solver.QL, wantv);
+   }
+
+   /** Check for symmetry, then construct the eigenvalue decomposition
+       with the given algorithm for symmetric matrices, optionally
+       without eigenvectors.
+   @param Arg      Square matrix
+   @param solver   algorithm used if Arg is symmetric and wantv is true
+   @param wantv    false to compute the eigenvalues only
+   */
+
+   public EigenvalueDecomposition (Matrix Arg, Solver solver, boolean wantv) {
+      this(Arg.getArray(), Arg.getColumnDimension(), solver, wantv);
+   }
+
+   /** Selected eigenpairs of a symmetric matrix. The eigenvalues are
+       numbered in ascending order, so il = n-k and iu = n-1 select the
+       k largest. getD is (iu-il+1)-by-(iu-il+1) and getV is
+       n-by-(iu-il+1).
+   @param Arg      Square symmetric matrix
+   @param il       index of the smallest eigenvalue wanted
+   @param iu       index of the largest eigenvalue wanted
+   @exception  IllegalArgumentException Matrix must be square and symmetric.
+   @exception  IndexOutOfBoundsException Index range is not within 0..n-1.
+   */
+
+   public EigenvalueDecomposition (Matrix Arg, int il, int iu) {
+      this(Arg, il, iu, true);
+   }
+
+   /** Selected eigenvalues of a symmetric matrix, optionally with their
+       eigenvectors.
+   @param Arg      Square symmetric matrix
+   @param il       index of the smallest eigenvalue wanted
+   @param iu       index of the largest eigenvalue wanted
+   @param wantv    false to compute the eigenvalues only
+   @exception  IllegalArgumentException Matrix must be square and symmetric.
+   @exception  IndexOutOfBoundsException Index range is not within 0..n-1.
+   */
+
+   public EigenvalueDecomposition (Matrix Arg, int il, int iu, boolean wantv) {
       n = Arg.getColumnDimension();
-      V = new double[n][n];
+      double[][] A = Arg.getArray();
+      if (Arg.getRowDimension() != n) {
+         throw new IllegalArgumentException("Matrix must be square.");
+      }
+      if (il < 0 || iu >= n || il > iu) {
+         throw new IndexOutOfBoundsException("Index range " + il + ".." + iu + " is not within 0.." + (n-1) + ".");
+      }
+      issymmetric = isSymmetric(A, n);
+      if (!issymmetric) {
+         throw new IllegalArgumentException("Matrix must be symmetric.");
+      }
+      this.wantv = wantv;
+      int k = iu - il + 1;
+
+      double[][] QT = new double[n][];
+      for (int i = 0; i < n; i++) {
+         QT[i] = Arrays.copyOf(A[i], n);
+      }
+      double[] diag = new double[n];
+      double[] sub = new double[n];
+      double[] tau = new double[n];
+      tridiagonalize(QT, n, diag, sub, tau);
+
+      // Eigenvalues by bisection.
+      d = bisect(n, diag, sub, il, iu);
+      e = new double[k];
+
+      // Eigenvectors by inverse iteration, then V = Q*Z.
+      if (wantv) {
+         V = new double[n][k];
+         inverseIteration(n, diag, sub, d, V);
+         backTransform(QT, n, tau, V, k);
+      }
+   }
+
+   /** Eigenvalue decomposition of an array, which is only read.
+   @param A    n-by-n array
+   @param n    dimension
+   */
+
+   EigenvalueDecomposition (double[][] A, int n) {
+      this(A, n, Solver.QL);
+   }
+
+   /** Eigenvalue decomposition of an array, which is only read.
+   @param A        n-by-n array
+   @param n        dimension
+   @param solver   algorithm used if A is symmetric
+   */
+
+   EigenvalueDecomposition (double[][] A, int n, Solver solver) {
+      this(A, n, solver, true);
+   }
+
+   /** Eigenvalue decomposition of an array, which is only read.
+   @param A        n-by-n array
+   @param n        dimension
+   @param solver   algorithm used if A is symmetric and wantv is true
+   @param wantv    false to compute the eigenvalues only
+   */
+
+   EigenvalueDecomposition (double[][] A, int n, Solver solver, boolean wantv) {
+      this.n = n;
+      this.wantv = wantv;
       d = new double[n];
       e = new double[n];
 
-      issymmetric = true;
-      for (int j = 0; (j < n) & issymmetric; j++) {
-         for (int i = 0; (i < n) & issymmetric; i++) {
-            issymmetric = (A[i][j] == A[j][i]);
+      issymmetric = isSymmetric(A, n);
+
+      if (issymmetric && !wantv) {
+         double[][] T = new double[n][];
+         for (int i = 0; i < n; i++) {
+            T[i] = Arrays.copyOf(A[i], n);
          }
-      }
+         double[] sub = new double[n];
+         double[] tau = new double[n];
+
+         // Tridiagonalize without forming Q.
+         tridiagonalize(T, n, d, sub, tau);
+
+         // Diagonalize without eigenvectors, e holds the subdiagonal
+         // in the convention of tred2.
+         for (int i = 1; i < n; i++) {
+            e[i] = sub[i-1];
+         }
+         tql2(n, d, e, null);
+
+      } else if (issymmetric && solver == Solver.DIVIDE_AND_CONQUER) {
+         V = new double[n][n];
+         for (int i = 0; i < n; i++) {
+            System.arraycopy(A[i], 0, V[i], 0, n);
+         }
+         double[] sub = new double[n];
+         double[] tau = new double[n];
+
+         // Tridiagonalize, V holds the reflectors afterwards.
+         tridiagonalize(V, n, d, sub, tau);
 
-      if (issymmetric) {
+         // Diagonalize the tridiagonal matrix.
+         double[][] Z = new double[n][n];
+         Parallel.invoke(new DivideAndConquer(d, sub, 0, n, Z));
+
+         // Back transformation, V = Q*Z.
+         backTransform(V, n, tau, Z, n);
+         V = Z;
+
+      } else if (issymmetric) {
+         V = new double[n][n];
          for (int i = 0; i < n; i++) {
             for (int j = 0; j < n; j++) {
                V[i][j] = A[i][j];
@@ -885,9 +1815,10 @@ public class EigenvalueDecomposition implements java.io.Serializable {
          tred2();
    
          // Diagonalize.
-         tql2();
+         tql2(n, d, e, V);
 
       } else {
+         V = (wantv ? new double[n][n] : null);
          H = new double[n][n];
          ort = new double[n];
          
@@ -911,10 +1842,22 @@ public class EigenvalueDecomposition implements java.io.Serializable {
 
    /** Return the eigenvector matrix
    @return     V
+   @exception  IllegalStateException Eigenvectors were not computed.
    */
 
    public Matrix getV () {
-      return new Matrix(V,n,n);
+      if (V == null) {
+         throw new IllegalStateException("Eigenvectors were not computed.");
+      }
+      return new Matrix(V,n,d.length);
+   }
+
+   /** Were the eigenvectors computed?
+   @return     true unless only eigenvalues were requested
+   */
+
+   public boolean hasEigenvectors () {
+      return V != null;
    }
 
    /** Return the real parts of the eigenvalues
@@ -938,10 +1881,11 @@ public class EigenvalueDecomposition implements java.io.Serializable {
    */
 
    public Matrix getD () {
-      Matrix X = new Matrix(n,n);
+      int k = d.length;
+      Matrix X = new Matrix(k,k);
       double[][] D = X.getArray();
-      for (int i = 0; i < n; i++) {
-         for (int j = 0; j < n; j++) {
+      for (int i = 0; i < k; i++) {
+         for (int j = 0; j < k; j++) {
             D[i][j] = 0.0;
          }
          D[i][i] = d[i];
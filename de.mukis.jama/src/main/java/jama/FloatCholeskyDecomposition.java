@@ -0,0 +1,135 @@
+package jama;
+
+import jama.blas.Trsm;
+
+import java.io.Serializable;
+
+/**
+ * <p>
+ * Cholesky decomposition of a symmetric, positive definite {@link FloatMatrix}
+ * in single precision, A = L*L' with a lower triangular L.
+ * </p>
+ *
+ * <p>
+ * The decomposition is computed directly on the {@code float[][]} storage.
+ * Like {@link CholeskyDecomposition} it always returns, but if the matrix is
+ * not symmetric and positive definite {@link #isSPD()} is false and
+ * {@link #solve(FloatMatrix)} fails.
+ * </p>
+ *
+ * @see CholeskyDecomposition
+ * @since 2.0.0
+ */
+public class FloatCholeskyDecomposition implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Array for internal storage of decomposition.
+     *
+     * @serial internal array storage.
+     */
+    private final float[][] L;
+
+    /**
+     * Row and column dimension (square matrix).
+     *
+     * @serial matrix dimension.
+     */
+    private final int n;
+
+    /**
+     * Symmetric and positive definite flag.
+     *
+     * @serial is symmetric and positive definite flag.
+     */
+    private final boolean isspd;
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    /**
+     * Cholesky algorithm for symmetric and positive definite matrix.
+     *
+     * @param Arg Square, symmetric matrix.
+     */
+    public FloatCholeskyDecomposition(FloatMatrix Arg) {
+        float[][] A = Arg.getArray();
+        n = Arg.getRowDimension();
+        L = new float[n][n];
+        int cols = Arg.getColumnDimension();
+        boolean spd = (cols == n);
+
+        // Row by row, each element of L is a dot product of previous rows.
+        for (int j = 0; j < Math.min(n, cols); j++) {
+            float[] Lrowj = L[j];
+            float d = 0.0f;
+            for (int k = 0; k < j; k++) {
+                float[] Lrowk = L[k];
+                float s = 0.0f;
+                for (int i = 0; i < k; i++) {
+                    s += Lrowk[i] * Lrowj[i];
+                }
+                Lrowj[k] = s = (A[j][k] - s) / L[k][k];
+                d = d + s * s;
+                spd = spd & (A[k][j] == A[j][k]);
+            }
+            d = A[j][j] - d;
+            spd = spd & (d > 0.0f);
+            L[j][j] = (float) Math.sqrt(Math.max(d, 0.0f));
+        }
+        isspd = spd;
+    }
+
+    /*
+     * ------------------------ Public Methods ------------------------
+     */
+
+    /**
+     * Is the matrix symmetric and positive definite?
+     *
+     * @return true if A is symmetric and positive definite.
+     */
+    public boolean isSPD() {
+        return isspd;
+    }
+
+    /**
+     * Return triangular factor.
+     *
+     * @return L
+     */
+    public FloatMatrix getL() {
+        FloatMatrix X = new FloatMatrix(n, n);
+        float[][] C = X.getArray();
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(L[i], 0, C[i], 0, i + 1);
+        }
+        return X;
+    }
+
+    /**
+     * Solve A*X = B
+     *
+     * @param B A FloatMatrix with as many rows as A and any number of columns.
+     * @return X so that L*L'*X = B
+     * @exception IllegalArgumentException Matrix row dimensions must agree.
+     * @exception RuntimeException Matrix is not symmetric positive definite.
+     */
+    public FloatMatrix solve(FloatMatrix B) {
+        if (B.getRowDimension() != n) {
+            throw new IllegalArgumentException("Matrix row dimensions must agree.");
+        }
+        if (!isspd) {
+            throw new RuntimeException("Matrix is not symmetric positive definite.");
+        }
+        float[][] X = B.getArrayCopy();
+        int nx = B.getColumnDimension();
+
+        // Solve L*Y = B, then L'*X = Y
+        Trsm.parallelStrsm(false, false, false, n, nx, L, 0, 0, X, 0, 0);
+        Trsm.parallelStrsm(false, true, false, n, nx, L, 0, 0, X, 0, 0);
+        return new FloatMatrix(X, n, nx);
+    }
+}
@@ -0,0 +1,256 @@
+package jama;
+
+import jama.blas.Gemm;
+import jama.blas.Trsm;
+
+import java.io.Serializable;
+
+/**
+ * <p>
+ * LU decomposition of a {@link FloatMatrix} in single precision. For an
+ * m-by-n matrix A with m &gt;= n, L is an m-by-n unit lower triangular matrix,
+ * U is an n-by-n upper triangular matrix and piv a permutation vector of
+ * length m so that A(piv,:) = L*U.
+ * </p>
+ *
+ * <p>
+ * The factorization works directly on the {@code float[][]} storage, using the
+ * right-looking blocked algorithm of {@link LUDecomposition}: panels are
+ * factored with partial pivoting and the trailing submatrix is updated by
+ * {@link Gemm#parallelSgemm}. Like its double precision counterpart it never
+ * fails; {@link #solve(FloatMatrix)} does if {@link #isNonsingular()} returns
+ * false.
+ * </p>
+ *
+ * @see LUDecomposition
+ * @since 2.0.0
+ */
+public class FloatLUDecomposition implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Number of columns per panel of the blocked factorization. */
+    private static final int BLOCK_SIZE = 64;
+
+    /**
+     * Array for internal storage of decomposition.
+     *
+     * @serial internal array storage.
+     */
+    private final float[][] LU;
+
+    /**
+     * Row and column dimensions.
+     *
+     * @serial row dimension.
+     * @serial column dimension.
+     */
+    private final int m, n;
+
+    /**
+     * Sign of the row permutation.
+     *
+     * @serial pivot sign.
+     */
+    private int pivsign;
+
+    /**
+     * Internal storage of pivot vector.
+     *
+     * @serial pivot vector.
+     */
+    private final int[] piv;
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    /**
+     * LU Decomposition
+     *
+     * @param A Rectangular matrix
+     */
+    public FloatLUDecomposition(FloatMatrix A) {
+        this(A.getArrayCopy(), A.getRowDimension(), A.getColumnDimension());
+    }
+
+    /**
+     * LU Decomposition of an array which is overwritten by the factors.
+     *
+     * @param LU m-by-n work array, owned by the decomposition
+     * @param m row dimension
+     * @param n column dimension
+     */
+    FloatLUDecomposition(float[][] LU, int m, int n) {
+        this.LU = LU;
+        this.m = m;
+        this.n = n;
+        piv = new int[m];
+        for (int i = 0; i < m; i++) {
+            piv[i] = i;
+        }
+        pivsign = 1;
+        factor();
+    }
+
+    /*
+     * ------------------------ Public Methods ------------------------
+     */
+
+    /**
+     * Is the matrix nonsingular?
+     *
+     * @return true if U, and hence A, is nonsingular.
+     */
+    public boolean isNonsingular() {
+        for (int j = 0; j < n; j++) {
+            if (LU[j][j] == 0.0f) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return lower triangular factor
+     *
+     * @return L
+     */
+    public FloatMatrix getL() {
+        FloatMatrix X = new FloatMatrix(m, n);
+        float[][] L = X.getArray();
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < Math.min(i, n); j++) {
+                L[i][j] = LU[i][j];
+            }
+            if (i < n) {
+                L[i][i] = 1.0f;
+            }
+        }
+        return X;
+    }
+
+    /**
+     * Return upper triangular factor
+     *
+     * @return U
+     */
+    public FloatMatrix getU() {
+        FloatMatrix X = new FloatMatrix(n, n);
+        float[][] U = X.getArray();
+        for (int i = 0; i < Math.min(m, n); i++) {
+            System.arraycopy(LU[i], i, U[i], i, n - i);
+        }
+        return X;
+    }
+
+    /**
+     * Return pivot permutation vector
+     *
+     * @return piv
+     */
+    public int[] getPivot() {
+        return piv.clone();
+    }
+
+    /**
+     * Determinant
+     *
+     * @return det(A)
+     * @exception IllegalArgumentException Matrix must be square
+     */
+    public float det() {
+        if (m != n) {
+            throw new IllegalArgumentException("Matrix must be square.");
+        }
+        float d = pivsign;
+        for (int j = 0; j < n; j++) {
+            d *= LU[j][j];
+        }
+        return d;
+    }
+
+    /**
+     * Solve A*X = B
+     *
+     * @param B A FloatMatrix with as many rows as A and any number of columns.
+     * @return X so that L*U*X = B(piv,:)
+     * @exception IllegalArgumentException Matrix row dimensions must agree.
+     * @exception RuntimeException Matrix is singular.
+     */
+    public FloatMatrix solve(FloatMatrix B) {
+        if (B.getRowDimension() != m) {
+            throw new IllegalArgumentException("Matrix row dimensions must agree.");
+        }
+        if (!isNonsingular()) {
+            throw new RuntimeException("Matrix is singular.");
+        }
+        int nx = B.getColumnDimension();
+        FloatMatrix Xmat = B.getFloatMatrix(piv, 0, nx - 1);
+        solvePermuted(Xmat.getArray(), nx);
+        return Xmat;
+    }
+
+    /* ================================================ */
+    /* ============= Package Methods ================== */
+    /* ================================================ */
+
+    /**
+     * Overwrites X, which holds B(piv,:), with the solution of A*X = B.
+     */
+    void solvePermuted(float[][] X, int nx) {
+        Trsm.parallelStrsm(false, false, true, n, nx, LU, 0, 0, X, 0, 0);
+        Trsm.parallelStrsm(true, false, false, n, nx, LU, 0, 0, X, 0, 0);
+    }
+
+    /* ================================================ */
+    /* ============= Private Methods ================== */
+    /* ================================================ */
+
+    /** Right-looking blocked factorization with partial pivoting. */
+    private void factor() {
+        int kmax = Math.min(m, n);
+        for (int j0 = 0; j0 < kmax; j0 += BLOCK_SIZE) {
+            int j1 = Math.min(j0 + BLOCK_SIZE, kmax);
+
+            // Factor the panel LU(j0:m-1,j0:j1-1).
+            for (int j = j0; j < j1; j++) {
+                int p = j;
+                for (int i = j + 1; i < m; i++) {
+                    if (Math.abs(LU[i][j]) > Math.abs(LU[p][j])) {
+                        p = i;
+                    }
+                }
+                if (p != j) {
+                    float[] t = LU[p];
+                    LU[p] = LU[j];
+                    LU[j] = t;
+                    int k = piv[p];
+                    piv[p] = piv[j];
+                    piv[j] = k;
+                    pivsign = -pivsign;
+                }
+                float[] LUrowj = LU[j];
+                if (LUrowj[j] != 0.0f) {
+                    for (int i = j + 1; i < m; i++) {
+                        float[] LUrowi = LU[i];
+                        float l = LUrowi[j] /= LUrowj[j];
+                        for (int k = j + 1; k < j1; k++) {
+                            LUrowi[k] -= l * LUrowj[k];
+                        }
+                    }
+                }
+            }
+            if (j1 == n) {
+                continue;
+            }
+
+            // Block row of U, then the trailing update A22 = A22 - L21*U12.
+            Trsm.strsm(false, false, true, j1 - j0, n - j1, LU, j0, j0, LU, j0, j1);
+            if (j1 < m) {
+                Gemm.parallelSgemm(false, false, m - j1, n - j1, j1 - j0, -1.0f, LU, j1, j0, LU, j0, j1, 1.0f, LU,
+                        j1, j1);
+            }
+        }
+    }
+}
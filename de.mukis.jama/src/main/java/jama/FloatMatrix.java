@@ -1,5 +1,8 @@
 package jama;
 
+import jama.blas.Elementwise;
+import jama.blas.Gemm;
+
 import java.io.PrintWriter;
 import java.io.Serializable;
 import java.text.DecimalFormat;
@@ -479,6 +482,52 @@ public class FloatMatrix implements Cloneable, Serializable {
         }
     }
 
+    /**
+     * View of the whole matrix, sharing its storage.
+     * 
+     * @return A(:,:)
+     * @see FloatMatrixView
+     */
+
+    public FloatMatrixView view() {
+        return new FloatMatrixView(this, 0, m - 1, 1, 0, n - 1, 1);
+    }
+
+    /**
+     * Submatrix view. Unlike {@link #getFloatMatrix(int, int, int, int)} no
+     * elements are copied; writes to the view change this matrix.
+     * 
+     * @param i0 Initial row index
+     * @param i1 Final row index
+     * @param j0 Initial column index
+     * @param j1 Final column index
+     * @return A(i0:i1,j0:j1)
+     * @exception ArrayIndexOutOfBoundsException Submatrix indices
+     * @see FloatMatrixView
+     */
+
+    public FloatMatrixView view(int i0, int i1, int j0, int j1) {
+        return new FloatMatrixView(this, i0, i1, 1, j0, j1, 1);
+    }
+
+    /**
+     * Strided submatrix view, sharing the storage of this matrix.
+     * 
+     * @param i0 Initial row index
+     * @param i1 Final row index
+     * @param di Row step
+     * @param j0 Initial column index
+     * @param j1 Final column index
+     * @param dj Column step
+     * @return A(i0:di:i1,j0:dj:j1)
+     * @exception ArrayIndexOutOfBoundsException Submatrix indices
+     * @see FloatMatrixView
+     */
+
+    public FloatMatrixView view(int i0, int i1, int di, int j0, int j1, int dj) {
+        return new FloatMatrixView(this, i0, i1, di, j0, j1, dj);
+    }
+
     /**
      * FloatMatrix transpose.
      * 
@@ -561,9 +610,7 @@ public class FloatMatrix implements Cloneable, Serializable {
         FloatMatrix X = new FloatMatrix(m, n);
         float[][] C = X.getArray();
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                C[i][j] = A[i][j] + B.A[i][j];
-            }
+            Elementwise.add(A[i], B.A[i], C[i], n);
         }
         return X;
     }
@@ -578,9 +625,7 @@ public class FloatMatrix implements Cloneable, Serializable {
     public FloatMatrix plusEquals(FloatMatrix B) {
         checkFloatMatrixDimensions(B);
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                A[i][j] = A[i][j] + B.A[i][j];
-            }
+            Elementwise.add(A[i], B.A[i], A[i], n);
         }
         return this;
     }
@@ -597,9 +642,7 @@ public class FloatMatrix implements Cloneable, Serializable {
         FloatMatrix X = new FloatMatrix(m, n);
         float[][] C = X.getArray();
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                C[i][j] = A[i][j] - B.A[i][j];
-            }
+            Elementwise.subtract(A[i], B.A[i], C[i], n);
         }
         return X;
     }
@@ -614,9 +657,7 @@ public class FloatMatrix implements Cloneable, Serializable {
     public FloatMatrix minusEquals(FloatMatrix B) {
         checkFloatMatrixDimensions(B);
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                A[i][j] = A[i][j] - B.A[i][j];
-            }
+            Elementwise.subtract(A[i], B.A[i], A[i], n);
         }
         return this;
     }
@@ -633,9 +674,7 @@ public class FloatMatrix implements Cloneable, Serializable {
         FloatMatrix X = new FloatMatrix(m, n);
         float[][] C = X.getArray();
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                C[i][j] = A[i][j] * B.A[i][j];
-            }
+            Elementwise.multiply(A[i], B.A[i], C[i], n);
         }
         return X;
     }
@@ -650,9 +689,7 @@ public class FloatMatrix implements Cloneable, Serializable {
     public FloatMatrix arrayTimesEquals(FloatMatrix B) {
         checkFloatMatrixDimensions(B);
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                A[i][j] = A[i][j] * B.A[i][j];
-            }
+            Elementwise.multiply(A[i], B.A[i], A[i], n);
         }
         return this;
     }
@@ -669,9 +706,7 @@ public class FloatMatrix implements Cloneable, Serializable {
         FloatMatrix X = new FloatMatrix(m, n);
         float[][] C = X.getArray();
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                C[i][j] = A[i][j] / B.A[i][j];
-            }
+            Elementwise.divide(A[i], B.A[i], C[i], n);
         }
         return X;
     }
@@ -686,9 +721,7 @@ public class FloatMatrix implements Cloneable, Serializable {
     public FloatMatrix arrayRightDivideEquals(FloatMatrix B) {
         checkFloatMatrixDimensions(B);
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                A[i][j] = A[i][j] / B.A[i][j];
-            }
+            Elementwise.divide(A[i], B.A[i], A[i], n);
         }
         return this;
     }
@@ -705,9 +738,7 @@ public class FloatMatrix implements Cloneable, Serializable {
         FloatMatrix X = new FloatMatrix(m, n);
         float[][] C = X.getArray();
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                C[i][j] = B.A[i][j] / A[i][j];
-            }
+            Elementwise.divide(B.A[i], A[i], C[i], n);
         }
         return X;
     }
@@ -722,9 +753,7 @@ public class FloatMatrix implements Cloneable, Serializable {
     public FloatMatrix arrayLeftDivideEquals(FloatMatrix B) {
         checkFloatMatrixDimensions(B);
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                A[i][j] = B.A[i][j] / A[i][j];
-            }
+            Elementwise.divide(B.A[i], A[i], A[i], n);
         }
         return this;
     }
@@ -740,9 +769,7 @@ public class FloatMatrix implements Cloneable, Serializable {
         FloatMatrix X = new FloatMatrix(m, n);
         float[][] C = X.getArray();
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                C[i][j] = s * A[i][j];
-            }
+            Elementwise.scale(s, A[i], C[i], n);
         }
         return X;
     }
@@ -756,15 +783,15 @@ public class FloatMatrix implements Cloneable, Serializable {
 
     public FloatMatrix timesEquals(float s) {
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                A[i][j] = s * A[i][j];
-            }
+            Elementwise.scale(s, A[i], A[i], n);
         }
         return this;
     }
 
     /**
-     * Linear algebraic matrix multiplication, A * B
+     * Linear algebraic matrix multiplication, A * B. Large products are
+     * computed by the cache-blocked kernel in {@link Gemm} and split across
+     * the fork/join pool configured in {@link jama.blas.Parallel}.
      * 
      * @param B another matrix
      * @return FloatMatrix product, A * B
@@ -778,6 +805,10 @@ public class FloatMatrix implements Cloneable, Serializable {
         }
         FloatMatrix X = new FloatMatrix(m, B.n);
         float[][] C = X.getArray();
+        if (Gemm.isBlockingWorthwhile(m, B.n, n)) {
+            Gemm.parallelSgemm(false, false, m, B.n, n, 1.0f, A, 0, 0, B.A, 0, 0, 0.0f, C, 0, 0);
+            return X;
+        }
         float[] Bcolj = new float[n];
         for (int j = 0; j < B.n; j++) {
             for (int k = 0; k < n; k++) {
@@ -795,6 +826,122 @@ public class FloatMatrix implements Cloneable, Serializable {
         return X;
     }
 
+    /**
+     * LU Decomposition in single precision
+     * 
+     * @return FloatLUDecomposition
+     * @see FloatLUDecomposition
+     */
+
+    public FloatLUDecomposition lu() {
+        return new FloatLUDecomposition(this);
+    }
+
+    /**
+     * QR Decomposition in single precision
+     * 
+     * @return FloatQRDecomposition
+     * @see FloatQRDecomposition
+     */
+
+    public FloatQRDecomposition qr() {
+        return new FloatQRDecomposition(this);
+    }
+
+    /**
+     * Cholesky Decomposition in single precision
+     * 
+     * @return FloatCholeskyDecomposition
+     * @see FloatCholeskyDecomposition
+     */
+
+    public FloatCholeskyDecomposition chol() {
+        return new FloatCholeskyDecomposition(this);
+    }
+
+    /**
+     * Singular Value Decomposition in single precision
+     * 
+     * @return FloatSingularValueDecomposition
+     * @see FloatSingularValueDecomposition
+     */
+
+    public FloatSingularValueDecomposition svd() {
+        return new FloatSingularValueDecomposition(this);
+    }
+
+    /**
+     * Eigenvalue Decomposition in single precision
+     * 
+     * @return FloatEigenvalueDecomposition
+     * @see FloatEigenvalueDecomposition
+     */
+
+    public FloatEigenvalueDecomposition eig() {
+        return new FloatEigenvalueDecomposition(this);
+    }
+
+    /**
+     * Solve A*X = B
+     * 
+     * @param B right hand side
+     * @return solution if A is square, least squares solution otherwise
+     */
+
+    public FloatMatrix solve(FloatMatrix B) {
+        return (m == n ? lu().solve(B) : qr().solve(B));
+    }
+
+    /**
+     * FloatMatrix inverse or pseudoinverse
+     * 
+     * @return inverse(A) if A is square, pseudoinverse otherwise.
+     */
+
+    public FloatMatrix inverse() {
+        return solve(identity(m, m));
+    }
+
+    /**
+     * FloatMatrix determinant
+     * 
+     * @return determinant
+     */
+
+    public float det() {
+        return lu().det();
+    }
+
+    /**
+     * Two norm
+     * 
+     * @return maximum singular value.
+     */
+
+    public float norm2() {
+        return new FloatSingularValueDecomposition(this, false, false).norm2();
+    }
+
+    /**
+     * FloatMatrix rank
+     * 
+     * @return effective numerical rank, obtained from SVD.
+     */
+
+    public int rank() {
+        return new FloatSingularValueDecomposition(this, false, false).rank();
+    }
+
+    /**
+     * FloatMatrix condition (2 norm)
+     * 
+     * @return ratio of largest to smallest singular value.
+     */
+
+    public float cond() {
+        return new FloatSingularValueDecomposition(this, false, false).cond();
+    }
+
     /**
      * FloatMatrix trace.
      * 
@@ -0,0 +1,224 @@
+package jama;
+
+import jama.util.Maths;
+
+import java.io.Serializable;
+
+/**
+ * <p>
+ * QR decomposition of a {@link FloatMatrix} in single precision. For an m-by-n
+ * matrix A with m &gt;= n, Q is an m-by-n orthogonal matrix and R an n-by-n
+ * upper triangular matrix so that A = Q*R.
+ * </p>
+ *
+ * <p>
+ * The decomposition is computed by Householder reflections directly on the
+ * {@code float[][]} storage. Like {@link QRDecomposition} it always exists,
+ * even if A is rank deficient; {@link #solve(FloatMatrix)} fails if
+ * {@link #isFullRank()} returns false.
+ * </p>
+ *
+ * @see QRDecomposition
+ * @since 2.0.0
+ */
+public class FloatQRDecomposition implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Array for internal storage of decomposition.
+     *
+     * @serial internal array storage.
+     */
+    private final float[][] QR;
+
+    /**
+     * Row and column dimensions.
+     *
+     * @serial row dimension.
+     * @serial column dimension.
+     */
+    private final int m, n;
+
+    /**
+     * Array for internal storage of diagonal of R.
+     *
+     * @serial diagonal of R.
+     */
+    private final float[] Rdiag;
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    /**
+     * QR Decomposition, computed by Householder reflections.
+     *
+     * @param A Rectangular matrix
+     */
+    public FloatQRDecomposition(FloatMatrix A) {
+        QR = A.getArrayCopy();
+        m = A.getRowDimension();
+        n = A.getColumnDimension();
+        Rdiag = new float[n];
+
+        for (int k = 0; k < n; k++) {
+            // Compute 2-norm of k-th column without under/overflow.
+            float nrm = 0;
+            for (int i = k; i < m; i++) {
+                nrm = Maths.hypot(nrm, QR[i][k]);
+            }
+
+            if (nrm != 0.0f) {
+                // Form k-th Householder vector.
+                if (QR[k][k] < 0) {
+                    nrm = -nrm;
+                }
+                for (int i = k; i < m; i++) {
+                    QR[i][k] /= nrm;
+                }
+                QR[k][k] += 1.0f;
+
+                // Apply transformation to remaining columns.
+                for (int j = k + 1; j < n; j++) {
+                    float s = 0.0f;
+                    for (int i = k; i < m; i++) {
+                        s += QR[i][k] * QR[i][j];
+                    }
+                    s = -s / QR[k][k];
+                    for (int i = k; i < m; i++) {
+                        QR[i][j] += s * QR[i][k];
+                    }
+                }
+            }
+            Rdiag[k] = -nrm;
+        }
+    }
+
+    /*
+     * ------------------------ Public Methods ------------------------
+     */
+
+    /**
+     * Is the matrix full rank?
+     *
+     * @return true if R, and hence A, has full rank.
+     */
+    public boolean isFullRank() {
+        for (int j = 0; j < n; j++) {
+            if (Rdiag[j] == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return the Householder vectors
+     *
+     * @return Lower trapezoidal matrix whose columns define the reflections
+     */
+    public FloatMatrix getH() {
+        FloatMatrix X = new FloatMatrix(m, n);
+        float[][] H = X.getArray();
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j <= Math.min(i, n - 1); j++) {
+                H[i][j] = QR[i][j];
+            }
+        }
+        return X;
+    }
+
+    /**
+     * Return the upper triangular factor
+     *
+     * @return R
+     */
+    public FloatMatrix getR() {
+        FloatMatrix X = new FloatMatrix(n, n);
+        float[][] R = X.getArray();
+        for (int i = 0; i < n; i++) {
+            R[i][i] = Rdiag[i];
+            for (int j = i + 1; j < n; j++) {
+                R[i][j] = QR[i][j];
+            }
+        }
+        return X;
+    }
+
+    /**
+     * Generate and return the (economy-sized) orthogonal factor
+     *
+     * @return Q
+     */
+    public FloatMatrix getQ() {
+        FloatMatrix X = new FloatMatrix(m, n);
+        float[][] Q = X.getArray();
+        for (int k = n - 1; k >= 0; k--) {
+            for (int i = 0; i < m; i++) {
+                Q[i][k] = 0.0f;
+            }
+            Q[k][k] = 1.0f;
+            for (int j = k; j < n; j++) {
+                if (QR[k][k] != 0) {
+                    float s = 0.0f;
+                    for (int i = k; i < m; i++) {
+                        s += QR[i][k] * Q[i][j];
+                    }
+                    s = -s / QR[k][k];
+                    for (int i = k; i < m; i++) {
+                        Q[i][j] += s * QR[i][k];
+                    }
+                }
+            }
+        }
+        return X;
+    }
+
+    /**
+     * Least squares solution of A*X = B
+     *
+     * @param B A FloatMatrix with as many rows as A and any number of columns.
+     * @return X that minimizes the two norm of Q*R*X-B.
+     * @exception IllegalArgumentException Matrix row dimensions must agree.
+     * @exception RuntimeException Matrix is rank deficient.
+     */
+    public FloatMatrix solve(FloatMatrix B) {
+        if (B.getRowDimension() != m) {
+            throw new IllegalArgumentException("Matrix row dimensions must agree.");
+        }
+        if (!isFullRank()) {
+            throw new RuntimeException("Matrix is rank deficient.");
+        }
+
+        // Copy right hand side
+        int nx = B.getColumnDimension();
+        float[][] X = B.getArrayCopy();
+
+        // Compute Y = transpose(Q)*B
+        for (int k = 0; k < n; k++) {
+            for (int j = 0; j < nx; j++) {
+                float s = 0.0f;
+                for (int i = k; i < m; i++) {
+                    s += QR[i][k] * X[i][j];
+                }
+                s = -s / QR[k][k];
+                for (int i = k; i < m; i++) {
+                    X[i][j] += s * QR[i][k];
+                }
+            }
+        }
+        // Solve R*X = Y;
+        for (int k = n - 1; k >= 0; k--) {
+            for (int j = 0; j < nx; j++) {
+                X[k][j] /= Rdiag[k];
+            }
+            for (int i = 0; i < k; i++) {
+                for (int j = 0; j < nx; j++) {
+                    X[i][j] -= X[k][j] * QR[i][k];
+                }
+            }
+        }
+        return new FloatMatrix(X, n, nx).getFloatMatrix(0, n - 1, 0, nx - 1);
+    }
+}
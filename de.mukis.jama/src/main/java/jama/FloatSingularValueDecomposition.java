@@ -0,0 +1,618 @@
+package jama;
+
+import jama.util.Maths;
+
+import java.io.Serializable;
+
+/**
+ * <p>
+ * Singular value decomposition A = U*S*V' of a {@link FloatMatrix} in single
+ * precision, by the Golub-Kahan bidiagonalization and implicit QR iteration of
+ * {@link SingularValueDecomposition}, working directly on {@code float[][]}
+ * arrays.
+ * </p>
+ *
+ * <p>
+ * For an m-by-n matrix A with m &gt;= n, U is m-by-n, S and V are n-by-n. For
+ * m &lt; n the transpose is decomposed, so that U is m-by-m, S is m-by-m and V
+ * is n-by-m. The singular vectors can be skipped when only the singular
+ * values are needed.
+ * </p>
+ *
+ * @see SingularValueDecomposition
+ * @since 2.0.0
+ */
+public class FloatSingularValueDecomposition implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Relative accuracy of single precision. */
+    private static final float EPS = (float) Math.pow(2.0, -23.0);
+
+    /** Threshold below which elements are negligible in absolute terms. */
+    private static final float TINY = (float) Math.pow(2.0, -120.0);
+
+    /**
+     * Arrays for internal storage of U and V.
+     *
+     * @serial internal storage of U.
+     * @serial internal storage of V.
+     */
+    private float[][] U, V;
+
+    /**
+     * Array for internal storage of singular values.
+     *
+     * @serial internal storage of singular values.
+     */
+    private float[] s;
+
+    /**
+     * Row and column dimensions.
+     *
+     * @serial row dimension.
+     * @serial column dimension.
+     */
+    private final int m, n;
+
+    /**
+     * Which singular vectors were computed.
+     *
+     * @serial U was computed.
+     * @serial V was computed.
+     */
+    private final boolean wantu, wantv;
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    /**
+     * Construct the singular value decomposition.
+     *
+     * @param Arg Rectangular matrix
+     */
+    public FloatSingularValueDecomposition(FloatMatrix Arg) {
+        this(Arg, true, true);
+    }
+
+    /**
+     * Construct the singular value decomposition, optionally without the
+     * singular vectors.
+     *
+     * @param Arg Rectangular matrix
+     * @param wantu false to skip the left singular vectors U
+     * @param wantv false to skip the right singular vectors V
+     */
+    public FloatSingularValueDecomposition(FloatMatrix Arg, boolean wantu, boolean wantv) {
+        m = Arg.getRowDimension();
+        n = Arg.getColumnDimension();
+        this.wantu = wantu;
+        this.wantv = wantv;
+        if (m >= n) {
+            decompose(Arg.getArrayCopy(), m, n, wantu, wantv);
+        } else {
+            // A' = V*S*U', so the roles of U and V are exchanged.
+            float[][] A = Arg.getArray();
+            float[][] T = new float[n][m];
+            for (int i = 0; i < m; i++) {
+                for (int j = 0; j < n; j++) {
+                    T[j][i] = A[i][j];
+                }
+            }
+            decompose(T, n, m, wantv, wantu);
+            float[][] t = U;
+            U = V;
+            V = t;
+        }
+    }
+
+    /*
+     * ------------------------ Public Methods ------------------------
+     */
+
+    /**
+     * Return the left singular vectors
+     *
+     * @return U, m-by-min(m,n)
+     * @exception IllegalStateException Left singular vectors were not
+     *                computed.
+     */
+    public FloatMatrix getU() {
+        if (!wantu) {
+            throw new IllegalStateException("Left singular vectors were not computed.");
+        }
+        return new FloatMatrix(U, m, Math.min(m, n));
+    }
+
+    /**
+     * Return the right singular vectors
+     *
+     * @return V, n-by-min(m,n)
+     * @exception IllegalStateException Right singular vectors were not
+     *                computed.
+     */
+    public FloatMatrix getV() {
+        if (!wantv) {
+            throw new IllegalStateException("Right singular vectors were not computed.");
+        }
+        return new FloatMatrix(V, n, Math.min(m, n));
+    }
+
+    /**
+     * Return the one-dimensional array of singular values
+     *
+     * @return diagonal of S.
+     */
+    public float[] getSingularValues() {
+        return s;
+    }
+
+    /**
+     * Return the diagonal matrix of singular values
+     *
+     * @return S
+     */
+    public FloatMatrix getS() {
+        int k = s.length;
+        FloatMatrix X = new FloatMatrix(k, k);
+        for (int i = 0; i < k; i++) {
+            X.set(i, i, s[i]);
+        }
+        return X;
+    }
+
+    /**
+     * Two norm
+     *
+     * @return max(S)
+     */
+    public float norm2() {
+        return s[0];
+    }
+
+    /**
+     * Two norm condition number
+     *
+     * @return max(S)/min(S)
+     */
+    public float cond() {
+        return s[0] / s[s.length - 1];
+    }
+
+    /**
+     * Effective numerical matrix rank
+     *
+     * @return Number of nonnegligible singular values.
+     */
+    public int rank() {
+        float tol = Math.max(m, n) * s[0] * EPS;
+        int r = 0;
+        for (int i = 0; i < s.length; i++) {
+            if (s[i] > tol) {
+                r++;
+            }
+        }
+        return r;
+    }
+
+    /* ================================================ */
+    /* ============= Private Methods ================== */
+    /* ================================================ */
+
+    /**
+     * Reduction to bidiagonal form and implicit QR iteration for an m-by-n
+     * array with m &gt;= n, which is overwritten.
+     */
+    private void decompose(float[][] A, int m, int n, boolean wantu, boolean wantv) {
+
+        // Derived from LINPACK code.
+        // Initialize.
+
+        int nu = Math.min(m,n);
+        s = new float[Math.min(m+1,n)];
+        U = (wantu ? new float[m][nu] : null);
+        V = (wantv ? new float[n][n] : null);
+        float[] e = new float[n];
+        float[] work = new float[m];
+
+        // Reduce A to bidiagonal form, storing the diagonal elements
+        // in s and the super-diagonal elements in e.
+
+        int nct = Math.min(m-1,n);
+        int nrt = Math.max(0,Math.min(n-2,m));
+        for (int k = 0; k < Math.max(nct,nrt); k++) {
+            if (k < nct) {
+
+                // Compute the transformation for the k-th column and
+                // place the k-th diagonal in s[k].
+                // Compute 2-norm of k-th column without under/overflow.
+                s[k] = 0;
+                for (int i = k; i < m; i++) {
+                    s[k] = Maths.hypot(s[k],A[i][k]);
+                }
+                if (s[k] != 0.0f) {
+                    if (A[k][k] < 0.0f) {
+                        s[k] = -s[k];
+                    }
+                    for (int i = k; i < m; i++) {
+                        A[i][k] /= s[k];
+                    }
+                    A[k][k] += 1.0f;
+                }
+                s[k] = -s[k];
+            }
+            for (int j = k+1; j < n; j++) {
+                if ((k < nct) & (s[k] != 0.0f))  {
+
+                // Apply the transformation.
+
+                    float t = 0;
+                    for (int i = k; i < m; i++) {
+                        t += A[i][k]*A[i][j];
+                    }
+                    t = -t/A[k][k];
+                    for (int i = k; i < m; i++) {
+                        A[i][j] += t*A[i][k];
+                    }
+                }
+
+                // Place the k-th row of A into e for the
+                // subsequent calculation of the row transformation.
+
+                e[j] = A[k][j];
+            }
+            if (wantu & (k < nct)) {
+
+                // Place the transformation in U for subsequent back
+                // multiplication.
+
+                for (int i = k; i < m; i++) {
+                    U[i][k] = A[i][k];
+                }
+            }
+            if (k < nrt) {
+
+                // Compute the k-th row transformation and place the
+                // k-th super-diagonal in e[k].
+                // Compute 2-norm without under/overflow.
+                e[k] = 0;
+                for (int i = k+1; i < n; i++) {
+                    e[k] = Maths.hypot(e[k],e[i]);
+                }
+                if (e[k] != 0.0f) {
+                    if (e[k+1] < 0.0f) {
+                        e[k] = -e[k];
+                    }
+                    for (int i = k+1; i < n; i++) {
+                        e[i] /= e[k];
+                    }
+                    e[k+1] += 1.0f;
+                }
+                e[k] = -e[k];
+                if ((k+1 < m) & (e[k] != 0.0f)) {
+
+                // Apply the transformation.
+
+                    for (int i = k+1; i < m; i++) {
+                        work[i] = 0.0f;
+                    }
+                    for (int j = k+1; j < n; j++) {
+                        for (int i = k+1; i < m; i++) {
+                            work[i] += e[j]*A[i][j];
+                        }
+                    }
+                    for (int j = k+1; j < n; j++) {
+                        float t = -e[j]/e[k+1];
+                        for (int i = k+1; i < m; i++) {
+                            A[i][j] += t*work[i];
+                        }
+                    }
+                }
+                if (wantv) {
+
+                // Place the transformation in V for subsequent
+                // back multiplication.
+
+                    for (int i = k+1; i < n; i++) {
+                        V[i][k] = e[i];
+                    }
+                }
+            }
+        }
+
+        // Set up the final bidiagonal matrix or order p.
+
+        int p = Math.min(n,m+1);
+        if (nct < n) {
+            s[nct] = A[nct][nct];
+        }
+        if (m < p) {
+            s[p-1] = 0.0f;
+        }
+        if (nrt+1 < p) {
+            e[nrt] = A[nrt][p-1];
+        }
+        e[p-1] = 0.0f;
+
+        // If required, generate U.
+
+        if (wantu) {
+            for (int j = nct; j < nu; j++) {
+                for (int i = 0; i < m; i++) {
+                    U[i][j] = 0.0f;
+                }
+                U[j][j] = 1.0f;
+            }
+            for (int k = nct-1; k >= 0; k--) {
+                if (s[k] != 0.0f) {
+                    for (int j = k+1; j < nu; j++) {
+                        float t = 0;
+                        for (int i = k; i < m; i++) {
+                            t += U[i][k]*U[i][j];
+                        }
+                        t = -t/U[k][k];
+                        for (int i = k; i < m; i++) {
+                            U[i][j] += t*U[i][k];
+                        }
+                    }
+                    for (int i = k; i < m; i++ ) {
+                        U[i][k] = -U[i][k];
+                    }
+                    U[k][k] = 1.0f + U[k][k];
+                    for (int i = 0; i < k-1; i++) {
+                        U[i][k] = 0.0f;
+                    }
+                } else {
+                    for (int i = 0; i < m; i++) {
+                        U[i][k] = 0.0f;
+                    }
+                    U[k][k] = 1.0f;
+                }
+            }
+        }
+
+        // If required, generate V.
+
+        if (wantv) {
+            for (int k = n-1; k >= 0; k--) {
+                if ((k < nrt) & (e[k] != 0.0f)) {
+                    for (int j = k+1; j < nu; j++) {
+                        float t = 0;
+                        for (int i = k+1; i < n; i++) {
+                            t += V[i][k]*V[i][j];
+                        }
+                        t = -t/V[k+1][k];
+                        for (int i = k+1; i < n; i++) {
+                            V[i][j] += t*V[i][k];
+                        }
+                    }
+                }
+                for (int i = 0; i < n; i++) {
+                    V[i][k] = 0.0f;
+                }
+                V[k][k] = 1.0f;
+            }
+        }
+
+        // Main iteration loop for the singular values.
+
+        int pp = p-1;
+        int iter = 0;
+        float eps = EPS;
+        float tiny = TINY;
+        while (p > 0) {
+            int k,kase;
+
+            // Here is where a test for too many iterations would go.
+
+            // This section of the program inspects for
+            // negligible elements in the s and e arrays.  On
+            // completion the variables kase and k are set as follows.
+
+            // kase = 1     if s(p) and e[k-1] are negligible and k<p
+            // kase = 2     if s(k) is negligible and k<p
+            // kase = 3     if e[k-1] is negligible, k<p, and
+            //              s(k), ..., s(p) are not negligible (qr step).
+            // kase = 4     if e(p-1) is negligible (convergence).
+
+            for (k = p-2; k >= -1; k--) {
+                if (k == -1) {
+                    break;
+                }
+                if (Math.abs(e[k]) <=
+                        tiny + eps*(Math.abs(s[k]) + Math.abs(s[k+1]))) {
+                    e[k] = 0.0f;
+                    break;
+                }
+            }
+            if (k == p-2) {
+                kase = 4;
+            } else {
+                int ks;
+                for (ks = p-1; ks >= k; ks--) {
+                    if (ks == k) {
+                        break;
+                    }
+                    float t = (ks != p ? Math.abs(e[ks]) : 0.0f) +
+                                  (ks != k+1 ? Math.abs(e[ks-1]) : 0.0f);
+                    if (Math.abs(s[ks]) <= tiny + eps*t)  {
+                        s[ks] = 0.0f;
+                        break;
+                    }
+                }
+                if (ks == k) {
+                    kase = 3;
+                } else if (ks == p-1) {
+                    kase = 1;
+                } else {
+                    kase = 2;
+                    k = ks;
+                }
+            }
+            k++;
+
+            // Perform the task indicated by kase.
+
+            switch (kase) {
+
+                // Deflate negligible s(p).
+
+                case 1: {
+                    float f = e[p-2];
+                    e[p-2] = 0.0f;
+                    for (int j = p-2; j >= k; j--) {
+                        float t = Maths.hypot(s[j],f);
+                        float cs = s[j]/t;
+                        float sn = f/t;
+                        s[j] = t;
+                        if (j != k) {
+                            f = -sn*e[j-1];
+                            e[j-1] = cs*e[j-1];
+                        }
+                        if (wantv) {
+                            for (int i = 0; i < n; i++) {
+                                t = cs*V[i][j] + sn*V[i][p-1];
+                                V[i][p-1] = -sn*V[i][j] + cs*V[i][p-1];
+                                V[i][j] = t;
+                            }
+                        }
+                    }
+                }
+                break;
+
+                // Split at negligible s(k).
+
+                case 2: {
+                    float f = e[k-1];
+                    e[k-1] = 0.0f;
+                    for (int j = k; j < p; j++) {
+                        float t = Maths.hypot(s[j],f);
+                        float cs = s[j]/t;
+                        float sn = f/t;
+                        s[j] = t;
+                        f = -sn*e[j];
+                        e[j] = cs*e[j];
+                        if (wantu) {
+                            for (int i = 0; i < m; i++) {
+                                t = cs*U[i][j] + sn*U[i][k-1];
+                                U[i][k-1] = -sn*U[i][j] + cs*U[i][k-1];
+                                U[i][j] = t;
+                            }
+                        }
+                    }
+                }
+                break;
+
+                // Perform one qr step.
+
+                case 3: {
+
+                    // Calculate the shift.
+
+                    float scale = Math.max(Math.max(Math.max(Math.max(
+                              Math.abs(s[p-1]),Math.abs(s[p-2])),Math.abs(e[p-2])),
+                              Math.abs(s[k])),Math.abs(e[k]));
+                    float sp = s[p-1]/scale;
+                    float spm1 = s[p-2]/scale;
+                    float epm1 = e[p-2]/scale;
+                    float sk = s[k]/scale;
+                    float ek = e[k]/scale;
+                    float b = ((spm1 + sp)*(spm1 - sp) + epm1*epm1)/2.0f;
+                    float c = (sp*epm1)*(sp*epm1);
+                    float shift = 0.0f;
+                    if ((b != 0.0f) | (c != 0.0f)) {
+                        shift = (float) Math.sqrt(b*b + c);
+                        if (b < 0.0f) {
+                            shift = -shift;
+                        }
+                        shift = c/(b + shift);
+                    }
+                    float f = (sk + sp)*(sk - sp) + shift;
+                    float g = sk*ek;
+
+                    // Chase zeros.
+
+                    for (int j = k; j < p-1; j++) {
+                        float t = Maths.hypot(f,g);
+                        float cs = f/t;
+                        float sn = g/t;
+                        if (j != k) {
+                            e[j-1] = t;
+                        }
+                        f = cs*s[j] + sn*e[j];
+                        e[j] = cs*e[j] - sn*s[j];
+                        g = sn*s[j+1];
+                        s[j+1] = cs*s[j+1];
+                        if (wantv) {
+                            for (int i = 0; i < n; i++) {
+                                t = cs*V[i][j] + sn*V[i][j+1];
+                                V[i][j+1] = -sn*V[i][j] + cs*V[i][j+1];
+                                V[i][j] = t;
+                            }
+                        }
+                        t = Maths.hypot(f,g);
+                        cs = f/t;
+                        sn = g/t;
+                        s[j] = t;
+                        f = cs*e[j] + sn*s[j+1];
+                        s[j+1] = -sn*e[j] + cs*s[j+1];
+                        g = sn*e[j+1];
+                        e[j+1] = cs*e[j+1];
+                        if (wantu && (j < m-1)) {
+                            for (int i = 0; i < m; i++) {
+                                t = cs*U[i][j] + sn*U[i][j+1];
+                                U[i][j+1] = -sn*U[i][j] + cs*U[i][j+1];
+                                U[i][j] = t;
+                            }
+                        }
+                    }
+                    e[p-2] = f;
+                    iter = iter + 1;
+                }
+                break;
+
+                // Convergence.
+
+                case 4: {
+
+                    // Make the singular values positive.
+
+                    if (s[k] <= 0.0f) {
+                        s[k] = (s[k] < 0.0f ? -s[k] : 0.0f);
+                        if (wantv) {
+                            for (int i = 0; i <= pp; i++) {
+                                V[i][k] = -V[i][k];
+                            }
+                        }
+                    }
+
+                    // Order the singular values.
+
+                    while (k < pp) {
+                        if (s[k] >= s[k+1]) {
+                            break;
+                        }
+                        float t = s[k];
+                        s[k] = s[k+1];
+                        s[k+1] = t;
+                        if (wantv && (k < n-1)) {
+                            for (int i = 0; i < n; i++) {
+                                t = V[i][k+1]; V[i][k+1] = V[i][k]; V[i][k] = t;
+                            }
+                        }
+                        if (wantu && (k < m-1)) {
+                            for (int i = 0; i < m; i++) {
+                                t = U[i][k+1]; U[i][k+1] = U[i][k]; U[i][k] = t;
+                            }
+                        }
+                        k++;
+                    }
+                    iter = 0;
+                    p--;
+                }
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package jama;
+
+import jama.blas.Elementwise;
+import jama.util.Maths;
+
+/**
+ * <p>
+ * Restarted generalized minimal residual method GMRES(m) for general square
+ * systems. Each iteration extends an orthonormal basis of the Krylov subspace
+ * by one product with A and a modified Gram-Schmidt step, and the iterate
+ * minimizes the residual over that subspace. The least squares problem is
+ * updated by Givens rotations, which give its residual norm at no extra cost.
+ * </p>
+ *
+ * <p>
+ * Work and memory grow with the basis, so after m iterations the iterate is
+ * formed, the residual recomputed and the basis discarded. The restart length
+ * trades memory, (m + 2) vectors of length n, against robustness: small m
+ * may stagnate on hard problems.
+ * </p>
+ *
+ * <p>
+ * A preconditioner is applied from the right, A*M^-1*u = b with x = M^-1*u,
+ * so the minimized residual is that of the original system. M need not be
+ * symmetric, which suits {@link ILU0Preconditioner}.
+ * </p>
+ *
+ * @see IterativeSolver
+ * @since 2.0.0
+ */
+public class GMRESSolver extends IterativeSolver {
+
+    /** Default restart length. */
+    public static final int DEFAULT_RESTART = 30;
+
+    /** Number of iterations between restarts. */
+    private final int restart;
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    /**
+     * GMRES solver with restart length {@link #DEFAULT_RESTART}.
+     *
+     * @param A square operator
+     * @exception IllegalArgumentException Matrix must be square.
+     */
+    public GMRESSolver(LinearOperator A) {
+        this(A, DEFAULT_RESTART);
+    }
+
+    /**
+     * GMRES solver.
+     *
+     * @param A square operator
+     * @param restart number of iterations between restarts
+     * @exception IllegalArgumentException Matrix must be square, or restart
+     *                length not positive.
+     */
+    public GMRESSolver(LinearOperator A, int restart) {
+        super(A);
+        if (restart < 1) {
+            throw new IllegalArgumentException("Restart length must be positive: " + restart);
+        }
+        this.restart = restart;
+    }
+
+    /*
+     * ------------------------ Public Methods ------------------------
+     */
+
+    /**
+     * @return number of iterations between restarts
+     */
+    public int getRestart() {
+        return restart;
+    }
+
+    /* ================================================ */
+    /* ============= Package Methods ================== */
+    /* ================================================ */
+
+    @Override
+    boolean iterate(double[] b, double[] x) {
+        int m = Math.min(restart, n);
+        double[][] V = new double[m + 1][];
+        V[0] = new double[n];
+        double[][] H = new double[m + 1][m];
+        double[] cs = new double[m];
+        double[] sn = new double[m];
+        double[] g = new double[m + 1];
+        double[] y = new double[m];
+        double[] z = new double[n];
+
+        residual(b, x, V[0]);
+        double beta = norm(V[0]);
+        if (report(0, beta)) {
+            return true;
+        }
+        int it = 0;
+        while (it < getMaxIterations()) {
+            Elementwise.scale(1.0 / beta, V[0], V[0], n);
+            g[0] = beta;
+            int j = 0;
+            boolean done = false;
+            while (j < m && it < getMaxIterations() && !done) {
+                // Arnoldi step with modified Gram-Schmidt.
+                if (V[j + 1] == null) {
+                    V[j + 1] = new double[n];
+                }
+                double[] w = V[j + 1];
+                precondition(V[j], z);
+                A.apply(z, w);
+                for (int i = 0; i <= j; i++) {
+                    H[i][j] = dot(w, V[i]);
+                    Elementwise.axpy(-H[i][j], V[i], w, n);
+                }
+                double h = norm(w);
+                H[j + 1][j] = h;
+                if (h != 0.0) {
+                    Elementwise.scale(1.0 / h, w, w, n);
+                }
+
+                // Apply the previous rotations to the new column, then
+                // eliminate H(j+1,j).
+                for (int i = 0; i < j; i++) {
+                    double t = cs[i] * H[i][j] + sn[i] * H[i + 1][j];
+                    H[i + 1][j] = -sn[i] * H[i][j] + cs[i] * H[i + 1][j];
+                    H[i][j] = t;
+                }
+                double r = Maths.hypot(H[j][j], H[j + 1][j]);
+                cs[j] = r == 0.0 ? 1.0 : H[j][j] / r;
+                sn[j] = r == 0.0 ? 0.0 : H[j + 1][j] / r;
+                H[j][j] = r;
+                H[j + 1][j] = 0.0;
+                g[j + 1] = -sn[j] * g[j];
+                g[j] = cs[j] * g[j];
+                j++;
+                it++;
+                // h == 0 means the subspace is invariant and the solution exact.
+                done = report(it, Math.abs(g[j])) || h == 0.0;
+            }
+
+            // x = x + M^-1*V*y with H(0:j-1,0:j-1)*y = g(0:j-1)
+            for (int i = j - 1; i >= 0; i--) {
+                double s = g[i];
+                for (int k = i + 1; k < j; k++) {
+                    s -= H[i][k] * y[k];
+                }
+                y[i] = H[i][i] == 0.0 ? 0.0 : s / H[i][i];
+            }
+            double[] u = V[0];
+            Elementwise.scale(y[0], V[0], u, n);
+            for (int i = 1; i < j; i++) {
+                Elementwise.axpy(y[i], V[i], u, n);
+            }
+            precondition(u, z);
+            Elementwise.add(x, z, x, n);
+
+            // The recurrence only estimates the residual.
+            residual(b, x, V[0]);
+            beta = norm(V[0]);
+            if (check(beta)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,133 @@
+package jama;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Incomplete LU factorization without fill-in, ILU(0). The factors L (unit
+ * lower triangular) and U (upper triangular) are computed by the elimination
+ * of {@link LUDecomposition}, but every update of an element outside the
+ * sparsity pattern of A is dropped. L and U therefore share the pattern and
+ * storage of A, and M = L*U agrees with A on that pattern.
+ * </p>
+ *
+ * <p>
+ * Building costs about as much as a few products with A, and applying M^-1
+ * is one forward and one backward substitution. There is no pivoting: the
+ * factorization exists for M-matrices and diagonally dominant matrices, and
+ * fails on a zero pivot otherwise. M is not symmetric in general, so it is
+ * meant for {@link GMRESSolver} and {@link BiCGSTABSolver}; use
+ * {@link IncompleteCholeskyPreconditioner} with conjugate gradients.
+ * </p>
+ *
+ * @see IncompleteCholeskyPreconditioner
+ * @since 2.0.0
+ */
+public class ILU0Preconditioner implements Preconditioner, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Order of A.
+     *
+     * @serial matrix dimension.
+     */
+    private final int n;
+
+    /**
+     * Pattern of A, shared with A.
+     *
+     * @serial row pointers.
+     * @serial column indices.
+     */
+    private final int[] ptr, idx;
+
+    /**
+     * L below and U on and above the diagonal, in the pattern of A.
+     *
+     * @serial factor values.
+     */
+    private final double[] LU;
+
+    /**
+     * Position of the diagonal element of each row.
+     *
+     * @serial diagonal positions.
+     */
+    private final int[] diag;
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    /**
+     * ILU(0) factorization.
+     *
+     * @param A square matrix with a non-zero diagonal
+     * @exception IllegalArgumentException Matrix must be square.
+     * @exception RuntimeException Zero pivot in incomplete factorization.
+     */
+    public ILU0Preconditioner(CSRMatrix A) {
+        n = A.getRowDimension();
+        if (A.getColumnDimension() != n) {
+            throw new IllegalArgumentException("Matrix must be square.");
+        }
+        ptr = A.s.ptr;
+        idx = A.s.idx;
+        LU = Arrays.copyOf(A.s.val, A.s.nnz());
+        diag = new int[n];
+
+        // Row-wise IKJ elimination; pos maps the columns of row i to their
+        // positions in LU.
+        int[] pos = new int[n];
+        Arrays.fill(pos, -1);
+        for (int i = 0; i < n; i++) {
+            for (int p = ptr[i]; p < ptr[i + 1]; p++) {
+                pos[idx[p]] = p;
+            }
+            int p = ptr[i];
+            for (; p < ptr[i + 1] && idx[p] < i; p++) {
+                int k = idx[p];
+                double lik = LU[p] /= LU[diag[k]];
+                for (int q = diag[k] + 1; q < ptr[k + 1]; q++) {
+                    int t = pos[idx[q]];
+                    if (t >= 0) {
+                        LU[t] -= lik * LU[q];
+                    }
+                }
+            }
+            for (int q = ptr[i]; q < ptr[i + 1]; q++) {
+                pos[idx[q]] = -1;
+            }
+            if (p == ptr[i + 1] || idx[p] != i || LU[p] == 0.0) {
+                throw new RuntimeException("Zero pivot in incomplete factorization.");
+            }
+            diag[i] = p;
+        }
+    }
+
+    /*
+     * ------------------------ Public Methods ------------------------
+     */
+
+    @Override
+    public void apply(double[] r, double[] z) {
+        // L*y = r
+        for (int i = 0; i < n; i++) {
+            double s = r[i];
+            for (int p = ptr[i]; p < diag[i]; p++) {
+                s -= LU[p] * z[idx[p]];
+            }
+            z[i] = s;
+        }
+        // U*z = y
+        for (int i = n - 1; i >= 0; i--) {
+            double s = z[i];
+            for (int p = diag[i] + 1; p < ptr[i + 1]; p++) {
+                s -= LU[p] * z[idx[p]];
+            }
+            z[i] = s / LU[diag[i]];
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package jama;
+
+import java.io.Serializable;
+
+/**
+ * <p>
+ * Incomplete Cholesky factorization without fill-in, IC(0). The lower
+ * triangular factor L is computed row by row like in
+ * {@link CholeskyDecomposition}, but only for the elements in the sparsity
+ * pattern of the lower triangle of A; all other contributions are dropped.
+ * M = L*L' is symmetric and positive definite, so it can be used with
+ * {@link ConjugateGradientSolver}.
+ * </p>
+ *
+ * <p>
+ * Only the lower triangle of A is read, and A is assumed to be symmetric.
+ * The factorization exists for M-matrices such as discretized Laplacians,
+ * and fails with a non-positive pivot for other matrices even if they are
+ * positive definite; {@link JacobiPreconditioner} is the fallback then.
+ * </p>
+ *
+ * @see ILU0Preconditioner
+ * @since 2.0.0
+ */
+public class IncompleteCholeskyPreconditioner implements Preconditioner, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Order of A.
+     *
+     * @serial matrix dimension.
+     */
+    private final int n;
+
+    /**
+     * L in CSR format, the diagonal element last in each row.
+     *
+     * @serial row pointers.
+     * @serial column indices.
+     */
+    private final int[] ptr, idx;
+
+    /**
+     * Values of L.
+     *
+     * @serial factor values.
+     */
+    private final double[] L;
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    /**
+     * IC(0) factorization.
+     *
+     * @param A symmetric, positive definite matrix
+     * @exception IllegalArgumentException Matrix must be square.
+     * @exception RuntimeException Matrix is not symmetric positive definite.
+     */
+    public IncompleteCholeskyPreconditioner(CSRMatrix A) {
+        n = A.getRowDimension();
+        if (A.getColumnDimension() != n) {
+            throw new IllegalArgumentException("Matrix must be square.");
+        }
+
+        // Copy the lower triangle.
+        int[] aptr = A.s.ptr;
+        int[] aidx = A.s.idx;
+        double[] aval = A.s.val;
+        ptr = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            int cnt = 0;
+            for (int p = aptr[i]; p < aptr[i + 1] && aidx[p] <= i; p++) {
+                cnt++;
+            }
+            ptr[i + 1] = ptr[i] + cnt;
+        }
+        idx = new int[ptr[n]];
+        L = new double[ptr[n]];
+        for (int i = 0; i < n; i++) {
+            int len = ptr[i + 1] - ptr[i];
+            System.arraycopy(aidx, aptr[i], idx, ptr[i], len);
+            System.arraycopy(aval, aptr[i], L, ptr[i], len);
+        }
+
+        // L(i,k) = (A(i,k) - L(i,0:k-1)*L(k,0:k-1)') / L(k,k), by merging
+        // the sorted rows i and k.
+        for (int i = 0; i < n; i++) {
+            int last = ptr[i + 1] - 1;
+            if (last < ptr[i] || idx[last] != i) {
+                throw new RuntimeException("Matrix is not symmetric positive definite.");
+            }
+            double d = L[last];
+            for (int p = ptr[i]; p < last; p++) {
+                int k = idx[p];
+                double s = L[p];
+                int q = ptr[i];
+                int r = ptr[k];
+                int rend = ptr[k + 1] - 1;
+                while (q < p && r < rend) {
+                    if (idx[q] == idx[r]) {
+                        s -= L[q++] * L[r++];
+                    } else if (idx[q] < idx[r]) {
+                        q++;
+                    } else {
+                        r++;
+                    }
+                }
+                L[p] = s = s / L[rend];
+                d -= s * s;
+            }
+            if (!(d > 0.0)) {
+                throw new RuntimeException("Matrix is not symmetric positive definite.");
+            }
+            L[last] = Math.sqrt(d);
+        }
+    }
+
+    /*
+     * ------------------------ Public Methods ------------------------
+     */
+
+    @Override
+    public void apply(double[] r, double[] z) {
+        // L*y = r
+        for (int i = 0; i < n; i++) {
+            int last = ptr[i + 1] - 1;
+            double s = r[i];
+            for (int p = ptr[i]; p < last; p++) {
+                s -= L[p] * z[idx[p]];
+            }
+            z[i] = s / L[last];
+        }
+        // L'*z = y, column i of L' is row i of L.
+        for (int i = n - 1; i >= 0; i--) {
+            int last = ptr[i + 1] - 1;
+            double zi = z[i] /= L[last];
+            for (int p = ptr[i]; p < last; p++) {
+                z[idx[p]] -= L[p] * zi;
+            }
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package jama;
+
+import jama.blas.Elementwise;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Base of the Krylov subspace solvers for A*x = b. In contrast to
+ * {@link Matrix#solve(Matrix)}, which factors A at O(n^3) cost and O(n^2)
+ * memory, these solvers only apply A to vectors through a
+ * {@link LinearOperator}, so A may be sparse or never formed at all. Each
+ * iteration costs one or two products with A plus O(n) work.
+ * </p>
+ *
+ * <p>
+ * An iteration stops when the residual satisfies ||b - A*x||_2 &lt;=
+ * tolerance * ||b||_2 or after the iteration limit. It does not fail when the
+ * limit is reached or the method breaks down: the last iterate is returned and
+ * {@link #hasConverged()} is false. The iteration can start from a given
+ * approximation of x (warm start), and an {@link IterationListener} receives
+ * the residual norm of the start and of every iteration.
+ * </p>
+ *
+ * <p>
+ * A {@link Preconditioner} M^-1 can be set to speed up convergence. It does
+ * not change the stopping criterion, which always refers to the residual of
+ * the original system.
+ * </p>
+ *
+ * <pre>
+ * IterativeSolver cg = new ConjugateGradientSolver(laplacian);
+ * cg.setTolerance(1e-8);
+ * cg.setPreconditioner(new IncompleteCholeskyPreconditioner(laplacian));
+ * double[] x = cg.solve(b, previousX);
+ * if (!cg.hasConverged()) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * <p>
+ * A solver keeps the state of its last solve and must not be shared between
+ * threads.
+ * </p>
+ *
+ * @see ConjugateGradientSolver
+ * @see GMRESSolver
+ * @see BiCGSTABSolver
+ * @since 2.0.0
+ */
+public abstract class IterativeSolver {
+
+    /** Default relative residual tolerance. */
+    public static final double DEFAULT_TOLERANCE = 1e-10;
+
+    /** Default limit of iterations. */
+    public static final int DEFAULT_MAX_ITERATIONS = 1000;
+
+    /**
+     * Receives the progress of an iterative solve.
+     */
+    public interface IterationListener {
+
+        /**
+         * Called after every iteration, and with iteration 0 for the start.
+         *
+         * @param iteration number of completed iterations
+         * @param residualNorm ||b - A*x||_2 of the current iterate, or the
+         *            estimate of it maintained by the method
+         */
+        void iterationPerformed(int iteration, double residualNorm);
+    }
+
+    /** The system operator. */
+    final LinearOperator A;
+
+    /** Order of A. */
+    final int n;
+
+    private double tolerance = DEFAULT_TOLERANCE;
+
+    private int maxIterations = DEFAULT_MAX_ITERATIONS;
+
+    private IterationListener listener;
+
+    private Preconditioner preconditioner;
+
+    /** Absolute residual norm below which the iteration stops. */
+    private double threshold;
+
+    /** State of the last solve. */
+    private int iterations;
+    private double residualNorm;
+    private boolean converged;
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    IterativeSolver(LinearOperator A) {
+        n = A.getRowDimension();
+        if (A.getColumnDimension() != n) {
+            throw new IllegalArgumentException("Matrix must be square.");
+        }
+        this.A = A;
+    }
+
+    /*
+     * ------------------------ Public Methods ------------------------
+     */
+
+    /**
+     * @return relative residual tolerance
+     */
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * @param tolerance relative residual tolerance, ||b - A*x|| &lt;=
+     *            tolerance * ||b|| stops the iteration
+     * @exception IllegalArgumentException negative tolerance
+     */
+    public void setTolerance(double tolerance) {
+        if (!(tolerance >= 0.0)) {
+            throw new IllegalArgumentException("Tolerance must not be negative: " + tolerance);
+        }
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * @return limit of iterations
+     */
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * @param maxIterations limit of iterations
+     * @exception IllegalArgumentException negative limit
+     */
+    public void setMaxIterations(int maxIterations) {
+        if (maxIterations < 0) {
+            throw new IllegalArgumentException("Iteration limit must not be negative: " + maxIterations);
+        }
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * @param listener receives the residual norm of every iteration, null for
+     *            none
+     */
+    public void setIterationListener(IterationListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return the preconditioner, null for none
+     */
+    public Preconditioner getPreconditioner() {
+        return preconditioner;
+    }
+
+    /**
+     * @param preconditioner approximate inverse of A, null for none
+     */
+    public void setPreconditioner(Preconditioner preconditioner) {
+        this.preconditioner = preconditioner;
+    }
+
+    /**
+     * Solve A*x = b starting from x = 0.
+     *
+     * @param b right hand side
+     * @return the last iterate
+     * @exception IllegalArgumentException Matrix row dimensions must agree.
+     */
+    public double[] solve(double[] b) {
+        return solve(b, null);
+    }
+
+    /**
+     * Solve A*x = b starting from an approximation x0.
+     *
+     * @param b right hand side
+     * @param x0 initial approximation, not modified; null for zero
+     * @return the last iterate
+     * @exception IllegalArgumentException Matrix row dimensions must agree.
+     */
+    public double[] solve(double[] b, double[] x0) {
+        if (b.length != n || (x0 != null && x0.length != n)) {
+            throw new IllegalArgumentException("Matrix row dimensions must agree.");
+        }
+        double[] x = x0 == null ? new double[n] : x0.clone();
+        iterations = 0;
+        double bnrm = norm(b);
+        threshold = tolerance * bnrm;
+        if (bnrm == 0.0) {
+            Arrays.fill(x, 0.0);
+            converged = report(0, 0.0);
+            return x;
+        }
+        converged = iterate(b, x);
+        return x;
+    }
+
+    /**
+     * Solve A*X = B column by column, each starting from zero. Afterwards
+     * {@link #getIterations()} and {@link #getResidualNorm()} are the largest
+     * over the columns, and {@link #hasConverged()} is true if all columns
+     * converged.
+     *
+     * @param B right hand sides
+     * @return X
+     * @exception IllegalArgumentException Matrix row dimensions must agree.
+     */
+    public Matrix solve(Matrix B) {
+        if (B.getRowDimension() != n) {
+            throw new IllegalArgumentException("Matrix row dimensions must agree.");
+        }
+        int nx = B.getColumnDimension();
+        double[][] b = B.getArray();
+        double[][] X = new double[n][nx];
+        double[] bj = new double[n];
+        int maxIter = 0;
+        double maxNorm = 0.0;
+        boolean all = true;
+        for (int j = 0; j < nx; j++) {
+            for (int i = 0; i < n; i++) {
+                bj[i] = b[i][j];
+            }
+            double[] xj = solve(bj);
+            for (int i = 0; i < n; i++) {
+                X[i][j] = xj[i];
+            }
+            maxIter = Math.max(maxIter, iterations);
+            maxNorm = Math.max(maxNorm, residualNorm);
+            all &= converged;
+        }
+        iterations = maxIter;
+        residualNorm = maxNorm;
+        converged = all;
+        return new Matrix(X, n, nx);
+    }
+
+    /**
+     * @return iterations of the last solve
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return residual norm ||b - A*x||_2 at the end of the last solve
+     */
+    public double getResidualNorm() {
+        return residualNorm;
+    }
+
+    /**
+     * @return true if the last solve reached the tolerance
+     */
+    public boolean hasConverged() {
+        return converged;
+    }
+
+    /* ================================================ */
+    /* ============= Package Methods ================== */
+    /* ================================================ */
+
+    /**
+     * Runs the method on x, which holds the initial approximation and is
+     * overwritten by the iterates.
+     *
+     * @return true if the tolerance was reached
+     */
+    abstract boolean iterate(double[] b, double[] x);
+
+    /**
+     * Records the residual norm of an iteration and notifies the listener.
+     *
+     * @return true if the tolerance is reached
+     */
+    boolean report(int iteration, double rnorm) {
+        iterations = iteration;
+        residualNorm = rnorm;
+        if (listener != null) {
+            listener.iterationPerformed(iteration, rnorm);
+        }
+        return rnorm <= threshold;
+    }
+
+    /**
+     * Records a recomputed residual norm of the current iteration without
+     * notifying the listener.
+     *
+     * @return true if the tolerance is reached
+     */
+    boolean check(double rnorm) {
+        residualNorm = rnorm;
+        return rnorm <= threshold;
+    }
+
+    /** z = M^-1 * r, or a copy of r without preconditioner. */
+    void precondition(double[] r, double[] z) {
+        if (preconditioner == null) {
+            System.arraycopy(r, 0, z, 0, n);
+        } else {
+            preconditioner.apply(r, z);
+        }
+    }
+
+    /** r = b - A*x */
+    void residual(double[] b, double[] x, double[] r) {
+        A.apply(x, r);
+        Elementwise.subtract(b, r, r, n);
+    }
+
+    static double dot(double[] x, double[] y) {
+        double s = 0.0;
+        for (int i = 0; i < x.length; i++) {
+            s += x[i] * y[i];
+        }
+        return s;
+    }
+
+    static double norm(double[] x) {
+        return Math.sqrt(dot(x, x));
+    }
+}
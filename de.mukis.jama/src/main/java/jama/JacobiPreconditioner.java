@@ -0,0 +1,80 @@
+package jama;
+
+import jama.blas.Elementwise;
+
+import java.io.Serializable;
+
+/**
+ * <p>
+ * Jacobi (diagonal) preconditioner M = diag(A). It costs one division per row
+ * to build and one multiplication per element to apply, and removes the
+ * ill-conditioning caused by badly scaled rows and columns. M is symmetric
+ * and positive definite if A is, so it can be used with
+ * {@link ConjugateGradientSolver}.
+ * </p>
+ *
+ * @see BlockJacobiPreconditioner
+ * @since 2.0.0
+ */
+public class JacobiPreconditioner implements Preconditioner, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Reciprocals of the diagonal.
+     *
+     * @serial inverse diagonal.
+     */
+    private final double[] inv;
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    /**
+     * Jacobi preconditioner of a sparse matrix.
+     *
+     * @param A square matrix
+     * @exception IllegalArgumentException Matrix must be square.
+     * @exception RuntimeException Matrix has a zero on the diagonal.
+     */
+    public JacobiPreconditioner(CSRMatrix A) {
+        this(diagonal(A));
+    }
+
+    /**
+     * Jacobi preconditioner of a given diagonal.
+     *
+     * @param diagonal the diagonal of A, not modified
+     * @exception RuntimeException Matrix has a zero on the diagonal.
+     */
+    public JacobiPreconditioner(double[] diagonal) {
+        inv = new double[diagonal.length];
+        for (int i = 0; i < inv.length; i++) {
+            if (diagonal[i] == 0.0) {
+                throw new RuntimeException("Matrix has a zero on the diagonal.");
+            }
+            inv[i] = 1.0 / diagonal[i];
+        }
+    }
+
+    /*
+     * ------------------------ Public Methods ------------------------
+     */
+
+    @Override
+    public void apply(double[] r, double[] z) {
+        Elementwise.multiply(inv, r, z, inv.length);
+    }
+
+    /* ================================================ */
+    /* ============= Private Methods ================== */
+    /* ================================================ */
+
+    private static double[] diagonal(CSRMatrix A) {
+        if (A.getRowDimension() != A.getColumnDimension()) {
+            throw new IllegalArgumentException("Matrix must be square.");
+        }
+        return A.getDiagonal();
+    }
+}
@@ -0,0 +1,404 @@
+package jama;
+
+import jama.blas.Parallel;
+import jama.util.Maths;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * <p>
+ * Singular value decomposition A = U*S*V' by the one-sided Jacobi method of
+ * Hestenes. Plane rotations from the right orthogonalize the columns of A;
+ * their accumulation is V, the final column norms are the singular values,
+ * and the normalized columns are U.
+ * </p>
+ *
+ * <p>
+ * Each sweep visits all column pairs in the round-robin (tournament) order,
+ * in which every round consists of n/2 disjoint pairs. The pairs of a round
+ * are independent and are rotated in parallel on the pool of
+ * {@link Parallel}. Compared to {@link SingularValueDecomposition} the
+ * method computes small singular values to high relative accuracy, at the
+ * cost of more floating point operations.
+ * </p>
+ *
+ * <p>
+ * For an m-by-n matrix with m &gt;= n, U is m-by-n, S and V are n-by-n. For
+ * m &lt; n the transpose is decomposed, so that U is m-by-m, S is m-by-m
+ * and V is n-by-m.
+ * </p>
+ *
+ * @see SingularValueDecomposition
+ * @since 2.0.0
+ */
+public class JacobiSingularValueDecomposition implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Maximum number of sweeps. Convergence usually takes 6 to 10. */
+    private static final int MAX_SWEEPS = 60;
+
+    /** Pairs of a round which are not split into further tasks. */
+    private static final int MIN_PAIRS = 4;
+
+    /**
+     * Arrays for internal storage of U and V.
+     *
+     * @serial internal storage of U.
+     * @serial internal storage of V.
+     */
+    private final double[][] U, V;
+
+    /**
+     * Array for internal storage of singular values.
+     *
+     * @serial internal storage of singular values.
+     */
+    private final double[] s;
+
+    /**
+     * Row and column dimensions.
+     *
+     * @serial row dimension.
+     * @serial column dimension.
+     */
+    private final int m, n;
+
+    /**
+     * Number of sweeps until convergence.
+     *
+     * @serial sweep count.
+     */
+    private int sweeps;
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    /**
+     * Construct the singular value decomposition by one-sided Jacobi
+     * rotations.
+     *
+     * @param Arg Rectangular matrix
+     */
+    public JacobiSingularValueDecomposition(Matrix Arg) {
+        m = Arg.getRowDimension();
+        n = Arg.getColumnDimension();
+        double[][] A = Arg.getArray();
+        boolean transposed = (m < n);
+        int rows = Math.max(m, n);
+        int cols = Math.min(m, n);
+
+        // Columns of A, or rows of A if transposed, stored as rows of G.
+        double[][] G = new double[cols][];
+        if (transposed) {
+            for (int j = 0; j < cols; j++) {
+                G[j] = Arrays.copyOf(A[j], rows);
+            }
+        } else {
+            for (int j = 0; j < cols; j++) {
+                G[j] = new double[rows];
+            }
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < cols; j++) {
+                    G[j][i] = A[i][j];
+                }
+            }
+        }
+        double[][] W = new double[cols][cols];
+        for (int j = 0; j < cols; j++) {
+            W[j][j] = 1.0;
+        }
+
+        orthogonalize(G, W, rows, cols);
+
+        // Singular values in descending order, normalized columns.
+        final double[] sigma = new double[cols];
+        Integer[] order = new Integer[cols];
+        for (int j = 0; j < cols; j++) {
+            double nrm = 0.0;
+            for (int i = 0; i < rows; i++) {
+                nrm = Maths.hypot(nrm, G[j][i]);
+            }
+            sigma[j] = nrm;
+            order[j] = j;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                return Double.compare(sigma[b], sigma[a]);
+            }
+        });
+        s = new double[cols];
+        double[][] X = new double[rows][cols];
+        double[][] Y = new double[cols][cols];
+        for (int j = 0; j < cols; j++) {
+            int o = order[j];
+            s[j] = sigma[o];
+            for (int i = 0; i < rows; i++) {
+                X[i][j] = (s[j] == 0.0 ? 0.0 : G[o][i] / s[j]);
+            }
+            for (int i = 0; i < cols; i++) {
+                Y[i][j] = W[o][i];
+            }
+        }
+        complete(X, s, rows, cols);
+        U = (transposed ? Y : X);
+        V = (transposed ? X : Y);
+    }
+
+    /*
+     * ------------------------ Public Methods ------------------------
+     */
+
+    /**
+     * Return the left singular vectors
+     *
+     * @return U, m-by-min(m,n)
+     */
+    public Matrix getU() {
+        return new Matrix(U, m, Math.min(m, n));
+    }
+
+    /**
+     * Return the right singular vectors
+     *
+     * @return V, n-by-min(m,n)
+     */
+    public Matrix getV() {
+        return new Matrix(V, n, Math.min(m, n));
+    }
+
+    /**
+     * Return the one-dimensional array of singular values
+     *
+     * @return diagonal of S.
+     */
+    public double[] getSingularValues() {
+        return s;
+    }
+
+    /**
+     * Return the diagonal matrix of singular values
+     *
+     * @return S
+     */
+    public Matrix getS() {
+        int k = s.length;
+        Matrix X = new Matrix(k, k);
+        for (int i = 0; i < k; i++) {
+            X.set(i, i, s[i]);
+        }
+        return X;
+    }
+
+    /**
+     * Two norm
+     *
+     * @return max(S)
+     */
+    public double norm2() {
+        return s[0];
+    }
+
+    /**
+     * Two norm condition number
+     *
+     * @return max(S)/min(S)
+     */
+    public double cond() {
+        return s[0] / s[s.length - 1];
+    }
+
+    /**
+     * Effective numerical matrix rank
+     *
+     * @return Number of nonnegligible singular values.
+     */
+    public int rank() {
+        double eps = Math.pow(2.0, -52.0);
+        double tol = Math.max(m, n) * s[0] * eps;
+        int r = 0;
+        for (int i = 0; i < s.length; i++) {
+            if (s[i] > tol) {
+                r++;
+            }
+        }
+        return r;
+    }
+
+    /**
+     * @return number of sweeps until all columns were orthogonal
+     */
+    public int getSweeps() {
+        return sweeps;
+    }
+
+    /* ================================================ */
+    /* ============= Private Methods ================== */
+    /* ================================================ */
+
+    /**
+     * Rotates the rows of G, and accordingly of W, until they are mutually
+     * orthogonal.
+     */
+    private void orthogonalize(double[][] G, double[][] W, int rows, int cols) {
+        // Round-robin schedule: player 0 stays, the others rotate by one
+        // place per round. An odd number of columns gets a bye (-1).
+        int players = cols + (cols % 2);
+        int[] perm = new int[players];
+        for (int j = 0; j < players; j++) {
+            perm[j] = (j < cols ? j : -1);
+        }
+        int half = players / 2;
+        int[] P = new int[half];
+        int[] Q = new int[half];
+        double tol = Math.sqrt(rows) * Math.pow(2.0, -52.0);
+        boolean parallel = Parallel.isWorthwhile((long) 8 * rows * cols);
+
+        for (sweeps = 1; sweeps <= MAX_SWEEPS; sweeps++) {
+            int rotations = 0;
+            for (int round = 0; round < players - 1; round++) {
+                for (int i = 0; i < half; i++) {
+                    P[i] = perm[i];
+                    Q[i] = perm[players - 1 - i];
+                }
+                RoundTask task = new RoundTask(G, W, P, Q, 0, half, rows, cols, tol);
+                rotations += (parallel ? Parallel.invoke(task) : task.compute());
+                int last = perm[players - 1];
+                System.arraycopy(perm, 1, perm, 2, players - 2);
+                perm[1] = last;
+            }
+            if (rotations == 0) {
+                return;
+            }
+        }
+        throw new RuntimeException("Jacobi iteration did not converge.");
+    }
+
+    /**
+     * Replaces the zero columns of X, belonging to zero singular values, by
+     * unit vectors orthogonal to the other columns. Each one starts from the
+     * unit vector e_i whose row of X has the smallest norm, i.e. the one with
+     * the largest component outside of the span of the orthonormal columns.
+     * That component is at least 1/sqrt(rows), so the projection never
+     * cancels.
+     */
+    private static void complete(double[][] X, double[] s, int rows, int cols) {
+        for (int j = 0; j < cols; j++) {
+            if (s[j] != 0.0) {
+                continue;
+            }
+            int e = 0;
+            double min = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < rows; i++) {
+                double rowNorm = 0.0;
+                for (int p = 0; p < cols; p++) {
+                    if (p != j) {
+                        rowNorm += X[i][p] * X[i][p];
+                    }
+                }
+                if (rowNorm < min) {
+                    min = rowNorm;
+                    e = i;
+                }
+            }
+            double[] x = new double[rows];
+            x[e] = 1.0;
+            for (int pass = 0; pass < 2; pass++) {
+                for (int p = 0; p < cols; p++) {
+                    if (p == j) {
+                        continue;
+                    }
+                    double dot = 0.0;
+                    for (int i = 0; i < rows; i++) {
+                        dot += X[i][p] * x[i];
+                    }
+                    for (int i = 0; i < rows; i++) {
+                        x[i] -= dot * X[i][p];
+                    }
+                }
+            }
+            double nrm = 0.0;
+            for (int i = 0; i < rows; i++) {
+                nrm = Maths.hypot(nrm, x[i]);
+            }
+            for (int i = 0; i < rows; i++) {
+                X[i][j] = x[i] / nrm;
+            }
+        }
+    }
+
+    /** Rotates the disjoint pairs lo..hi-1 of a round, returns the rotation count. */
+    private static final class RoundTask extends RecursiveTask<Integer> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double[][] G, W;
+        private final int[] P, Q;
+        private final int lo, hi, rows, cols;
+        private final double tol;
+
+        RoundTask(double[][] G, double[][] W, int[] P, int[] Q, int lo, int hi, int rows, int cols, double tol) {
+            this.G = G;
+            this.W = W;
+            this.P = P;
+            this.Q = Q;
+            this.lo = lo;
+            this.hi = hi;
+            this.rows = rows;
+            this.cols = cols;
+            this.tol = tol;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (hi - lo > MIN_PAIRS && getPool() != null) {
+                int mid = (lo + hi) >>> 1;
+                RoundTask upper = new RoundTask(G, W, P, Q, lo, mid, rows, cols, tol);
+                upper.fork();
+                int lower = new RoundTask(G, W, P, Q, mid, hi, rows, cols, tol).compute();
+                return lower + upper.join();
+            }
+            int rotations = 0;
+            for (int i = lo; i < hi; i++) {
+                if (P[i] >= 0 && Q[i] >= 0 && rotate(G[P[i]], G[Q[i]], W[P[i]], W[Q[i]])) {
+                    rotations++;
+                }
+            }
+            return rotations;
+        }
+
+        /** Orthogonalizes the columns gp and gq, returns false if they already are. */
+        private boolean rotate(double[] gp, double[] gq, double[] wp, double[] wq) {
+            double alpha = 0.0, beta = 0.0, gamma = 0.0;
+            for (int i = 0; i < rows; i++) {
+                alpha += gp[i] * gp[i];
+                beta += gq[i] * gq[i];
+                gamma += gp[i] * gq[i];
+            }
+            if (gamma == 0.0 || Math.abs(gamma) <= tol * Math.sqrt(alpha) * Math.sqrt(beta)) {
+                return false;
+            }
+            double zeta = (beta - alpha) / (2.0 * gamma);
+            double t = Math.copySign(1.0, zeta) / (Math.abs(zeta) + Maths.hypot(1.0, zeta));
+            double c = 1.0 / Maths.hypot(1.0, t);
+            double s = c * t;
+            for (int i = 0; i < rows; i++) {
+                double x = gp[i];
+                double y = gq[i];
+                gp[i] = c * x - s * y;
+                gq[i] = s * x + c * y;
+            }
+            for (int i = 0; i < cols; i++) {
+                double x = wp[i];
+                double y = wq[i];
+                wp[i] = c * x - s * y;
+                wq[i] = s * x + c * y;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,745 @@
+package jama;
+
+import jama.blas.Elementwise;
+import jama.util.Maths;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * <p>
+ * Base of the implicitly restarted Krylov eigensolvers, which compute a few
+ * eigenpairs of a large operator given only by its action on vectors. In
+ * contrast to {@link EigenvalueDecomposition}, which needs the whole matrix
+ * and O(n^3) work, memory and work per restart are O(n * m) for a subspace
+ * of dimension m, plus m products with A.
+ * </p>
+ *
+ * <p>
+ * The solver builds an orthonormal Krylov basis V of dimension m with
+ * A*V = V*H + f*e_m', where H is the small m-by-m projection of A. The
+ * eigenpairs of H, computed by the dense {@link EigenvalueDecomposition},
+ * give Ritz approximations V*s of the eigenpairs of A with residual norm
+ * ||f|| * |e_m'*s|. If the wanted ones have not converged, the basis is
+ * compressed to the wanted part by m - nev implicitly shifted QR steps on H
+ * with the unwanted Ritz values as shifts (exact shifts, as in ARPACK), and
+ * extended again. A pair of complex conjugate shifts is applied as one real
+ * double shift.
+ * </p>
+ *
+ * <pre>
+ * LanczosEigenSolver lanczos = new LanczosEigenSolver(laplacian);
+ * lanczos.solve(10, KrylovEigenSolver.Which.SMALLEST_REAL);
+ * double[] lambda = lanczos.getRealEigenvalues();
+ * Matrix X = lanczos.getEigenvectors();
+ * </pre>
+ *
+ * <p>
+ * A Ritz value theta counts as converged when its residual norm is at most
+ * tolerance * max(|theta|, eps^(2/3) * ||H||), where H is the projection of A
+ * onto the Krylov basis, so the test scales with the operator. As with
+ * {@link IterativeSolver}, the restart limit does not raise an exception;
+ * {@link #hasConverged()} tells whether all requested eigenpairs converged.
+ * </p>
+ *
+ * @see LanczosEigenSolver
+ * @see ArnoldiEigenSolver
+ * @since 2.0.0
+ */
+public abstract class KrylovEigenSolver {
+
+    /** Default relative tolerance of the Ritz residuals. */
+    public static final double DEFAULT_TOLERANCE = 1e-10;
+
+    /** Default limit of restarts. */
+    public static final int DEFAULT_MAX_RESTARTS = 300;
+
+    /**
+     * The part of the spectrum to compute.
+     */
+    public enum Which {
+        /** Eigenvalues of largest absolute value. */
+        LARGEST_MAGNITUDE,
+        /** Eigenvalues of smallest absolute value. */
+        SMALLEST_MAGNITUDE,
+        /** Eigenvalues of largest real part. */
+        LARGEST_REAL,
+        /** Eigenvalues of smallest real part. */
+        SMALLEST_REAL
+    }
+
+    /** 2^-52 */
+    private static final double EPS = Math.pow(2.0, -52.0);
+
+    /** eps^(2/3), the floor of the convergence test relative to ||H||. */
+    private static final double EPS23 = Math.pow(EPS, 2.0 / 3.0);
+
+    /** The operator. */
+    final LinearOperator A;
+
+    /** Order of A. */
+    final int n;
+
+    private double tolerance = DEFAULT_TOLERANCE;
+
+    private int maxRestarts = DEFAULT_MAX_RESTARTS;
+
+    private int subspaceSize;
+
+    private double[] startVector;
+
+    /** Results of the last solve. */
+    private double[] wr, wi;
+    private double[][] X;
+    private int restarts, products, nconv;
+    private boolean converged;
+
+    /** Work state of a solve. */
+    private double[][] V;
+    private double[][] H;
+    private double[] f;
+    private Random random;
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    KrylovEigenSolver(LinearOperator A) {
+        n = A.getRowDimension();
+        if (A.getColumnDimension() != n) {
+            throw new IllegalArgumentException("Matrix must be square.");
+        }
+        this.A = A;
+    }
+
+    /*
+     * ------------------------ Public Methods ------------------------
+     */
+
+    /**
+     * @return relative tolerance of the Ritz residuals
+     */
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * @param tolerance relative tolerance of the Ritz residuals
+     * @exception IllegalArgumentException negative tolerance
+     */
+    public void setTolerance(double tolerance) {
+        if (!(tolerance >= 0.0)) {
+            throw new IllegalArgumentException("Tolerance must not be negative: " + tolerance);
+        }
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * @return limit of restarts
+     */
+    public int getMaxRestarts() {
+        return maxRestarts;
+    }
+
+    /**
+     * @param maxRestarts limit of restarts
+     * @exception IllegalArgumentException negative limit
+     */
+    public void setMaxRestarts(int maxRestarts) {
+        if (maxRestarts < 0) {
+            throw new IllegalArgumentException("Restart limit must not be negative: " + maxRestarts);
+        }
+        this.maxRestarts = maxRestarts;
+    }
+
+    /**
+     * @param m dimension of the Krylov subspace, larger than the number of
+     *            wanted eigenvalues; 0 chooses min(n, max(2 * nev + 1, 20))
+     * @exception IllegalArgumentException negative dimension
+     */
+    public void setSubspaceSize(int m) {
+        if (m < 0) {
+            throw new IllegalArgumentException("Subspace size must not be negative: " + m);
+        }
+        subspaceSize = m;
+    }
+
+    /**
+     * @param v0 first vector of the Krylov basis, not modified; null for a
+     *            fixed pseudo-random vector
+     * @exception IllegalArgumentException Matrix row dimensions must agree.
+     */
+    public void setStartVector(double[] v0) {
+        if (v0 != null && v0.length != n) {
+            throw new IllegalArgumentException("Matrix row dimensions must agree.");
+        }
+        startVector = v0 == null ? null : v0.clone();
+    }
+
+    /**
+     * Compute nev eigenpairs from the given part of the spectrum.
+     *
+     * @param nev number of wanted eigenvalues, 0 &lt; nev &lt; n
+     * @param which part of the spectrum
+     * @exception IllegalArgumentException nev out of range or subspace too
+     *                small
+     */
+    public void solve(int nev, Which which) {
+        if (nev < 1 || nev >= n) {
+            throw new IllegalArgumentException("Number of eigenvalues must be between 1 and " + (n - 1) + ": " + nev);
+        }
+        int m = subspaceSize > 0 ? Math.min(subspaceSize, n) : Math.min(n, Math.max(2 * nev + 1, 20));
+        if (m <= nev) {
+            throw new IllegalArgumentException("Subspace size " + m + " must exceed the number of eigenvalues " + nev
+                    + ".");
+        }
+        V = new double[m][];
+        H = new double[m][m];
+        f = startVector != null ? startVector.clone() : null;
+        random = new Random(42L);
+        restarts = 0;
+        products = 0;
+
+        extend(0, m);
+        while (true) {
+            // Ritz values of H, wanted ones first.
+            EigenvalueDecomposition eig = new EigenvalueDecomposition(projection(m), m);
+            final double[] tr = eig.getRealEigenvalues();
+            final double[] ti = eig.getImagEigenvalues();
+            double[][] S = eig.getV().getArray();
+            Integer[] order = sort(tr, ti, which, m);
+
+            // A complex conjugate pair is never split.
+            int k = nev;
+            if (k < m && ti[order[k - 1]] != 0.0 && ti[order[k]] == -ti[order[k - 1]]) {
+                k++;
+            }
+            ritzVectors(tr, ti, S, order, k, m);
+
+            double fnorm = IterativeSolver.norm(f);
+            double floor = EPS23 * normH(m);
+            nconv = 0;
+            for (int i = 0; i < k; i++) {
+                int c = order[i];
+                double last = ti[c] == 0.0 ? Math.abs(S[m - 1][c]) : Maths.hypot(S[m - 1][c], S[m - 1][pair(c, ti)]);
+                double theta = Maths.hypot(tr[c], ti[c]);
+                if (fnorm * last <= tolerance * Math.max(theta, floor)) {
+                    nconv++;
+                }
+            }
+            converged = nconv >= k;
+            if (converged || restarts >= maxRestarts || k == m) {
+                results(tr, ti, S, order, k, m);
+                break;
+            }
+            restarts++;
+            // Keeping some more Ritz vectors than wanted once a few have
+            // converged prevents stagnation, as in ARPACK.
+            int keep = Math.min(k + Math.min(nconv, (m - k) / 2), m - 1);
+            if (keep > k && ti[order[keep - 1]] != 0.0 && ti[order[keep]] == -ti[order[keep - 1]]) {
+                keep--;
+            }
+            restart(tr, ti, order, keep, m);
+            extend(keep, m);
+        }
+        V = null;
+        H = null;
+        f = null;
+    }
+
+    /**
+     * @return real parts of the computed eigenvalues, wanted ones first
+     */
+    public double[] getRealEigenvalues() {
+        checkSolved();
+        return wr.clone();
+    }
+
+    /**
+     * @return imaginary parts of the computed eigenvalues
+     */
+    public double[] getImagEigenvalues() {
+        checkSolved();
+        return wi.clone();
+    }
+
+    /**
+     * Return the eigenvectors as columns, in the block form of
+     * {@link EigenvalueDecomposition#getV()}: for a complex pair
+     * lambda +/- i*mu the two columns are the real and imaginary part of the
+     * eigenvector of lambda + i*mu.
+     *
+     * @return n-by-k matrix of unit eigenvectors
+     */
+    public Matrix getEigenvectors() {
+        checkSolved();
+        int k = wr.length;
+        double[][] C = new double[n][k];
+        for (int j = 0; j < k; j++) {
+            for (int i = 0; i < n; i++) {
+                C[i][j] = X[j][i];
+            }
+        }
+        return new Matrix(C, n, k);
+    }
+
+    /**
+     * Return the block diagonal eigenvalue matrix, as
+     * {@link EigenvalueDecomposition#getD()}.
+     *
+     * @return D with A*X = X*D for X = {@link #getEigenvectors()}
+     */
+    public Matrix getD() {
+        checkSolved();
+        int k = wr.length;
+        Matrix D = new Matrix(k, k);
+        for (int i = 0; i < k; i++) {
+            D.set(i, i, wr[i]);
+            if (wi[i] > 0 && i + 1 < k) {
+                D.set(i, i + 1, wi[i]);
+            } else if (wi[i] < 0 && i > 0) {
+                D.set(i, i - 1, wi[i]);
+            }
+        }
+        return D;
+    }
+
+    /**
+     * @return true if all requested eigenpairs converged in the last solve
+     */
+    public boolean hasConverged() {
+        return converged;
+    }
+
+    /**
+     * @return number of converged eigenpairs among the computed ones
+     */
+    public int getConvergedCount() {
+        return nconv;
+    }
+
+    /**
+     * @return restarts of the last solve
+     */
+    public int getRestarts() {
+        return restarts;
+    }
+
+    /**
+     * @return products with A in the last solve
+     */
+    public int getOperatorApplications() {
+        return products;
+    }
+
+    /* ================================================ */
+    /* ============= Package Methods ================== */
+    /* ================================================ */
+
+    /**
+     * @return true if A is symmetric, which makes H symmetric tridiagonal
+     */
+    abstract boolean isSymmetric();
+
+    /* ================================================ */
+    /* ============= Private Methods ================== */
+    /* ================================================ */
+
+    /**
+     * Arnoldi steps j = from..to-1. V[0..from-1], H(0:from-1,0:from-1) and
+     * the residual f of the basis of size from are given; f is null if from
+     * is 0 and no start vector is set.
+     */
+    private void extend(int from, int to) {
+        for (int j = from; j < to; j++) {
+            double beta = f == null ? 0.0 : IterativeSolver.norm(f);
+            if (j > 0) {
+                H[j][j - 1] = beta;
+            }
+            if (f == null || beta <= EPS * normH(j)) {
+                // Invariant subspace, or no start vector: continue with a
+                // random direction orthogonal to the basis.
+                if (j > 0) {
+                    H[j][j - 1] = 0.0;
+                }
+                f = new double[n];
+                for (int i = 0; i < n; i++) {
+                    f[i] = random.nextDouble() - 0.5;
+                }
+                orthogonalize(f, j, null);
+                beta = IterativeSolver.norm(f);
+            }
+            double[] v = V[j] = new double[n];
+            Elementwise.scale(1.0 / beta, f, v, n);
+
+            double[] w = new double[n];
+            A.apply(v, w);
+            products++;
+            double[] h = new double[j + 1];
+            orthogonalize(w, j + 1, h);
+            for (int i = 0; i <= j; i++) {
+                H[i][j] = h[i];
+            }
+            f = w;
+        }
+    }
+
+    /**
+     * w = w - V(:,0:j-1)*(V(:,0:j-1)'*w), classical Gram-Schmidt applied
+     * twice, which keeps V orthogonal to working precision. The coefficients
+     * are added to h if given.
+     */
+    private void orthogonalize(double[] w, int j, double[] h) {
+        double[] c = new double[j];
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < j; i++) {
+                c[i] = IterativeSolver.dot(V[i], w);
+            }
+            for (int i = 0; i < j; i++) {
+                Elementwise.axpy(-c[i], V[i], w, n);
+                if (h != null) {
+                    h[i] += c[i];
+                }
+            }
+        }
+    }
+
+    /** Frobenius norm of the leading j-by-j block of H. */
+    private double normH(int j) {
+        double s = 0.0;
+        for (int i = 0; i < j; i++) {
+            for (int k = 0; k < j; k++) {
+                s = Maths.hypot(s, H[i][k]);
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Copy of H for the Ritz values. For a symmetric operator H itself is
+     * first symmetrized and reduced to its tridiagonal part, which only
+     * changes it by rounding errors, so that the symmetric QL algorithm is
+     * used and the Ritz pairs, their residual estimates and the restart all
+     * refer to the same H.
+     */
+    private double[][] projection(int m) {
+        if (isSymmetric()) {
+            for (int i = 0; i < m; i++) {
+                for (int j = 0; j < i; j++) {
+                    H[i][j] = H[j][i] = (i - j == 1) ? 0.5 * (H[i][j] + H[j][i]) : 0.0;
+                }
+            }
+        }
+        double[][] P = new double[m][];
+        for (int i = 0; i < m; i++) {
+            P[i] = H[i].clone();
+        }
+        return P;
+    }
+
+    /**
+     * Compress the basis to its first k vectors by implicitly shifted QR
+     * steps on H, with the unwanted Ritz values order[k..m-1] as shifts. Each
+     * step chases a bulge down H with Givens rotations, so that H stays
+     * exactly upper Hessenberg and A*V = V*H + f*e_m' is kept to working
+     * precision; an explicit QR factorization of H - mu*I loses that
+     * structure for exact shifts. As in ARPACK, negligible subdiagonal
+     * entries, which exact shifts produce next to converged Ritz values, are
+     * set to zero and the shifts are applied to each unreduced block.
+     */
+    private void restart(double[] tr, double[] ti, Integer[] order, int k, int m) {
+        double[][] Q = Matrix.identity(m, m).getArray();
+        boolean[] done = new boolean[m];
+        for (int s = k; s < m; s++) {
+            int c = order[s];
+            if (done[c]) {
+                continue;
+            }
+            done[c] = true;
+            if (ti[c] != 0.0) {
+                done[pair(c, ti)] = true;
+            }
+            for (int lo = 0; lo < m - 1;) {
+                int hi = lo;
+                while (hi < m - 1 && !deflate(hi)) {
+                    hi++;
+                }
+                if (hi > lo) {
+                    shift(Q, tr[c], ti[c], lo, hi, m);
+                }
+                lo = hi + 1;
+            }
+        }
+        for (int j = 0; j < m - 1; j++) {
+            deflate(j);
+        }
+
+        // V(:,0:k) = V*Q(:,0:k), f = V(:,k)*H(k,k-1) + f*Q(m-1,k-1)
+        double[][] W = new double[k + 1][n];
+        for (int j = 0; j <= k; j++) {
+            for (int i = 0; i < m; i++) {
+                if (Q[i][j] != 0.0) {
+                    Elementwise.axpy(Q[i][j], V[i], W[j], n);
+                }
+            }
+        }
+        Elementwise.scale(Q[m - 1][k - 1], f, f, n);
+        Elementwise.axpy(H[k][k - 1], W[k], f, n);
+        for (int j = 0; j < m; j++) {
+            V[j] = j < k ? W[j] : null;
+        }
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < m; j++) {
+                if (i >= k || j >= k) {
+                    H[i][j] = 0.0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets H(j+1,j) to zero if it is negligible.
+     *
+     * @return true if H(j+1,j) is zero
+     */
+    private boolean deflate(int j) {
+        if (Math.abs(H[j + 1][j]) <= EPS * (Math.abs(H[j][j]) + Math.abs(H[j + 1][j + 1]))) {
+            H[j + 1][j] = 0.0;
+            if (isSymmetric()) {
+                H[j][j + 1] = 0.0;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * One implicitly shifted QR step on the unreduced block H(lo:hi,lo:hi),
+     * with shift re + i*im, and a double step with its conjugate if im is
+     * not zero.
+     */
+    private void shift(double[][] Q, double re, double im, int lo, int hi, int m) {
+        if (im == 0.0) {
+            // First column of H - mu*I.
+            rotate(Q, lo, H[lo][lo] - re, H[lo + 1][lo], m);
+        } else {
+            // First column of (H - mu*I)*(H - conj(mu)*I)
+            // = H^2 - 2*re(mu)*H + |mu|^2*I, real for a conjugate pair.
+            double sum = 2.0 * re;
+            double prod = re * re + im * im;
+            double x = H[lo][lo] * H[lo][lo] + H[lo][lo + 1] * H[lo + 1][lo] - sum * H[lo][lo] + prod;
+            double y = H[lo + 1][lo] * (H[lo][lo] + H[lo + 1][lo + 1] - sum);
+            if (hi > lo + 1) {
+                y = rotate(Q, lo + 1, y, H[lo + 1][lo] * H[lo + 2][lo + 1], m);
+            }
+            rotate(Q, lo, x, y, m);
+        }
+        // Chase the bulge down to restore the Hessenberg form.
+        for (int j = lo; j < hi - 1; j++) {
+            for (int i = Math.min(j + 3, hi); i > j + 1; i--) {
+                if (H[i][j] != 0.0) {
+                    rotate(Q, i - 1, H[i - 1][j], H[i][j], m);
+                    H[i][j] = 0.0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the Givens rotation G that maps (a, b) to (r, 0) in rows and
+     * columns i, i+1 of H as H = G'*H*G, and accumulates Q = Q*G.
+     *
+     * @return r
+     */
+    private double rotate(double[][] Q, int i, double a, double b, int m) {
+        double r = Maths.hypot(a, b);
+        if (r == 0.0) {
+            return 0.0;
+        }
+        double c = a / r;
+        double s = b / r;
+        for (int j = 0; j < m; j++) {
+            double h0 = H[i][j];
+            double h1 = H[i + 1][j];
+            H[i][j] = c * h0 + s * h1;
+            H[i + 1][j] = c * h1 - s * h0;
+        }
+        for (int j = 0; j < m; j++) {
+            double h0 = H[j][i];
+            double h1 = H[j][i + 1];
+            H[j][i] = c * h0 + s * h1;
+            H[j][i + 1] = c * h1 - s * h0;
+            double q0 = Q[j][i];
+            double q1 = Q[j][i + 1];
+            Q[j][i] = c * q0 + s * q1;
+            Q[j][i + 1] = c * q1 - s * q0;
+        }
+        return r;
+    }
+
+    /**
+     * Normalizes the eigenvectors S of H that belong to the Ritz values
+     * order[0..k-1], complex pairs jointly, so that ||f|| * |e_m'*s| is the
+     * residual norm of the Ritz vector. Eigenvectors that hqr2 did not
+     * compute to finite values are recomputed by inverse iteration.
+     */
+    private void ritzVectors(double[] tr, double[] ti, double[][] S, Integer[] order, int k, int m) {
+        for (int j = 0; j < k; j++) {
+            int c = order[j];
+            int col = ti[c] == 0.0 ? c : Math.min(c, pair(c, ti));
+            int cols = ti[c] == 0.0 ? 1 : 2;
+            if (ti[c] < 0.0 && j > 0 && order[j - 1] == pair(c, ti)) {
+                continue;
+            }
+            double norm = 0.0;
+            for (int l = col; l < col + cols; l++) {
+                for (int i = 0; i < m; i++) {
+                    norm = Maths.hypot(norm, S[i][l]);
+                }
+            }
+            if (Double.isNaN(norm) || Double.isInfinite(norm) || norm == 0.0) {
+                double[][] x = inverseIteration(tr[c], Math.abs(ti[c]), m);
+                norm = 0.0;
+                for (int l = 0; l < cols; l++) {
+                    for (int i = 0; i < m; i++) {
+                        S[i][col + l] = x[l][i];
+                        norm = Maths.hypot(norm, x[l][i]);
+                    }
+                }
+            }
+            for (int l = col; l < col + cols; l++) {
+                for (int i = 0; i < m; i++) {
+                    S[i][l] /= norm;
+                }
+            }
+        }
+    }
+
+    /**
+     * Eigenvector of H for the eigenvalue re + i*im, im &gt;= 0, by two steps
+     * of inverse iteration. A complex eigenvector xr + i*xi is computed from
+     * the real system [H - re*I, im*I; -im*I, H - re*I] * [xr; xi] = [br; bi]
+     * of twice the order.
+     *
+     * @return {xr} for a real eigenvalue, {xr, xi} otherwise
+     */
+    private double[][] inverseIteration(double re, double im, int m) {
+        int size = im == 0.0 ? m : 2 * m;
+        // Shift slightly off the eigenvalue, so that the system is regular.
+        double shift = re + EPS * Math.max(normH(m), Double.MIN_NORMAL);
+        LUDecomposition lu;
+        while (true) {
+            Matrix B = new Matrix(size, size);
+            for (int i = 0; i < m; i++) {
+                for (int j = 0; j < m; j++) {
+                    B.set(i, j, H[i][j]);
+                    if (size > m) {
+                        B.set(m + i, m + j, H[i][j]);
+                    }
+                }
+                B.set(i, i, H[i][i] - shift);
+                if (size > m) {
+                    B.set(m + i, m + i, H[i][i] - shift);
+                    B.set(i, m + i, im);
+                    B.set(m + i, i, -im);
+                }
+            }
+            lu = new LUDecomposition(B);
+            if (lu.isNonsingular()) {
+                break;
+            }
+            shift += 1e3 * (shift - re);
+        }
+        Matrix x = new Matrix(size, 1, 1.0);
+        for (int step = 0; step < 2; step++) {
+            x = lu.solve(x);
+            x = x.times(1.0 / x.normF());
+        }
+        double[][] X = new double[size / m][m];
+        for (int l = 0; l < size / m; l++) {
+            for (int i = 0; i < m; i++) {
+                X[l][i] = x.get(l * m + i, 0);
+            }
+        }
+        return X;
+    }
+
+    /** Ritz vectors and values order[0..k-1]. */
+    private void results(double[] tr, double[] ti, double[][] S, Integer[] order, int k, int m) {
+        wr = new double[k];
+        wi = new double[k];
+        X = new double[k][n];
+        for (int j = 0; j < k; j++) {
+            int c = order[j];
+            wr[j] = tr[c];
+            wi[j] = ti[c];
+            // Real part for the eigenvalue with positive imaginary part,
+            // imaginary part for its conjugate.
+            int col = c;
+            if (ti[c] != 0.0) {
+                int re = Math.min(c, pair(c, ti));
+                col = ti[c] > 0 ? re : re + 1;
+            }
+            for (int i = 0; i < m; i++) {
+                if (S[i][col] != 0.0) {
+                    Elementwise.axpy(S[i][col], V[i], X[j], n);
+                }
+            }
+        }
+        // Normalize, complex pairs jointly.
+        for (int j = 0; j < k; j++) {
+            if (wi[j] != 0.0 && j + 1 < k && wi[j + 1] == -wi[j]) {
+                double s = Maths.hypot(IterativeSolver.norm(X[j]), IterativeSolver.norm(X[j + 1]));
+                Elementwise.scale(1.0 / s, X[j], X[j], n);
+                Elementwise.scale(1.0 / s, X[j + 1], X[j + 1], n);
+                j++;
+            } else {
+                double s = IterativeSolver.norm(X[j]);
+                Elementwise.scale(1.0 / s, X[j], X[j], n);
+            }
+        }
+    }
+
+    /** Index of the conjugate of Ritz value c, adjacent in the output of hqr2. */
+    private static int pair(int c, double[] ti) {
+        return ti[c] > 0 ? c + 1 : c - 1;
+    }
+
+    /** Indices of the Ritz values, wanted first; conjugate pairs stay adjacent. */
+    private static Integer[] sort(final double[] tr, final double[] ti, final Which which, int m) {
+        Integer[] order = new Integer[m];
+        for (int i = 0; i < m; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                int c;
+                switch (which) {
+                case LARGEST_MAGNITUDE:
+                    c = Double.compare(Maths.hypot(tr[b], ti[b]), Maths.hypot(tr[a], ti[a]));
+                    break;
+                case SMALLEST_MAGNITUDE:
+                    c = Double.compare(Maths.hypot(tr[a], ti[a]), Maths.hypot(tr[b], ti[b]));
+                    break;
+                case LARGEST_REAL:
+                    c = Double.compare(tr[b], tr[a]);
+                    break;
+                default:
+                    c = Double.compare(tr[a], tr[b]);
+                    break;
+                }
+                // Positive imaginary part first within a pair.
+                return c != 0 ? c : Double.compare(ti[b], ti[a]);
+            }
+        });
+        return order;
+    }
+
+    private void checkSolved() {
+        if (wr == null) {
+            throw new IllegalStateException("No eigenvalues computed, call solve first.");
+        }
+    }
+}
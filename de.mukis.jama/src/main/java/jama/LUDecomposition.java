@@ -1,4 +1,6 @@
 package jama;
+import jama.blas.Gemm;
+import jama.blas.Trsm;
 
    /** LU Decomposition.
    <P>
@@ -11,6 +13,9 @@ package jama;
    singular, so the constructor will never fail.  The primary use of the
    LU decomposition is in the solution of square systems of simultaneous
    linear equations.  This will fail if isNonsingular() returns false.
+   <P>
+   Matrices with more than 64 rows and columns are factored by a blocked,
+   right-looking algorithm whose trailing updates are matrix products.
    */
 
 public class LUDecomposition implements java.io.Serializable {
@@ -36,6 +41,11 @@ public class LUDecomposition implements java.io.Serializable {
    */
    private int[] piv;
 
+   /** Number of columns per panel of the blocked factorization. Smaller
+       matrices are factored by the unblocked Crout algorithm.
+   */
+   private static final int BLOCK_SIZE = 64;
+
 /* ------------------------
    Constructor
  * ------------------------ */
@@ -46,17 +56,35 @@ public class LUDecomposition implements java.io.Serializable {
    */
 
    public LUDecomposition (Matrix A) {
+      this(A.getArrayCopy(), A.getRowDimension(), A.getColumnDimension());
+   }
 
-   // Use a "left-looking", dot-product, Crout/Doolittle algorithm.
+   /** LU Decomposition of an array which is overwritten by the factors.
+   @param  LU  m-by-n work array, owned by the decomposition
+   @param  m   row dimension
+   @param  n   column dimension
+   */
 
-      LU = A.getArrayCopy();
-      m = A.getRowDimension();
-      n = A.getColumnDimension();
+   LUDecomposition (double[][] LU, int m, int n) {
+      this.LU = LU;
+      this.m = m;
+      this.n = n;
       piv = new int[m];
       for (int i = 0; i < m; i++) {
          piv[i] = i;
       }
       pivsign = 1;
+      if (Math.min(m,n) > BLOCK_SIZE) {
+         factorBlocked();
+      } else {
+         factorCrout();
+      }
+   }
+
+   /** Use a "left-looking", dot-product, Crout/Doolittle algorithm.
+   */
+
+   private void factorCrout () {
       double[] LUrowi;
       double[] LUcolj = new double[m];
 
@@ -112,6 +140,73 @@ public class LUDecomposition implements java.io.Serializable {
       }
    }
 
+   /** Right-looking blocked algorithm. Each panel of BLOCK_SIZE columns is
+       factored with partial pivoting, the matching block row of U is
+       computed by a triangular solve, and the trailing submatrix is
+       updated with a single matrix product, A22 -= L21*U12, which runs
+       on the pool configured in jama.blas.Parallel.
+   */
+
+   private void factorBlocked () {
+      int kmax = Math.min(m,n);
+      for (int j0 = 0; j0 < kmax; j0 += BLOCK_SIZE) {
+         int j1 = Math.min(j0 + BLOCK_SIZE, kmax);
+
+         // Factor the panel LU(j0:m-1,j0:j1-1).
+
+         for (int j = j0; j < j1; j++) {
+            int p = j;
+            for (int i = j+1; i < m; i++) {
+               if (Math.abs(LU[i][j]) > Math.abs(LU[p][j])) {
+                  p = i;
+               }
+            }
+
+            // Rows are separate arrays, so exchanging them swaps
+            // references instead of n elements.
+
+            if (p != j) {
+               double[] t = LU[p]; LU[p] = LU[j]; LU[j] = t;
+               int k = piv[p]; piv[p] = piv[j]; piv[j] = k;
+               pivsign = -pivsign;
+            }
+            double[] LUrowj = LU[j];
+            if (LUrowj[j] != 0.0) {
+               for (int i = j+1; i < m; i++) {
+                  double[] LUrowi = LU[i];
+                  double l = LUrowi[j] /= LUrowj[j];
+                  for (int k = j+1; k < j1; k++) {
+                     LUrowi[k] -= l*LUrowj[k];
+                  }
+               }
+            }
+         }
+         if (j1 == n) {
+            continue;
+         }
+
+         // Solve L11*U12 = A12 for the block row of U.
+
+         for (int k = j0; k < j1; k++) {
+            double[] LUrowk = LU[k];
+            for (int i = k+1; i < j1; i++) {
+               double[] LUrowi = LU[i];
+               double l = LUrowi[k];
+               for (int j = j1; j < n; j++) {
+                  LUrowi[j] -= l*LUrowk[j];
+               }
+            }
+         }
+
+         // Update the trailing submatrix, A22 = A22 - L21*U12.
+
+         if (j1 < m) {
+            Gemm.parallelDgemm(false, false, m - j1, n - j1, j1 - j0, -1.0, LU, j1, j0, LU, j0, j1,
+                               1.0, LU, j1, j1);
+         }
+      }
+   }
+
 /* ------------------------
    Temporary, experimental code.
    ------------------------ *\
@@ -287,26 +382,44 @@ public class LUDecomposition implements java.io.Serializable {
       Matrix Xmat = B.getMatrix(piv,0,nx-1);
       double[][] X = Xmat.getArray();
 
-      // Solve L*Y = B(piv,:)
-      for (int k = 0; k < n; k++) {
-         for (int i = k+1; i < n; i++) {
-            for (int j = 0; j < nx; j++) {
-               X[i][j] -= X[k][j]*LU[i][k];
-            }
-         }
+      // Solve L*Y = B(piv,:), then U*X = Y
+      Trsm.parallelDtrsm(false,false,true,n,nx,LU,0,0,X,0,0);
+      Trsm.parallelDtrsm(true,false,false,n,nx,LU,0,0,X,0,0);
+      return Xmat;
+   }
+
+   /** Inverse of the factored matrix
+   <P>
+   Computes inverse(A) = inverse(U)*inverse(L)*P directly into the result,
+   instead of solving for the columns of an identity matrix: inverse(L) is
+   formed by a triangular inversion, overwritten by the solve with U, and
+   the columns are finally permuted in place.
+   @return     inverse(A)
+   @exception  IllegalArgumentException  Matrix must be square
+   @exception  RuntimeException  Matrix is singular.
+   */
+
+   public Matrix inverse () {
+      if (m != n) {
+         throw new IllegalArgumentException("Matrix must be square.");
       }
-      // Solve U*X = Y;
-      for (int k = n-1; k >= 0; k--) {
-         for (int j = 0; j < nx; j++) {
-            X[k][j] /= LU[k][k];
-         }
-         for (int i = 0; i < k; i++) {
-            for (int j = 0; j < nx; j++) {
-               X[i][j] -= X[k][j]*LU[i][k];
-            }
+      if (!this.isNonsingular()) {
+         throw new RuntimeException("Matrix is singular.");
+      }
+      double[][] X = new double[n][n];
+      Trsm.parallelDtrtri(false,true,n,LU,0,0,X,0,0);
+      Trsm.parallelDtrsm(true,false,false,n,n,LU,0,0,X,0,0);
+
+      // inverse(A) = inverse(A(piv,:))*P, so column j moves to piv[j].
+      double[] row = new double[n];
+      for (int i = 0; i < n; i++) {
+         double[] Xrowi = X[i];
+         System.arraycopy(Xrowi,0,row,0,n);
+         for (int j = 0; j < n; j++) {
+            Xrowi[piv[j]] = row[j];
          }
       }
-      return Xmat;
+      return new Matrix(X,n,n);
    }
   private static final long serialVersionUID = 1;
 }
@@ -0,0 +1,44 @@
+package jama;
+
+/**
+ * <p>
+ * Implicitly restarted Lanczos method for a few eigenpairs of a large
+ * symmetric operator, such as the smallest eigenvalues of a graph Laplacian
+ * in spectral clustering. The projection H is symmetric tridiagonal, so the
+ * Ritz values are real and computed by the symmetric QL algorithm of
+ * {@link EigenvalueDecomposition}, and the eigenvectors are orthonormal.
+ * </p>
+ *
+ * <p>
+ * The basis is kept orthogonal by full reorthogonalization, which avoids the
+ * spurious copies of converged eigenvalues of the plain Lanczos recurrence.
+ * Symmetry of A is assumed, not checked; use {@link ArnoldiEigenSolver} for
+ * other operators.
+ * </p>
+ *
+ * @see ArnoldiEigenSolver
+ * @since 2.0.0
+ */
+public class LanczosEigenSolver extends KrylovEigenSolver {
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    /**
+     * @param A symmetric operator
+     * @exception IllegalArgumentException Matrix must be square.
+     */
+    public LanczosEigenSolver(LinearOperator A) {
+        super(A);
+    }
+
+    /* ================================================ */
+    /* ============= Package Methods ================== */
+    /* ================================================ */
+
+    @Override
+    boolean isSymmetric() {
+        return true;
+    }
+}
@@ -0,0 +1,34 @@
+package jama;
+
+/**
+ * <p>
+ * A linear map y = A*x given only by its action on vectors. Iterative solvers
+ * such as {@link ConjugateGradientSolver} never look at the elements of A, so
+ * it may be a dense {@link Matrix}, a sparse {@link CSRMatrix} or
+ * {@link CSCMatrix}, or a matrix-free product that is never formed.
+ * </p>
+ *
+ * @see IterativeSolver
+ * @since 2.0.0
+ */
+public interface LinearOperator {
+
+    /**
+     * @return length of y
+     */
+    int getRowDimension();
+
+    /**
+     * @return length of x
+     */
+    int getColumnDimension();
+
+    /**
+     * Apply the operator, y = A*x.
+     *
+     * @param x input vector, not modified
+     * @param y output vector, overwritten; must not be x
+     * @exception IllegalArgumentException Matrix inner dimensions must agree.
+     */
+    void apply(double[] x, double[] y);
+}
@@ -1,10 +1,14 @@
 package jama;
 
+import jama.blas.Elementwise;
+import jama.blas.Gemm;
+import jama.blas.Gemv;
 import jama.util.Maths;
 
 import java.io.BufferedReader;
 import java.io.PrintWriter;
 import java.io.StreamTokenizer;
+import java.lang.ref.SoftReference;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat;
@@ -61,7 +65,7 @@ import java.util.Locale;
  * @version 5 August 1998
  */
 
-public class Matrix implements Cloneable, java.io.Serializable {
+public class Matrix implements Cloneable, java.io.Serializable, LinearOperator {
 
     /* ------------------------
        Class variables
@@ -82,6 +86,13 @@ public class Matrix implements Cloneable, java.io.Serializable {
      */
     private final int m, n;
 
+    /**
+     * Factorizations cached by {@link #lu()}, {@link #qr()} and
+     * {@link #chol()}. Softly reachable, so that the garbage collector can
+     * reclaim them under memory pressure.
+     */
+    private transient volatile SoftReference<Factorizations> factorizations;
+
     /* ------------------------
        Constructors
      * ------------------------ */
@@ -535,6 +546,52 @@ public class Matrix implements Cloneable, java.io.Serializable {
         }
     }
 
+    /**
+     * View of the whole matrix, sharing its storage.
+     * 
+     * @return A(:,:)
+     * @see MatrixView
+     */
+
+    public MatrixView view() {
+        return new MatrixView(this, 0, m - 1, 1, 0, n - 1, 1);
+    }
+
+    /**
+     * Submatrix view. Unlike {@link #getMatrix(int, int, int, int)} no
+     * elements are copied; writes to the view change this matrix.
+     * 
+     * @param i0 Initial row index
+     * @param i1 Final row index
+     * @param j0 Initial column index
+     * @param j1 Final column index
+     * @return A(i0:i1,j0:j1)
+     * @exception ArrayIndexOutOfBoundsException Submatrix indices
+     * @see MatrixView
+     */
+
+    public MatrixView view(int i0, int i1, int j0, int j1) {
+        return new MatrixView(this, i0, i1, 1, j0, j1, 1);
+    }
+
+    /**
+     * Strided submatrix view, sharing the storage of this matrix.
+     * 
+     * @param i0 Initial row index
+     * @param i1 Final row index
+     * @param di Row step
+     * @param j0 Initial column index
+     * @param j1 Final column index
+     * @param dj Column step
+     * @return A(i0:di:i1,j0:dj:j1)
+     * @exception ArrayIndexOutOfBoundsException Submatrix indices
+     * @see MatrixView
+     */
+
+    public MatrixView view(int i0, int i1, int di, int j0, int j1, int dj) {
+        return new MatrixView(this, i0, i1, di, j0, j1, dj);
+    }
+
     /**
      * Matrix transpose.
      * 
@@ -577,7 +634,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
      */
 
     public double norm2() {
-        return (new SingularValueDecomposition(this).norm2());
+        return (new SingularValueDecomposition(this, false, false).norm2());
     }
 
     /**
@@ -643,9 +700,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
         Matrix X = new Matrix(m, n);
         double[][] C = X.getArray();
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                C[i][j] = A[i][j] + B.A[i][j];
-            }
+            Elementwise.add(A[i], B.A[i], C[i], n);
         }
         return X;
     }
@@ -660,9 +715,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
     public Matrix plusEquals(Matrix B) {
         checkMatrixDimensions(B);
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                A[i][j] = A[i][j] + B.A[i][j];
-            }
+            Elementwise.add(A[i], B.A[i], A[i], n);
         }
         return this;
     }
@@ -679,9 +732,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
         Matrix X = new Matrix(m, n);
         double[][] C = X.getArray();
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                C[i][j] = A[i][j] - B.A[i][j];
-            }
+            Elementwise.subtract(A[i], B.A[i], C[i], n);
         }
         return X;
     }
@@ -696,9 +747,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
     public Matrix minusEquals(Matrix B) {
         checkMatrixDimensions(B);
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                A[i][j] = A[i][j] - B.A[i][j];
-            }
+            Elementwise.subtract(A[i], B.A[i], A[i], n);
         }
         return this;
     }
@@ -715,9 +764,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
         Matrix X = new Matrix(m, n);
         double[][] C = X.getArray();
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                C[i][j] = A[i][j] * B.A[i][j];
-            }
+            Elementwise.multiply(A[i], B.A[i], C[i], n);
         }
         return X;
     }
@@ -732,9 +779,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
     public Matrix arrayTimesEquals(Matrix B) {
         checkMatrixDimensions(B);
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                A[i][j] = A[i][j] * B.A[i][j];
-            }
+            Elementwise.multiply(A[i], B.A[i], A[i], n);
         }
         return this;
     }
@@ -751,9 +796,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
         Matrix X = new Matrix(m, n);
         double[][] C = X.getArray();
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                C[i][j] = A[i][j] / B.A[i][j];
-            }
+            Elementwise.divide(A[i], B.A[i], C[i], n);
         }
         return X;
     }
@@ -768,9 +811,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
     public Matrix arrayRightDivideEquals(Matrix B) {
         checkMatrixDimensions(B);
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                A[i][j] = A[i][j] / B.A[i][j];
-            }
+            Elementwise.divide(A[i], B.A[i], A[i], n);
         }
         return this;
     }
@@ -787,9 +828,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
         Matrix X = new Matrix(m, n);
         double[][] C = X.getArray();
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                C[i][j] = B.A[i][j] / A[i][j];
-            }
+            Elementwise.divide(B.A[i], A[i], C[i], n);
         }
         return X;
     }
@@ -804,9 +843,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
     public Matrix arrayLeftDivideEquals(Matrix B) {
         checkMatrixDimensions(B);
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                A[i][j] = B.A[i][j] / A[i][j];
-            }
+            Elementwise.divide(B.A[i], A[i], A[i], n);
         }
         return this;
     }
@@ -822,9 +859,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
         Matrix X = new Matrix(m, n);
         double[][] C = X.getArray();
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                C[i][j] = s * A[i][j];
-            }
+            Elementwise.scale(s, A[i], C[i], n);
         }
         return X;
     }
@@ -838,15 +873,15 @@ public class Matrix implements Cloneable, java.io.Serializable {
 
     public Matrix timesEquals(double s) {
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                A[i][j] = s * A[i][j];
-            }
+            Elementwise.scale(s, A[i], A[i], n);
         }
         return this;
     }
 
     /**
-     * Linear algebraic matrix multiplication, A * B
+     * Linear algebraic matrix multiplication, A * B. Large products are
+     * computed by the cache-blocked kernel in {@link Gemm} and split across
+     * the fork/join pool configured in {@link jama.blas.Parallel}.
      * 
      * @param B another matrix
      * @return Matrix product, A * B
@@ -859,6 +894,10 @@ public class Matrix implements Cloneable, java.io.Serializable {
         }
         Matrix X = new Matrix(m, B.n);
         double[][] C = X.getArray();
+        if (Gemm.isBlockingWorthwhile(m, B.n, n)) {
+            Gemm.parallelDgemm(false, false, m, B.n, n, 1.0, A, 0, 0, B.A, 0, 0, 0.0, C, 0, 0);
+            return X;
+        }
         double[] Bcolj = new double[n];
         for (int j = 0; j < B.n; j++) {
             for (int k = 0; k < n; k++) {
@@ -876,6 +915,22 @@ public class Matrix implements Cloneable, java.io.Serializable {
         return X;
     }
 
+    /**
+     * Matrix-vector product y = A*x as a {@link LinearOperator}, computed by
+     * {@link Gemv#parallelDgemv}.
+     * 
+     * @param x vector of n elements
+     * @param y vector of m elements, overwritten by A*x
+     * @exception IllegalArgumentException Matrix inner dimensions must agree.
+     */
+    @Override
+    public void apply(double[] x, double[] y) {
+        if (x.length != n || y.length != m) {
+            throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+        }
+        Gemv.parallelDgemv(false, m, n, 1.0, A, 0, 0, x, 0, 0.0, y, 0);
+    }
+
     /**
      * Calculates v*A = C <br>
      * A is this.
@@ -903,36 +958,63 @@ public class Matrix implements Cloneable, java.io.Serializable {
     }
 
     /**
-     * LU Decomposition
+     * LU Decomposition. It is computed once and reused as long as the
+     * elements are unchanged. While cached, an m-by-n copy of the elements,
+     * used to detect changes, and the m-by-n factors are retained in addition
+     * to this matrix, roughly tripling its memory. Both are softly
+     * referenced, so the garbage collector reclaims them under memory
+     * pressure.
      * 
      * @return LUDecomposition
      * @see LUDecomposition
      */
 
     public LUDecomposition lu() {
-        return new LUDecomposition(this);
+        Factorizations f = factorizations();
+        LUDecomposition lu = f.lu;
+        if (lu == null) {
+            lu = new LUDecomposition(this);
+            f.lu = lu;
+        }
+        return lu;
     }
 
     /**
-     * QR Decomposition
+     * QR Decomposition. It is computed once and reused as long as the
+     * elements are unchanged. Like {@link #lu()}, it retains a copy of the
+     * elements and the m-by-n factors while softly reachable.
      * 
      * @return QRDecomposition
      * @see QRDecomposition
      */
 
     public QRDecomposition qr() {
-        return new QRDecomposition(this);
+        Factorizations f = factorizations();
+        QRDecomposition qr = f.qr;
+        if (qr == null) {
+            qr = new QRDecomposition(this);
+            f.qr = qr;
+        }
+        return qr;
     }
 
     /**
-     * Cholesky Decomposition
+     * Cholesky Decomposition. It is computed once and reused as long as the
+     * elements are unchanged. Like {@link #lu()}, it retains a copy of the
+     * elements and the n-by-n factor while softly reachable.
      * 
      * @return CholeskyDecomposition
      * @see CholeskyDecomposition
      */
 
     public CholeskyDecomposition chol() {
-        return new CholeskyDecomposition(this);
+        Factorizations f = factorizations();
+        CholeskyDecomposition chol = f.chol;
+        if (chol == null) {
+            chol = new CholeskyDecomposition(this);
+            f.chol = chol;
+        }
+        return chol;
     }
 
     /**
@@ -958,14 +1040,15 @@ public class Matrix implements Cloneable, java.io.Serializable {
     }
 
     /**
-     * Solve A*X = B
+     * Solve A*X = B. The LU or QR decomposition is cached, see {@link #lu()}
+     * for the memory it retains.
      * 
      * @param B right hand side
      * @return solution if A is square, least squares solution otherwise
      */
 
     public Matrix solve(Matrix B) {
-        return (m == n ? (new LUDecomposition(this)).solve(B) : (new QRDecomposition(this)).solve(B));
+        return (m == n ? lu().solve(B) : qr().solve(B));
     }
 
     /**
@@ -986,7 +1069,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
      */
 
     public Matrix inverse() {
-        return solve(identity(m, m));
+        return (m == n ? lu().inverse() : solve(identity(m, m)));
     }
 
     /**
@@ -996,7 +1079,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
      */
 
     public double det() {
-        return new LUDecomposition(this).det();
+        return lu().det();
     }
 
     /**
@@ -1006,7 +1089,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
      */
 
     public int rank() {
-        return new SingularValueDecomposition(this).rank();
+        return new SingularValueDecomposition(this, false, false).rank();
     }
 
     /**
@@ -1016,7 +1099,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
      */
 
     public double cond() {
-        return new SingularValueDecomposition(this).cond();
+        return new SingularValueDecomposition(this, false, false).cond();
     }
 
     /**
@@ -1258,5 +1341,51 @@ public class Matrix implements Cloneable, java.io.Serializable {
         }
     }
 
+    /**
+     * Factorizations of the current elements. They are kept together with a
+     * copy of the elements taken before the first one was computed, and are
+     * only reused while the elements still equal that copy. The comparison
+     * costs O(m*n), like a single solve with the factors, and also notices
+     * writes into the array passed to the constructor or obtained from
+     * {@link #getArray()}. The copy and the factors are only softly
+     * reachable from this matrix and are recomputed if they were reclaimed.
+     */
+    private Factorizations factorizations() {
+        SoftReference<Factorizations> ref = factorizations;
+        Factorizations f = ref == null ? null : ref.get();
+        if (f == null || !f.matches(A, m, n)) {
+            f = new Factorizations(getArrayCopy());
+            factorizations = new SoftReference<Factorizations>(f);
+        }
+        return f;
+    }
+
+    /** Factorizations of the elements in snapshot. */
+    private static final class Factorizations {
+
+        private final double[][] snapshot;
+
+        volatile LUDecomposition lu;
+        volatile QRDecomposition qr;
+        volatile CholeskyDecomposition chol;
+
+        Factorizations(double[][] snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        boolean matches(double[][] A, int m, int n) {
+            for (int i = 0; i < m; i++) {
+                double[] Ai = A[i];
+                double[] Si = snapshot[i];
+                for (int j = 0; j < n; j++) {
+                    if (Double.doubleToLongBits(Ai[j]) != Double.doubleToLongBits(Si[j])) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
     private static final long serialVersionUID = 1;
 }
@@ -0,0 +1,457 @@
+package jama;
+
+import jama.blas.Elementwise;
+import jama.blas.Gemm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Lazily evaluated expression over {@link Matrix} operands. The operations of
+ * this class only record the expression tree; nothing is computed until
+ * {@link #evaluate()} or {@link #evaluateInto(Matrix)} is called. A chain like
+ * </p>
+ *
+ * <pre>
+ * Matrix r = MatrixExpression.of(A).times(x).minus(b).times(2.0).evaluate();
+ * </pre>
+ *
+ * <p>
+ * allocates only the result, where {@code A.times(x).minus(b).times(2.0)}
+ * allocates one matrix per operation.
+ * </p>
+ *
+ * <p>
+ * On evaluation the tree is expanded into a sum of scaled terms, each either
+ * a (possibly transposed) operand or a product of two operands. Scalars and
+ * transposes are folded into the terms. All plain terms are accumulated in
+ * one pass over the rows of the result, and each product is accumulated into
+ * the result by a single {@link Gemm#parallelDgemm} call with alpha and beta,
+ * so {@code alpha*A*B + beta*C} costs exactly one GEMM. Only a product whose
+ * factor is itself a sum or product, such as {@code (A + B) * C}, needs a
+ * temporary for that factor.
+ * </p>
+ *
+ * <p>
+ * Operands are referenced, not copied, and are read when the expression is
+ * evaluated. The output of {@link #evaluateInto(Matrix)} may be one of the
+ * operands, as in {@code r = r - A*x}.
+ * </p>
+ *
+ * @since 2.0.0
+ */
+public abstract class MatrixExpression {
+
+    /** Row and column dimensions of the value of the expression. */
+    private final int m, n;
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    private MatrixExpression(int m, int n) {
+        this.m = m;
+        this.n = n;
+    }
+
+    /**
+     * Expression for a single matrix.
+     *
+     * @param A the operand, referenced and read on evaluation
+     * @return A as expression
+     */
+    public static MatrixExpression of(Matrix A) {
+        return new Operand(A);
+    }
+
+    /*
+     * ------------------------ Public Methods ------------------------
+     */
+
+    /**
+     * @return row dimension of the value
+     */
+    public int getRowDimension() {
+        return m;
+    }
+
+    /**
+     * @return column dimension of the value
+     */
+    public int getColumnDimension() {
+        return n;
+    }
+
+    /**
+     * this + B
+     *
+     * @param B another expression
+     * @return lazy sum
+     * @exception IllegalArgumentException Matrix dimensions must agree.
+     */
+    public MatrixExpression plus(MatrixExpression B) {
+        return new Sum(this, B, 1.0);
+    }
+
+    /**
+     * this + B
+     *
+     * @param B another matrix
+     * @return lazy sum
+     * @exception IllegalArgumentException Matrix dimensions must agree.
+     */
+    public MatrixExpression plus(Matrix B) {
+        return plus(of(B));
+    }
+
+    /**
+     * this - B
+     *
+     * @param B another expression
+     * @return lazy difference
+     * @exception IllegalArgumentException Matrix dimensions must agree.
+     */
+    public MatrixExpression minus(MatrixExpression B) {
+        return new Sum(this, B, -1.0);
+    }
+
+    /**
+     * this - B
+     *
+     * @param B another matrix
+     * @return lazy difference
+     * @exception IllegalArgumentException Matrix dimensions must agree.
+     */
+    public MatrixExpression minus(Matrix B) {
+        return minus(of(B));
+    }
+
+    /**
+     * s * this
+     *
+     * @param s scalar
+     * @return lazy multiple
+     */
+    public MatrixExpression times(double s) {
+        return new Scaled(this, s);
+    }
+
+    /**
+     * -this
+     *
+     * @return lazy negation
+     */
+    public MatrixExpression uminus() {
+        return new Scaled(this, -1.0);
+    }
+
+    /**
+     * this * B
+     *
+     * @param B another expression
+     * @return lazy product
+     * @exception IllegalArgumentException Matrix inner dimensions must agree.
+     */
+    public MatrixExpression times(MatrixExpression B) {
+        return new Product(this, B);
+    }
+
+    /**
+     * this * B
+     *
+     * @param B another matrix
+     * @return lazy product
+     * @exception IllegalArgumentException Matrix inner dimensions must agree.
+     */
+    public MatrixExpression times(Matrix B) {
+        return times(of(B));
+    }
+
+    /**
+     * Transpose of this expression.
+     *
+     * @return lazy transpose
+     */
+    public MatrixExpression transpose() {
+        return new Transposed(this);
+    }
+
+    /**
+     * Evaluate into a new matrix.
+     *
+     * @return value of the expression
+     */
+    public Matrix evaluate() {
+        double[][] C = new double[m][n];
+        evaluate(terms(), C, m, n);
+        return new Matrix(C, m, n);
+    }
+
+    /**
+     * Evaluate into an existing matrix, overwriting its elements.
+     *
+     * @param C output of the same dimensions, may be one of the operands
+     * @return C
+     * @exception IllegalArgumentException Matrix dimensions must agree.
+     */
+    public Matrix evaluateInto(Matrix C) {
+        if (C.getRowDimension() != m || C.getColumnDimension() != n) {
+            throw new IllegalArgumentException("Matrix dimensions must agree.");
+        }
+        List<Term> terms = terms();
+        double[][] c = C.getArray();
+        if (overwritesOperand(terms, c)) {
+            double[][] T = new double[m][n];
+            evaluate(terms, T, m, n);
+            for (int i = 0; i < m; i++) {
+                System.arraycopy(T[i], 0, c[i], 0, n);
+            }
+        } else {
+            evaluate(terms, c, m, n);
+        }
+        return C;
+    }
+
+    /* ================================================ */
+    /* ============= Expression Nodes ================= */
+    /* ================================================ */
+
+    /**
+     * Appends the terms of alpha * this, or of alpha * this' if trans is set.
+     */
+    abstract void collect(double alpha, boolean trans, List<Term> terms);
+
+    /** Leaf referencing a matrix. */
+    private static final class Operand extends MatrixExpression {
+
+        private final Matrix A;
+
+        Operand(Matrix A) {
+            super(A.getRowDimension(), A.getColumnDimension());
+            this.A = A;
+        }
+
+        @Override
+        void collect(double alpha, boolean trans, List<Term> terms) {
+            terms.add(new Term(alpha, A.getArray(), trans, null, false, 0));
+        }
+    }
+
+    /** left + sign * right */
+    private static final class Sum extends MatrixExpression {
+
+        private final MatrixExpression left, right;
+
+        private final double sign;
+
+        Sum(MatrixExpression left, MatrixExpression right, double sign) {
+            super(left.m, left.n);
+            if (right.m != left.m || right.n != left.n) {
+                throw new IllegalArgumentException("Matrix dimensions must agree.");
+            }
+            this.left = left;
+            this.right = right;
+            this.sign = sign;
+        }
+
+        @Override
+        void collect(double alpha, boolean trans, List<Term> terms) {
+            left.collect(alpha, trans, terms);
+            right.collect(sign * alpha, trans, terms);
+        }
+    }
+
+    /** s * e */
+    private static final class Scaled extends MatrixExpression {
+
+        private final MatrixExpression e;
+
+        private final double s;
+
+        Scaled(MatrixExpression e, double s) {
+            super(e.m, e.n);
+            this.e = e;
+            this.s = s;
+        }
+
+        @Override
+        void collect(double alpha, boolean trans, List<Term> terms) {
+            e.collect(s * alpha, trans, terms);
+        }
+    }
+
+    /** e' */
+    private static final class Transposed extends MatrixExpression {
+
+        private final MatrixExpression e;
+
+        Transposed(MatrixExpression e) {
+            super(e.n, e.m);
+            this.e = e;
+        }
+
+        @Override
+        void collect(double alpha, boolean trans, List<Term> terms) {
+            e.collect(alpha, !trans, terms);
+        }
+    }
+
+    /** left * right */
+    private static final class Product extends MatrixExpression {
+
+        private final MatrixExpression left, right;
+
+        Product(MatrixExpression left, MatrixExpression right) {
+            super(left.m, right.n);
+            if (right.m != left.n) {
+                throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+            }
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        void collect(double alpha, boolean trans, List<Term> terms) {
+            // (L*R)' = R'*L'
+            Term a = trans ? right.factor(true) : left.factor(false);
+            Term b = trans ? left.factor(true) : right.factor(false);
+            terms.add(new Term(alpha * a.alpha * b.alpha, a.A, a.transA, b.A, b.transA, left.n));
+        }
+    }
+
+    /**
+     * This expression, or its transpose, as a single scaled operand. Sums and
+     * products are evaluated into a temporary.
+     */
+    private Term factor(boolean trans) {
+        List<Term> terms = new ArrayList<Term>();
+        collect(1.0, trans, terms);
+        if (terms.size() == 1 && terms.get(0).B == null) {
+            return terms.get(0);
+        }
+        int rows = trans ? n : m;
+        int cols = trans ? m : n;
+        double[][] T = new double[rows][cols];
+        evaluate(terms, T, rows, cols);
+        return new Term(1.0, T, false, null, false, 0);
+    }
+
+    /* ================================================ */
+    /* ============= Private Methods ================== */
+    /* ================================================ */
+
+    /**
+     * One term of the expanded expression, alpha * op(A) or
+     * alpha * op(A) * op(B) with inner dimension k.
+     */
+    private static final class Term {
+
+        final double alpha;
+
+        final double[][] A, B;
+
+        final boolean transA, transB;
+
+        final int k;
+
+        Term(double alpha, double[][] A, boolean transA, double[][] B, boolean transB, int k) {
+            this.alpha = alpha;
+            this.A = A;
+            this.transA = transA;
+            this.B = B;
+            this.transB = transB;
+            this.k = k;
+        }
+    }
+
+    private List<Term> terms() {
+        List<Term> terms = new ArrayList<Term>();
+        collect(1.0, false, terms);
+        return terms;
+    }
+
+    /**
+     * Whether evaluating the terms into C would read elements of C after they
+     * were overwritten: C is a factor of a product, or appears transposed.
+     */
+    private static boolean overwritesOperand(List<Term> terms, double[][] C) {
+        for (Term t : terms) {
+            if (t.B != null ? (t.A == C || t.B == C) : (t.A == C && t.transA)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * C = sum of the terms. C may be the operand of untransposed plain terms
+     * only.
+     */
+    private static void evaluate(List<Term> terms, double[][] C, int m, int n) {
+        // Merge repeated plain operands and put C itself first, so that
+        // each row of C is read before it is overwritten.
+        List<Term> plain = new ArrayList<Term>();
+        double self = 0.0;
+        boolean hasSelf = false;
+        for (Term t : terms) {
+            if (t.B != null) {
+                continue;
+            }
+            if (t.A == C && !t.transA) {
+                self += t.alpha;
+                hasSelf = true;
+                continue;
+            }
+            boolean merged = false;
+            for (int p = 0; p < plain.size(); p++) {
+                Term u = plain.get(p);
+                if (u.A == t.A && u.transA == t.transA) {
+                    plain.set(p, new Term(u.alpha + t.alpha, u.A, u.transA, null, false, 0));
+                    merged = true;
+                    break;
+                }
+            }
+            if (!merged) {
+                plain.add(t);
+            }
+        }
+        if (hasSelf) {
+            plain.add(0, new Term(self, C, false, null, false, 0));
+        }
+
+        // One pass over the rows for all plain terms.
+        boolean written = !plain.isEmpty();
+        for (int i = 0; i < m && written; i++) {
+            double[] Crowi = C[i];
+            for (int p = 0; p < plain.size(); p++) {
+                Term t = plain.get(p);
+                if (!t.transA) {
+                    if (p == 0) {
+                        Elementwise.scale(t.alpha, t.A[i], Crowi, n);
+                    } else {
+                        Elementwise.axpy(t.alpha, t.A[i], Crowi, n);
+                    }
+                } else if (p == 0) {
+                    for (int j = 0; j < n; j++) {
+                        Crowi[j] = t.alpha * t.A[j][i];
+                    }
+                } else {
+                    for (int j = 0; j < n; j++) {
+                        Crowi[j] += t.alpha * t.A[j][i];
+                    }
+                }
+            }
+        }
+
+        // Accumulate the products, C = alpha*op(A)*op(B) + beta*C.
+        for (Term t : terms) {
+            if (t.B == null) {
+                continue;
+            }
+            Gemm.parallelDgemm(t.transA, t.transB, m, n, t.k, t.alpha, t.A, 0, 0, t.B, 0, 0, written ? 1.0 : 0.0,
+                    C, 0, 0);
+            written = true;
+        }
+    }
+}
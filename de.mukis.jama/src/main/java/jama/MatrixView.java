@@ -0,0 +1,517 @@
+package jama;
+
+import jama.blas.Gemm;
+
+/**
+ * <p>
+ * A rectangular, optionally strided window onto a {@link Matrix}. A view does
+ * not copy any elements: reads and writes go straight to the storage of the
+ * parent matrix, so writing into a view replaces a
+ * {@link Matrix#getMatrix(int, int, int, int) getMatrix} /
+ * {@link Matrix#setMatrix(int, int, int, int, Matrix) setMatrix} round trip.
+ * </p>
+ *
+ * <p>
+ * Views can be used as operands of the arithmetic operations, products,
+ * linear solves and decompositions. Products of views with unit stride are
+ * computed in place by the blocked kernel in {@link Gemm}; decompositions copy
+ * the viewed elements exactly once into their own work array.
+ * </p>
+ *
+ * <pre>
+ * Matrix A = Matrix.random(1000, 1000);
+ * MatrixView A11 = A.view(0, 499, 0, 499);
+ * MatrixView A12 = A.view(0, 499, 500, 999);
+ * MatrixView A22 = A.view(500, 999, 500, 999);
+ * A22.gemm(-1.0, A12.transpose(), A12, 1.0); // A22 -= A12' * A12, no copies
+ * Matrix x = A11.solve(b.view());
+ * </pre>
+ *
+ * @since 2.0.0
+ */
+public class MatrixView {
+
+    /** Parent matrix and its storage. */
+    private final Matrix parent;
+    private final double[][] data;
+
+    /** Parent index of element (0,0). */
+    private final int i0, j0;
+
+    /** Row and column dimensions. */
+    private final int m, n;
+
+    /** Distance between two consecutive rows and columns in the parent. */
+    private final int di, dj;
+
+    /** True if the view addresses the transpose of the window. */
+    private final boolean transposed;
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    /**
+     * View of A(i0:di:i1, j0:dj:j1).
+     *
+     * @param parent viewed matrix
+     * @param i0 Initial row index
+     * @param i1 Final row index
+     * @param di Row step, at least 1
+     * @param j0 Initial column index
+     * @param j1 Final column index
+     * @param dj Column step, at least 1
+     * @exception ArrayIndexOutOfBoundsException Submatrix indices
+     */
+    MatrixView(Matrix parent, int i0, int i1, int di, int j0, int j1, int dj) {
+        if (di < 1 || dj < 1) {
+            throw new IllegalArgumentException("Step must be positive.");
+        }
+        if (i0 < 0 || j0 < 0 || i1 >= parent.getRowDimension() || j1 >= parent.getColumnDimension() || i1 < i0 - 1
+                || j1 < j0 - 1) {
+            throw new ArrayIndexOutOfBoundsException("Submatrix indices");
+        }
+        this.parent = parent;
+        this.data = parent.getArray();
+        this.i0 = i0;
+        this.j0 = j0;
+        this.m = i1 < i0 ? 0 : (i1 - i0) / di + 1;
+        this.n = j1 < j0 ? 0 : (j1 - j0) / dj + 1;
+        this.di = di;
+        this.dj = dj;
+        this.transposed = false;
+    }
+
+    private MatrixView(MatrixView v, int i0, int j0, int m, int n, int di, int dj, boolean transposed) {
+        this.parent = v.parent;
+        this.data = v.data;
+        this.i0 = i0;
+        this.j0 = j0;
+        this.m = m;
+        this.n = n;
+        this.di = di;
+        this.dj = dj;
+        this.transposed = transposed;
+    }
+
+    /*
+     * ------------------------ Public Methods ------------------------
+     */
+
+    /**
+     * @return the matrix whose storage this view addresses
+     */
+    public Matrix getParent() {
+        return parent;
+    }
+
+    /**
+     * Get row dimension.
+     *
+     * @return m, the number of rows.
+     */
+    public int getRowDimension() {
+        return transposed ? n : m;
+    }
+
+    /**
+     * Get column dimension.
+     *
+     * @return n, the number of columns.
+     */
+    public int getColumnDimension() {
+        return transposed ? m : n;
+    }
+
+    /**
+     * Get a single element.
+     *
+     * @param i Row index.
+     * @param j Column index.
+     * @return A(i,j)
+     * @exception ArrayIndexOutOfBoundsException
+     */
+    public double get(int i, int j) {
+        if (transposed) {
+            checkIndex(j, i);
+            return data[i0 + j * di][j0 + i * dj];
+        }
+        checkIndex(i, j);
+        return data[i0 + i * di][j0 + j * dj];
+    }
+
+    /**
+     * Set a single element in the parent matrix.
+     *
+     * @param i Row index.
+     * @param j Column index.
+     * @param s A(i,j).
+     * @exception ArrayIndexOutOfBoundsException
+     */
+    public void set(int i, int j, double s) {
+        if (transposed) {
+            checkIndex(j, i);
+            data[i0 + j * di][j0 + i * dj] = s;
+        } else {
+            checkIndex(i, j);
+            data[i0 + i * di][j0 + j * dj] = s;
+        }
+    }
+
+    /**
+     * View of a window of this view.
+     *
+     * @param r0 Initial row index
+     * @param r1 Final row index
+     * @param c0 Initial column index
+     * @param c1 Final column index
+     * @return A(r0:r1,c0:c1), sharing storage with this view
+     * @exception ArrayIndexOutOfBoundsException Submatrix indices
+     */
+    public MatrixView view(int r0, int r1, int c0, int c1) {
+        if (r0 < 0 || c0 < 0 || r1 >= getRowDimension() || c1 >= getColumnDimension() || r1 < r0 - 1
+                || c1 < c0 - 1) {
+            throw new ArrayIndexOutOfBoundsException("Submatrix indices");
+        }
+        if (transposed) {
+            return new MatrixView(this, i0 + c0 * di, j0 + r0 * dj, c1 - c0 + 1, r1 - r0 + 1, di, dj, true);
+        }
+        return new MatrixView(this, i0 + r0 * di, j0 + c0 * dj, r1 - r0 + 1, c1 - c0 + 1, di, dj, false);
+    }
+
+    /**
+     * Transpose of this view, sharing its storage.
+     *
+     * @return A'
+     */
+    public MatrixView transpose() {
+        return new MatrixView(this, i0, j0, m, n, di, dj, !transposed);
+    }
+
+    /**
+     * @return true if neighbouring elements of the view are neighbours in the
+     *         parent matrix, so the view can be handed to the blocked kernels
+     *         by offset
+     */
+    public boolean isContiguous() {
+        return di == 1 && dj == 1;
+    }
+
+    /**
+     * Copy the viewed elements into a new matrix.
+     *
+     * @return A(i0:i1,j0:j1)
+     */
+    public Matrix copy() {
+        return new Matrix(getArrayCopy(), getRowDimension(), getColumnDimension());
+    }
+
+    /**
+     * Copy the viewed elements into a new array.
+     *
+     * @return two-dimensional array copy of the viewed elements
+     */
+    public double[][] getArrayCopy() {
+        int rows = getRowDimension();
+        int cols = getColumnDimension();
+        double[][] C = new double[rows][cols];
+        if (transposed) {
+            for (int i = 0; i < m; i++) {
+                double[] Arowi = data[i0 + i * di];
+                for (int j = 0; j < n; j++) {
+                    C[j][i] = Arowi[j0 + j * dj];
+                }
+            }
+        } else if (dj == 1) {
+            for (int i = 0; i < m; i++) {
+                System.arraycopy(data[i0 + i * di], j0, C[i], 0, n);
+            }
+        } else {
+            for (int i = 0; i < m; i++) {
+                double[] Arowi = data[i0 + i * di];
+                double[] Crowi = C[i];
+                for (int j = 0; j < n; j++) {
+                    Crowi[j] = Arowi[j0 + j * dj];
+                }
+            }
+        }
+        return C;
+    }
+
+    /**
+     * Copy the elements of X into the viewed part of the parent matrix.
+     *
+     * @param X matrix of the same dimensions
+     * @return this view
+     */
+    public MatrixView assign(MatrixView X) {
+        checkMatrixDimensions(X);
+        if (X.overlaps(this)) {
+            X = X.copy().view();
+        }
+        for (int i = 0; i < getRowDimension(); i++) {
+            for (int j = 0; j < getColumnDimension(); j++) {
+                set(i, j, X.get(i, j));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Set every viewed element to s.
+     *
+     * @param s value
+     * @return this view
+     */
+    public MatrixView fill(double s) {
+        for (int i = 0; i < m; i++) {
+            double[] Arowi = data[i0 + i * di];
+            for (int j = 0; j < n; j++) {
+                Arowi[j0 + j * dj] = s;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * C = A + B
+     *
+     * @param B another matrix
+     * @return A + B
+     */
+    public Matrix plus(MatrixView B) {
+        return copy().view().plusEquals(B).getParent();
+    }
+
+    /**
+     * A = A + B, written through to the parent matrix
+     *
+     * @param B another matrix
+     * @return this view
+     */
+    public MatrixView plusEquals(MatrixView B) {
+        return axpy(1.0, B);
+    }
+
+    /**
+     * C = A - B
+     *
+     * @param B another matrix
+     * @return A - B
+     */
+    public Matrix minus(MatrixView B) {
+        return copy().view().minusEquals(B).getParent();
+    }
+
+    /**
+     * A = A - B, written through to the parent matrix
+     *
+     * @param B another matrix
+     * @return this view
+     */
+    public MatrixView minusEquals(MatrixView B) {
+        return axpy(-1.0, B);
+    }
+
+    /**
+     * Multiply a matrix by a scalar, C = s*A
+     *
+     * @param s scalar
+     * @return s*A
+     */
+    public Matrix times(double s) {
+        return copy().timesEquals(s);
+    }
+
+    /**
+     * Multiply a matrix by a scalar in place, A = s*A, written through to the
+     * parent matrix
+     *
+     * @param s scalar
+     * @return this view
+     */
+    public MatrixView timesEquals(double s) {
+        for (int i = 0; i < m; i++) {
+            double[] Arowi = data[i0 + i * di];
+            for (int j = 0; j < n; j++) {
+                Arowi[j0 + j * dj] *= s;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Linear algebraic matrix multiplication, A * B
+     *
+     * @param B another matrix
+     * @return Matrix product, A * B
+     * @exception IllegalArgumentException Matrix inner dimensions must agree.
+     */
+    public Matrix times(MatrixView B) {
+        Matrix X = new Matrix(getRowDimension(), B.getColumnDimension());
+        X.view().gemm(1.0, this, B, 0.0);
+        return X;
+    }
+
+    /**
+     * General matrix multiply-add into the viewed elements, C = alpha * A * B +
+     * beta * C. Contiguous operands are passed to the blocked kernel in place.
+     *
+     * @param alpha scalar for A * B
+     * @param A left operand
+     * @param B right operand
+     * @param beta scalar for this view, 0 ignores its previous contents
+     * @return this view
+     * @exception IllegalArgumentException Matrix inner dimensions must agree.
+     */
+    public MatrixView gemm(double alpha, MatrixView A, MatrixView B, double beta) {
+        if (A.getColumnDimension() != B.getRowDimension()) {
+            throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+        }
+        if (A.getRowDimension() != getRowDimension() || B.getColumnDimension() != getColumnDimension()) {
+            throw new IllegalArgumentException("Matrix dimensions must agree.");
+        }
+        if (!isContiguous() || transposed || A.overlaps(this) || B.overlaps(this)) {
+            Matrix C = copy();
+            C.view().gemm(alpha, A, B, beta);
+            return assign(C.view());
+        }
+        if (!A.isContiguous()) {
+            A = A.copy().view();
+        }
+        if (!B.isContiguous()) {
+            B = B.copy().view();
+        }
+        int k = A.getColumnDimension();
+        if (Gemm.isBlockingWorthwhile(m, n, k)) {
+            Gemm.parallelDgemm(A.transposed, B.transposed, m, n, k, alpha, A.data, A.i0, A.j0, B.data, B.i0, B.j0, beta,
+                    this.data, i0, j0);
+            return this;
+        }
+        for (int i = 0; i < m; i++) {
+            double[] Crowi = this.data[i0 + i];
+            for (int j = 0; j < n; j++) {
+                double s = 0;
+                for (int p = 0; p < k; p++) {
+                    s += A.get(i, p) * B.get(p, j);
+                }
+                Crowi[j0 + j] = (beta == 0.0 ? 0.0 : beta * Crowi[j0 + j]) + alpha * s;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * LU Decomposition of the viewed elements
+     *
+     * @return LUDecomposition
+     * @see LUDecomposition
+     */
+    public LUDecomposition lu() {
+        return new LUDecomposition(getArrayCopy(), getRowDimension(), getColumnDimension());
+    }
+
+    /**
+     * QR Decomposition of the viewed elements
+     *
+     * @return QRDecomposition
+     * @see QRDecomposition
+     */
+    public QRDecomposition qr() {
+        return new QRDecomposition(getArrayCopy(), getRowDimension(), getColumnDimension());
+    }
+
+    /**
+     * Cholesky Decomposition of the viewed elements
+     *
+     * @return CholeskyDecomposition
+     * @see CholeskyDecomposition
+     */
+    public CholeskyDecomposition chol() {
+        return new CholeskyDecomposition(getArrayCopy(), getRowDimension(), getColumnDimension());
+    }
+
+    /**
+     * Singular Value Decomposition of the viewed elements
+     *
+     * @return SingularValueDecomposition
+     * @see SingularValueDecomposition
+     */
+    public SingularValueDecomposition svd() {
+        return new SingularValueDecomposition(getArrayCopy(), getRowDimension(), getColumnDimension());
+    }
+
+    /**
+     * Eigenvalue Decomposition of the viewed elements
+     *
+     * @return EigenvalueDecomposition
+     * @see EigenvalueDecomposition
+     */
+    public EigenvalueDecomposition eig() {
+        return new EigenvalueDecomposition(getArrayCopy(), getColumnDimension());
+    }
+
+    /**
+     * Solve A*X = B
+     *
+     * @param B right hand side
+     * @return solution if A is square, least squares solution otherwise
+     */
+    public Matrix solve(MatrixView B) {
+        Matrix rhs = B.copy();
+        return (getRowDimension() == getColumnDimension() ? lu().solve(rhs) : qr().solve(rhs));
+    }
+
+    /* ================================================ */
+    /* ============= Private Methods ================== */
+    /* ================================================ */
+
+    /** A = A + s * B */
+    private MatrixView axpy(double s, MatrixView B) {
+        checkMatrixDimensions(B);
+        if (B.overlaps(this)) {
+            B = B.copy().view();
+        }
+        if (!transposed && !B.transposed) {
+            for (int i = 0; i < m; i++) {
+                double[] Arowi = data[i0 + i * di];
+                double[] Browi = B.data[B.i0 + i * B.di];
+                for (int j = 0; j < n; j++) {
+                    Arowi[j0 + j * dj] += s * Browi[B.j0 + j * B.dj];
+                }
+            }
+            return this;
+        }
+        for (int i = 0; i < getRowDimension(); i++) {
+            for (int j = 0; j < getColumnDimension(); j++) {
+                set(i, j, get(i, j) + s * B.get(i, j));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Conservative test whether two views may address common elements: both
+     * share the parent storage and their bounding boxes intersect.
+     */
+    private boolean overlaps(MatrixView B) {
+        if (data != B.data || m == 0 || n == 0 || B.m == 0 || B.n == 0) {
+            return false;
+        }
+        return i0 <= B.i0 + (B.m - 1) * B.di && B.i0 <= i0 + (m - 1) * di && j0 <= B.j0 + (B.n - 1) * B.dj
+                && B.j0 <= j0 + (n - 1) * dj;
+    }
+
+    private void checkIndex(int i, int j) {
+        if (i < 0 || i >= m || j < 0 || j >= n) {
+            throw new ArrayIndexOutOfBoundsException("Index (" + i + "," + j + ") outside of " + m + "x" + n);
+        }
+    }
+
+    /** Check if size(A) == size(B) **/
+    private void checkMatrixDimensions(MatrixView B) {
+        if (B.getRowDimension() != getRowDimension() || B.getColumnDimension() != getColumnDimension()) {
+            throw new IllegalArgumentException("Matrix dimensions must agree.");
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package jama;
+
+import jama.blas.Gemm;
+
+import java.io.Serializable;
+
+/**
+ * <p>
+ * Solver for square systems A*X = B by mixed precision iterative refinement,
+ * after LAPACK's DSGESV. A is factored once in single precision by
+ * {@link FloatLUDecomposition}, which moves half the data of a double
+ * precision factorization. Each solution is then refined with residuals
+ * R = B - A*X computed in double precision,
+ * </p>
+ *
+ * <pre>
+ * X = X + inverse(LU) * R
+ * </pre>
+ *
+ * <p>
+ * until every column satisfies ||r||_inf &lt;= ||x||_inf * ||A||_inf * eps *
+ * sqrt(n), which is the accuracy of a double precision solve. If A cannot be
+ * represented in single precision, its single precision factor is singular or
+ * the refinement does not converge within the iteration limit, the system is
+ * solved by the double precision {@link LUDecomposition} of A instead.
+ * </p>
+ *
+ * <p>
+ * A is referenced, not copied, and must not be modified while the solver is
+ * in use.
+ * </p>
+ *
+ * @see LUDecomposition
+ * @since 2.0.0
+ */
+public class MixedPrecisionSolver implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Default limit of refinement steps, as in DSGESV. */
+    public static final int DEFAULT_MAX_ITERATIONS = 30;
+
+    /**
+     * The double precision matrix.
+     *
+     * @serial system matrix.
+     */
+    private final Matrix A;
+
+    /**
+     * Single precision factors, null if A was not factored in single precision.
+     *
+     * @serial single precision factorization.
+     */
+    private final FloatLUDecomposition lu;
+
+    /**
+     * Limit of refinement steps.
+     *
+     * @serial iteration limit.
+     */
+    private final int maxIterations;
+
+    /**
+     * Convergence threshold ||A||_inf * eps * sqrt(n).
+     *
+     * @serial convergence threshold.
+     */
+    private final double cte;
+
+    /**
+     * Refinement steps of the last solve.
+     *
+     * @serial refinement steps.
+     */
+    private int iterations;
+
+    /**
+     * Whether the last solve fell back to double precision.
+     *
+     * @serial fallback to double precision.
+     */
+    private boolean fallback;
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    /**
+     * Factors A in single precision.
+     *
+     * @param A Square matrix
+     * @exception IllegalArgumentException Matrix must be square.
+     */
+    public MixedPrecisionSolver(Matrix A) {
+        this(A, DEFAULT_MAX_ITERATIONS);
+    }
+
+    /**
+     * Factors A in single precision.
+     *
+     * @param A Square matrix
+     * @param maxIterations limit of refinement steps per solve
+     * @exception IllegalArgumentException Matrix must be square, or negative
+     *                iteration limit.
+     */
+    public MixedPrecisionSolver(Matrix A, int maxIterations) {
+        int n = A.getColumnDimension();
+        if (A.getRowDimension() != n) {
+            throw new IllegalArgumentException("Matrix must be square.");
+        }
+        if (maxIterations < 0) {
+            throw new IllegalArgumentException("Iteration limit must not be negative: " + maxIterations);
+        }
+        this.A = A;
+        this.maxIterations = maxIterations;
+        double anrm = A.normInf();
+        cte = anrm * Math.pow(2.0, -53.0) * Math.sqrt(n);
+
+        FloatLUDecomposition f = null;
+        if (anrm <= Float.MAX_VALUE) {
+            float[][] S = toFloat(A.getArray(), null, n, n);
+            f = new FloatLUDecomposition(S, n, n);
+            if (!f.isNonsingular()) {
+                f = null;
+            }
+        }
+        lu = f;
+    }
+
+    /*
+     * ------------------------ Public Methods ------------------------
+     */
+
+    /**
+     * Solve A*X = B
+     *
+     * @param B A Matrix with as many rows as A and any number of columns.
+     * @return X so that A*X = B to double precision accuracy
+     * @exception IllegalArgumentException Matrix row dimensions must agree.
+     * @exception RuntimeException Matrix is singular.
+     */
+    public Matrix solve(Matrix B) {
+        int n = A.getRowDimension();
+        if (B.getRowDimension() != n) {
+            throw new IllegalArgumentException("Matrix row dimensions must agree.");
+        }
+        int nx = B.getColumnDimension();
+        iterations = 0;
+        fallback = false;
+        if (lu != null && B.normInf() <= Float.MAX_VALUE) {
+            int[] piv = lu.getPivot();
+            double[][] b = B.getArray();
+            double[][] a = A.getArray();
+
+            // Initial single precision solution.
+            float[][] S = toFloat(b, piv, n, nx);
+            lu.solvePermuted(S, nx);
+            double[][] X = new double[n][nx];
+            double[][] R = new double[n][nx];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < nx; j++) {
+                    X[i][j] = S[i][j];
+                }
+            }
+
+            while (true) {
+                // R = B - A*X in double precision
+                for (int i = 0; i < n; i++) {
+                    System.arraycopy(b[i], 0, R[i], 0, nx);
+                }
+                Gemm.parallelDgemm(false, false, n, nx, n, -1.0, a, 0, 0, X, 0, 0, 1.0, R, 0, 0);
+                if (converged(X, R, n, nx)) {
+                    return new Matrix(X, n, nx);
+                }
+                if (iterations == maxIterations) {
+                    break;
+                }
+                iterations++;
+
+                // X = X + inverse(LU)*R, the correction in single precision
+                S = toFloat(R, piv, n, nx);
+                lu.solvePermuted(S, nx);
+                for (int i = 0; i < n; i++) {
+                    for (int j = 0; j < nx; j++) {
+                        X[i][j] += S[i][j];
+                    }
+                }
+            }
+        }
+        fallback = true;
+        return A.lu().solve(B);
+    }
+
+    /**
+     * @return true if A was factored in single precision
+     */
+    public boolean isSinglePrecision() {
+        return lu != null;
+    }
+
+    /**
+     * @return refinement steps of the last solve
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return true if the last solve fell back to double precision
+     */
+    public boolean usedFallback() {
+        return fallback;
+    }
+
+    /* ================================================ */
+    /* ============= Private Methods ================== */
+    /* ================================================ */
+
+    /** Every column satisfies ||r||_inf &lt;= ||x||_inf * cte. */
+    private boolean converged(double[][] X, double[][] R, int n, int nx) {
+        for (int j = 0; j < nx; j++) {
+            double xnrm = 0.0;
+            double rnrm = 0.0;
+            for (int i = 0; i < n; i++) {
+                xnrm = Math.max(xnrm, Math.abs(X[i][j]));
+                rnrm = Math.max(rnrm, Math.abs(R[i][j]));
+            }
+            if (!(rnrm <= xnrm * cte)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Rows piv of D rounded to single precision, all rows if piv is null. */
+    private static float[][] toFloat(double[][] D, int[] piv, int m, int n) {
+        float[][] S = new float[m][n];
+        for (int i = 0; i < m; i++) {
+            double[] Drowi = D[piv == null ? i : piv[i]];
+            float[] Srowi = S[i];
+            for (int j = 0; j < n; j++) {
+                Srowi[j] = (float) Drowi[j];
+            }
+        }
+        return S;
+    }
+}
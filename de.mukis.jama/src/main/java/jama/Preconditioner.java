@@ -0,0 +1,27 @@
+package jama;
+
+/**
+ * <p>
+ * Approximate inverse M^-1 of a system matrix A, applied to residuals by an
+ * {@link IterativeSolver}. A good preconditioner makes M^-1*A much better
+ * conditioned than A while being cheap to build and apply, which cuts the
+ * number of Krylov iterations.
+ * </p>
+ *
+ * @see IterativeSolver#setPreconditioner(Preconditioner)
+ * @see JacobiPreconditioner
+ * @see BlockJacobiPreconditioner
+ * @see ILU0Preconditioner
+ * @see IncompleteCholeskyPreconditioner
+ * @since 2.0.0
+ */
+public interface Preconditioner {
+
+    /**
+     * Apply the preconditioner, z = M^-1 * r.
+     *
+     * @param r residual, not modified
+     * @param z output, overwritten; must not be r
+     */
+    void apply(double[] r, double[] z);
+}
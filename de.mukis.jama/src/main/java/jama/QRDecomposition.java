@@ -1,6 +1,9 @@
 package jama;
+import jama.blas.Gemm;
+import jama.blas.Gemv;
 import jama.gpu.*;
 import jama.util.Maths;
+import java.util.Arrays;
 
 /** QR Decomposition.
 <P>
@@ -13,6 +16,15 @@ import jama.util.Maths;
    QR decomposition is in the least squares solution of nonsquare systems
    of simultaneous linear equations.  This will fail if isFullRank()
    returns false.
+<P>
+   For more than 32 columns the reflectors are aggregated in blocks of 32
+   into the compact WY form I - V*T*V', so that applying them to the
+   remaining columns, to Q and to many right hand sides are matrix products.
+<P>
+   The decomposition of A with a row inserted or deleted is obtained from
+   this one by Givens rotations. The updated decomposition holds Q
+   explicitly instead of Householder vectors; forming it costs O(m*n^2)
+   once, after that each update costs O(m*n + n^2).
 */
 
 public class QRDecomposition implements java.io.Serializable {
@@ -37,6 +49,16 @@ public class QRDecomposition implements java.io.Serializable {
    */
    private double[] Rdiag;
 
+   /** Array for internal storage of the explicit orthogonal factor after
+       a row update, null for the Householder form.
+   @serial explicit m-by-n orthogonal factor.
+   */
+   private double[][] Qthin;
+
+   /** Number of reflectors per block of the compact WY representation.
+   */
+   private static final int BLOCK_SIZE = 32;
+
 /* ------------------------
    Constructor
  * ------------------------ */
@@ -47,14 +69,78 @@ public class QRDecomposition implements java.io.Serializable {
    */
 
    public QRDecomposition (Matrix A) {
+      this(A.getArrayCopy(), A.getRowDimension(), A.getColumnDimension());
+   }
+
+   /** QR Decomposition of an array which is overwritten by the factors.
+   @param QR   m-by-n work array, owned by the decomposition
+   @param m    row dimension
+   @param n    column dimension
+   */
+
+   QRDecomposition (double[][] QR, int m, int n) {
       // Initialize.
-      QR = A.getArrayCopy();
-      m = A.getRowDimension();
-      n = A.getColumnDimension();
+      this.QR = QR;
+      this.m = m;
+      this.n = n;
       Rdiag = new double[n];
 
-      // Main loop.
+      if (isBlocked()) {
+         for (int k0 = 0; k0 < n; k0 += BLOCK_SIZE) {
+            int k1 = Math.min(k0 + BLOCK_SIZE, n);
+            factor(k0, k1);
+            if (k1 < n) {
+               applyBlock(k0, k1, QR, k1, n, true);
+            }
+         }
+      } else {
+         factor(0, n);
+      }
+   }
+
+   /** Explicit orthogonal factor, shared if the decomposition holds it.
+   */
+
+   private double[][] explicitQ () {
+      return (Qthin != null ? Qthin : getQ().getArray());
+   }
+
+   /** Decomposition with explicit factors, as computed by the updates.
+   @param Q    m-by-n orthonormal columns, owned by the decomposition
+   @param R    n-by-n upper triangular, owned by the decomposition
+   @param m    row dimension
+   */
+
+   private QRDecomposition (double[][] Q, double[][] R, int m) {
+      this.Qthin = Q;
+      this.QR = R;
+      this.m = m;
+      this.n = R.length;
+      Rdiag = new double[n];
       for (int k = 0; k < n; k++) {
+         Rdiag[k] = R[k][k];
+      }
+   }
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   /** Blocking only pays off for tall matrices with several blocks.
+   */
+
+   private boolean isBlocked () {
+      return m >= n && n > BLOCK_SIZE;
+   }
+
+   /** Compute the reflectors k0..k1-1 and apply them to columns up to k1.
+   @param k0   first column
+   @param k1   column after the last one
+   */
+
+   private void factor (int k0, int k1) {
+      // Main loop.
+      for (int k = k0; k < k1; k++) {
          // Compute 2-norm of k-th column without under/overflow.
          double nrm = 0;
          for (int i = k; i < m; i++) {
@@ -72,7 +158,7 @@ public class QRDecomposition implements java.io.Serializable {
             QR[k][k] += 1.0;
 
             // Apply transformation to remaining columns.
-            for (int j = k+1; j < n; j++) {
+            for (int j = k+1; j < k1; j++) {
                double s = 0.0; 
                for (int i = k; i < m; i++) {
                   s += QR[i][k]*QR[i][j];
@@ -87,6 +173,98 @@ public class QRDecomposition implements java.io.Serializable {
       }
    }
 
+   /** Apply the block of reflectors k0..k1-1, Q_b = H(k0)*...*H(k1-1), to
+       rows k0..m-1 of the columns c0..c1-1 of C. The block is represented
+       as Q_b = I - V*T*V' with V the lower trapezoidal Householder vectors
+       and T upper triangular, so the update is three matrix products.
+   @param k0          first reflector
+   @param k1          reflector after the last one
+   @param C           array to update in place
+   @param c0          first column of C
+   @param c1          column after the last one
+   @param transpose   apply Q_b' instead of Q_b
+   */
+
+   private void applyBlock (int k0, int k1, double[][] C, int c0, int c1, boolean transpose) {
+      int nb = k1 - k0;
+      int mm = m - k0;
+      int nc = c1 - c0;
+
+      // Copy V with explicit zeros above the diagonal.
+      double[][] V = new double[mm][nb];
+      for (int i = 0; i < mm; i++) {
+         System.arraycopy(QR[k0+i], k0, V[i], 0, Math.min(i+1, nb));
+      }
+
+      // H(k) = I - v*v'/v(k), so tau(k) = 1/v(k). The columns of T are
+      // T(j,j) = tau(j), T(0:j-1,j) = -tau(j)*T(0:j-1,0:j-1)*V(:,0:j-1)'*v(j).
+      double[][] T = new double[nb][nb];
+      double[] w = new double[nb];
+      for (int j = 0; j < nb; j++) {
+         if (V[j][j] == 0.0) {
+            continue;
+         }
+         double tau = 1.0/V[j][j];
+         for (int p = 0; p < j; p++) {
+            w[p] = 0.0;
+         }
+         for (int i = j; i < mm; i++) {
+            double[] Vrowi = V[i];
+            double vij = Vrowi[j];
+            for (int p = 0; p < j; p++) {
+               w[p] += Vrowi[p]*vij;
+            }
+         }
+         for (int p = 0; p < j; p++) {
+            double s = 0.0;
+            for (int q = p; q < j; q++) {
+               s += T[p][q]*w[q];
+            }
+            T[p][j] = -tau*s;
+         }
+         T[j][j] = tau;
+      }
+
+      // W = V'*C
+      double[][] W = new double[nb][nc];
+      Gemm.parallelDgemm(true, false, nb, nc, mm, 1.0, V, 0, 0, C, k0, c0, 0.0, W, 0, 0);
+
+      // W = T'*W or W = T*W, in place.
+      if (transpose) {
+         for (int p = nb-1; p >= 0; p--) {
+            scaleAdd(W, p, T[p][p], T, p, 0, p, true);
+         }
+      } else {
+         for (int p = 0; p < nb; p++) {
+            scaleAdd(W, p, T[p][p], T, p, p+1, nb, false);
+         }
+      }
+
+      // C = C - V*W
+      Gemm.parallelDgemm(false, false, mm, nc, nb, -1.0, V, 0, 0, W, 0, 0, 1.0, C, k0, c0);
+   }
+
+   /** W(p,:) = d*W(p,:) + sum of T(q,p)*W(q,:) (column p of T, if
+       transposed) or T(p,q)*W(q,:) (row p of T) for q0 <= q < q1.
+   */
+
+   private static void scaleAdd (double[][] W, int p, double d, double[][] T, int tp, int q0, int q1,
+                                 boolean transposed) {
+      double[] Wrowp = W[p];
+      for (int c = 0; c < Wrowp.length; c++) {
+         Wrowp[c] *= d;
+      }
+      for (int q = q0; q < q1; q++) {
+         double t = transposed ? T[q][tp] : T[tp][q];
+         if (t != 0.0) {
+            double[] Wrowq = W[q];
+            for (int c = 0; c < Wrowp.length; c++) {
+               Wrowp[c] += t*Wrowq[c];
+            }
+         }
+      }
+   }
+
 /* ------------------------
    Public Methods
  * ------------------------ */
@@ -105,9 +283,13 @@ public class QRDecomposition implements java.io.Serializable {
 
    /** Return the Householder vectors
    @return     Lower trapezoidal matrix whose columns define the reflections
+   @exception  IllegalStateException  Decomposition was updated.
    */
 
    public Matrix getH () {
+      if (Qthin != null) {
+         throw new IllegalStateException("Householder vectors are not available after an update.");
+      }
       Matrix X = new Matrix(m,n);
       double[][] H = X.getArray();
       for (int i = 0; i < m; i++) {
@@ -150,6 +332,22 @@ public class QRDecomposition implements java.io.Serializable {
    public Matrix getQ () {
       Matrix X = new Matrix(m,n);
       double[][] Q = X.getArray();
+      if (Qthin != null) {
+         for (int i = 0; i < m; i++) {
+            System.arraycopy(Qthin[i], 0, Q[i], 0, n);
+         }
+         return X;
+      }
+      if (isBlocked()) {
+         // Accumulate Q = Q_1*Q_2*...*I backwards, block by block.
+         for (int k = 0; k < n; k++) {
+            Q[k][k] = 1.0;
+         }
+         for (int k0 = (n-1)/BLOCK_SIZE*BLOCK_SIZE; k0 >= 0; k0 -= BLOCK_SIZE) {
+            applyBlock(k0, Math.min(k0 + BLOCK_SIZE, n), Q, k0, n, false);
+         }
+         return X;
+      }
       for (int k = n-1; k >= 0; k--) {
          for (int i = 0; i < m; i++) {
             Q[i][k] = 0.0;
@@ -171,6 +369,158 @@ public class QRDecomposition implements java.io.Serializable {
       return X;
    }
 
+   /** Decomposition of A with the row x inserted before row k. This
+       decomposition is not changed.
+   @param k    index of the new row, 0 <= k <= m
+   @param x    row with n elements
+   @return     QR decomposition of the (m+1)-by-n matrix
+   @exception  IllegalArgumentException  Vector length must agree.
+   @exception  IndexOutOfBoundsException  Row index out of range.
+   */
+
+   public QRDecomposition insertRow (int k, double[] x) {
+      if (x.length != n) {
+         throw new IllegalArgumentException("Vector length must agree.");
+      }
+      if (k < 0 || k > m) {
+         throw new IndexOutOfBoundsException("Row index out of range.");
+      }
+      double[][] Q0 = explicitQ();
+      double[][] Q = new double[m+1][];
+      for (int i = 0; i <= m; i++) {
+         Q[i] = (i == k ? new double[n] : Arrays.copyOf(Q0[i < k ? i : i-1], n));
+      }
+      double[][] R = getR().getArray();
+      double[] w = x.clone();
+
+      // [Q 0; 0 1]*[R; x'] with the last row and column moved to k.
+      // Rotate x' into R, the extra column of Q is z.
+      double[] z = new double[m+1];
+      z[k] = 1.0;
+      for (int j = 0; j < n; j++) {
+         if (w[j] == 0.0) {
+            continue;
+         }
+         double r = Maths.hypot(R[j][j], w[j]);
+         double c = R[j][j]/r;
+         double s = w[j]/r;
+         double[] Rrowj = R[j];
+         for (int l = j; l < n; l++) {
+            double t = Rrowj[l];
+            Rrowj[l] = c*t + s*w[l];
+            w[l] = -s*t + c*w[l];
+         }
+         for (int i = 0; i <= m; i++) {
+            double t = Q[i][j];
+            Q[i][j] = c*t + s*z[i];
+            z[i] = -s*t + c*z[i];
+         }
+      }
+      return new QRDecomposition(Q, R, m+1);
+   }
+
+   /** Decomposition of A with row k deleted. This decomposition is not
+       changed.
+   @param k    index of the row, 0 <= k < m
+   @return     QR decomposition of the (m-1)-by-n matrix
+   @exception  IllegalArgumentException  Matrix must have more rows than columns.
+   @exception  IndexOutOfBoundsException  Row index out of range.
+   */
+
+   public QRDecomposition deleteRow (int k) {
+      if (m <= n) {
+         throw new IllegalArgumentException("Matrix must have more rows than columns.");
+      }
+      if (k < 0 || k >= m) {
+         throw new IndexOutOfBoundsException("Row index out of range.");
+      }
+      double[][] Q0 = explicitQ();
+
+      // Complete Q by a unit vector u orthogonal to it with u(k) != 0,
+      // from e_k - Q*Q'*e_k, orthogonalized twice.
+      double[] u = new double[m];
+      u[k] = 1.0;
+      double[] t = new double[n];
+      for (int pass = 0; pass < 2; pass++) {
+         Gemv.dgemv(true, m, n, 1.0, Q0, 0, 0, u, 0, 0.0, t, 0);
+         for (int i = 0; i < m; i++) {
+            double s = 0.0;
+            for (int j = 0; j < n; j++) {
+               s += Q0[i][j]*t[j];
+            }
+            u[i] -= s;
+         }
+      }
+      double unorm = 0.0;
+      for (int i = 0; i < m; i++) {
+         unorm = Maths.hypot(unorm, u[i]);
+      }
+      if (unorm == 0.0) {
+
+         // Row k is not independent of the others, refactor Q*R without it.
+         double[][] A = new double[m-1][n];
+         double[][] R = getR().getArray();
+         for (int i = 0, r = 0; i < m; i++) {
+            if (i != k) {
+               Gemv.dgemv(true, n, n, 1.0, R, 0, 0, Q0[i], 0, 0.0, A[r++], 0);
+            }
+         }
+         return new QRDecomposition(A, m-1, n);
+      }
+
+      // Augmented factors [Q u]*[R; 0]. Rotate row k of [Q u] into e_1',
+      // which turns [R; 0] into upper Hessenberg form.
+      double[][] Q = new double[m][n+1];
+      for (int i = 0; i < m; i++) {
+         System.arraycopy(Q0[i], 0, Q[i], 0, n);
+         Q[i][n] = u[i]/unorm;
+      }
+      double[][] R = new double[n+1][];
+      System.arraycopy(getR().getArray(), 0, R, 0, n);
+      R[n] = new double[n];
+      double[] q = Q[k].clone();
+      for (int j = n-1; j >= 0; j--) {
+         if (q[j+1] == 0.0) {
+            continue;
+         }
+         double r = Maths.hypot(q[j], q[j+1]);
+         double c = q[j]/r;
+         double s = q[j+1]/r;
+         q[j] = r;
+         q[j+1] = 0.0;
+         for (int i = 0; i < m; i++) {
+            double[] Qrowi = Q[i];
+            double a = Qrowi[j];
+            Qrowi[j] = c*a + s*Qrowi[j+1];
+            Qrowi[j+1] = -s*a + c*Qrowi[j+1];
+         }
+         double[] Rrowj = R[j];
+         double[] Rrowj1 = R[j+1];
+         for (int l = Math.max(j-1, 0); l < n; l++) {
+            double a = Rrowj[l];
+            Rrowj[l] = c*a + s*Rrowj1[l];
+            Rrowj1[l] = -s*a + c*Rrowj1[l];
+         }
+      }
+
+      // The first column of Q is now e_k and the first row of R is row k
+      // of A, drop both.
+      double[][] Qx = new double[m-1][];
+      for (int i = 0, r = 0; i < m; i++) {
+         if (i != k) {
+            Qx[r++] = Arrays.copyOfRange(Q[i], 1, n+1);
+         }
+      }
+      double[][] Rx = new double[n][];
+      for (int i = 0; i < n; i++) {
+         Rx[i] = R[i+1];
+         for (int l = 0; l < i; l++) {
+            Rx[i][l] = 0.0;
+         }
+      }
+      return new QRDecomposition(Qx, Rx, m-1);
+   }
+
    /** Least squares solution of A*X = B
    @param B    A Matrix with as many rows as A and any number of columns.
    @return     X that minimizes the two norm of Q*R*X-B.
@@ -188,18 +538,29 @@ public class QRDecomposition implements java.io.Serializable {
       
       // Copy right hand side
       int nx = B.getColumnDimension();
-      double[][] X = B.getArrayCopy();
+      double[][] X;
 
       // Compute Y = transpose(Q)*B
-      for (int k = 0; k < n; k++) {
-         for (int j = 0; j < nx; j++) {
-            double s = 0.0; 
-            for (int i = k; i < m; i++) {
-               s += QR[i][k]*X[i][j];
-            }
-            s = -s/QR[k][k];
-            for (int i = k; i < m; i++) {
-               X[i][j] += s*QR[i][k];
+      if (Qthin != null) {
+         X = new double[n][nx];
+         Gemm.dgemm(true, false, n, nx, m, 1.0, Qthin, 0, 0, B.getArray(), 0, 0, 0.0, X, 0, 0);
+      } else if (isBlocked() && nx >= BLOCK_SIZE) {
+         X = B.getArrayCopy();
+         for (int k0 = 0; k0 < n; k0 += BLOCK_SIZE) {
+            applyBlock(k0, Math.min(k0 + BLOCK_SIZE, n), X, 0, nx, true);
+         }
+      } else {
+         X = B.getArrayCopy();
+         for (int k = 0; k < n; k++) {
+            for (int j = 0; j < nx; j++) {
+               double s = 0.0; 
+               for (int i = k; i < m; i++) {
+                  s += QR[i][k]*X[i][j];
+               }
+               s = -s/QR[k][k];
+               for (int i = k; i < m; i++) {
+                  X[i][j] += s*QR[i][k];
+               }
             }
          }
       }
@@ -0,0 +1,205 @@
+package jama;
+
+import jama.blas.Gemm;
+
+import java.io.Serializable;
+import java.util.Random;
+
+/**
+ * <p>
+ * Truncated singular value decomposition A ~ U*S*V' of rank k, computed by a
+ * randomized range finder (Halko, Martinsson and Tropp, "Finding structure
+ * with randomness", SIAM Review 53, 2011).
+ * </p>
+ *
+ * <p>
+ * A is multiplied by an n-by-(k+p) Gaussian random matrix, where p is the
+ * oversampling. An orthonormal basis Q of the product approximates the range
+ * of A; q power iterations with A' and A sharpen it when the singular values
+ * decay slowly. The small matrix Q'*A is then decomposed by
+ * {@link SingularValueDecomposition}. Apart from the products with A, which
+ * run on the pool of {@link jama.blas.Parallel}, the work is O((m+n)*(k+p)^2),
+ * so only the leading singular triplets of a large matrix are computed.
+ * </p>
+ *
+ * <pre>
+ * RandomizedSingularValueDecomposition svd = new RandomizedSingularValueDecomposition(A, 20);
+ * Matrix approx = svd.getU().times(svd.getS()).times(svd.getV().transpose());
+ * </pre>
+ *
+ * @see SingularValueDecomposition
+ * @since 2.0.0
+ */
+public class RandomizedSingularValueDecomposition implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Default number of extra sample columns. */
+    public static final int DEFAULT_OVERSAMPLING = 10;
+
+    /** Default number of power iterations. */
+    public static final int DEFAULT_POWER_ITERATIONS = 2;
+
+    /**
+     * Leading left and right singular vectors.
+     *
+     * @serial m-by-k left singular vectors.
+     * @serial n-by-k right singular vectors.
+     */
+    private final double[][] U, V;
+
+    /**
+     * Leading singular values in descending order.
+     *
+     * @serial k singular values.
+     */
+    private final double[] s;
+
+    /**
+     * Dimensions and target rank.
+     *
+     * @serial row dimension.
+     * @serial column dimension.
+     * @serial rank of the approximation.
+     */
+    private final int m, n, k;
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    /**
+     * Rank k decomposition with the default oversampling and power
+     * iterations.
+     *
+     * @param A Rectangular matrix
+     * @param k number of singular triplets, 1 &lt;= k &lt;= min(m,n)
+     * @exception IllegalArgumentException Invalid rank.
+     */
+    public RandomizedSingularValueDecomposition(Matrix A, int k) {
+        this(A, k, DEFAULT_OVERSAMPLING, DEFAULT_POWER_ITERATIONS, new Random());
+    }
+
+    /**
+     * Rank k decomposition.
+     *
+     * @param A Rectangular matrix
+     * @param k number of singular triplets, 1 &lt;= k &lt;= min(m,n)
+     * @param oversampling number of extra sample columns, typically 5 to 20
+     * @param powerIterations number of multiplications with A'*A, 0 for
+     *            rapidly decaying singular values
+     * @param random source of the Gaussian test matrix
+     * @exception IllegalArgumentException Invalid rank, oversampling or
+     *                number of power iterations.
+     */
+    public RandomizedSingularValueDecomposition(Matrix A, int k, int oversampling, int powerIterations,
+            Random random) {
+        m = A.getRowDimension();
+        n = A.getColumnDimension();
+        if (k < 1 || k > Math.min(m, n)) {
+            throw new IllegalArgumentException("Rank " + k + " is not within 1.." + Math.min(m, n) + ".");
+        }
+        if (oversampling < 0 || powerIterations < 0) {
+            throw new IllegalArgumentException("Oversampling and power iterations must not be negative.");
+        }
+        this.k = k;
+        int l = Math.min(k + oversampling, Math.min(m, n));
+        double[][] a = A.getArray();
+
+        // Y = A*Omega
+        double[][] Omega = new double[n][l];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < l; j++) {
+                Omega[i][j] = random.nextGaussian();
+            }
+        }
+        double[][] Y = new double[m][l];
+        Gemm.parallelDgemm(false, false, m, l, n, 1.0, a, 0, 0, Omega, 0, 0, 0.0, Y, 0, 0);
+        double[][] Q = orthonormalize(Y, m, l);
+
+        // Power iterations, orthonormalized after every product.
+        double[][] Z = new double[n][l];
+        for (int iter = 0; iter < powerIterations; iter++) {
+            Gemm.parallelDgemm(true, false, n, l, m, 1.0, a, 0, 0, Q, 0, 0, 0.0, Z, 0, 0);
+            Z = orthonormalize(Z, n, l);
+            Gemm.parallelDgemm(false, false, m, l, n, 1.0, a, 0, 0, Z, 0, 0, 0.0, Y, 0, 0);
+            Q = orthonormalize(Y, m, l);
+        }
+
+        // B' = A'*Q = W*S*X', so that A ~ Q*B = (Q*X)*S*W'.
+        double[][] Bt = new double[n][l];
+        Gemm.parallelDgemm(true, false, n, l, m, 1.0, a, 0, 0, Q, 0, 0, 0.0, Bt, 0, 0);
+        SingularValueDecomposition svd = new SingularValueDecomposition(Bt, n, l);
+        double[][] W = svd.getU().getArray();
+        double[][] X = svd.getV().getArray();
+
+        s = new double[k];
+        System.arraycopy(svd.getSingularValues(), 0, s, 0, k);
+        U = new double[m][k];
+        Gemm.parallelDgemm(false, false, m, k, l, 1.0, Q, 0, 0, X, 0, 0, 0.0, U, 0, 0);
+        V = new double[n][k];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(W[i], 0, V[i], 0, k);
+        }
+    }
+
+    /*
+     * ------------------------ Public Methods ------------------------
+     */
+
+    /**
+     * Return the leading left singular vectors
+     *
+     * @return m-by-k U
+     */
+    public Matrix getU() {
+        return new Matrix(U, m, k);
+    }
+
+    /**
+     * Return the leading right singular vectors
+     *
+     * @return n-by-k V
+     */
+    public Matrix getV() {
+        return new Matrix(V, n, k);
+    }
+
+    /**
+     * Return the leading singular values
+     *
+     * @return k singular values in descending order
+     */
+    public double[] getSingularValues() {
+        return s;
+    }
+
+    /**
+     * Return the diagonal matrix of the leading singular values
+     *
+     * @return k-by-k S
+     */
+    public Matrix getS() {
+        Matrix X = new Matrix(k, k);
+        for (int i = 0; i < k; i++) {
+            X.set(i, i, s[i]);
+        }
+        return X;
+    }
+
+    /**
+     * @return rank of the approximation
+     */
+    public int getRank() {
+        return k;
+    }
+
+    /* ================================================ */
+    /* ============= Private Methods ================== */
+    /* ================================================ */
+
+    /** Orthonormal basis of the columns of Y, which is overwritten. */
+    private static double[][] orthonormalize(double[][] Y, int rows, int cols) {
+        return new QRDecomposition(Y, rows, cols).getQ().getArray();
+    }
+}
@@ -2,6 +2,8 @@ package jama;
 import jama.gpu.*;
 import jama.util.Maths;
 
+import java.util.Arrays;
+
    /** Singular Value Decomposition.
    <P>
    For an m-by-n matrix A with m >= n, the singular value decomposition is
@@ -14,6 +16,12 @@ import jama.util.Maths;
    The singular value decompostion always exists, so the constructor will
    never fail.  The matrix condition number and the effective numerical
    rank can be computed from this decomposition.
+   <P>
+   U is always the thin m-by-min(m,n) factor. Either factor can be left
+   out, which saves its storage and the work of accumulating it. Without
+   U, a matrix with m >= 2n is first reduced to its n-by-n triangular QR
+   factor, and without U and V a matrix with m < n is transposed, since
+   neither changes the singular values or V.
    */
 
 public class SingularValueDecomposition implements java.io.Serializable {
@@ -39,6 +47,12 @@ public class SingularValueDecomposition implements java.io.Serializable {
    */
    private int m, n;
 
+   /** Flags for the singular vectors to compute, only used while
+       computing. Not serialized, so that streams without them still
+       deserialize; U and V are null if they were not computed.
+   */
+   private transient boolean wantu, wantv;
+
 /* ------------------------
    Constructor
  * ------------------------ */
@@ -49,12 +63,73 @@ public class SingularValueDecomposition implements java.io.Serializable {
    */
 
    public SingularValueDecomposition (Matrix Arg) {
+      this(Arg.getArrayCopy(), Arg.getRowDimension(), Arg.getColumnDimension());
+   }
+
+   /** Construct the singular value decomposition, optionally without
+       the singular vectors. With both flags false only the singular
+       values are computed, which is all norm2, cond and rank need.
+   @param Arg      Rectangular matrix
+   @param wantu    false to skip the left singular vectors U
+   @param wantv    false to skip the right singular vectors V
+   */
+
+   public SingularValueDecomposition (Matrix Arg, boolean wantu, boolean wantv) {
+      this(Arg.getArrayCopy(), Arg.getRowDimension(), Arg.getColumnDimension(), wantu, wantv);
+   }
+
+   /** Singular value decomposition of an array which is overwritten.
+   @param A    m-by-n work array, owned by the decomposition
+   @param m    row dimension
+   @param n    column dimension
+   */
+
+   SingularValueDecomposition (double[][] A, int m, int n) {
+      this(A, m, n, true, true);
+   }
+
+   /** Singular value decomposition of an array which is overwritten.
+   @param A        m-by-n work array, owned by the decomposition
+   @param m        row dimension
+   @param n        column dimension
+   @param wantu    false to skip the left singular vectors U
+   @param wantv    false to skip the right singular vectors V
+   */
+
+   SingularValueDecomposition (double[][] A, int m, int n, boolean wantu, boolean wantv) {
+      this.m = m;
+      this.n = n;
+      this.wantu = wantu;
+      this.wantv = wantv;
+      if (!wantu && !wantv && m < n) {
+
+         // A' has the same singular values and avoids m < n.
+         double[][] T = new double[n][m];
+         for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+               T[j][i] = A[i][j];
+            }
+         }
+         decompose(T, n, m);
+         // Same length as in the full decomposition, padded with zero.
+         s = Arrays.copyOf(s, Math.min(m+1,n));
+      } else if (!wantu && n > 0 && m >= 2*n) {
+
+         // A = Q*R, R has the singular values and V of A and the
+         // blocked QR is cheaper than a bidiagonalization of A.
+         decompose(new QRDecomposition(A, m, n).getR().getArray(), n, n);
+      } else {
+         decompose(A, m, n);
+      }
+   }
+
+   // Reduction to bidiagonal form and implicit QR iteration for an
+   // m-by-n array which is overwritten.
+
+   private void decompose (double[][] A, int m, int n) {
 
       // Derived from LINPACK code.
       // Initialize.
-      double[][] A = Arg.getArrayCopy();
-      m = Arg.getRowDimension();
-      n = Arg.getColumnDimension();
 
       /* Apparently the failing cases are only a proper subset of (m<n), 
 	 so let's not throw error.  Correct fix to come later?
@@ -63,12 +138,10 @@ public class SingularValueDecomposition implements java.io.Serializable {
       */
       int nu = Math.min(m,n);
       s = new double [Math.min(m+1,n)];
-      U = new double [m][nu];
-      V = new double [n][n];
+      U = (wantu ? new double [m][nu] : null);
+      V = (wantv ? new double [n][n] : null);
       double[] e = new double [n];
       double[] work = new double [m];
-      boolean wantu = true;
-      boolean wantv = true;
 
       // Reduce A to bidiagonal form, storing the diagonal elements
       // in s and the super-diagonal elements in e.
@@ -476,17 +549,25 @@ public class SingularValueDecomposition implements java.io.Serializable {
 
    /** Return the left singular vectors
    @return     U
+   @exception  IllegalStateException Left singular vectors were not computed.
    */
 
    public Matrix getU () {
+      if (U == null) {
+         throw new IllegalStateException("Left singular vectors were not computed.");
+      }
       return new Matrix(U,m,Math.min(m+1,n));
    }
 
    /** Return the right singular vectors
    @return     V
+   @exception  IllegalStateException Right singular vectors were not computed.
    */
 
    public Matrix getV () {
+      if (V == null) {
+         throw new IllegalStateException("Right singular vectors were not computed.");
+      }
       return new Matrix(V,n,n);
    }
 
@@ -505,10 +586,7 @@ public class SingularValueDecomposition implements java.io.Serializable {
    public Matrix getS () {
       Matrix X = new Matrix(n,n);
       double[][] S = X.getArray();
-      for (int i = 0; i < n; i++) {
-         for (int j = 0; j < n; j++) {
-            S[i][j] = 0.0;
-         }
+      for (int i = 0; i < Math.min(n,s.length); i++) {
          S[i][i] = this.s[i];
       }
       return X;
@@ -0,0 +1,135 @@
+package jama;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Assembles a sparse matrix from coordinate (COO) triplets (row, column,
+ * value). Triplets may be added in any order, and values added more than once
+ * for the same element are summed, as in finite element assembly. The
+ * triplets are sorted and compressed by {@link #toCSR()} or {@link #toCSC()}
+ * in time linear in their number and the dimensions.
+ * </p>
+ *
+ * <p>
+ * The builder stores 16 bytes per triplet and grows its arrays as needed; a
+ * good estimate of the number of triplets avoids the copies.
+ * </p>
+ *
+ * @see CSRMatrix
+ * @see CSCMatrix
+ * @since 2.0.0
+ */
+public class SparseMatrixBuilder {
+
+    /** Row and column dimensions. */
+    private final int m, n;
+
+    /** Coordinates and values of the triplets. */
+    private int[] rows, cols;
+    private double[] values;
+
+    /** Number of triplets. */
+    private int size;
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    /**
+     * Builder for an m-by-n matrix.
+     *
+     * @param m number of rows
+     * @param n number of columns
+     */
+    public SparseMatrixBuilder(int m, int n) {
+        this(m, n, 16);
+    }
+
+    /**
+     * Builder for an m-by-n matrix.
+     *
+     * @param m number of rows
+     * @param n number of columns
+     * @param capacity expected number of triplets
+     * @exception IllegalArgumentException negative dimension or capacity
+     */
+    public SparseMatrixBuilder(int m, int n, int capacity) {
+        if (m < 0 || n < 0 || capacity < 0) {
+            throw new IllegalArgumentException("Negative dimension or capacity.");
+        }
+        this.m = m;
+        this.n = n;
+        rows = new int[capacity];
+        cols = new int[capacity];
+        values = new double[capacity];
+    }
+
+    /*
+     * ------------------------ Public Methods ------------------------
+     */
+
+    /**
+     * Add a value to element (i,j).
+     *
+     * @param i row index
+     * @param j column index
+     * @param value value, summed with earlier values of the same element
+     * @return this builder
+     * @exception ArrayIndexOutOfBoundsException index outside of the matrix
+     */
+    public SparseMatrixBuilder add(int i, int j, double value) {
+        if (i < 0 || i >= m || j < 0 || j >= n) {
+            throw new ArrayIndexOutOfBoundsException("Index (" + i + "," + j + ") outside of " + m + "x" + n);
+        }
+        if (size == rows.length) {
+            int capacity = Math.max(16, 2 * size);
+            rows = Arrays.copyOf(rows, capacity);
+            cols = Arrays.copyOf(cols, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        rows[size] = i;
+        cols[size] = j;
+        values[size++] = value;
+        return this;
+    }
+
+    /**
+     * @return number of triplets added so far
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return row dimension
+     */
+    public int getRowDimension() {
+        return m;
+    }
+
+    /**
+     * @return column dimension
+     */
+    public int getColumnDimension() {
+        return n;
+    }
+
+    /**
+     * Compress the triplets by rows. The builder remains usable.
+     *
+     * @return the matrix in CSR format
+     */
+    public CSRMatrix toCSR() {
+        return new CSRMatrix(CompressedStorage.fromTriplets(m, n, rows, cols, values, size));
+    }
+
+    /**
+     * Compress the triplets by columns. The builder remains usable.
+     *
+     * @return the matrix in CSC format
+     */
+    public CSCMatrix toCSC() {
+        return new CSCMatrix(CompressedStorage.fromTriplets(n, m, cols, rows, values, size));
+    }
+}
@@ -0,0 +1,314 @@
+package jama;
+
+import jama.blas.Parallel;
+import jama.util.Maths;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * <p>
+ * Tall-skinny QR (TSQR) factorization for matrices with many more rows than
+ * columns. Rows are added in chunks with {@link #update(Matrix, Matrix)}; only
+ * the triangular factor of the rows seen so far is kept, so least squares
+ * problems can be solved from a stream of row chunks without materializing the
+ * whole matrix.
+ * </p>
+ *
+ * <p>
+ * Each chunk is split into independent row blocks which are factored in
+ * parallel on the pool configured in {@link Parallel}. Their triangular factors
+ * are merged pairwise in a reduction tree by factoring the stacked pair
+ * [R1; R2], and the result is merged into the running factor.
+ * </p>
+ *
+ * <p>
+ * Right hand sides are carried along as extra columns. The factor of the
+ * augmented matrix [A B] is [R Z; 0 S]: the least squares solution is
+ * X = R\Z and the residual norm of column j of B is the norm of column j of S.
+ * </p>
+ *
+ * <pre>
+ * TallSkinnyQRDecomposition tsqr = new TallSkinnyQRDecomposition(20, 1);
+ * while (reader.hasNext()) {
+ *     tsqr.update(reader.nextRows(), reader.nextTargets());
+ * }
+ * Matrix x = tsqr.solve();
+ * </pre>
+ *
+ * @see QRDecomposition
+ * @since 2.0.0
+ */
+public class TallSkinnyQRDecomposition implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Row blocks smaller than this are not split further. */
+    private static final int MIN_BLOCK_ROWS = 256;
+
+    /**
+     * Upper triangular factor of the augmented matrix [A B].
+     *
+     * @serial (n+nrhs)-by-(n+nrhs) triangular factor.
+     */
+    private double[][] R;
+
+    /**
+     * Number of columns of A and B.
+     *
+     * @serial column dimension.
+     * @serial number of right hand sides.
+     */
+    private final int n, nrhs;
+
+    /**
+     * Number of rows added so far.
+     *
+     * @serial row count.
+     */
+    private long rows;
+
+    /*
+     * ------------------------ Constructors ------------------------
+     */
+
+    /**
+     * Start an empty factorization to which rows are added by
+     * {@link #update(Matrix, Matrix)}.
+     *
+     * @param n number of columns of A
+     * @param nrhs number of right hand sides, may be 0
+     */
+    public TallSkinnyQRDecomposition(int n, int nrhs) {
+        if (n < 1 || nrhs < 0) {
+            throw new IllegalArgumentException("Invalid dimensions: " + n + " columns, " + nrhs
+                    + " right hand sides.");
+        }
+        this.n = n;
+        this.nrhs = nrhs;
+        this.R = new double[n + nrhs][n + nrhs];
+    }
+
+    /**
+     * Factor A in parallel row blocks.
+     *
+     * @param A Rectangular matrix, usually with many more rows than columns
+     */
+    public TallSkinnyQRDecomposition(Matrix A) {
+        this(A.getColumnDimension(), 0);
+        update(A);
+    }
+
+    /**
+     * Factor [A B] in parallel row blocks, ready to {@link #solve()} A*X = B.
+     *
+     * @param A Rectangular matrix, usually with many more rows than columns
+     * @param B right hand sides with as many rows as A
+     */
+    public TallSkinnyQRDecomposition(Matrix A, Matrix B) {
+        this(A.getColumnDimension(), B.getColumnDimension());
+        update(A, B);
+    }
+
+    /*
+     * ------------------------ Public Methods ------------------------
+     */
+
+    /**
+     * Add a chunk of rows of A. Only valid without right hand sides.
+     *
+     * @param A rows to add, with n columns
+     * @exception IllegalArgumentException Matrix dimensions must agree.
+     */
+    public void update(Matrix A) {
+        if (nrhs != 0) {
+            throw new IllegalArgumentException("Right hand sides are required.");
+        }
+        update(A, null);
+    }
+
+    /**
+     * Add a chunk of rows of A and the corresponding rows of B.
+     *
+     * @param A rows to add, with n columns
+     * @param B corresponding right hand sides, with nrhs columns; may be null
+     *            if nrhs is 0
+     * @exception IllegalArgumentException Matrix dimensions must agree.
+     */
+    public void update(Matrix A, Matrix B) {
+        int m = A.getRowDimension();
+        if (A.getColumnDimension() != n) {
+            throw new IllegalArgumentException("Matrix dimensions must agree.");
+        }
+        if (B == null ? nrhs > 0 : B.getRowDimension() != m || B.getColumnDimension() != nrhs) {
+            throw new IllegalArgumentException("Matrix dimensions must agree.");
+        }
+        if (m == 0) {
+            return;
+        }
+        int p = n + nrhs;
+        double[][] a = A.getArray();
+        double[][] b = (nrhs > 0 ? B.getArray() : null);
+        double[][] C = new double[m][p];
+        for (int i = 0; i < m; i++) {
+            System.arraycopy(a[i], 0, C[i], 0, n);
+            if (nrhs > 0) {
+                System.arraycopy(b[i], 0, C[i], n, nrhs);
+            }
+        }
+        double[][] Rchunk = Parallel.invoke(new BlockTask(C, 0, m, p));
+        R = merge(R, Rchunk, p);
+        rows += m;
+    }
+
+    /**
+     * @return number of rows added so far
+     */
+    public long getRowCount() {
+        return rows;
+    }
+
+    /**
+     * Is the matrix full rank?
+     *
+     * @return true if R, and hence A, has full rank.
+     */
+    public boolean isFullRank() {
+        for (int j = 0; j < n; j++) {
+            if (R[j][j] == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return the upper triangular factor. It equals the R of
+     * {@link QRDecomposition} of A up to the signs of its rows.
+     *
+     * @return R
+     */
+    public Matrix getR() {
+        Matrix X = new Matrix(n, n);
+        double[][] Rx = X.getArray();
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(R[i], i, Rx[i], i, n - i);
+        }
+        return X;
+    }
+
+    /**
+     * Least squares solution of A*X = B for the right hand sides added with
+     * the rows.
+     *
+     * @return X that minimizes the two norm of A*X-B
+     * @exception IllegalStateException No right hand sides.
+     * @exception RuntimeException Matrix is rank deficient.
+     */
+    public Matrix solve() {
+        if (nrhs == 0) {
+            throw new IllegalStateException("No right hand sides.");
+        }
+        if (!isFullRank()) {
+            throw new RuntimeException("Matrix is rank deficient.");
+        }
+        Matrix Xmat = new Matrix(n, nrhs);
+        double[][] X = Xmat.getArray();
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(R[i], n, X[i], 0, nrhs);
+        }
+        // Solve R*X = Z;
+        for (int k = n - 1; k >= 0; k--) {
+            double[] Xrowk = X[k];
+            for (int j = 0; j < nrhs; j++) {
+                Xrowk[j] /= R[k][k];
+            }
+            for (int i = 0; i < k; i++) {
+                double r = R[i][k];
+                double[] Xrowi = X[i];
+                for (int j = 0; j < nrhs; j++) {
+                    Xrowi[j] -= Xrowk[j] * r;
+                }
+            }
+        }
+        return Xmat;
+    }
+
+    /**
+     * Two norms of the least squares residuals A*X-B, one per right hand
+     * side, without computing X.
+     *
+     * @return residual norm of each column of B
+     */
+    public double[] getResidualNorms() {
+        double[] norms = new double[nrhs];
+        for (int j = 0; j < nrhs; j++) {
+            double nrm = 0.0;
+            for (int i = n; i <= n + j; i++) {
+                nrm = Maths.hypot(nrm, R[i][n + j]);
+            }
+            norms[j] = nrm;
+        }
+        return norms;
+    }
+
+    /* ================================================ */
+    /* ============= Private Methods ================== */
+    /* ================================================ */
+
+    /**
+     * Triangular factor of the rows of C, which are overwritten.
+     *
+     * @param C rows with p columns
+     * @param p column dimension
+     * @return p-by-p triangular factor
+     */
+    private static double[][] factor(double[][] C, int p) {
+        if (C.length < p) {
+            double[][] padded = Arrays.copyOf(C, p);
+            for (int i = C.length; i < p; i++) {
+                padded[i] = new double[p];
+            }
+            C = padded;
+        }
+        return new QRDecomposition(C, C.length, p).getR().getArray();
+    }
+
+    /** Triangular factor of [R1; R2]. */
+    private static double[][] merge(double[][] R1, double[][] R2, int p) {
+        double[][] C = new double[2 * p][];
+        System.arraycopy(R1, 0, C, 0, p);
+        System.arraycopy(R2, 0, C, p, p);
+        return factor(C, p);
+    }
+
+    /** Factors the rows lo..hi-1 of C by recursive halving. */
+    private static class BlockTask extends RecursiveTask<double[][]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double[][] C;
+        private final int lo, hi, p;
+
+        BlockTask(double[][] C, int lo, int hi, int p) {
+            this.C = C;
+            this.lo = lo;
+            this.hi = hi;
+            this.p = p;
+        }
+
+        @Override
+        protected double[][] compute() {
+            int m = hi - lo;
+            if (m < 2 * Math.max(p, MIN_BLOCK_ROWS) || !Parallel.isWorthwhile((long) m * p * p)) {
+                return factor(Arrays.copyOfRange(C, lo, hi), p);
+            }
+            int mid = lo + m / 2;
+            BlockTask upper = new BlockTask(C, lo, mid, p);
+            upper.fork();
+            double[][] lower = new BlockTask(C, mid, hi, p).compute();
+            return merge(upper.join(), lower, p);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package jama.blas;
+
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Discovery of the optional {@link ElementwiseBackend} and {@link GemmBackend}
+ * implementations.
+ *
+ * @since 2.0.0
+ */
+final class Backends {
+
+    private Backends() {
+        // static utility
+    }
+
+    /**
+     * @param service backend interface
+     * @return the first registered implementation that can be instantiated,
+     *         {@code null} if there is none
+     */
+    static <S> S load(Class<S> service) {
+        Iterator<S> it = ServiceLoader.load(service, Backends.class.getClassLoader()).iterator();
+        while (true) {
+            try {
+                if (!it.hasNext()) {
+                    return null;
+                }
+                return it.next();
+            } catch (ServiceConfigurationError e) {
+                // provider not instantiable, try the next one
+            } catch (LinkageError e) {
+                // provider compiled against a module that is not present
+            }
+        }
+    }
+}
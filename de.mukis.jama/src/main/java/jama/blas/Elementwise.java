@@ -0,0 +1,257 @@
+package jama.blas;
+
+/**
+ * <p>
+ * Element-wise kernels on single rows: sums, differences, products, quotients,
+ * scaling and scaled accumulation of the first n elements of one-dimensional
+ * arrays.
+ * </p>
+ *
+ * <p>
+ * Each kernel is a single counted loop over plain {@code double[]} or
+ * {@code float[]} operands, without the row lookups of a {@code double[][]}
+ * in the loop body. This is the shape the superword optimization of the
+ * HotSpot server compiler turns into SIMD instructions. The output may be
+ * one of the inputs, which gives the in-place variants.
+ * </p>
+ *
+ * <p>
+ * If an {@link ElementwiseBackend} is registered as a service on the class
+ * path, the first one that can be instantiated is used instead of these
+ * loops. The {@code de.mukis.jama.vector} module provides one on top of the
+ * incubating Vector API of JDK 16 and later. Backends that fail to load,
+ * e.g. because the {@code jdk.incubator.vector} module is not resolved, are
+ * skipped.
+ * </p>
+ *
+ * <p>
+ * In an OSGi framework the service files are looked up with the class loader
+ * of this bundle. The {@code de.mukis.jama.vector} bundle is a fragment of it
+ * and is found that way, provided the framework exports the
+ * {@code jdk.incubator.vector} package. Backends in other bundles are
+ * installed with {@link #setBackend(ElementwiseBackend)}.
+ * </p>
+ *
+ * @see ElementwiseBackend
+ * @since 2.0.0
+ */
+public final class Elementwise {
+
+    private static volatile ElementwiseBackend backend = Backends.load(ElementwiseBackend.class);
+
+    private Elementwise() {
+        // static utility
+    }
+
+    /**
+     * @return the backend executing the kernels, {@code null} if the plain
+     *         loops are used
+     */
+    public static ElementwiseBackend getBackend() {
+        return backend;
+    }
+
+    /**
+     * Replaces the backend executing the kernels.
+     *
+     * @param elementwiseBackend new backend, {@code null} selects the plain
+     *            loops
+     */
+    public static void setBackend(ElementwiseBackend elementwiseBackend) {
+        backend = elementwiseBackend;
+    }
+
+    /* ====================================================== */
+    /* ================ Double precision ==================== */
+    /* ====================================================== */
+
+    /**
+     * c = a + b
+     *
+     * @param a first operand
+     * @param b second operand
+     * @param c result, may be a or b
+     * @param n number of elements
+     */
+    public static void add(double[] a, double[] b, double[] c, int n) {
+        ElementwiseBackend impl = backend;
+        if (impl != null) {
+            impl.add(a, b, c, n);
+            return;
+        }
+        for (int j = 0; j < n; j++) {
+            c[j] = a[j] + b[j];
+        }
+    }
+
+    /**
+     * c = a - b
+     *
+     * @param a first operand
+     * @param b second operand
+     * @param c result, may be a or b
+     * @param n number of elements
+     */
+    public static void subtract(double[] a, double[] b, double[] c, int n) {
+        ElementwiseBackend impl = backend;
+        if (impl != null) {
+            impl.subtract(a, b, c, n);
+            return;
+        }
+        for (int j = 0; j < n; j++) {
+            c[j] = a[j] - b[j];
+        }
+    }
+
+    /**
+     * c = a .* b
+     *
+     * @param a first operand
+     * @param b second operand
+     * @param c result, may be a or b
+     * @param n number of elements
+     */
+    public static void multiply(double[] a, double[] b, double[] c, int n) {
+        ElementwiseBackend impl = backend;
+        if (impl != null) {
+            impl.multiply(a, b, c, n);
+            return;
+        }
+        for (int j = 0; j < n; j++) {
+            c[j] = a[j] * b[j];
+        }
+    }
+
+    /**
+     * c = a ./ b
+     *
+     * @param a dividend
+     * @param b divisor
+     * @param c result, may be a or b
+     * @param n number of elements
+     */
+    public static void divide(double[] a, double[] b, double[] c, int n) {
+        ElementwiseBackend impl = backend;
+        if (impl != null) {
+            impl.divide(a, b, c, n);
+            return;
+        }
+        for (int j = 0; j < n; j++) {
+            c[j] = a[j] / b[j];
+        }
+    }
+
+    /**
+     * c = s * a
+     *
+     * @param s scalar
+     * @param a operand
+     * @param c result, may be a
+     * @param n number of elements
+     */
+    public static void scale(double s, double[] a, double[] c, int n) {
+        ElementwiseBackend impl = backend;
+        if (impl != null) {
+            impl.scale(s, a, c, n);
+            return;
+        }
+        for (int j = 0; j < n; j++) {
+            c[j] = s * a[j];
+        }
+    }
+
+    /**
+     * c = c + s * a
+     *
+     * @param s scalar
+     * @param a operand
+     * @param c accumulator
+     * @param n number of elements
+     */
+    public static void axpy(double s, double[] a, double[] c, int n) {
+        ElementwiseBackend impl = backend;
+        if (impl != null) {
+            impl.axpy(s, a, c, n);
+            return;
+        }
+        for (int j = 0; j < n; j++) {
+            c[j] += s * a[j];
+        }
+    }
+
+    /* ====================================================== */
+    /* ================ Single precision ==================== */
+    /* ====================================================== */
+
+    /** Single precision variant of {@link #add(double[], double[], double[], int)}. */
+    public static void add(float[] a, float[] b, float[] c, int n) {
+        ElementwiseBackend impl = backend;
+        if (impl != null) {
+            impl.add(a, b, c, n);
+            return;
+        }
+        for (int j = 0; j < n; j++) {
+            c[j] = a[j] + b[j];
+        }
+    }
+
+    /** Single precision variant of {@link #subtract(double[], double[], double[], int)}. */
+    public static void subtract(float[] a, float[] b, float[] c, int n) {
+        ElementwiseBackend impl = backend;
+        if (impl != null) {
+            impl.subtract(a, b, c, n);
+            return;
+        }
+        for (int j = 0; j < n; j++) {
+            c[j] = a[j] - b[j];
+        }
+    }
+
+    /** Single precision variant of {@link #multiply(double[], double[], double[], int)}. */
+    public static void multiply(float[] a, float[] b, float[] c, int n) {
+        ElementwiseBackend impl = backend;
+        if (impl != null) {
+            impl.multiply(a, b, c, n);
+            return;
+        }
+        for (int j = 0; j < n; j++) {
+            c[j] = a[j] * b[j];
+        }
+    }
+
+    /** Single precision variant of {@link #divide(double[], double[], double[], int)}. */
+    public static void divide(float[] a, float[] b, float[] c, int n) {
+        ElementwiseBackend impl = backend;
+        if (impl != null) {
+            impl.divide(a, b, c, n);
+            return;
+        }
+        for (int j = 0; j < n; j++) {
+            c[j] = a[j] / b[j];
+        }
+    }
+
+    /** Single precision variant of {@link #scale(double, double[], double[], int)}. */
+    public static void scale(float s, float[] a, float[] c, int n) {
+        ElementwiseBackend impl = backend;
+        if (impl != null) {
+            impl.scale(s, a, c, n);
+            return;
+        }
+        for (int j = 0; j < n; j++) {
+            c[j] = s * a[j];
+        }
+    }
+
+    /** Single precision variant of {@link #axpy(double, double[], double[], int)}. */
+    public static void axpy(float s, float[] a, float[] c, int n) {
+        ElementwiseBackend impl = backend;
+        if (impl != null) {
+            impl.axpy(s, a, c, n);
+            return;
+        }
+        for (int j = 0; j < n; j++) {
+            c[j] += s * a[j];
+        }
+    }
+}
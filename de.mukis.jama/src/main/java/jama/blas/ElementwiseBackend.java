@@ -0,0 +1,58 @@
+package jama.blas;
+
+/**
+ * <p>
+ * Alternative implementation of the {@link Elementwise} kernels, for instance
+ * with explicit SIMD instructions. Implementations are found with
+ * {@link java.util.ServiceLoader} when {@link Elementwise} is initialized, or
+ * set with {@link Elementwise#setBackend(ElementwiseBackend)}. Without a
+ * backend the plain loops of {@link Elementwise} are used.
+ * </p>
+ *
+ * <p>
+ * The methods have the contract of the {@link Elementwise} methods of the same
+ * name: they operate on the first n elements, and the output may be one of
+ * the inputs. Implementations must be thread-safe.
+ * </p>
+ *
+ * @see Elementwise
+ * @since 2.0.0
+ */
+public interface ElementwiseBackend {
+
+    /** @see Elementwise#add(double[], double[], double[], int) */
+    void add(double[] a, double[] b, double[] c, int n);
+
+    /** @see Elementwise#subtract(double[], double[], double[], int) */
+    void subtract(double[] a, double[] b, double[] c, int n);
+
+    /** @see Elementwise#multiply(double[], double[], double[], int) */
+    void multiply(double[] a, double[] b, double[] c, int n);
+
+    /** @see Elementwise#divide(double[], double[], double[], int) */
+    void divide(double[] a, double[] b, double[] c, int n);
+
+    /** @see Elementwise#scale(double, double[], double[], int) */
+    void scale(double s, double[] a, double[] c, int n);
+
+    /** @see Elementwise#axpy(double, double[], double[], int) */
+    void axpy(double s, double[] a, double[] c, int n);
+
+    /** @see Elementwise#add(float[], float[], float[], int) */
+    void add(float[] a, float[] b, float[] c, int n);
+
+    /** @see Elementwise#subtract(float[], float[], float[], int) */
+    void subtract(float[] a, float[] b, float[] c, int n);
+
+    /** @see Elementwise#multiply(float[], float[], float[], int) */
+    void multiply(float[] a, float[] b, float[] c, int n);
+
+    /** @see Elementwise#divide(float[], float[], float[], int) */
+    void divide(float[] a, float[] b, float[] c, int n);
+
+    /** @see Elementwise#scale(float, float[], float[], int) */
+    void scale(float s, float[] a, float[] c, int n);
+
+    /** @see Elementwise#axpy(float, float[], float[], int) */
+    void axpy(float s, float[] a, float[] c, int n);
+}
@@ -0,0 +1,933 @@
+package jama.blas;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>
+ * Cache-blocked general matrix multiplication, C = alpha * op(A) * op(B) + beta
+ * * C, where op(X) is either X or X'.
+ * </p>
+ *
+ * <p>
+ * The implementation follows the usual layering of optimized BLAS libraries:
+ * a KC-by-NC panel of op(B) is packed into a contiguous buffer that stays in
+ * the L3 cache, an MC-by-KC block of op(A) is packed into a buffer sized for
+ * the L2 cache and a small MR-by-NR tile of C is accumulated in local
+ * variables (registers) by the micro-kernel. The packed buffers are read
+ * strictly sequentially, so the inner loop never touches the scattered rows
+ * of the {@code double[][]} operands.
+ * </p>
+ *
+ * <p>
+ * All operands are addressed by an offset into the two-dimensional arrays, so
+ * blocks of a larger matrix can be multiplied in place without copying them
+ * into a separate matrix first.
+ * </p>
+ *
+ * <p>
+ * If a {@link GemmBackend} is registered as a service on the class path, its
+ * micro-kernel replaces the scalar one. Discovery, also in OSGi, works as for
+ * {@link Elementwise}. The {@code de.mukis.jama.vector} module provides one
+ * on top of the Vector API.
+ * </p>
+ *
+ * @see GemmBackend
+ * @since 2.0.0
+ */
+public final class Gemm {
+
+    /** Rows of the register tile computed by the micro-kernel. */
+    static final int MR = 4;
+
+    /** Columns of the register tile computed by the micro-kernel. */
+    static final int NR = 4;
+
+    /** Rows of the packed block of op(A). */
+    static final int MC = 64;
+
+    /** Depth of the packed blocks of op(A) and op(B). */
+    static final int KC = 256;
+
+    /** Columns of the packed panel of op(B). */
+    static final int NC = 1024;
+
+    /**
+     * Products with fewer multiply-adds (m * n * k) than this are computed by
+     * the simple dot product loop, because packing does not pay off.
+     */
+    public static final long BLOCKING_THRESHOLD = 64L * 64L * 64L;
+
+    private static volatile GemmBackend backend = Backends.load(GemmBackend.class);
+
+    private Gemm() {
+        // static utility
+    }
+
+    /**
+     * @return the backend executing the micro-kernel, {@code null} if the
+     *         scalar micro-kernel is used
+     */
+    public static GemmBackend getBackend() {
+        return backend;
+    }
+
+    /**
+     * Replaces the backend executing the micro-kernel.
+     *
+     * @param gemmBackend new backend, {@code null} selects the scalar
+     *            micro-kernel
+     */
+    public static void setBackend(GemmBackend gemmBackend) {
+        backend = gemmBackend;
+    }
+
+    /**
+     * @param m rows of op(A) and C
+     * @param n columns of op(B) and C
+     * @param k columns of op(A) and rows of op(B)
+     * @return true if the blocked kernel should be used for this shape
+     */
+    public static boolean isBlockingWorthwhile(int m, int n, int k) {
+        return m >= MR && n >= NR && (long) m * n * k >= BLOCKING_THRESHOLD;
+    }
+
+    /* ====================================================== */
+    /* ================ Double precision ==================== */
+    /* ====================================================== */
+
+    /**
+     * C = A * B for complete matrices.
+     *
+     * @param A m-by-k array
+     * @param B k-by-n array
+     * @param C m-by-n array, overwritten with the product
+     * @param m rows of A
+     * @param n columns of B
+     * @param k columns of A
+     */
+    public static void dgemm(double[][] A, double[][] B, double[][] C, int m, int n, int k) {
+        dgemm(false, false, m, n, k, 1.0, A, 0, 0, B, 0, 0, 0.0, C, 0, 0);
+    }
+
+    /**
+     * C(ci:ci+m-1, cj:cj+n-1) = alpha * op(A) * op(B) + beta * C(ci:ci+m-1,
+     * cj:cj+n-1)
+     *
+     * @param transA use A' instead of A
+     * @param transB use B' instead of B
+     * @param m rows of op(A) and C
+     * @param n columns of op(B) and C
+     * @param k columns of op(A) and rows of op(B)
+     * @param alpha scalar factor of the product
+     * @param A left operand, op(A) starts at A[ai][aj]
+     * @param ai row offset into A
+     * @param aj column offset into A
+     * @param B right operand, op(B) starts at B[bi][bj]
+     * @param bi row offset into B
+     * @param bj column offset into B
+     * @param beta scalar factor of C, 0.0 ignores the previous content of C
+     * @param C result, must not share storage with A or B
+     * @param ci row offset into C
+     * @param cj column offset into C
+     */
+    public static void dgemm(boolean transA, boolean transB, int m, int n, int k, double alpha, double[][] A, int ai,
+            int aj, double[][] B, int bi, int bj, double beta, double[][] C, int ci, int cj) {
+        if (m <= 0 || n <= 0) {
+            return;
+        }
+        if (beta != 1.0) {
+            for (int i = 0; i < m; i++) {
+                double[] Crowi = C[ci + i];
+                for (int j = cj; j < cj + n; j++) {
+                    Crowi[j] = (beta == 0.0 ? 0.0 : beta * Crowi[j]);
+                }
+            }
+        }
+        if (alpha == 0.0 || k <= 0) {
+            return;
+        }
+
+        int kcMax = Math.min(k, KC);
+        double[] Bp = new double[kcMax * roundUp(Math.min(n, NC), NR)];
+        double[] Ap = new double[kcMax * roundUp(Math.min(m, MC), MR)];
+        GemmBackend impl = backend;
+        double[] tile = (impl != null ? new double[MR * NR] : null);
+
+        for (int jc = 0; jc < n; jc += NC) {
+            int nc = Math.min(NC, n - jc);
+            for (int pc = 0; pc < k; pc += KC) {
+                int kc = Math.min(KC, k - pc);
+                packB(transB, B, bi, bj, pc, jc, kc, nc, Bp);
+                for (int ic = 0; ic < m; ic += MC) {
+                    int mc = Math.min(MC, m - ic);
+                    packA(transA, A, ai, aj, ic, pc, mc, kc, Ap);
+                    for (int jr = 0; jr < nc; jr += NR) {
+                        int nr = Math.min(NR, nc - jr);
+                        for (int ir = 0; ir < mc; ir += MR) {
+                            int mr = Math.min(MR, mc - ir);
+                            if (impl != null) {
+                                impl.kernel(kc, Ap, ir * kc, Bp, jr * kc, tile);
+                                update(alpha, tile, C, ci + ic + ir, cj + jc + jr, mr, nr);
+                            } else {
+                                kernel(kc, alpha, Ap, ir * kc, Bp, jr * kc, C, ci + ic + ir, cj + jc + jr, mr, nr);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Multi-threaded variant of
+     * {@link #dgemm(boolean, boolean, int, int, int, double, double[][], int, int, double[][], int, int, double, double[][], int, int)}
+     * . C is partitioned into row and column tiles which are computed by the
+     * blocked kernel on the {@link Parallel#getPool() pool}. Products below the
+     * {@link Parallel#getThreshold() threshold} are computed on the calling
+     * thread.
+     */
+    public static void parallelDgemm(boolean transA, boolean transB, int m, int n, int k, double alpha, double[][] A,
+            int ai, int aj, double[][] B, int bi, int bj, double beta, double[][] C, int ci, int cj) {
+        long work = (long) m * n * Math.max(k, 1);
+        if (!Parallel.isWorthwhile(work)) {
+            dgemm(transA, transB, m, n, k, alpha, A, ai, aj, B, bi, bj, beta, C, ci, cj);
+            return;
+        }
+        long grain = Math.max(BLOCKING_THRESHOLD, work / (4L * Parallel.getPool().getParallelism()));
+        Parallel.invoke(new DgemmTask(transA, transB, m, n, k, alpha, A, ai, aj, B, bi, bj, beta, C, ci, cj, grain));
+    }
+
+    /**
+     * Computes one tile of C, splitting it in halves along the longer side
+     * until the amount of work drops below the grain size.
+     */
+    private static final class DgemmTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final boolean transA, transB;
+        private final int m, n, k;
+        private final double alpha, beta;
+        private final double[][] A, B, C;
+        private final int ai, aj, bi, bj, ci, cj;
+        private final long grain;
+
+        DgemmTask(boolean transA, boolean transB, int m, int n, int k, double alpha, double[][] A, int ai, int aj,
+                double[][] B, int bi, int bj, double beta, double[][] C, int ci, int cj, long grain) {
+            this.transA = transA;
+            this.transB = transB;
+            this.m = m;
+            this.n = n;
+            this.k = k;
+            this.alpha = alpha;
+            this.A = A;
+            this.ai = ai;
+            this.aj = aj;
+            this.B = B;
+            this.bi = bi;
+            this.bj = bj;
+            this.beta = beta;
+            this.C = C;
+            this.ci = ci;
+            this.cj = cj;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if ((long) m * n * Math.max(k, 1) <= grain || (m <= MC && n <= MC)) {
+                dgemm(transA, transB, m, n, k, alpha, A, ai, aj, B, bi, bj, beta, C, ci, cj);
+            } else if (m >= n) {
+                int m1 = roundUp(m / 2, MR);
+                int ai2 = transA ? ai : ai + m1;
+                int aj2 = transA ? aj + m1 : aj;
+                invokeAll(new DgemmTask(transA, transB, m1, n, k, alpha, A, ai, aj, B, bi, bj, beta, C, ci, cj, grain),
+                        new DgemmTask(transA, transB, m - m1, n, k, alpha, A, ai2, aj2, B, bi, bj, beta, C, ci + m1, cj,
+                                grain));
+            } else {
+                int n1 = roundUp(n / 2, NR);
+                int bi2 = transB ? bi + n1 : bi;
+                int bj2 = transB ? bj : bj + n1;
+                invokeAll(new DgemmTask(transA, transB, m, n1, k, alpha, A, ai, aj, B, bi, bj, beta, C, ci, cj, grain),
+                        new DgemmTask(transA, transB, m, n - n1, k, alpha, A, ai, aj, B, bi2, bj2, beta, C, ci, cj + n1,
+                                grain));
+            }
+        }
+    }
+
+    /**
+     * Packs op(A)(ic:ic+mc-1, pc:pc+kc-1) into slivers of MR rows. Within a
+     * sliver the elements are stored column by column, missing rows at the
+     * lower edge are padded with zeros.
+     */
+    private static void packA(boolean trans, double[][] A, int ai, int aj, int ic, int pc, int mc, int kc, double[] Ap) {
+        int idx = 0;
+        for (int ir = 0; ir < mc; ir += MR) {
+            int mr = Math.min(MR, mc - ir);
+            if (!trans) {
+                for (int p = 0; p < kc; p++) {
+                    int col = aj + pc + p;
+                    for (int i = 0; i < mr; i++) {
+                        Ap[idx + i] = A[ai + ic + ir + i][col];
+                    }
+                    for (int i = mr; i < MR; i++) {
+                        Ap[idx + i] = 0.0;
+                    }
+                    idx += MR;
+                }
+            } else {
+                for (int p = 0; p < kc; p++) {
+                    double[] Arowp = A[ai + pc + p];
+                    int col = aj + ic + ir;
+                    for (int i = 0; i < mr; i++) {
+                        Ap[idx + i] = Arowp[col + i];
+                    }
+                    for (int i = mr; i < MR; i++) {
+                        Ap[idx + i] = 0.0;
+                    }
+                    idx += MR;
+                }
+            }
+        }
+    }
+
+    /**
+     * Packs op(B)(pc:pc+kc-1, jc:jc+nc-1) into slivers of NR columns. Within a
+     * sliver the elements are stored row by row, missing columns at the right
+     * edge are padded with zeros.
+     */
+    private static void packB(boolean trans, double[][] B, int bi, int bj, int pc, int jc, int kc, int nc, double[] Bp) {
+        int idx = 0;
+        for (int jr = 0; jr < nc; jr += NR) {
+            int nr = Math.min(NR, nc - jr);
+            if (!trans) {
+                int col = bj + jc + jr;
+                for (int p = 0; p < kc; p++) {
+                    double[] Browp = B[bi + pc + p];
+                    for (int j = 0; j < nr; j++) {
+                        Bp[idx + j] = Browp[col + j];
+                    }
+                    for (int j = nr; j < NR; j++) {
+                        Bp[idx + j] = 0.0;
+                    }
+                    idx += NR;
+                }
+            } else {
+                for (int p = 0; p < kc; p++) {
+                    int col = bj + pc + p;
+                    for (int j = 0; j < nr; j++) {
+                        Bp[idx + j] = B[bi + jc + jr + j][col];
+                    }
+                    for (int j = nr; j < NR; j++) {
+                        Bp[idx + j] = 0.0;
+                    }
+                    idx += NR;
+                }
+            }
+        }
+    }
+
+    /**
+     * The 4x4 micro-kernel. The sixteen entries of the C tile are kept in local
+     * variables for the whole k loop and written back once.
+     */
+    private static void kernel(int kc, double alpha, double[] Ap, int ao, double[] Bp, int bo, double[][] C, int ci,
+            int cj, int mr, int nr) {
+        double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+        double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+        double c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+        double c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+        int a = ao;
+        int b = bo;
+        for (int p = 0; p < kc; p++) {
+            double a0 = Ap[a];
+            double a1 = Ap[a + 1];
+            double a2 = Ap[a + 2];
+            double a3 = Ap[a + 3];
+            double b0 = Bp[b];
+            double b1 = Bp[b + 1];
+            double b2 = Bp[b + 2];
+            double b3 = Bp[b + 3];
+            c00 += a0 * b0;
+            c01 += a0 * b1;
+            c02 += a0 * b2;
+            c03 += a0 * b3;
+            c10 += a1 * b0;
+            c11 += a1 * b1;
+            c12 += a1 * b2;
+            c13 += a1 * b3;
+            c20 += a2 * b0;
+            c21 += a2 * b1;
+            c22 += a2 * b2;
+            c23 += a2 * b3;
+            c30 += a3 * b0;
+            c31 += a3 * b1;
+            c32 += a3 * b2;
+            c33 += a3 * b3;
+            a += MR;
+            b += NR;
+        }
+        if (mr == MR && nr == NR) {
+            double[] C0 = C[ci];
+            double[] C1 = C[ci + 1];
+            double[] C2 = C[ci + 2];
+            double[] C3 = C[ci + 3];
+            C0[cj] += alpha * c00;
+            C0[cj + 1] += alpha * c01;
+            C0[cj + 2] += alpha * c02;
+            C0[cj + 3] += alpha * c03;
+            C1[cj] += alpha * c10;
+            C1[cj + 1] += alpha * c11;
+            C1[cj + 2] += alpha * c12;
+            C1[cj + 3] += alpha * c13;
+            C2[cj] += alpha * c20;
+            C2[cj + 1] += alpha * c21;
+            C2[cj + 2] += alpha * c22;
+            C2[cj + 3] += alpha * c23;
+            C3[cj] += alpha * c30;
+            C3[cj + 1] += alpha * c31;
+            C3[cj + 2] += alpha * c32;
+            C3[cj + 3] += alpha * c33;
+        } else {
+            double[] tile = { c00, c01, c02, c03, c10, c11, c12, c13, c20, c21, c22, c23, c30, c31, c32, c33 };
+            for (int i = 0; i < mr; i++) {
+                double[] Crowi = C[ci + i];
+                for (int j = 0; j < nr; j++) {
+                    Crowi[cj + j] += alpha * tile[i * NR + j];
+                }
+            }
+        }
+    }
+
+    /**
+     * C tile += alpha * tile, for a tile computed by the backend.
+     */
+    private static void update(double alpha, double[] tile, double[][] C, int ci, int cj, int mr, int nr) {
+        for (int i = 0; i < mr; i++) {
+            double[] Crowi = C[ci + i];
+            for (int j = 0; j < nr; j++) {
+                Crowi[cj + j] += alpha * tile[i * NR + j];
+            }
+        }
+    }
+
+    /* ====================================================== */
+    /* ============= Double precision, flat storage ========= */
+    /* ====================================================== */
+
+    /**
+     * C = alpha * A * B + beta * C on flat, strided storage. Element (i, j) of
+     * X is stored at {@code X[xOff + i * xRs + j * xCs]}, so row-major,
+     * column-major and transposed operands are described by swapping the row
+     * stride and the column stride.
+     *
+     * @param m rows of A and C
+     * @param n columns of B and C
+     * @param k columns of A and rows of B
+     * @param alpha scalar factor of the product
+     * @param A left operand
+     * @param aOff index of A(0,0)
+     * @param aRs distance between two rows of A
+     * @param aCs distance between two columns of A
+     * @param B right operand
+     * @param bOff index of B(0,0)
+     * @param bRs distance between two rows of B
+     * @param bCs distance between two columns of B
+     * @param beta scalar factor of C, 0.0 ignores the previous content of C
+     * @param C result, must not share storage with A or B
+     * @param cOff index of C(0,0)
+     * @param cRs distance between two rows of C
+     * @param cCs distance between two columns of C
+     */
+    public static void dgemm(int m, int n, int k, double alpha, double[] A, int aOff, int aRs, int aCs, double[] B,
+            int bOff, int bRs, int bCs, double beta, double[] C, int cOff, int cRs, int cCs) {
+        if (m <= 0 || n <= 0) {
+            return;
+        }
+        if (beta != 1.0) {
+            for (int i = 0; i < m; i++) {
+                int idx = cOff + i * cRs;
+                for (int j = 0; j < n; j++, idx += cCs) {
+                    C[idx] = (beta == 0.0 ? 0.0 : beta * C[idx]);
+                }
+            }
+        }
+        if (alpha == 0.0 || k <= 0) {
+            return;
+        }
+
+        int kcMax = Math.min(k, KC);
+        double[] Bp = new double[kcMax * roundUp(Math.min(n, NC), NR)];
+        double[] Ap = new double[kcMax * roundUp(Math.min(m, MC), MR)];
+        double[] tile = new double[MR * NR];
+        GemmBackend impl = backend;
+
+        for (int jc = 0; jc < n; jc += NC) {
+            int nc = Math.min(NC, n - jc);
+            for (int pc = 0; pc < k; pc += KC) {
+                int kc = Math.min(KC, k - pc);
+                pack(B, bOff + pc * bRs + jc * bCs, bCs, bRs, nc, kc, NR, Bp);
+                for (int ic = 0; ic < m; ic += MC) {
+                    int mc = Math.min(MC, m - ic);
+                    pack(A, aOff + ic * aRs + pc * aCs, aRs, aCs, mc, kc, MR, Ap);
+                    for (int jr = 0; jr < nc; jr += NR) {
+                        int nr = Math.min(NR, nc - jr);
+                        for (int ir = 0; ir < mc; ir += MR) {
+                            int mr = Math.min(MR, mc - ir);
+                            if (impl != null) {
+                                impl.kernel(kc, Ap, ir * kc, Bp, jr * kc, tile);
+                            } else {
+                                kernel(kc, Ap, ir * kc, Bp, jr * kc, tile);
+                            }
+                            int base = cOff + (ic + ir) * cRs + (jc + jr) * cCs;
+                            for (int i = 0; i < mr; i++) {
+                                int idx = base + i * cRs;
+                                for (int j = 0; j < nr; j++, idx += cCs) {
+                                    C[idx] += alpha * tile[i * NR + j];
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Multi-threaded variant of
+     * {@link #dgemm(int, int, int, double, double[], int, int, int, double[], int, int, int, double, double[], int, int, int)}
+     * .
+     */
+    public static void parallelDgemm(int m, int n, int k, double alpha, double[] A, int aOff, int aRs, int aCs,
+            double[] B, int bOff, int bRs, int bCs, double beta, double[] C, int cOff, int cRs, int cCs) {
+        long work = (long) m * n * Math.max(k, 1);
+        if (!Parallel.isWorthwhile(work)) {
+            dgemm(m, n, k, alpha, A, aOff, aRs, aCs, B, bOff, bRs, bCs, beta, C, cOff, cRs, cCs);
+            return;
+        }
+        long grain = Math.max(BLOCKING_THRESHOLD, work / (4L * Parallel.getPool().getParallelism()));
+        Parallel.invoke(new FlatDgemmTask(m, n, k, alpha, A, aOff, aRs, aCs, B, bOff, bRs, bCs, beta, C, cOff, cRs,
+                cCs, grain));
+    }
+
+    private static final class FlatDgemmTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int m, n, k;
+        private final double alpha, beta;
+        private final double[] A, B, C;
+        private final int aOff, aRs, aCs, bOff, bRs, bCs, cOff, cRs, cCs;
+        private final long grain;
+
+        FlatDgemmTask(int m, int n, int k, double alpha, double[] A, int aOff, int aRs, int aCs, double[] B, int bOff,
+                int bRs, int bCs, double beta, double[] C, int cOff, int cRs, int cCs, long grain) {
+            this.m = m;
+            this.n = n;
+            this.k = k;
+            this.alpha = alpha;
+            this.A = A;
+            this.aOff = aOff;
+            this.aRs = aRs;
+            this.aCs = aCs;
+            this.B = B;
+            this.bOff = bOff;
+            this.bRs = bRs;
+            this.bCs = bCs;
+            this.beta = beta;
+            this.C = C;
+            this.cOff = cOff;
+            this.cRs = cRs;
+            this.cCs = cCs;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if ((long) m * n * Math.max(k, 1) <= grain || (m <= MC && n <= MC)) {
+                dgemm(m, n, k, alpha, A, aOff, aRs, aCs, B, bOff, bRs, bCs, beta, C, cOff, cRs, cCs);
+            } else if (m >= n) {
+                int m1 = roundUp(m / 2, MR);
+                invokeAll(new FlatDgemmTask(m1, n, k, alpha, A, aOff, aRs, aCs, B, bOff, bRs, bCs, beta, C, cOff, cRs,
+                        cCs, grain), new FlatDgemmTask(m - m1, n, k, alpha, A, aOff + m1 * aRs, aRs, aCs, B, bOff, bRs,
+                        bCs, beta, C, cOff + m1 * cRs, cRs, cCs, grain));
+            } else {
+                int n1 = roundUp(n / 2, NR);
+                invokeAll(new FlatDgemmTask(m, n1, k, alpha, A, aOff, aRs, aCs, B, bOff, bRs, bCs, beta, C, cOff, cRs,
+                        cCs, grain), new FlatDgemmTask(m, n - n1, k, alpha, A, aOff, aRs, aCs, B, bOff + n1 * bCs, bRs,
+                        bCs, beta, C, cOff + n1 * cCs, cRs, cCs, grain));
+            }
+        }
+    }
+
+    /**
+     * Packs a strided rows-by-depth block into slivers of {@code width} rows,
+     * stored column by column and zero padded. For op(B) the roles of rows and
+     * columns are swapped by the caller.
+     */
+    private static void pack(double[] X, int off, int rs, int cs, int rows, int depth, int width, double[] packed) {
+        int idx = 0;
+        for (int r = 0; r < rows; r += width) {
+            int w = Math.min(width, rows - r);
+            int base = off + r * rs;
+            for (int p = 0; p < depth; p++) {
+                int src = base + p * cs;
+                for (int i = 0; i < w; i++, src += rs) {
+                    packed[idx + i] = X[src];
+                }
+                for (int i = w; i < width; i++) {
+                    packed[idx + i] = 0.0;
+                }
+                idx += width;
+            }
+        }
+    }
+
+    /**
+     * Micro-kernel for the flat storage variant, which accumulates the tile
+     * into a small buffer and leaves the strided write-back to the caller.
+     */
+    private static void kernel(int kc, double[] Ap, int ao, double[] Bp, int bo, double[] tile) {
+        double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+        double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+        double c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+        double c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+        int a = ao;
+        int b = bo;
+        for (int p = 0; p < kc; p++) {
+            double a0 = Ap[a];
+            double a1 = Ap[a + 1];
+            double a2 = Ap[a + 2];
+            double a3 = Ap[a + 3];
+            double b0 = Bp[b];
+            double b1 = Bp[b + 1];
+            double b2 = Bp[b + 2];
+            double b3 = Bp[b + 3];
+            c00 += a0 * b0;
+            c01 += a0 * b1;
+            c02 += a0 * b2;
+            c03 += a0 * b3;
+            c10 += a1 * b0;
+            c11 += a1 * b1;
+            c12 += a1 * b2;
+            c13 += a1 * b3;
+            c20 += a2 * b0;
+            c21 += a2 * b1;
+            c22 += a2 * b2;
+            c23 += a2 * b3;
+            c30 += a3 * b0;
+            c31 += a3 * b1;
+            c32 += a3 * b2;
+            c33 += a3 * b3;
+            a += MR;
+            b += NR;
+        }
+        tile[0] = c00;
+        tile[1] = c01;
+        tile[2] = c02;
+        tile[3] = c03;
+        tile[4] = c10;
+        tile[5] = c11;
+        tile[6] = c12;
+        tile[7] = c13;
+        tile[8] = c20;
+        tile[9] = c21;
+        tile[10] = c22;
+        tile[11] = c23;
+        tile[12] = c30;
+        tile[13] = c31;
+        tile[14] = c32;
+        tile[15] = c33;
+    }
+
+    /* ====================================================== */
+    /* ================ Single precision ==================== */
+    /* ====================================================== */
+
+    /**
+     * C = A * B for complete matrices.
+     *
+     * @param A m-by-k array
+     * @param B k-by-n array
+     * @param C m-by-n array, overwritten with the product
+     * @param m rows of A
+     * @param n columns of B
+     * @param k columns of A
+     */
+    public static void sgemm(float[][] A, float[][] B, float[][] C, int m, int n, int k) {
+        sgemm(false, false, m, n, k, 1.0f, A, 0, 0, B, 0, 0, 0.0f, C, 0, 0);
+    }
+
+    /**
+     * Single precision variant of
+     * {@link #dgemm(boolean, boolean, int, int, int, double, double[][], int, int, double[][], int, int, double, double[][], int, int)}
+     * . Accumulation is done in single precision.
+     */
+    public static void sgemm(boolean transA, boolean transB, int m, int n, int k, float alpha, float[][] A, int ai,
+            int aj, float[][] B, int bi, int bj, float beta, float[][] C, int ci, int cj) {
+        if (m <= 0 || n <= 0) {
+            return;
+        }
+        if (beta != 1.0f) {
+            for (int i = 0; i < m; i++) {
+                float[] Crowi = C[ci + i];
+                for (int j = cj; j < cj + n; j++) {
+                    Crowi[j] = (beta == 0.0f ? 0.0f : beta * Crowi[j]);
+                }
+            }
+        }
+        if (alpha == 0.0f || k <= 0) {
+            return;
+        }
+
+        int kcMax = Math.min(k, KC);
+        float[] Bp = new float[kcMax * roundUp(Math.min(n, NC), NR)];
+        float[] Ap = new float[kcMax * roundUp(Math.min(m, MC), MR)];
+        GemmBackend impl = backend;
+        float[] tile = (impl != null ? new float[MR * NR] : null);
+
+        for (int jc = 0; jc < n; jc += NC) {
+            int nc = Math.min(NC, n - jc);
+            for (int pc = 0; pc < k; pc += KC) {
+                int kc = Math.min(KC, k - pc);
+                packB(transB, B, bi, bj, pc, jc, kc, nc, Bp);
+                for (int ic = 0; ic < m; ic += MC) {
+                    int mc = Math.min(MC, m - ic);
+                    packA(transA, A, ai, aj, ic, pc, mc, kc, Ap);
+                    for (int jr = 0; jr < nc; jr += NR) {
+                        int nr = Math.min(NR, nc - jr);
+                        for (int ir = 0; ir < mc; ir += MR) {
+                            int mr = Math.min(MR, mc - ir);
+                            if (impl != null) {
+                                impl.kernel(kc, Ap, ir * kc, Bp, jr * kc, tile);
+                                update(alpha, tile, C, ci + ic + ir, cj + jc + jr, mr, nr);
+                            } else {
+                                kernel(kc, alpha, Ap, ir * kc, Bp, jr * kc, C, ci + ic + ir, cj + jc + jr, mr, nr);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Multi-threaded variant of
+     * {@link #sgemm(boolean, boolean, int, int, int, float, float[][], int, int, float[][], int, int, float, float[][], int, int)}
+     * . C is partitioned into row and column tiles which are computed by the
+     * blocked kernel on the {@link Parallel#getPool() pool}. Products below the
+     * {@link Parallel#getThreshold() threshold} are computed on the calling
+     * thread.
+     */
+    public static void parallelSgemm(boolean transA, boolean transB, int m, int n, int k, float alpha, float[][] A,
+            int ai, int aj, float[][] B, int bi, int bj, float beta, float[][] C, int ci, int cj) {
+        long work = (long) m * n * Math.max(k, 1);
+        if (!Parallel.isWorthwhile(work)) {
+            sgemm(transA, transB, m, n, k, alpha, A, ai, aj, B, bi, bj, beta, C, ci, cj);
+            return;
+        }
+        long grain = Math.max(BLOCKING_THRESHOLD, work / (4L * Parallel.getPool().getParallelism()));
+        Parallel.invoke(new SgemmTask(transA, transB, m, n, k, alpha, A, ai, aj, B, bi, bj, beta, C, ci, cj, grain));
+    }
+
+    /**
+     * Computes one tile of C, splitting it in halves along the longer side
+     * until the amount of work drops below the grain size.
+     */
+    private static final class SgemmTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final boolean transA, transB;
+        private final int m, n, k;
+        private final float alpha, beta;
+        private final float[][] A, B, C;
+        private final int ai, aj, bi, bj, ci, cj;
+        private final long grain;
+
+        SgemmTask(boolean transA, boolean transB, int m, int n, int k, float alpha, float[][] A, int ai, int aj,
+                float[][] B, int bi, int bj, float beta, float[][] C, int ci, int cj, long grain) {
+            this.transA = transA;
+            this.transB = transB;
+            this.m = m;
+            this.n = n;
+            this.k = k;
+            this.alpha = alpha;
+            this.A = A;
+            this.ai = ai;
+            this.aj = aj;
+            this.B = B;
+            this.bi = bi;
+            this.bj = bj;
+            this.beta = beta;
+            this.C = C;
+            this.ci = ci;
+            this.cj = cj;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if ((long) m * n * Math.max(k, 1) <= grain || (m <= MC && n <= MC)) {
+                sgemm(transA, transB, m, n, k, alpha, A, ai, aj, B, bi, bj, beta, C, ci, cj);
+            } else if (m >= n) {
+                int m1 = roundUp(m / 2, MR);
+                int ai2 = transA ? ai : ai + m1;
+                int aj2 = transA ? aj + m1 : aj;
+                invokeAll(new SgemmTask(transA, transB, m1, n, k, alpha, A, ai, aj, B, bi, bj, beta, C, ci, cj, grain),
+                        new SgemmTask(transA, transB, m - m1, n, k, alpha, A, ai2, aj2, B, bi, bj, beta, C, ci + m1, cj,
+                                grain));
+            } else {
+                int n1 = roundUp(n / 2, NR);
+                int bi2 = transB ? bi + n1 : bi;
+                int bj2 = transB ? bj : bj + n1;
+                invokeAll(new SgemmTask(transA, transB, m, n1, k, alpha, A, ai, aj, B, bi, bj, beta, C, ci, cj, grain),
+                        new SgemmTask(transA, transB, m, n - n1, k, alpha, A, ai, aj, B, bi2, bj2, beta, C, ci, cj + n1,
+                                grain));
+            }
+        }
+    }
+
+    private static void packA(boolean trans, float[][] A, int ai, int aj, int ic, int pc, int mc, int kc, float[] Ap) {
+        int idx = 0;
+        for (int ir = 0; ir < mc; ir += MR) {
+            int mr = Math.min(MR, mc - ir);
+            if (!trans) {
+                for (int p = 0; p < kc; p++) {
+                    int col = aj + pc + p;
+                    for (int i = 0; i < mr; i++) {
+                        Ap[idx + i] = A[ai + ic + ir + i][col];
+                    }
+                    for (int i = mr; i < MR; i++) {
+                        Ap[idx + i] = 0.0f;
+                    }
+                    idx += MR;
+                }
+            } else {
+                for (int p = 0; p < kc; p++) {
+                    float[] Arowp = A[ai + pc + p];
+                    int col = aj + ic + ir;
+                    for (int i = 0; i < mr; i++) {
+                        Ap[idx + i] = Arowp[col + i];
+                    }
+                    for (int i = mr; i < MR; i++) {
+                        Ap[idx + i] = 0.0f;
+                    }
+                    idx += MR;
+                }
+            }
+        }
+    }
+
+    private static void packB(boolean trans, float[][] B, int bi, int bj, int pc, int jc, int kc, int nc, float[] Bp) {
+        int idx = 0;
+        for (int jr = 0; jr < nc; jr += NR) {
+            int nr = Math.min(NR, nc - jr);
+            if (!trans) {
+                int col = bj + jc + jr;
+                for (int p = 0; p < kc; p++) {
+                    float[] Browp = B[bi + pc + p];
+                    for (int j = 0; j < nr; j++) {
+                        Bp[idx + j] = Browp[col + j];
+                    }
+                    for (int j = nr; j < NR; j++) {
+                        Bp[idx + j] = 0.0f;
+                    }
+                    idx += NR;
+                }
+            } else {
+                for (int p = 0; p < kc; p++) {
+                    int col = bj + pc + p;
+                    for (int j = 0; j < nr; j++) {
+                        Bp[idx + j] = B[bi + jc + jr + j][col];
+                    }
+                    for (int j = nr; j < NR; j++) {
+                        Bp[idx + j] = 0.0f;
+                    }
+                    idx += NR;
+                }
+            }
+        }
+    }
+
+    private static void kernel(int kc, float alpha, float[] Ap, int ao, float[] Bp, int bo, float[][] C, int ci, int cj,
+            int mr, int nr) {
+        float c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+        float c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+        float c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+        float c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+        int a = ao;
+        int b = bo;
+        for (int p = 0; p < kc; p++) {
+            float a0 = Ap[a];
+            float a1 = Ap[a + 1];
+            float a2 = Ap[a + 2];
+            float a3 = Ap[a + 3];
+            float b0 = Bp[b];
+            float b1 = Bp[b + 1];
+            float b2 = Bp[b + 2];
+            float b3 = Bp[b + 3];
+            c00 += a0 * b0;
+            c01 += a0 * b1;
+            c02 += a0 * b2;
+            c03 += a0 * b3;
+            c10 += a1 * b0;
+            c11 += a1 * b1;
+            c12 += a1 * b2;
+            c13 += a1 * b3;
+            c20 += a2 * b0;
+            c21 += a2 * b1;
+            c22 += a2 * b2;
+            c23 += a2 * b3;
+            c30 += a3 * b0;
+            c31 += a3 * b1;
+            c32 += a3 * b2;
+            c33 += a3 * b3;
+            a += MR;
+            b += NR;
+        }
+        if (mr == MR && nr == NR) {
+            float[] C0 = C[ci];
+            float[] C1 = C[ci + 1];
+            float[] C2 = C[ci + 2];
+            float[] C3 = C[ci + 3];
+            C0[cj] += alpha * c00;
+            C0[cj + 1] += alpha * c01;
+            C0[cj + 2] += alpha * c02;
+            C0[cj + 3] += alpha * c03;
+            C1[cj] += alpha * c10;
+            C1[cj + 1] += alpha * c11;
+            C1[cj + 2] += alpha * c12;
+            C1[cj + 3] += alpha * c13;
+            C2[cj] += alpha * c20;
+            C2[cj + 1] += alpha * c21;
+            C2[cj + 2] += alpha * c22;
+            C2[cj + 3] += alpha * c23;
+            C3[cj] += alpha * c30;
+            C3[cj + 1] += alpha * c31;
+            C3[cj + 2] += alpha * c32;
+            C3[cj + 3] += alpha * c33;
+        } else {
+            float[] tile = { c00, c01, c02, c03, c10, c11, c12, c13, c20, c21, c22, c23, c30, c31, c32, c33 };
+            for (int i = 0; i < mr; i++) {
+                float[] Crowi = C[ci + i];
+                for (int j = 0; j < nr; j++) {
+                    Crowi[cj + j] += alpha * tile[i * NR + j];
+                }
+            }
+        }
+    }
+
+    private static void update(float alpha, float[] tile, float[][] C, int ci, int cj, int mr, int nr) {
+        for (int i = 0; i < mr; i++) {
+            float[] Crowi = C[ci + i];
+            for (int j = 0; j < nr; j++) {
+                Crowi[cj + j] += alpha * tile[i * NR + j];
+            }
+        }
+    }
+
+    private static int roundUp(int value, int multiple) {
+        return ((value + multiple - 1) / multiple) * multiple;
+    }
+}
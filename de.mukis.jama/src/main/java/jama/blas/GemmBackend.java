@@ -0,0 +1,51 @@
+package jama.blas;
+
+/**
+ * <p>
+ * Alternative implementation of the {@link Gemm} micro-kernel, for instance
+ * with explicit SIMD instructions. Implementations are found with
+ * {@link java.util.ServiceLoader} when {@link Gemm} is initialized, or set
+ * with {@link Gemm#setBackend(GemmBackend)}. Without a backend the scalar
+ * micro-kernel of {@link Gemm} is used.
+ * </p>
+ *
+ * <p>
+ * The micro-kernel computes one 4x4 tile of the product of two packed
+ * slivers. The sliver of op(A) stores, for each p = 0..kc-1, the four
+ * elements of column p at {@code Ap[ao + 4 * p + i]}; the sliver of op(B)
+ * stores the four elements of row p at {@code Bp[bo + 4 * p + j]}. The tile
+ * is returned row by row, {@code tile[4 * i + j]} is the sum of
+ * {@code Ap[ao + 4 * p + i] * Bp[bo + 4 * p + j]} over p. Packing, scaling
+ * by alpha and the write-back into C stay in {@link Gemm}. Implementations
+ * must be thread-safe.
+ * </p>
+ *
+ * @see Gemm
+ * @since 2.0.0
+ */
+public interface GemmBackend {
+
+    /**
+     * Double precision 4x4 micro-kernel.
+     *
+     * @param kc depth of the slivers
+     * @param Ap packed sliver of op(A)
+     * @param ao index of the first element of the sliver in Ap
+     * @param Bp packed sliver of op(B)
+     * @param bo index of the first element of the sliver in Bp
+     * @param tile 16 elements, overwritten with the tile
+     */
+    void kernel(int kc, double[] Ap, int ao, double[] Bp, int bo, double[] tile);
+
+    /**
+     * Single precision 4x4 micro-kernel.
+     *
+     * @param kc depth of the slivers
+     * @param Ap packed sliver of op(A)
+     * @param ao index of the first element of the sliver in Ap
+     * @param Bp packed sliver of op(B)
+     * @param bo index of the first element of the sliver in Bp
+     * @param tile 16 elements, overwritten with the tile
+     */
+    void kernel(int kc, float[] Ap, int ao, float[] Bp, int bo, float[] tile);
+}
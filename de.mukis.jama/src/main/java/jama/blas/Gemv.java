@@ -0,0 +1,149 @@
+package jama.blas;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>
+ * General matrix-vector multiplication, y = alpha * op(A) * x + beta * y, where
+ * op(A) is either A or A'.
+ * </p>
+ *
+ * <p>
+ * Both variants traverse A row by row, so the rows of the
+ * {@code double[][]} operand are read sequentially: A * x computes one dot
+ * product per row, A' * x adds scaled rows of A to y. Like {@link Gemm} the
+ * matrix is addressed by an offset, the vectors by a start index.
+ * </p>
+ *
+ * @since 2.0.0
+ */
+public final class Gemv {
+
+    /** Rows or columns of y below which a task is not split further. */
+    private static final int MIN_SPLIT = 64;
+
+    private Gemv() {
+        // static utility
+    }
+
+    /**
+     * y(yOff:yOff+len-1) = alpha * op(A) * x(xOff:) + beta * y(yOff:), with
+     * len = m if not transposed and n otherwise.
+     *
+     * @param trans use A' instead of A
+     * @param m rows of A
+     * @param n columns of A
+     * @param alpha scalar for op(A) * x
+     * @param A matrix
+     * @param ai row offset into A
+     * @param aj column offset into A
+     * @param x input vector, n elements if not transposed and m otherwise
+     * @param xOff index of the first element of x
+     * @param beta scalar for y, 0 ignores its previous contents
+     * @param y output vector
+     * @param yOff index of the first element of y
+     */
+    public static void dgemv(boolean trans, int m, int n, double alpha, double[][] A, int ai, int aj, double[] x,
+            int xOff, double beta, double[] y, int yOff) {
+        if (trans) {
+            dgemvTrans(0, n, m, alpha, A, ai, aj, x, xOff, beta, y, yOff);
+        } else {
+            dgemvNoTrans(0, m, n, alpha, A, ai, aj, x, xOff, beta, y, yOff);
+        }
+    }
+
+    /**
+     * Multi-threaded variant of
+     * {@link #dgemv(boolean, int, int, double, double[][], int, int, double[], int, double, double[], int)}
+     * . The elements of y are split into ranges which are computed on the
+     * {@link Parallel#getPool() pool}.
+     */
+    public static void parallelDgemv(boolean trans, int m, int n, double alpha, double[][] A, int ai, int aj,
+            double[] x, int xOff, double beta, double[] y, int yOff) {
+        if (!Parallel.isWorthwhile((long) m * n)) {
+            dgemv(trans, m, n, alpha, A, ai, aj, x, xOff, beta, y, yOff);
+            return;
+        }
+        int len = trans ? n : m;
+        int grain = Math.max(MIN_SPLIT, len / (4 * Parallel.getPool().getParallelism()));
+        Parallel.invoke(new DgemvTask(trans, 0, len, m, n, alpha, A, ai, aj, x, xOff, beta, y, yOff, grain));
+    }
+
+    /** y(i0:i1-1) for op(A) = A. */
+    private static void dgemvNoTrans(int i0, int i1, int n, double alpha, double[][] A, int ai, int aj, double[] x,
+            int xOff, double beta, double[] y, int yOff) {
+        for (int i = i0; i < i1; i++) {
+            double[] Arowi = A[ai + i];
+            double s = 0.0;
+            for (int j = 0; j < n; j++) {
+                s += Arowi[aj + j] * x[xOff + j];
+            }
+            y[yOff + i] = (beta == 0.0 ? 0.0 : beta * y[yOff + i]) + alpha * s;
+        }
+    }
+
+    /** y(j0:j1-1) for op(A) = A'. */
+    private static void dgemvTrans(int j0, int j1, int m, double alpha, double[][] A, int ai, int aj, double[] x,
+            int xOff, double beta, double[] y, int yOff) {
+        for (int j = j0; j < j1; j++) {
+            y[yOff + j] = (beta == 0.0 ? 0.0 : beta * y[yOff + j]);
+        }
+        for (int i = 0; i < m; i++) {
+            double[] Arowi = A[ai + i];
+            double s = alpha * x[xOff + i];
+            if (s != 0.0) {
+                for (int j = j0; j < j1; j++) {
+                    y[yOff + j] += s * Arowi[aj + j];
+                }
+            }
+        }
+    }
+
+    /** Computes a range of y, halving it until it is below the grain size. */
+    private static final class DgemvTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final boolean trans;
+        private final int lo, hi, m, n;
+        private final double alpha, beta;
+        private final double[][] A;
+        private final int ai, aj;
+        private final double[] x, y;
+        private final int xOff, yOff, grain;
+
+        DgemvTask(boolean trans, int lo, int hi, int m, int n, double alpha, double[][] A, int ai, int aj,
+                double[] x, int xOff, double beta, double[] y, int yOff, int grain) {
+            this.trans = trans;
+            this.lo = lo;
+            this.hi = hi;
+            this.m = m;
+            this.n = n;
+            this.alpha = alpha;
+            this.A = A;
+            this.ai = ai;
+            this.aj = aj;
+            this.x = x;
+            this.xOff = xOff;
+            this.beta = beta;
+            this.y = y;
+            this.yOff = yOff;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= grain) {
+                if (trans) {
+                    dgemvTrans(lo, hi, m, alpha, A, ai, aj, x, xOff, beta, y, yOff);
+                } else {
+                    dgemvNoTrans(lo, hi, n, alpha, A, ai, aj, x, xOff, beta, y, yOff);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new DgemvTask(trans, lo, mid, m, n, alpha, A, ai, aj, x, xOff, beta, y, yOff, grain),
+                    new DgemvTask(trans, mid, hi, m, n, alpha, A, ai, aj, x, xOff, beta, y, yOff, grain));
+        }
+    }
+}
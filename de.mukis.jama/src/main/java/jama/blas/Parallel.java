@@ -0,0 +1,107 @@
+package jama.blas;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * <p>
+ * Configuration of the multi-threaded kernels. All parallel operations of the
+ * library run on a single {@link ForkJoinPool}, which is created lazily with
+ * one worker per available processor unless another pool is set with
+ * {@link #setPool(ForkJoinPool)}.
+ * </p>
+ *
+ * <p>
+ * Operations whose amount of work (roughly the number of multiply-adds) is
+ * below {@link #getThreshold()} are executed serially on the calling thread,
+ * because splitting them costs more than it gains.
+ * </p>
+ *
+ * <pre>
+ * Parallel.setPool(new ForkJoinPool(16));
+ * Parallel.setThreshold(256L * 256L * 256L);
+ * Matrix C = A.times(B); // uses 16 threads for large products
+ * </pre>
+ *
+ * @since 2.0.0
+ */
+public final class Parallel {
+
+    /** Default amount of work below which operations stay serial. */
+    public static final long DEFAULT_THRESHOLD = 128L * 128L * 128L;
+
+    private static volatile ForkJoinPool pool;
+    private static volatile long threshold = DEFAULT_THRESHOLD;
+
+    private Parallel() {
+        // static configuration
+    }
+
+    /**
+     * @return the pool used by the parallel kernels
+     */
+    public static ForkJoinPool getPool() {
+        ForkJoinPool p = pool;
+        if (p == null) {
+            synchronized (Parallel.class) {
+                p = pool;
+                if (p == null) {
+                    p = new ForkJoinPool();
+                    pool = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Replaces the pool used by the parallel kernels. The previous pool is not
+     * shut down.
+     *
+     * @param forkJoinPool new pool, {@code null} restores the default pool
+     */
+    public static void setPool(ForkJoinPool forkJoinPool) {
+        pool = forkJoinPool;
+    }
+
+    /**
+     * @return amount of work below which operations stay serial
+     */
+    public static long getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @param work amount of work below which operations stay serial,
+     *            {@link Long#MAX_VALUE} disables parallel execution
+     */
+    public static void setThreshold(long work) {
+        if (work < 1) {
+            throw new IllegalArgumentException("Threshold must be positive: " + work);
+        }
+        threshold = work;
+    }
+
+    /**
+     * @param work amount of work of an operation
+     * @return true if the operation should be split across the pool
+     */
+    public static boolean isWorthwhile(long work) {
+        return work >= threshold && getPool().getParallelism() > 1;
+    }
+
+    /**
+     * Runs the task on the pool and waits for its completion. Tasks started
+     * from a worker of the pool are executed directly by that worker.
+     *
+     * @param task the task to execute
+     * @return the result of the task
+     */
+    public static <T> T invoke(ForkJoinTask<T> task) {
+        ForkJoinPool p = getPool();
+        if (ForkJoinTask.inForkJoinPool() && ForkJoinTask.getPool() == p) {
+            return task.invoke();
+        }
+        return p.invoke(task);
+    }
+}
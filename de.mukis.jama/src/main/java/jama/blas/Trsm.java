@@ -0,0 +1,365 @@
+package jama.blas;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>
+ * Triangular solve with multiple right hand sides, op(A) * X = B, where A is
+ * upper or lower triangular and op(A) is either A or A'. X overwrites B.
+ * </p>
+ *
+ * <p>
+ * The solve is blocked: diagonal blocks of NB rows are solved by substitution
+ * row by row, and the remaining rows of B are updated by a {@link Gemm}
+ * product with the corresponding off-diagonal block of op(A). Since the
+ * columns of B are independent, the multi-threaded variants split wide right
+ * hand sides into column ranges, each of which is solved on the
+ * {@link Parallel#getPool() pool}. Narrow right hand sides are solved with
+ * multi-threaded updates instead.
+ * </p>
+ *
+ * @since 2.0.0
+ */
+public final class Trsm {
+
+    /** Rows of the diagonal blocks solved by substitution. */
+    static final int NB = 64;
+
+    /** Columns of B below which a task is not split further. */
+    private static final int MIN_SPLIT = 32;
+
+    private Trsm() {
+        // static utility
+    }
+
+    /**
+     * B = inverse(op(A)) * B for an n-by-n triangular A.
+     *
+     * @param upper A is upper triangular, otherwise lower triangular
+     * @param trans use A' instead of A
+     * @param unit the diagonal of A is taken as 1 and not referenced
+     * @param n order of A and rows of B
+     * @param nrhs columns of B
+     * @param A triangular matrix, only its upper or lower part is referenced
+     * @param ai row offset into A
+     * @param aj column offset into A
+     * @param B right hand side, overwritten with the solution; must not
+     *            share storage with A
+     * @param bi row offset into B
+     * @param bj column offset into B
+     */
+    public static void dtrsm(boolean upper, boolean trans, boolean unit, int n, int nrhs, double[][] A, int ai,
+            int aj, double[][] B, int bi, int bj) {
+        solve(upper, trans, unit, n, A, ai, aj, B, bi, bj, 0, nrhs, false);
+    }
+
+    /**
+     * Multi-threaded variant of
+     * {@link #dtrsm(boolean, boolean, boolean, int, int, double[][], int, int, double[][], int, int)}
+     * . Solves below the {@link Parallel#getThreshold() threshold} run on the
+     * calling thread.
+     */
+    public static void parallelDtrsm(boolean upper, boolean trans, boolean unit, int n, int nrhs, double[][] A,
+            int ai, int aj, double[][] B, int bi, int bj) {
+        if (!Parallel.isWorthwhile((long) n * n * nrhs)) {
+            dtrsm(upper, trans, unit, n, nrhs, A, ai, aj, B, bi, bj);
+        } else if (nrhs < 2 * MIN_SPLIT) {
+            solve(upper, trans, unit, n, A, ai, aj, B, bi, bj, 0, nrhs, true);
+        } else {
+            Parallel.invoke(new DtrsmTask(false, upper, trans, unit, n, A, ai, aj, B, bi, bj, 0, nrhs, grain(nrhs)));
+        }
+    }
+
+    /**
+     * X = inverse(A) for an n-by-n triangular A. Column j of the inverse is
+     * the solution for the j-th unit vector, whose leading (lower) or
+     * trailing (upper) zeros are skipped, so that the inverse takes a third
+     * of the work of a full solve.
+     *
+     * @param upper A is upper triangular, otherwise lower triangular
+     * @param unit the diagonal of A is taken as 1 and not referenced
+     * @param n order of A
+     * @param A triangular matrix, only its upper or lower part is referenced
+     * @param ai row offset into A
+     * @param aj column offset into A
+     * @param X n-by-n result, its opposite triangle is set to zero; must not
+     *            share storage with A
+     * @param xi row offset into X
+     * @param xj column offset into X
+     */
+    public static void dtrtri(boolean upper, boolean unit, int n, double[][] A, int ai, int aj, double[][] X, int xi,
+            int xj) {
+        for (int lo = 0; lo < n; lo += NB) {
+            invert(upper, unit, n, A, ai, aj, X, xi, xj, lo, Math.min(n, lo + NB));
+        }
+    }
+
+    /**
+     * Multi-threaded variant of
+     * {@link #dtrtri(boolean, boolean, int, double[][], int, int, double[][], int, int)}
+     * . The columns of the inverse are split into ranges which are computed
+     * on the {@link Parallel#getPool() pool}.
+     */
+    public static void parallelDtrtri(boolean upper, boolean unit, int n, double[][] A, int ai, int aj, double[][] X,
+            int xi, int xj) {
+        if (!Parallel.isWorthwhile((long) n * n * n / 3) || n < 2 * MIN_SPLIT) {
+            dtrtri(upper, unit, n, A, ai, aj, X, xi, xj);
+        } else {
+            Parallel.invoke(new DtrsmTask(true, upper, false, unit, n, A, ai, aj, X, xi, xj, 0, n, grain(n)));
+        }
+    }
+
+    private static int grain(int cols) {
+        return Math.max(MIN_SPLIT, cols / (4 * Parallel.getPool().getParallelism()));
+    }
+
+    /** Solves for the columns lo..hi-1 of B. */
+    private static void solve(boolean upper, boolean trans, boolean unit, int n, double[][] A, int ai, int aj,
+            double[][] B, int bi, int bj, int lo, int hi, boolean parallel) {
+        if (n <= 0 || hi <= lo) {
+            return;
+        }
+        if (upper == trans) {
+            // op(A) is lower triangular: forward substitution.
+            for (int k0 = 0; k0 < n; k0 += NB) {
+                int k1 = Math.min(n, k0 + NB);
+                for (int i = k0; i < k1; i++) {
+                    substitute(trans, unit, A, ai, aj, B, bi, bj, lo, hi, i, k0, i);
+                }
+                if (k1 < n) {
+                    update(trans, n - k1, hi - lo, k1 - k0, A, trans ? ai + k0 : ai + k1, trans ? aj + k1 : aj + k0,
+                            B, bi + k0, bj + lo, bi + k1, parallel);
+                }
+            }
+        } else {
+            // op(A) is upper triangular: back substitution.
+            for (int k1 = n; k1 > 0; k1 -= NB) {
+                int k0 = Math.max(0, k1 - NB);
+                for (int i = k1 - 1; i >= k0; i--) {
+                    substitute(trans, unit, A, ai, aj, B, bi, bj, lo, hi, i, i + 1, k1);
+                }
+                if (k0 > 0) {
+                    update(trans, k0, hi - lo, k1 - k0, A, trans ? ai + k0 : ai, trans ? aj : aj + k0, B, bi + k0,
+                            bj + lo, bi, parallel);
+                }
+            }
+        }
+    }
+
+    /** Row i of B minus op(A)(i,p0:p1-1) times rows p0..p1-1, divided by op(A)(i,i). */
+    private static void substitute(boolean trans, boolean unit, double[][] A, int ai, int aj, double[][] B, int bi,
+            int bj, int lo, int hi, int i, int p0, int p1) {
+        double[] Browi = B[bi + i];
+        for (int p = p0; p < p1; p++) {
+            double a = (trans ? A[ai + p][aj + i] : A[ai + i][aj + p]);
+            if (a != 0.0) {
+                double[] Browp = B[bi + p];
+                for (int j = bj + lo; j < bj + hi; j++) {
+                    Browi[j] -= a * Browp[j];
+                }
+            }
+        }
+        if (!unit) {
+            double d = A[ai + i][aj + i];
+            for (int j = bj + lo; j < bj + hi; j++) {
+                Browi[j] /= d;
+            }
+        }
+    }
+
+    /** Rows ci.. of B minus the m-by-k block of op(A) times k solved rows. */
+    private static void update(boolean trans, int m, int n, int k, double[][] A, int ai, int aj, double[][] B, int bi,
+            int bj, int ci, boolean parallel) {
+        if (parallel) {
+            Gemm.parallelDgemm(trans, false, m, n, k, -1.0, A, ai, aj, B, bi, bj, 1.0, B, ci, bj);
+        } else {
+            Gemm.dgemm(trans, false, m, n, k, -1.0, A, ai, aj, B, bi, bj, 1.0, B, ci, bj);
+        }
+    }
+
+    /** Columns lo..hi-1 of the inverse of A. */
+    private static void invert(boolean upper, boolean unit, int n, double[][] A, int ai, int aj, double[][] X, int xi,
+            int xj, int lo, int hi) {
+        for (int i = 0; i < n; i++) {
+            double[] Xrowi = X[xi + i];
+            for (int j = lo; j < hi; j++) {
+                Xrowi[xj + j] = (i == j ? 1.0 : 0.0);
+            }
+        }
+        if (upper) {
+            solve(true, false, unit, hi, A, ai, aj, X, xi, xj, lo, hi, false);
+        } else {
+            solve(false, false, unit, n - lo, A, ai + lo, aj + lo, X, xi + lo, xj, lo, hi, false);
+        }
+    }
+
+    /**
+     * Single precision variant of
+     * {@link #dtrsm(boolean, boolean, boolean, int, int, double[][], int, int, double[][], int, int)}
+     * .
+     */
+    public static void strsm(boolean upper, boolean trans, boolean unit, int n, int nrhs, float[][] A, int ai,
+            int aj, float[][] B, int bi, int bj) {
+        solve(upper, trans, unit, n, A, ai, aj, B, bi, bj, 0, nrhs, false);
+    }
+
+    /**
+     * Multi-threaded variant of
+     * {@link #strsm(boolean, boolean, boolean, int, int, float[][], int, int, float[][], int, int)}
+     * .
+     */
+    public static void parallelStrsm(boolean upper, boolean trans, boolean unit, int n, int nrhs, float[][] A,
+            int ai, int aj, float[][] B, int bi, int bj) {
+        if (!Parallel.isWorthwhile((long) n * n * nrhs)) {
+            strsm(upper, trans, unit, n, nrhs, A, ai, aj, B, bi, bj);
+        } else if (nrhs < 2 * MIN_SPLIT) {
+            solve(upper, trans, unit, n, A, ai, aj, B, bi, bj, 0, nrhs, true);
+        } else {
+            Parallel.invoke(new StrsmTask(upper, trans, unit, n, A, ai, aj, B, bi, bj, 0, nrhs, grain(nrhs)));
+        }
+    }
+
+    private static void solve(boolean upper, boolean trans, boolean unit, int n, float[][] A, int ai, int aj,
+            float[][] B, int bi, int bj, int lo, int hi, boolean parallel) {
+        if (n <= 0 || hi <= lo) {
+            return;
+        }
+        if (upper == trans) {
+            for (int k0 = 0; k0 < n; k0 += NB) {
+                int k1 = Math.min(n, k0 + NB);
+                for (int i = k0; i < k1; i++) {
+                    substitute(trans, unit, A, ai, aj, B, bi, bj, lo, hi, i, k0, i);
+                }
+                if (k1 < n) {
+                    update(trans, n - k1, hi - lo, k1 - k0, A, trans ? ai + k0 : ai + k1, trans ? aj + k1 : aj + k0,
+                            B, bi + k0, bj + lo, bi + k1, parallel);
+                }
+            }
+        } else {
+            for (int k1 = n; k1 > 0; k1 -= NB) {
+                int k0 = Math.max(0, k1 - NB);
+                for (int i = k1 - 1; i >= k0; i--) {
+                    substitute(trans, unit, A, ai, aj, B, bi, bj, lo, hi, i, i + 1, k1);
+                }
+                if (k0 > 0) {
+                    update(trans, k0, hi - lo, k1 - k0, A, trans ? ai + k0 : ai, trans ? aj : aj + k0, B, bi + k0,
+                            bj + lo, bi, parallel);
+                }
+            }
+        }
+    }
+
+    private static void substitute(boolean trans, boolean unit, float[][] A, int ai, int aj, float[][] B, int bi,
+            int bj, int lo, int hi, int i, int p0, int p1) {
+        float[] Browi = B[bi + i];
+        for (int p = p0; p < p1; p++) {
+            float a = (trans ? A[ai + p][aj + i] : A[ai + i][aj + p]);
+            if (a != 0.0f) {
+                float[] Browp = B[bi + p];
+                for (int j = bj + lo; j < bj + hi; j++) {
+                    Browi[j] -= a * Browp[j];
+                }
+            }
+        }
+        if (!unit) {
+            float d = A[ai + i][aj + i];
+            for (int j = bj + lo; j < bj + hi; j++) {
+                Browi[j] /= d;
+            }
+        }
+    }
+
+    private static void update(boolean trans, int m, int n, int k, float[][] A, int ai, int aj, float[][] B, int bi,
+            int bj, int ci, boolean parallel) {
+        if (parallel) {
+            Gemm.parallelSgemm(trans, false, m, n, k, -1.0f, A, ai, aj, B, bi, bj, 1.0f, B, ci, bj);
+        } else {
+            Gemm.sgemm(trans, false, m, n, k, -1.0f, A, ai, aj, B, bi, bj, 1.0f, B, ci, bj);
+        }
+    }
+
+    /** Solves or inverts a column range, halving it until it is below the grain size. */
+    private static final class DtrsmTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final boolean invert, upper, trans, unit;
+        private final int n;
+        private final double[][] A, B;
+        private final int ai, aj, bi, bj, lo, hi, grain;
+
+        DtrsmTask(boolean invert, boolean upper, boolean trans, boolean unit, int n, double[][] A, int ai, int aj,
+                double[][] B, int bi, int bj, int lo, int hi, int grain) {
+            this.invert = invert;
+            this.upper = upper;
+            this.trans = trans;
+            this.unit = unit;
+            this.n = n;
+            this.A = A;
+            this.ai = ai;
+            this.aj = aj;
+            this.B = B;
+            this.bi = bi;
+            this.bj = bj;
+            this.lo = lo;
+            this.hi = hi;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= grain) {
+                if (invert) {
+                    for (int j = lo; j < hi; j += NB) {
+                        invert(upper, unit, n, A, ai, aj, B, bi, bj, j, Math.min(hi, j + NB));
+                    }
+                } else {
+                    solve(upper, trans, unit, n, A, ai, aj, B, bi, bj, lo, hi, false);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new DtrsmTask(invert, upper, trans, unit, n, A, ai, aj, B, bi, bj, lo, mid, grain),
+                    new DtrsmTask(invert, upper, trans, unit, n, A, ai, aj, B, bi, bj, mid, hi, grain));
+        }
+    }
+
+    /** Single precision column range task. */
+    private static final class StrsmTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final boolean upper, trans, unit;
+        private final int n;
+        private final float[][] A, B;
+        private final int ai, aj, bi, bj, lo, hi, grain;
+
+        StrsmTask(boolean upper, boolean trans, boolean unit, int n, float[][] A, int ai, int aj, float[][] B, int bi,
+                int bj, int lo, int hi, int grain) {
+            this.upper = upper;
+            this.trans = trans;
+            this.unit = unit;
+            this.n = n;
+            this.A = A;
+            this.ai = ai;
+            this.aj = aj;
+            this.B = B;
+            this.bi = bi;
+            this.bj = bj;
+            this.lo = lo;
+            this.hi = hi;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= grain) {
+                solve(upper, trans, unit, n, A, ai, aj, B, bi, bj, lo, hi, false);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new StrsmTask(upper, trans, unit, n, A, ai, aj, B, bi, bj, lo, mid, grain),
+                    new StrsmTask(upper, trans, unit, n, A, ai, aj, B, bi, bj, mid, hi, grain));
+        }
+    }
+}
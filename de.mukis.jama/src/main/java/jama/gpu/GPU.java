@@ -3,6 +3,7 @@ package jama.gpu;
 import static org.bridj.Pointer.allocateDoubles;
 import static org.bridj.Pointer.allocateFloats;
 import static org.bridj.Pointer.allocateInt;
+import jama.DenseMatrix;
 import jama.FloatMatrix;
 import jama.Matrix;
 
@@ -171,45 +172,36 @@ public class GPU {
     /* ================================================== */
 
     protected static Pointer<Double> matrixToPointer(Matrix matrix) {
-        int size = matrix.getColumnDimension() * matrix.getRowDimension();
-        Pointer<Double> pointer = allocateDoubles(size);
-        for (int row = 0; row < matrix.getRowDimension(); row++) {
-            for (int col = 0; col < matrix.getColumnDimension(); col++) {
-                pointer.set(row + matrix.getRowDimension() * col, matrix.get(row, col));
-            }
-        }
-        return pointer;
+        return allocateDoubles(matrix.getColumnDimension() * matrix.getRowDimension()).setDoubles(
+                matrix.getColumnPackedCopy());
     }
 
     protected static Pointer<Float> matrixToPointer(FloatMatrix matrix) {
+        return allocateFloats(matrix.getColumnDimension() * matrix.getRowDimension()).setFloats(
+                matrix.getColumnPackedCopy());
+    }
+
+    /**
+     * Column-major contiguous matrices are copied in a single bulk transfer
+     * without an intermediate array.
+     */
+    protected static Pointer<Double> matrixToPointer(DenseMatrix matrix) {
         int size = matrix.getColumnDimension() * matrix.getRowDimension();
-        Pointer<Float> pointer = allocateFloats(size);
-        for (int row = 0; row < matrix.getRowDimension(); row++) {
-            for (int col = 0; col < matrix.getColumnDimension(); col++) {
-                pointer.set(row + matrix.getRowDimension() * col, matrix.get(row, col));
-            }
+        Pointer<Double> pointer = allocateDoubles(size);
+        if (matrix.getLayout() == DenseMatrix.Layout.COLUMN_MAJOR && matrix.isContiguous()) {
+            pointer.setDoublesAtOffset(0, matrix.getData(), matrix.getOffset(), size);
+        } else {
+            pointer.setDoubles(matrix.getColumnPackedCopy());
         }
         return pointer;
     }
 
     protected static Matrix pointerToMatrix(Pointer<Double> pointer, int rows, int cols) {
-        Matrix matrix = new Matrix(rows, cols);
-        for (int row = 0; row < rows; row++) {
-            for (int col = 0; col < cols; col++) {
-                matrix.set(row, col, pointer.get(row + matrix.getRowDimension() * col));
-            }
-        }
-        return matrix;
+        return new Matrix(pointer.getDoubles(rows * cols), rows);
     }
 
     protected static FloatMatrix pointerToFloatMatrix(Pointer<Float> pointer, int rows, int cols) {
-        FloatMatrix matrix = new FloatMatrix(rows, cols);
-        for (int row = 0; row < rows; row++) {
-            for (int col = 0; col < cols; col++) {
-                matrix.set(row, col, pointer.get(row + matrix.getRowDimension() * col));
-            }
-        }
-        return matrix;
+        return new FloatMatrix(pointer.getFloats(rows * cols), rows);
     }
 
     /**
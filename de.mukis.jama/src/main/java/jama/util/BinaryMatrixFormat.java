@@ -0,0 +1,170 @@
+package jama.util;
+
+import jama.DenseMatrix.Layout;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+
+/**
+ * <p>
+ * Binary matrix file format written by {@link BinaryMatrixWriter} and read by
+ * {@link BinaryMatrixReader}. A file is a fixed header of
+ * {@link #HEADER_SIZE} bytes followed by the m * n elements in the stated
+ * type, layout and byte order, without any separators:
+ * </p>
+ *
+ * <pre>
+ * offset  size  content
+ *      0     4  magic "JAMA"
+ *      4     1  format version, 1
+ *      5     1  byte order, 'B' big or 'L' little endian
+ *      6     1  element type, 'd' 64 bit or 'f' 32 bit IEEE 754
+ *      7     1  layout, 'R' row-major or 'C' column-major
+ *      8     8  row dimension
+ *     16     8  column dimension
+ *     24     8  CRC-32 of the data bytes
+ *     32    32  reserved, zero
+ *     64        data
+ * </pre>
+ *
+ * <p>
+ * The long fields are stored in the byte order of the data. The data starts
+ * at a multiple of 8 bytes, so a memory mapped file can be viewed as a
+ * {@link java.nio.DoubleBuffer} or {@link java.nio.FloatBuffer} directly; in
+ * the native byte order reading it is a plain memory copy.
+ * </p>
+ *
+ * @since 2.0.0
+ */
+public final class BinaryMatrixFormat {
+
+    /**
+     * Type of the stored elements.
+     */
+    public enum DataType {
+        /** 64 bit IEEE 754, the elements of a {@link jama.Matrix}. */
+        FLOAT64('d', 8),
+        /** 32 bit IEEE 754, the elements of a {@link jama.FloatMatrix}. */
+        FLOAT32('f', 4);
+
+        final byte code;
+
+        final int size;
+
+        private DataType(char code, int size) {
+            this.code = (byte) code;
+            this.size = size;
+        }
+
+        /**
+         * @return bytes per element
+         */
+        public int getSize() {
+            return size;
+        }
+    }
+
+    /** Size of the header, and offset of the data, in bytes. */
+    public static final int HEADER_SIZE = 64;
+
+    /** Current format version. */
+    static final byte VERSION = 1;
+
+    private static final byte[] MAGIC = { 'J', 'A', 'M', 'A' };
+
+    /** Elements of the data region at once. */
+    static final int CHUNK = 1 << 16;
+
+    private BinaryMatrixFormat() {
+    }
+
+    /* ================================================ */
+    /* ============= Package Methods ================== */
+    /* ================================================ */
+
+    /**
+     * @return header of an m-by-n matrix
+     */
+    static ByteBuffer header(ByteOrder order, DataType type, Layout layout, long m, long n, long checksum) {
+        ByteBuffer h = ByteBuffer.allocate(HEADER_SIZE).order(order);
+        h.put(MAGIC);
+        h.put(VERSION);
+        h.put((byte) (order == ByteOrder.BIG_ENDIAN ? 'B' : 'L'));
+        h.put(type.code);
+        h.put((byte) (layout == Layout.ROW_MAJOR ? 'R' : 'C'));
+        h.putLong(m);
+        h.putLong(n);
+        h.putLong(checksum);
+        h.clear();
+        return h;
+    }
+
+    /**
+     * Check the fixed part of a header and set the byte order of h to the one
+     * of the file.
+     *
+     * @exception IOException Not a matrix file, or an unknown version.
+     */
+    static void checkHeader(ByteBuffer h) throws IOException {
+        if (h.remaining() < HEADER_SIZE) {
+            throw new IOException("Unexpected EOF on matrix read.");
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (h.get(i) != MAGIC[i]) {
+                throw new IOException("Not a binary matrix file.");
+            }
+        }
+        if (h.get(4) != VERSION) {
+            throw new IOException("Unsupported binary matrix format version " + h.get(4) + ".");
+        }
+        switch (h.get(5)) {
+        case 'B':
+            h.order(ByteOrder.BIG_ENDIAN);
+            break;
+        case 'L':
+            h.order(ByteOrder.LITTLE_ENDIAN);
+            break;
+        default:
+            throw new IOException("Invalid byte order '" + (char) h.get(5) + "'.");
+        }
+    }
+
+    static DataType dataType(ByteBuffer h) throws IOException {
+        for (DataType t : DataType.values()) {
+            if (t.code == h.get(6)) {
+                return t;
+            }
+        }
+        throw new IOException("Invalid element type '" + (char) h.get(6) + "'.");
+    }
+
+    static Layout layout(ByteBuffer h) throws IOException {
+        switch (h.get(7)) {
+        case 'R':
+            return Layout.ROW_MAJOR;
+        case 'C':
+            return Layout.COLUMN_MAJOR;
+        default:
+            throw new IOException("Invalid layout '" + (char) h.get(7) + "'.");
+        }
+    }
+
+    /**
+     * Add the remaining bytes of b to crc, without moving the position of b.
+     */
+    static void update(CRC32 crc, ByteBuffer b) {
+        if (b.hasArray()) {
+            crc.update(b.array(), b.arrayOffset() + b.position(), b.remaining());
+            return;
+        }
+        ByteBuffer d = b.duplicate();
+        byte[] chunk = new byte[Math.min(d.remaining(), CHUNK)];
+        while (d.hasRemaining()) {
+            int len = Math.min(d.remaining(), chunk.length);
+            d.get(chunk, 0, len);
+            crc.update(chunk, 0, len);
+        }
+    }
+}
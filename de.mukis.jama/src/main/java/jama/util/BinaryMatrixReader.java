@@ -0,0 +1,313 @@
+package jama.util;
+
+import jama.DenseMatrix;
+import jama.DenseMatrix.Layout;
+import jama.FloatMatrix;
+import jama.Matrix;
+import jama.util.BinaryMatrixFormat.DataType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * <p>
+ * Reads matrices in the {@link BinaryMatrixFormat}. The file is memory
+ * mapped with {@link FileChannel#map}, so nothing is parsed: the elements can
+ * be accessed in place through {@link #asDoubleBuffer()} or
+ * {@link #asFloatBuffer()}, or copied in bulk into a {@link Matrix},
+ * {@link FloatMatrix} or {@link DenseMatrix}.
+ * </p>
+ *
+ * <pre>
+ * BinaryMatrixReader reader = new BinaryMatrixReader(file);
+ * Matrix A = reader.readMatrix();
+ * </pre>
+ *
+ * <p>
+ * The header is checked when the reader is created. The CRC-32 of the data
+ * is checked once, before the first copy; the buffer views skip it, call
+ * {@link #verifyChecksum()} to check them. The data region of a file must fit
+ * into one mapping, that is at most 2^31 - 1 bytes.
+ * </p>
+ *
+ * @see BinaryMatrixWriter
+ * @since 2.0.0
+ */
+public class BinaryMatrixReader {
+
+    private final DataType type;
+
+    private final Layout layout;
+
+    private final int m, n;
+
+    private final long checksum;
+
+    /** The data region, read-only, in the byte order of the file. */
+    private final ByteBuffer data;
+
+    private boolean verifyChecksum = true;
+
+    private boolean verified;
+
+    /**
+     * Map the given file.
+     *
+     * @param file binary matrix file
+     * @throws IOException Not a matrix file, a corrupt header or a file too
+     *             large to map.
+     */
+    public BinaryMatrixReader(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer h = ByteBuffer.allocate(BinaryMatrixFormat.HEADER_SIZE);
+            while (h.hasRemaining() && channel.read(h) >= 0) {
+            }
+            h.flip();
+            BinaryMatrixFormat.checkHeader(h);
+            type = BinaryMatrixFormat.dataType(h);
+            layout = BinaryMatrixFormat.layout(h);
+            long rows = h.getLong(8);
+            long cols = h.getLong(16);
+            checksum = h.getLong(24);
+
+            long size = channel.size() - BinaryMatrixFormat.HEADER_SIZE;
+            if (rows < 0 || cols < 0 || rows > Integer.MAX_VALUE || cols > Integer.MAX_VALUE
+                    || (rows > 0 && cols > Long.MAX_VALUE / type.size / rows)) {
+                throw new IOException("Invalid matrix dimensions " + rows + "x" + cols + ".");
+            }
+            if (rows * cols * type.size != size) {
+                throw new IOException("File size " + channel.size() + " does not match a " + rows + "x" + cols
+                        + " matrix.");
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Matrix file too large to map: " + channel.size() + " bytes.");
+            }
+            m = (int) rows;
+            n = (int) cols;
+            data = channel.map(FileChannel.MapMode.READ_ONLY, BinaryMatrixFormat.HEADER_SIZE, size).order(h.order());
+        } finally {
+            // The mapping stays valid after the channel is closed.
+            raf.close();
+        }
+    }
+
+    /* ============================================= */
+    /* =========== Configuration =================== */
+    /* ============================================= */
+
+    /**
+     * @param verify whether to check the CRC-32 before the first copy
+     * @return this
+     */
+    public BinaryMatrixReader setVerifyChecksum(boolean verify) {
+        this.verifyChecksum = verify;
+        return this;
+    }
+
+    /* ============================================= */
+    /* =========== Header ========================== */
+    /* ============================================= */
+
+    /**
+     * @return number of rows
+     */
+    public int getRowDimension() {
+        return m;
+    }
+
+    /**
+     * @return number of columns
+     */
+    public int getColumnDimension() {
+        return n;
+    }
+
+    /**
+     * @return type of the stored elements
+     */
+    public DataType getDataType() {
+        return type;
+    }
+
+    /**
+     * @return order of the stored elements
+     */
+    public Layout getLayout() {
+        return layout;
+    }
+
+    /**
+     * @return byte order of the file
+     */
+    public ByteOrder getByteOrder() {
+        return data.order();
+    }
+
+    /* ============================================= */
+    /* =========== BinaryMatrixReader API ========== */
+    /* ============================================= */
+
+    /**
+     * Compare the CRC-32 of the data with the one in the header.
+     *
+     * @throws IOException Checksum mismatch.
+     */
+    public void verifyChecksum() throws IOException {
+        CRC32 crc = new CRC32();
+        BinaryMatrixFormat.update(crc, data);
+        if (crc.getValue() != checksum) {
+            throw new IOException("Checksum mismatch in matrix file.");
+        }
+        verified = true;
+    }
+
+    /**
+     * View the elements in place, in the order given by {@link #getLayout()}.
+     *
+     * @return read-only buffer over the mapped file
+     * @exception IllegalStateException The elements are not
+     *                {@link DataType#FLOAT64}.
+     */
+    public DoubleBuffer asDoubleBuffer() {
+        if (type != DataType.FLOAT64) {
+            throw new IllegalStateException("Matrix file holds " + type + " elements.");
+        }
+        return data.duplicate().order(data.order()).asDoubleBuffer();
+    }
+
+    /**
+     * View the elements in place, in the order given by {@link #getLayout()}.
+     *
+     * @return read-only buffer over the mapped file
+     * @exception IllegalStateException The elements are not
+     *                {@link DataType#FLOAT32}.
+     */
+    public FloatBuffer asFloatBuffer() {
+        if (type != DataType.FLOAT32) {
+            throw new IllegalStateException("Matrix file holds " + type + " elements.");
+        }
+        return data.duplicate().order(data.order()).asFloatBuffer();
+    }
+
+    /**
+     * Copy the elements into a Matrix; FLOAT32 elements are widened.
+     *
+     * @return Matrix read from the file
+     * @throws IOException Checksum mismatch.
+     */
+    public Matrix readMatrix() throws IOException {
+        checkData();
+        double[][] A = new double[m][n];
+        if (layout == Layout.ROW_MAJOR) {
+            for (int i = 0; i < m; i++) {
+                readLine(i, A[i]);
+            }
+        } else {
+            double[] column = new double[m];
+            for (int j = 0; j < n; j++) {
+                readLine(j, column);
+                for (int i = 0; i < m; i++) {
+                    A[i][j] = column[i];
+                }
+            }
+        }
+        return new Matrix(A, m, n);
+    }
+
+    /**
+     * Copy the elements into a FloatMatrix; FLOAT64 elements are rounded.
+     *
+     * @return FloatMatrix read from the file
+     * @throws IOException Checksum mismatch.
+     */
+    public FloatMatrix readFloatMatrix() throws IOException {
+        checkData();
+        float[][] A = new float[m][n];
+        if (layout == Layout.ROW_MAJOR) {
+            for (int i = 0; i < m; i++) {
+                readLine(i, A[i]);
+            }
+        } else {
+            float[] column = new float[m];
+            for (int j = 0; j < n; j++) {
+                readLine(j, column);
+                for (int i = 0; i < m; i++) {
+                    A[i][j] = column[i];
+                }
+            }
+        }
+        return new FloatMatrix(A, m, n);
+    }
+
+    /**
+     * Copy the elements into a DenseMatrix with the layout of the file, which
+     * is a single bulk copy for FLOAT64 elements.
+     *
+     * @return DenseMatrix read from the file
+     * @throws IOException Checksum mismatch.
+     */
+    public DenseMatrix readDenseMatrix() throws IOException {
+        checkData();
+        double[] a = new double[m * n];
+        if (type == DataType.FLOAT64) {
+            asDoubleBuffer().get(a);
+        } else {
+            FloatBuffer b = asFloatBuffer();
+            for (int k = 0; k < a.length; k++) {
+                a[k] = b.get(k);
+            }
+        }
+        return new DenseMatrix(a, m, n, layout);
+    }
+
+    /* ============================================= */
+    /* =========== Private Methods ================= */
+    /* ============================================= */
+
+    private void checkData() throws IOException {
+        if (verifyChecksum && !verified) {
+            verifyChecksum();
+        }
+    }
+
+    /** Copy row (row-major) or column (column-major) k into line. */
+    private void readLine(int k, double[] line) {
+        int len = line.length;
+        if (type == DataType.FLOAT64) {
+            DoubleBuffer b = asDoubleBuffer();
+            b.position(k * len);
+            b.get(line);
+        } else {
+            FloatBuffer b = asFloatBuffer();
+            int off = k * len;
+            for (int i = 0; i < len; i++) {
+                line[i] = b.get(off + i);
+            }
+        }
+    }
+
+    /** Copy row (row-major) or column (column-major) k into line. */
+    private void readLine(int k, float[] line) {
+        int len = line.length;
+        if (type == DataType.FLOAT32) {
+            FloatBuffer b = asFloatBuffer();
+            b.position(k * len);
+            b.get(line);
+        } else {
+            DoubleBuffer b = asDoubleBuffer();
+            int off = k * len;
+            for (int i = 0; i < len; i++) {
+                line[i] = (float) b.get(off + i);
+            }
+        }
+    }
+}
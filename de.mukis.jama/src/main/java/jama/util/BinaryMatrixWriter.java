@@ -0,0 +1,210 @@
+package jama.util;
+
+import jama.DenseMatrix;
+import jama.DenseMatrix.Layout;
+import jama.FloatMatrix;
+import jama.Matrix;
+import jama.util.BinaryMatrixFormat.DataType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * <p>
+ * Writes matrices in the {@link BinaryMatrixFormat}. The elements are copied
+ * in bulk through a buffer of fixed size, without any formatting, and the
+ * CRC-32 is computed on the way. A {@link Matrix} is written as
+ * {@link DataType#FLOAT64}, a {@link FloatMatrix} as {@link DataType#FLOAT32}.
+ * </p>
+ *
+ * <pre>
+ * new BinaryMatrixWriter().setLayout(Layout.COLUMN_MAJOR).writeMatrix(A, file);
+ * </pre>
+ *
+ * <p>
+ * By default the data is written row-major in the native byte order, which
+ * is the fastest to read back into a {@link Matrix} on the same platform.
+ * </p>
+ *
+ * @see BinaryMatrixReader
+ * @since 2.0.0
+ */
+public class BinaryMatrixWriter {
+
+    private ByteOrder order = ByteOrder.nativeOrder();
+
+    private Layout layout = Layout.ROW_MAJOR;
+
+    /* ============================================= */
+    /* =========== Configuration =================== */
+    /* ============================================= */
+
+    /**
+     * @param order byte order of the file
+     * @return this
+     */
+    public BinaryMatrixWriter setByteOrder(ByteOrder order) {
+        if (order == null) {
+            throw new IllegalArgumentException("Byte order must not be null.");
+        }
+        this.order = order;
+        return this;
+    }
+
+    /**
+     * @param layout order of the elements in the file
+     * @return this
+     */
+    public BinaryMatrixWriter setLayout(Layout layout) {
+        if (layout == null) {
+            throw new IllegalArgumentException("Layout must not be null.");
+        }
+        this.layout = layout;
+        return this;
+    }
+
+    /* ============================================= */
+    /* =========== BinaryMatrixWriter API ========== */
+    /* ============================================= */
+
+    /**
+     * Writes the given matrix, replacing the file.
+     *
+     * @param matrix
+     * @param file
+     * @throws IOException
+     */
+    public void writeMatrix(Matrix matrix, File file) throws IOException {
+        final double[][] A = matrix.getArray();
+        write(file, DataType.FLOAT64, matrix.getRowDimension(), matrix.getColumnDimension(), new Lines() {
+            @Override
+            void put(int line, int from, int len, ByteBuffer b) {
+                if (layout == Layout.ROW_MAJOR) {
+                    b.asDoubleBuffer().put(A[line], from, len);
+                    b.position(b.position() + 8 * len);
+                } else {
+                    for (int i = from; i < from + len; i++) {
+                        b.putDouble(A[i][line]);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes the given matrix, replacing the file.
+     *
+     * @param matrix
+     * @param file
+     * @throws IOException
+     */
+    public void writeMatrix(FloatMatrix matrix, File file) throws IOException {
+        final float[][] A = matrix.getArray();
+        write(file, DataType.FLOAT32, matrix.getRowDimension(), matrix.getColumnDimension(), new Lines() {
+            @Override
+            void put(int line, int from, int len, ByteBuffer b) {
+                if (layout == Layout.ROW_MAJOR) {
+                    b.asFloatBuffer().put(A[line], from, len);
+                    b.position(b.position() + 4 * len);
+                } else {
+                    for (int i = from; i < from + len; i++) {
+                        b.putFloat(A[i][line]);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes the given matrix, replacing the file.
+     *
+     * @param matrix
+     * @param file
+     * @throws IOException
+     */
+    public void writeMatrix(final DenseMatrix matrix, File file) throws IOException {
+        final double[] data = matrix.getData();
+        final int offset = matrix.getOffset();
+        final int ld = matrix.getLeadingDimension();
+        final boolean same = matrix.getLayout() == layout;
+        write(file, DataType.FLOAT64, matrix.getRowDimension(), matrix.getColumnDimension(), new Lines() {
+            @Override
+            void put(int line, int from, int len, ByteBuffer b) {
+                if (same) {
+                    b.asDoubleBuffer().put(data, offset + line * ld + from, len);
+                    b.position(b.position() + 8 * len);
+                } else if (layout == Layout.ROW_MAJOR) {
+                    for (int j = from; j < from + len; j++) {
+                        b.putDouble(matrix.get(line, j));
+                    }
+                } else {
+                    for (int i = from; i < from + len; i++) {
+                        b.putDouble(matrix.get(i, line));
+                    }
+                }
+            }
+        });
+    }
+
+    /* ============================================= */
+    /* =========== Private Methods ================= */
+    /* ============================================= */
+
+    /**
+     * Source of the rows (row-major) or columns (column-major) of a matrix.
+     */
+    private abstract static class Lines {
+
+        /**
+         * Put the elements from..from+len-1 of the given row or column.
+         */
+        abstract void put(int line, int from, int len, ByteBuffer b);
+    }
+
+    private void write(File file, DataType type, int m, int n, Lines lines) throws IOException {
+        int count = layout == Layout.ROW_MAJOR ? m : n;
+        int len = layout == Layout.ROW_MAJOR ? n : m;
+        ByteBuffer buffer = ByteBuffer.allocate(BinaryMatrixFormat.CHUNK * type.size).order(order);
+        CRC32 crc = new CRC32();
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            channel.truncate(0);
+            channel.position(BinaryMatrixFormat.HEADER_SIZE);
+            for (int line = 0; line < count; line++) {
+                for (int from = 0; from < len;) {
+                    int k = Math.min(len - from, buffer.remaining() / type.size);
+                    if (k == 0) {
+                        flush(channel, buffer, crc);
+                        continue;
+                    }
+                    lines.put(line, from, k, buffer);
+                    from += k;
+                }
+            }
+            flush(channel, buffer, crc);
+
+            ByteBuffer header = BinaryMatrixFormat.header(order, type, layout, m, n, crc.getValue());
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException {
+        buffer.flip();
+        BinaryMatrixFormat.update(crc, buffer);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
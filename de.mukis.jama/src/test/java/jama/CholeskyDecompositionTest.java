@@ -0,0 +1,99 @@
+package jama;
+
+import static jama.MatrixAsserts.assertMatrixEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import jama.rules.ParallelPool;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+public class CholeskyDecompositionTest {
+
+    @Rule
+    public final ParallelPool parallel = new ParallelPool();
+
+    @Test
+    public void testBlockedFactorization() {
+        for (int n : new int[] { 129, 200, 300 }) {
+            Matrix A = spd(n);
+            CholeskyDecomposition chol = A.chol();
+            assertTrue(chol.isSPD());
+            Matrix L = chol.getL();
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    assertEquals(0., L.get(i, j), 0.);
+                }
+            }
+            assertMatrixEquals(A, L.times(L.transpose()), 1e-9);
+        }
+    }
+
+    @Test
+    public void testBlockedSolve() {
+        Matrix A = spd(200);
+        Matrix X = Matrix.random(200, 4);
+        assertMatrixEquals(X, A.chol().solve(A.times(X)), 1e-8);
+    }
+
+    @Test
+    public void testBlockedNotSPD() {
+        Matrix A = spd(200);
+        A.set(3, 190, A.get(3, 190) + 1.);
+        assertFalse(A.chol().isSPD());
+
+        Matrix B = spd(200);
+        B.set(180, 180, -1.);
+        assertFalse(B.chol().isSPD());
+    }
+
+    @Test
+    @ParallelPool.Enabled
+    public void testParallelTrailingUpdate() {
+        Matrix A = spd(300);
+        Matrix L = A.chol().getL();
+        assertMatrixEquals(A, L.times(L.transpose()), 1e-9);
+    }
+
+    @Test
+    public void testUpdateAndDowndate() {
+        Matrix A = spd(40);
+        double[] x = Matrix.random(40, 1).getColumnPackedCopy();
+        Matrix X = new Matrix(x, 40);
+        Matrix Aplus = A.plus(X.times(X.transpose()));
+
+        CholeskyDecomposition chol = A.chol();
+        CholeskyDecomposition up = chol.update(x);
+        assertTrue(up.isSPD());
+        assertMatrixEquals(Aplus, up.getL().times(up.getL().transpose()), 1e-10);
+        assertMatrixEquals(A, chol.getL().times(chol.getL().transpose()), 1e-10);
+
+        CholeskyDecomposition down = up.downdate(x);
+        assertTrue(down.isSPD());
+        assertMatrixEquals(chol.getL(), down.getL(), 1e-10);
+        Matrix b = Matrix.random(40, 2);
+        assertMatrixEquals(A.solve(b), down.solve(b), 1e-10);
+    }
+
+    @Test
+    public void testDowndateNotSPD() {
+        Matrix A = Matrix.identity(3, 3);
+        assertFalse(A.chol().downdate(new double[] { 0., 2., 0. }).isSPD());
+    }
+
+    @Test
+    public void testFactorIsCopy() {
+        // The cached decomposition must not see writes into a returned L.
+        Matrix A = spd(20);
+        Matrix b = Matrix.random(20, 1);
+        Matrix x = A.chol().solve(b);
+        A.chol().getL().timesEquals(2.0);
+        assertMatrixEquals(x, A.chol().solve(b), 0.0);
+    }
+
+    private static Matrix spd(int n) {
+        Matrix M = Matrix.random(n, n);
+        return M.transpose().times(M).plus(Matrix.identity(n, n).times(n));
+    }
+}
@@ -0,0 +1,151 @@
+package jama;
+
+import static jama.MatrixAsserts.assertMatrixEquals;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import jama.DenseMatrix.Layout;
+
+import java.nio.DoubleBuffer;
+
+import org.junit.Test;
+
+public class DenseMatrixTest {
+
+    private final double[][] vals = { { 1., 4., 7., 10. }, { 2., 5., 8., 11. }, { 3., 6., 9., 12. } };
+
+    @Test
+    public void testLayoutRoundtrip() {
+        Matrix M = new Matrix(vals);
+        DenseMatrix rows = new DenseMatrix(M, Layout.ROW_MAJOR);
+        DenseMatrix cols = new DenseMatrix(M, Layout.COLUMN_MAJOR);
+        assertArrayEquals(M.getRowPackedCopy(), rows.getData(), 0.);
+        assertArrayEquals(M.getColumnPackedCopy(), cols.getData(), 0.);
+        assertEquals(rows, cols);
+        assertEquals(rows.hashCode(), cols.hashCode());
+        assertMatrixEquals(M, cols.toMatrix(), 0.);
+        assertArrayEquals(M.getColumnPackedCopy(), rows.getColumnPackedCopy(), 0.);
+        assertArrayEquals(M.getRowPackedCopy(), cols.getRowPackedCopy(), 0.);
+    }
+
+    @Test
+    public void testViewsShareStorage() {
+        Matrix M = new Matrix(vals);
+        for (Layout layout : Layout.values()) {
+            DenseMatrix A = new DenseMatrix(M, layout);
+            DenseMatrix sub = A.view(1, 2, 1, 3);
+            assertFalse(sub.isContiguous());
+            assertMatrixEquals(M.getMatrix(1, 2, 1, 3), sub.toMatrix(), 0.);
+            sub.set(0, 0, -1.);
+            assertEquals(-1., A.get(1, 1), 0.);
+
+            DenseMatrix T = A.transpose();
+            assertEquals(4, T.getRowDimension());
+            assertEquals(A.get(2, 3), T.get(3, 2), 0.);
+            assertMatrixEquals(A.toMatrix().transpose(), T.toMatrix(), 0.);
+        }
+    }
+
+    @Test
+    public void testArithmetic() {
+        Matrix M = Matrix.random(7, 5);
+        Matrix N = Matrix.random(7, 5);
+        DenseMatrix A = new DenseMatrix(M, Layout.ROW_MAJOR);
+        DenseMatrix B = new DenseMatrix(N, Layout.COLUMN_MAJOR);
+        assertMatrixEquals(M.plus(N), A.plus(B).toMatrix(), 1e-15);
+        assertMatrixEquals(M.minus(N), A.minus(new DenseMatrix(N, Layout.ROW_MAJOR)).toMatrix(), 1e-15);
+        assertMatrixEquals(M.times(3.), A.times(3.).toMatrix(), 1e-15);
+        assertEquals(M.normF(), A.normF(), 1e-12);
+        assertMatrixEquals(M.getMatrix(1, 4, 1, 3).times(2.), A.view(1, 4, 1, 3).times(2.).toMatrix(), 1e-15);
+    }
+
+    @Test
+    public void testOverlappingOperands() {
+        double[][] a = { { 1., 2. }, { 3., 4. } };
+        for (Layout layout : Layout.values()) {
+            DenseMatrix A = new DenseMatrix(new Matrix(a), layout);
+            A.plusEquals(A.transpose());
+            assertMatrixEquals(new Matrix(new double[][] { { 2., 5. }, { 5., 8. } }), A.toMatrix(), 0.);
+            A.minusEquals(A);
+            assertMatrixEquals(new Matrix(2, 2), A.toMatrix(), 0.);
+
+            DenseMatrix B = new DenseMatrix(new Matrix(a), layout);
+            B.assign(B.transpose());
+            assertMatrixEquals(new Matrix(new double[][] { { 1., 3. }, { 2., 4. } }), B.toMatrix(), 0.);
+
+            // shifted views of the same rows
+            DenseMatrix C = new DenseMatrix(new Matrix(new double[][] { { 1., 2., 3. }, { 4., 5., 6. } }), layout);
+            C.view(0, 1, 1, 2).assign(C.view(0, 1, 0, 1));
+            assertMatrixEquals(new Matrix(new double[][] { { 1., 1., 2. }, { 4., 4., 5. } }), C.toMatrix(), 0.);
+            C.view(0, 1, 0, 1).plusEquals(C.view(0, 1, 1, 2));
+            assertMatrixEquals(new Matrix(new double[][] { { 2., 3., 2. }, { 8., 9., 5. } }), C.toMatrix(), 0.);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyElements() {
+        new DenseMatrix(50000, 50000, Layout.ROW_MAJOR);
+    }
+
+    @Test
+    public void testTimes() {
+        Matrix M = Matrix.random(150, 90);
+        Matrix N = Matrix.random(90, 110);
+        Matrix expected = M.times(N);
+        for (Layout la : Layout.values()) {
+            for (Layout lb : Layout.values()) {
+                DenseMatrix C = new DenseMatrix(M, la).times(new DenseMatrix(N, lb));
+                assertEquals(la, C.getLayout());
+                assertMatrixEquals(expected, C.toMatrix(), 1e-10);
+            }
+        }
+        DenseMatrix A = new DenseMatrix(M, Layout.COLUMN_MAJOR);
+        assertMatrixEquals(M.transpose().times(M), A.transpose().times(A).toMatrix(), 1e-10);
+        assertMatrixEquals(M.getMatrix(10, 39, 5, 24).times(N.getMatrix(5, 24, 0, 9)),
+                A.view(10, 39, 5, 24).times(new DenseMatrix(N, Layout.ROW_MAJOR).view(5, 24, 0, 9)).toMatrix(),
+                1e-10);
+    }
+
+    @Test
+    public void testDoubleBuffer() {
+        DenseMatrix A = new DenseMatrix(new Matrix(vals), Layout.COLUMN_MAJOR);
+        DoubleBuffer buffer = A.view(0, 2, 1, 2).asDoubleBuffer();
+        assertEquals(6, buffer.remaining());
+        assertEquals(4., buffer.get(0), 0.);
+        buffer.put(0, 0.);
+        assertEquals(0., A.get(0, 1), 0.);
+        assertTrue(A.view(0, 2, 1, 2).isContiguous());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDoubleBufferNotContiguous() {
+        new DenseMatrix(new Matrix(vals), Layout.COLUMN_MAJOR).view(0, 1, 0, 1).asDoubleBuffer();
+    }
+
+    @Test
+    public void testEmpty() {
+        for (Layout layout : Layout.values()) {
+            for (int[] mn : new int[][] { { 0, 5 }, { 5, 0 }, { 0, 0 } }) {
+                DenseMatrix A = new DenseMatrix(mn[0], mn[1], layout);
+                assertEquals(mn[0], A.getRowDimension());
+                assertEquals(mn[1], A.getColumnDimension());
+                assertTrue(A.isContiguous());
+                assertEquals(0, A.asDoubleBuffer().remaining());
+                assertEquals(mn[0], A.toMatrix().getRowDimension());
+                assertEquals(mn[1], A.transpose().getRowDimension());
+            }
+        }
+        new DenseMatrix(new double[0], 0, 0, 0, 0, Layout.ROW_MAJOR);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroLeadingDimension() {
+        new DenseMatrix(new double[0], 0, 5, 0, 0, Layout.ROW_MAJOR);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testArrayTooShort() {
+        new DenseMatrix(new double[5], 0, 2, 3, 3, Layout.ROW_MAJOR);
+    }
+}
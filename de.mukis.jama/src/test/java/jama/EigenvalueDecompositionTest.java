@@ -0,0 +1,179 @@
+package jama;
+
+import static jama.MatrixAsserts.assertMatrixEquals;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import jama.EigenvalueDecomposition.Solver;
+import jama.rules.ParallelPool;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+public class EigenvalueDecompositionTest {
+
+    @Rule
+    public final ParallelPool parallel = new ParallelPool();
+
+    @Test
+    public void testDivideAndConquer() {
+        for (int n : new int[] { 1, 2, 10, 33, 100, 257 }) {
+            Matrix A = symmetric(n);
+            assertEigenpairs(A, new EigenvalueDecomposition(A, Solver.DIVIDE_AND_CONQUER), 1e-9);
+        }
+    }
+
+    @Test
+    public void testDivideAndConquerClusteredEigenvalues() {
+        // Q*diag(1,1,...,2,2,...)*Q' has many repeated eigenvalues and
+        // exercises deflation.
+        int n = 120;
+        Matrix Q = new Matrix(symmetric(n).getArray()).qr().getQ();
+        Matrix D = new Matrix(n, n);
+        for (int i = 0; i < n; i++) {
+            D.set(i, i, i < n / 2 ? 1. : 2.);
+        }
+        Matrix A = Q.times(D).times(Q.transpose());
+        A = A.plus(A.transpose()).times(0.5);
+        assertEigenpairs(A, new EigenvalueDecomposition(A, Solver.DIVIDE_AND_CONQUER), 1e-9);
+
+        Matrix I = Matrix.identity(70, 70);
+        assertEigenpairs(I, new EigenvalueDecomposition(I, Solver.DIVIDE_AND_CONQUER), 0.);
+    }
+
+    @Test
+    @ParallelPool.Enabled
+    public void testDivideAndConquerParallel() {
+        Matrix A = symmetric(300);
+        assertEigenpairs(A, new EigenvalueDecomposition(A, Solver.DIVIDE_AND_CONQUER), 1e-9);
+    }
+
+    @Test
+    public void testEigenvaluesOnly() {
+        for (int n : new int[] { 1, 5, 40, 150 }) {
+            Matrix S = symmetric(n);
+            EigenvalueDecomposition values = new EigenvalueDecomposition(S, false);
+            assertFalse(values.hasEigenvectors());
+            assertArrayEquals(S.eig().getRealEigenvalues(), values.getRealEigenvalues(), 1e-10 * n);
+
+            Matrix A = Matrix.random(n, n);
+            EigenvalueDecomposition full = A.eig();
+            values = new EigenvalueDecomposition(A, false);
+            assertArrayEquals(full.getRealEigenvalues(), values.getRealEigenvalues(), 1e-10 * n);
+            assertArrayEquals(full.getImagEigenvalues(), values.getImagEigenvalues(), 1e-10 * n);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEigenvaluesOnlyHasNoV() {
+        new EigenvalueDecomposition(symmetric(4), false).getV();
+    }
+
+    @Test
+    public void testSerializedFlags() throws IOException, ClassNotFoundException {
+        // Whether eigenvectors exist follows from V, not from a serialized
+        // flag.
+        Matrix A = symmetric(6);
+        EigenvalueDecomposition full = copy(A.eig());
+        assertTrue(full.hasEigenvectors());
+        assertMatrixEquals(A.eig().getV(), full.getV(), 0.);
+        assertFalse(copy(new EigenvalueDecomposition(A, false)).hasEigenvectors());
+    }
+
+    private static EigenvalueDecomposition copy(EigenvalueDecomposition eig) throws IOException,
+            ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(eig);
+        out.close();
+        return (EigenvalueDecomposition) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))
+                .readObject();
+    }
+
+    @Test
+    public void testSelectedEigenpairs() {
+        int n = 200;
+        Matrix A = symmetric(n);
+        double[] all = A.eig().getRealEigenvalues();
+        int k = 6;
+        EigenvalueDecomposition top = new EigenvalueDecomposition(A, n - k, n - 1);
+        assertArrayEquals(Arrays.copyOfRange(all, n - k, n), top.getRealEigenvalues(), 1e-10 * n);
+        Matrix V = top.getV();
+        assertEquals(n, V.getRowDimension());
+        assertEquals(k, V.getColumnDimension());
+        assertMatrixEquals(A.times(V), V.times(top.getD()), 1e-9 * n);
+        assertMatrixEquals(Matrix.identity(k, k), V.transpose().times(V), 1e-9 * n);
+
+        EigenvalueDecomposition middle = new EigenvalueDecomposition(A, 90, 109, false);
+        assertArrayEquals(Arrays.copyOfRange(all, 90, 110), middle.getRealEigenvalues(), 1e-10 * n);
+    }
+
+    @Test
+    public void testSelectedRepeatedEigenvalues() {
+        Matrix A = Matrix.identity(50, 50).times(3.);
+        EigenvalueDecomposition eig = new EigenvalueDecomposition(A, 0, 9);
+        Matrix V = eig.getV();
+        assertMatrixEquals(A.times(V), V.times(eig.getD()), 1e-12);
+        assertMatrixEquals(Matrix.identity(10, 10), V.transpose().times(V), 1e-12);
+    }
+
+    @Test
+    public void testSelectedZeroAndDiagonal() {
+        for (int n : new int[] { 5, 20, 100 }) {
+            assertSelectedEigenpairs(new Matrix(n, n));
+        }
+        assertSelectedEigenpairs(Matrix.identity(100, 100).times(1e-300));
+
+        // split into blocks with equal eigenvalues, zero among them
+        double[] diagonal = { 0, 2, -1, 0, 2, 1e-300, 2, 0, -1, 5 };
+        Matrix D = new Matrix(diagonal.length, diagonal.length);
+        for (int i = 0; i < diagonal.length; i++) {
+            D.set(i, i, diagonal[i]);
+        }
+        assertSelectedEigenpairs(D);
+        double[] sorted = diagonal.clone();
+        Arrays.sort(sorted);
+        assertArrayEquals(sorted, new EigenvalueDecomposition(D, 0, diagonal.length - 1).getRealEigenvalues(), 1e-15);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSelectedNotSymmetric() {
+        new EigenvalueDecomposition(Matrix.random(5, 5), 0, 1);
+    }
+
+    private static void assertEigenpairs(Matrix A, EigenvalueDecomposition eig, double delta) {
+        int n = A.getRowDimension();
+        double[] expected = new EigenvalueDecomposition(A, Solver.QL).getRealEigenvalues();
+        assertArrayEquals(expected, eig.getRealEigenvalues(), delta * n);
+        Matrix V = eig.getV();
+        assertMatrixEquals(A.times(V), V.times(eig.getD()), delta * n);
+        assertMatrixEquals(Matrix.identity(n, n), V.transpose().times(V), delta * n);
+    }
+
+    private static void assertSelectedEigenpairs(Matrix A) {
+        int n = A.getRowDimension();
+        EigenvalueDecomposition eig = new EigenvalueDecomposition(A, 0, n - 1);
+        Matrix V = eig.getV();
+        for (double[] row : V.getArray()) {
+            for (double v : row) {
+                assertFalse(Double.isNaN(v) || Double.isInfinite(v));
+            }
+        }
+        assertMatrixEquals(Matrix.identity(n, n), V.transpose().times(V), 1e-12 * n);
+        // bisection resolves eigenvalues to about pivmin = MIN_NORMAL
+        assertMatrixEquals(A.times(V), V.times(eig.getD()), 1e-12 * n * A.normInf() + Double.MIN_NORMAL);
+    }
+
+    private static Matrix symmetric(int n) {
+        Matrix M = Matrix.random(n, n);
+        return M.plus(M.transpose());
+    }
+}
@@ -0,0 +1,113 @@
+package jama;
+
+import static jama.MatrixAsserts.assertMatrixEquals;
+import static jama.MatrixAsserts.toFloat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class FloatDecompositionTest {
+
+    @Test
+    public void testLU() {
+        FloatMatrix A = FloatMatrix.random(140, 140);
+        FloatLUDecomposition lu = A.lu();
+        assertMatrixEquals(A.getFloatMatrix(lu.getPivot(), 0, 139), lu.getL().times(lu.getU()), 1e-3f);
+        // A random matrix is occasionally too ill-conditioned for a float
+        // solve, so shift it away from singularity.
+        FloatMatrix B = A.plus(FloatMatrix.identity(140, 140).times(10f));
+        FloatMatrix X = FloatMatrix.random(140, 3);
+        assertMatrixEquals(X.toMatrix(), B.solve(B.times(X)).toMatrix(), 1e-2);
+
+        FloatMatrix S = FloatMatrix.random(8, 8);
+        double det = S.toMatrix().det();
+        assertEquals(det, S.det(), Math.abs(det) * 1e-3);
+    }
+
+    @Test
+    public void testQR() {
+        FloatMatrix A = FloatMatrix.random(90, 40);
+        FloatQRDecomposition qr = A.qr();
+        FloatMatrix Q = qr.getQ();
+        assertMatrixEquals(A, Q.times(qr.getR()), 1e-4f);
+        assertMatrixEquals(FloatMatrix.identity(40, 40), Q.transpose().times(Q), 1e-5f);
+
+        Matrix B = Matrix.random(90, 2);
+        Matrix expected = A.toMatrix().solve(B);
+        assertMatrixEquals(expected, qr.solve(toFloat(B)).toMatrix(), 1e-2);
+    }
+
+    @Test
+    public void testCholesky() {
+        FloatMatrix R = FloatMatrix.random(60, 60);
+        FloatMatrix A = R.transpose().times(R).plus(FloatMatrix.identity(60, 60).times(60f));
+        FloatCholeskyDecomposition chol = A.chol();
+        assertTrue(chol.isSPD());
+        FloatMatrix L = chol.getL();
+        assertMatrixEquals(A, L.times(L.transpose()), 1e-3f);
+        FloatMatrix X = FloatMatrix.random(60, 4);
+        assertMatrixEquals(X, chol.solve(A.times(X)), 1e-4f);
+
+        A.set(0, 1, A.get(0, 1) + 1f);
+        assertFalse(A.chol().isSPD());
+    }
+
+    @Test
+    public void testSVD() {
+        for (int[] shape : new int[][] { { 50, 30 }, { 30, 50 } }) {
+            FloatMatrix A = FloatMatrix.random(shape[0], shape[1]);
+            FloatSingularValueDecomposition svd = A.svd();
+            FloatMatrix USV = svd.getU().times(svd.getS()).times(svd.getV().transpose());
+            assertMatrixEquals(A, USV, 1e-4f);
+
+            double[] expected = A.toMatrix().svd().getSingularValues();
+            float[] s = svd.getSingularValues();
+            assertEquals(30, s.length);
+            for (int i = 0; i < s.length; i++) {
+                assertEquals(expected[i], s[i], 1e-4 * expected[0]);
+            }
+            assertEquals(expected[0], A.norm2(), 1e-4 * expected[0]);
+            assertEquals(30, A.rank());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSVDWithoutVectors() {
+        new FloatSingularValueDecomposition(FloatMatrix.random(5, 4), false, true).getU();
+    }
+
+    @Test
+    public void testSymmetricEigen() {
+        FloatMatrix R = FloatMatrix.random(40, 40);
+        FloatMatrix A = R.plus(R.transpose());
+        FloatEigenvalueDecomposition eig = A.eig();
+        FloatMatrix V = eig.getV();
+        assertMatrixEquals(A.times(V), V.times(eig.getD()), 1e-4f);
+        assertMatrixEquals(FloatMatrix.identity(40, 40), V.transpose().times(V), 1e-5f);
+
+        float[] values = new FloatEigenvalueDecomposition(A, false).getRealEigenvalues();
+        for (int i = 0; i < 40; i++) {
+            assertEquals(eig.getRealEigenvalues()[i], values[i], 1e-5f);
+        }
+    }
+
+    @Test
+    public void testNonsymmetricEigen() {
+        FloatMatrix A = FloatMatrix.random(30, 30);
+        FloatEigenvalueDecomposition eig = A.eig();
+        FloatMatrix V = eig.getV();
+        assertMatrixEquals(A.times(V), V.times(eig.getD()), 1e-3f);
+
+        EigenvalueDecomposition reference = A.toMatrix().eig();
+        double[] re = reference.getRealEigenvalues();
+        double sum = 0.0;
+        float[] fre = eig.getRealEigenvalues();
+        for (int i = 0; i < 30; i++) {
+            sum += re[i] - fre[i];
+        }
+        assertEquals(0.0, sum, 1e-3);
+        assertFalse(new FloatEigenvalueDecomposition(A, false).hasEigenvectors());
+    }
+}
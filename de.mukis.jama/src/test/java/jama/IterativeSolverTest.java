@@ -0,0 +1,198 @@
+package jama;
+
+import static jama.MatrixAsserts.assertMatrixEquals;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class IterativeSolverTest {
+
+    /** 5-point Laplacian on a k-by-k grid, symmetric positive definite. */
+    static CSRMatrix laplacian(int k) {
+        int n = k * k;
+        SparseMatrixBuilder b = new SparseMatrixBuilder(n, n, 5 * n);
+        for (int i = 0; i < k; i++) {
+            for (int j = 0; j < k; j++) {
+                int r = i * k + j;
+                b.add(r, r, 4.0);
+                if (i > 0) {
+                    b.add(r, r - k, -1.0);
+                }
+                if (i < k - 1) {
+                    b.add(r, r + k, -1.0);
+                }
+                if (j > 0) {
+                    b.add(r, r - 1, -1.0);
+                }
+                if (j < k - 1) {
+                    b.add(r, r + 1, -1.0);
+                }
+            }
+        }
+        return b.toCSR();
+    }
+
+    /** Laplacian plus a convection term, nonsymmetric. */
+    static CSRMatrix convectionDiffusion(int k, double c) {
+        int n = k * k;
+        SparseMatrixBuilder b = new SparseMatrixBuilder(n, n, 5 * n);
+        CSRMatrix L = laplacian(k);
+        int[] ptr = L.getRowPointers();
+        int[] idx = L.getColumnIndices();
+        double[] val = L.getValues();
+        for (int i = 0; i < n; i++) {
+            for (int p = ptr[i]; p < ptr[i + 1]; p++) {
+                b.add(i, idx[p], val[p]);
+            }
+            if (i % k > 0) {
+                b.add(i, i - 1, -c);
+            }
+            if (i % k < k - 1) {
+                b.add(i, i + 1, c);
+            }
+        }
+        return b.toCSR();
+    }
+
+    private static double[] ones(int n) {
+        double[] x = new double[n];
+        java.util.Arrays.fill(x, 1.0);
+        return x;
+    }
+
+    private static double relativeResidual(LinearOperator A, double[] x, double[] b) {
+        double[] r = new double[b.length];
+        A.apply(x, r);
+        for (int i = 0; i < b.length; i++) {
+            r[i] = b[i] - r[i];
+        }
+        return IterativeSolver.norm(r) / IterativeSolver.norm(b);
+    }
+
+    private static void assertSolves(IterativeSolver solver, LinearOperator A, double tol) {
+        double[] xs = ones(A.getRowDimension());
+        double[] b = new double[xs.length];
+        A.apply(xs, b);
+        solver.setTolerance(tol);
+        double[] x = solver.solve(b);
+        assertTrue(solver.hasConverged());
+        assertTrue(solver.getIterations() > 0);
+        assertTrue(relativeResidual(A, x, b) <= 10 * tol);
+        assertArrayEquals(xs, x, 1e-6);
+    }
+
+    @Test
+    public void testConjugateGradient() {
+        CSRMatrix A = laplacian(30);
+        assertSolves(new ConjugateGradientSolver(A), A, 1e-10);
+    }
+
+    @Test
+    public void testGMRES() {
+        CSRMatrix A = convectionDiffusion(20, 0.8);
+        assertSolves(new GMRESSolver(A), A, 1e-10);
+        assertSolves(new GMRESSolver(A, 5), A, 1e-10);
+    }
+
+    @Test
+    public void testBiCGSTAB() {
+        CSRMatrix A = convectionDiffusion(20, 0.8);
+        assertSolves(new BiCGSTABSolver(A), A, 1e-10);
+    }
+
+    @Test
+    public void testDenseOperator() {
+        Matrix A = Matrix.random(40, 40).plus(Matrix.identity(40, 40).times(40.0));
+        assertSolves(new GMRESSolver(A), A, 1e-12);
+        assertSolves(new BiCGSTABSolver(A), A, 1e-12);
+        Matrix S = A.transpose().times(A);
+        assertSolves(new ConjugateGradientSolver(S), S, 1e-12);
+    }
+
+    @Test
+    public void testGMRESExactInNSteps() {
+        // Without restarts GMRES terminates after at most n iterations.
+        Matrix A = Matrix.random(12, 12).plus(Matrix.identity(12, 12));
+        GMRESSolver gmres = new GMRESSolver(A, 50);
+        gmres.setTolerance(1e-12);
+        double[] b = ones(12);
+        gmres.solve(b);
+        assertTrue(gmres.hasConverged());
+        assertTrue(gmres.getIterations() <= 12);
+    }
+
+    @Test
+    public void testWarmStartAndListener() {
+        CSRMatrix A = laplacian(10);
+        double[] xs = ones(100);
+        double[] b = A.times(xs);
+        final List<Double> residuals = new ArrayList<Double>();
+        IterativeSolver cg = new ConjugateGradientSolver(A);
+        cg.setIterationListener(new IterativeSolver.IterationListener() {
+            @Override
+            public void iterationPerformed(int iteration, double residualNorm) {
+                assertEquals(residuals.size(), iteration);
+                residuals.add(residualNorm);
+            }
+        });
+        double[] x = cg.solve(b);
+        assertEquals(cg.getIterations() + 1, residuals.size());
+        assertEquals(cg.getResidualNorm(), residuals.get(residuals.size() - 1), 0.0);
+
+        // Starting from the solution converges immediately.
+        residuals.clear();
+        double[] y = cg.solve(b, x);
+        assertTrue(cg.hasConverged());
+        assertEquals(0, cg.getIterations());
+        assertEquals(1, residuals.size());
+        assertArrayEquals(x, y, 0.0);
+    }
+
+    @Test
+    public void testIterationLimit() {
+        CSRMatrix A = laplacian(20);
+        IterativeSolver cg = new ConjugateGradientSolver(A);
+        cg.setMaxIterations(3);
+        cg.solve(ones(400));
+        assertFalse(cg.hasConverged());
+        assertEquals(3, cg.getIterations());
+    }
+
+    @Test
+    public void testIndefiniteBreaksOffCG() {
+        Matrix A = Matrix.identity(4, 4);
+        A.set(2, 2, -1.0);
+        IterativeSolver cg = new ConjugateGradientSolver(A);
+        cg.solve(new double[] { 0.0, 0.0, 1.0, 0.0 });
+        assertFalse(cg.hasConverged());
+    }
+
+    @Test
+    public void testZeroRightHandSide() {
+        IterativeSolver solver = new BiCGSTABSolver(laplacian(5));
+        double[] x = solver.solve(new double[25], ones(25));
+        assertTrue(solver.hasConverged());
+        assertArrayEquals(new double[25], x, 0.0);
+    }
+
+    @Test
+    public void testSolveMatrix() {
+        Matrix A = laplacian(6).toMatrix();
+        Matrix B = Matrix.random(36, 3);
+        IterativeSolver cg = new ConjugateGradientSolver(A);
+        cg.setTolerance(1e-13);
+        assertMatrixEquals(A.solve(B), cg.solve(B), 1e-10);
+        assertTrue(cg.hasConverged());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotSquare() {
+        new GMRESSolver(new Matrix(3, 4));
+    }
+}
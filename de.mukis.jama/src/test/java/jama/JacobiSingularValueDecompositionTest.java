@@ -0,0 +1,95 @@
+package jama;
+
+import static jama.MatrixAsserts.assertMatrixEquals;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import jama.rules.ParallelPool;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+public class JacobiSingularValueDecompositionTest {
+
+    @Rule
+    public final ParallelPool parallel = new ParallelPool();
+
+    @Test
+    public void testDecomposition() {
+        for (int[] mn : new int[][] { { 1, 1 }, { 7, 7 }, { 40, 25 }, { 25, 40 }, { 90, 61 } }) {
+            Matrix A = Matrix.random(mn[0], mn[1]);
+            assertDecomposition(A, new JacobiSingularValueDecomposition(A));
+        }
+    }
+
+    @Test
+    public void testRankDeficient() {
+        Matrix A = Matrix.random(30, 4).times(Matrix.random(4, 12));
+        JacobiSingularValueDecomposition svd = new JacobiSingularValueDecomposition(A);
+        assertEquals(4, svd.rank());
+        assertDecomposition(A, svd);
+
+        Matrix Z = new Matrix(6, 3);
+        Z.set(2, 1, 5.);
+        svd = new JacobiSingularValueDecomposition(Z);
+        assertArrayEquals(new double[] { 5., 0., 0. }, svd.getSingularValues(), 0.);
+        assertDecomposition(Z, svd);
+    }
+
+    @Test(timeout = 10000)
+    public void testZeroColumn() {
+        // Columns e_i - e_i+1 and a zero last column: no unit vector is
+        // far from the span of the singular vectors.
+        for (int n : new int[] { 3, 4, 5, 8 }) {
+            Matrix A = new Matrix(n, n);
+            for (int j = 0; j < n - 1; j++) {
+                A.set(j, j, 1.);
+                A.set(j + 1, j, -1.);
+            }
+            JacobiSingularValueDecomposition svd = new JacobiSingularValueDecomposition(A);
+            assertEquals(n - 1, svd.rank());
+            assertDecomposition(A, svd);
+        }
+    }
+
+    @Test
+    public void testSmallSingularValuesAccurate() {
+        // A = B*D with well conditioned B and graded column scaling D. The
+        // smallest singular value, about 1e-21, is 1/norm2(inv(D)*inv(B)),
+        // which is computed accurately. Bidiagonalization only resolves it
+        // to an absolute error of eps*norm2(A).
+        int n = 8;
+        Matrix B = Matrix.random(n, n).plus(Matrix.identity(n, n).times(n));
+        Matrix D = new Matrix(n, n);
+        Matrix Dinv = new Matrix(n, n);
+        for (int i = 0; i < n; i++) {
+            D.set(i, i, Math.pow(1e-3, i));
+            Dinv.set(i, i, Math.pow(1e3, i));
+        }
+        Matrix A = B.times(D);
+        double expected = 1. / Dinv.times(B.inverse()).norm2();
+        double[] s = new JacobiSingularValueDecomposition(A).getSingularValues();
+        assertEquals(1., s[n - 1] / expected, 1e-10);
+    }
+
+    @Test
+    @ParallelPool.Enabled
+    public void testParallelSweeps() {
+        Matrix A = Matrix.random(120, 80);
+        JacobiSingularValueDecomposition svd = new JacobiSingularValueDecomposition(A);
+        assertDecomposition(A, svd);
+        assertArrayEquals(A.svd().getSingularValues(), svd.getSingularValues(), 1e-12);
+    }
+
+    private static void assertDecomposition(Matrix A, JacobiSingularValueDecomposition svd) {
+        int k = Math.min(A.getRowDimension(), A.getColumnDimension());
+        Matrix U = svd.getU();
+        Matrix V = svd.getV();
+        assertMatrixEquals(Matrix.identity(k, k), U.transpose().times(U), 1e-12);
+        assertMatrixEquals(Matrix.identity(k, k), V.transpose().times(V), 1e-12);
+        assertMatrixEquals(A, U.times(svd.getS()).times(V.transpose()), 1e-12 * A.getRowDimension());
+        double[] s = svd.getSingularValues();
+        for (int i = 1; i < k; i++) {
+            assertEquals(true, s[i - 1] >= s[i]);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package jama;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static jama.MatrixAsserts.assertMatrixEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class KrylovEigenSolverTest {
+
+    /**
+     * Anisotropic k*k grid Laplacian with weight a in one direction, whose
+     * eigenvalues a*(2 - 2*cos(i*pi/(k+1))) + 2 - 2*cos(j*pi/(k+1)) are
+     * simple for irrational a.
+     */
+    private static CSRMatrix grid(int k, double a) {
+        SparseMatrixBuilder b = new SparseMatrixBuilder(k * k, k * k);
+        for (int i = 0; i < k; i++) {
+            for (int j = 0; j < k; j++) {
+                int p = i * k + j;
+                b.add(p, p, 2.0 * a + 2.0);
+                if (i > 0) {
+                    b.add(p, p - k, -a).add(p - k, p, -a);
+                }
+                if (j > 0) {
+                    b.add(p, p - 1, -1.0).add(p - 1, p, -1.0);
+                }
+            }
+        }
+        return b.toCSR();
+    }
+
+    /** Eigenvalues of {@link #grid(int, double)}, ascending. */
+    private static double[] gridEigenvalues(int k, double a) {
+        double[] lambda = new double[k * k];
+        for (int i = 1; i <= k; i++) {
+            for (int j = 1; j <= k; j++) {
+                lambda[(i - 1) * k + j - 1] = a * (2.0 - 2.0 * Math.cos(i * Math.PI / (k + 1))) + 2.0 - 2.0
+                        * Math.cos(j * Math.PI / (k + 1));
+            }
+        }
+        Arrays.sort(lambda);
+        return lambda;
+    }
+
+    /** ||A*X - X*D|| relative to ||A||. */
+    private static void assertEigenpairs(Matrix A, KrylovEigenSolver solver) {
+        Matrix X = solver.getEigenvectors();
+        Matrix R = A.times(X).minus(X.times(solver.getD()));
+        assertEquals(0.0, R.normF() / A.normF(), 1e-8);
+    }
+
+    /**
+     * True residual of each eigenpair, complex pairs jointly, within twice
+     * the bound of the convergence test. ||A|| bounds the norm of the
+     * projection H used by the test.
+     */
+    private static void assertResiduals(Matrix A, KrylovEigenSolver solver) {
+        Matrix X = solver.getEigenvectors();
+        Matrix R = A.times(X).minus(X.times(solver.getD()));
+        double[] wr = solver.getRealEigenvalues();
+        double[] wi = solver.getImagEigenvalues();
+        for (int j = 0; j < wr.length; j++) {
+            int cols = wi[j] != 0.0 ? 2 : 1;
+            double r = R.getMatrix(0, R.getRowDimension() - 1, j, j + cols - 1).normF();
+            double bound = solver.getTolerance()
+                    * Math.max(Math.hypot(wr[j], wi[j]), Math.pow(2.0, -104.0 / 3.0) * A.normF());
+            assertTrue("residual " + r + " of eigenvalue " + j, r <= 2.0 * bound);
+            j += cols - 1;
+        }
+    }
+
+    /** 1-D Laplacian times scale, eigenvalues 4*scale*sin(j*pi/(2*(n+1)))^2 */
+    private static Matrix laplacian(int n, double scale) {
+        Matrix A = new Matrix(n, n);
+        for (int i = 0; i < n; i++) {
+            A.set(i, i, 2.0 * scale);
+            if (i > 0) {
+                A.set(i, i - 1, -scale);
+                A.set(i - 1, i, -scale);
+            }
+        }
+        return A;
+    }
+
+    @Test
+    public void testLanczosConvergedResiduals() {
+        int n = 300;
+        Matrix A = laplacian(n, 1.0);
+        LanczosEigenSolver lanczos = new LanczosEigenSolver(A);
+        lanczos.setSubspaceSize(40);
+        lanczos.solve(5, KrylovEigenSolver.Which.SMALLEST_REAL);
+        assertTrue(lanczos.hasConverged());
+        assertResiduals(A, lanczos);
+        double lambda = 4.0 * Math.pow(Math.sin(Math.PI / (2.0 * (n + 1))), 2);
+        assertEquals(1.0, lanczos.getRealEigenvalues()[0] / lambda, 1e-10);
+
+        lanczos.solve(5, KrylovEigenSolver.Which.LARGEST_REAL);
+        assertTrue(lanczos.hasConverged());
+        assertResiduals(A, lanczos);
+    }
+
+    @Test
+    public void testLanczosScaledOperator() {
+        // Breakdown and convergence tests are relative to the operator, so
+        // a tiny or huge scale must not change the iteration.
+        int n = 300;
+        double lambda = 4.0 * Math.pow(Math.cos(Math.PI / (2.0 * (n + 1))), 2);
+        for (double scale : new double[] { 1e-20, 1e20 }) {
+            Matrix A = laplacian(n, scale);
+            LanczosEigenSolver lanczos = new LanczosEigenSolver(A);
+            lanczos.setSubspaceSize(40);
+            lanczos.solve(5, KrylovEigenSolver.Which.LARGEST_REAL);
+            assertTrue(lanczos.hasConverged());
+            assertTrue(lanczos.getRestarts() > 0);
+            assertResiduals(A, lanczos);
+            assertEigenpairs(A, lanczos);
+            assertEquals(1.0, lanczos.getRealEigenvalues()[0] / (scale * lambda), 1e-10);
+        }
+    }
+
+    @Test
+    public void testLanczosSmallest() {
+        CSRMatrix A = grid(20, Math.sqrt(2.0));
+        LanczosEigenSolver lanczos = new LanczosEigenSolver(A);
+        lanczos.solve(10, KrylovEigenSolver.Which.SMALLEST_REAL);
+        assertTrue(lanczos.hasConverged());
+        assertArrayEquals(Arrays.copyOf(gridEigenvalues(20, Math.sqrt(2.0)), 10), lanczos.getRealEigenvalues(), 1e-8);
+        assertArrayEquals(new double[10], lanczos.getImagEigenvalues(), 0.0);
+
+        Matrix X = lanczos.getEigenvectors();
+        assertMatrixEquals(Matrix.identity(10, 10), X.transpose().times(X), 1e-10);
+        assertEigenpairs(A.toMatrix(), lanczos);
+    }
+
+    @Test
+    public void testLanczosLargest() {
+        double[] lambda = gridEigenvalues(15, Math.sqrt(3.0));
+        LanczosEigenSolver lanczos = new LanczosEigenSolver(grid(15, Math.sqrt(3.0)));
+        lanczos.solve(4, KrylovEigenSolver.Which.LARGEST_MAGNITUDE);
+        assertTrue(lanczos.hasConverged());
+        double[] expected = new double[4];
+        for (int i = 0; i < 4; i++) {
+            expected[i] = lambda[lambda.length - 1 - i];
+        }
+        assertArrayEquals(expected, lanczos.getRealEigenvalues(), 1e-8);
+    }
+
+    @Test
+    public void testArnoldiAgainstDense() {
+        // Q*B*Q' for a random orthogonal Q and a block diagonal B with the
+        // complex pairs j*(1 +/- 0.5i) and the real eigenvalues -j - 0.5.
+        int n = 120;
+        Matrix B = new Matrix(n, n);
+        for (int j = 0; j < n / 4; j++) {
+            int p = 2 * j;
+            B.set(p, p, j + 1.0);
+            B.set(p + 1, p + 1, j + 1.0);
+            B.set(p, p + 1, 0.5 * (j + 1.0));
+            B.set(p + 1, p, -0.5 * (j + 1.0));
+            B.set(n / 2 + j, n / 2 + j, -j - 1.5);
+        }
+        Matrix Q = Matrix.random(n, n).qr().getQ();
+        Matrix A = Q.times(B).times(Q.transpose());
+        EigenvalueDecomposition eig = new EigenvalueDecomposition(A);
+        double[] wr = eig.getRealEigenvalues();
+        double[] wi = eig.getImagEigenvalues();
+
+        ArnoldiEigenSolver arnoldi = new ArnoldiEigenSolver(A);
+        arnoldi.solve(6, KrylovEigenSolver.Which.LARGEST_MAGNITUDE);
+        assertTrue(arnoldi.hasConverged());
+        double[] mr = arnoldi.getRealEigenvalues();
+        double[] mi = arnoldi.getImagEigenvalues();
+        assertEquals(6, mr.length);
+
+        // The dense moduli, descending.
+        double[] abs = new double[n];
+        for (int i = 0; i < n; i++) {
+            abs[i] = -Math.hypot(wr[i], wi[i]);
+        }
+        Arrays.sort(abs);
+        for (int i = 0; i < mr.length; i++) {
+            assertEquals(-abs[i], Math.hypot(mr[i], mi[i]), 1e-8);
+            // Each Ritz value is an eigenvalue of A.
+            double best = Double.MAX_VALUE;
+            for (int j = 0; j < n; j++) {
+                best = Math.min(best, Math.hypot(wr[j] - mr[i], wi[j] - mi[i]));
+            }
+            assertEquals(0.0, best, 1e-8);
+        }
+        assertEigenpairs(A, arnoldi);
+    }
+
+    @Test
+    public void testArnoldiRandom() {
+        // The dominant eigenvalue converges at once and deflates, the next
+        // ones lie close together on a circle.
+        Random random = new Random(1L);
+        int n = 200;
+        Matrix A = new Matrix(n, n);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                A.set(i, j, random.nextDouble());
+            }
+        }
+        ArnoldiEigenSolver arnoldi = new ArnoldiEigenSolver(A);
+        arnoldi.solve(4, KrylovEigenSolver.Which.LARGEST_MAGNITUDE);
+        assertTrue(arnoldi.hasConverged());
+        Matrix X = arnoldi.getEigenvectors();
+        assertFalse(Double.isNaN(X.normF()));
+        assertResiduals(A, arnoldi);
+
+        EigenvalueDecomposition eig = new EigenvalueDecomposition(A);
+        double[] abs = new double[n];
+        for (int i = 0; i < n; i++) {
+            abs[i] = -Math.hypot(eig.getRealEigenvalues()[i], eig.getImagEigenvalues()[i]);
+        }
+        Arrays.sort(abs);
+        double[] mr = arnoldi.getRealEigenvalues();
+        double[] mi = arnoldi.getImagEigenvalues();
+        for (int i = 0; i < 4; i++) {
+            assertEquals(-abs[i], Math.hypot(mr[i], mi[i]), 1e-8);
+        }
+    }
+
+    @Test
+    public void testArnoldiComplexPair() {
+        // Rotation block with eigenvalues 3 +/- 4i, then 1, 0.5, 0.25, ...
+        int n = 50;
+        Matrix A = new Matrix(n, n);
+        A.set(0, 0, 3.0);
+        A.set(0, 1, 4.0);
+        A.set(1, 0, -4.0);
+        A.set(1, 1, 3.0);
+        for (int i = 2; i < n; i++) {
+            A.set(i, i, Math.pow(0.5, i - 2));
+            A.set(i - 1, i, 0.1);
+        }
+        ArnoldiEigenSolver arnoldi = new ArnoldiEigenSolver(A);
+        arnoldi.solve(1, KrylovEigenSolver.Which.LARGEST_MAGNITUDE);
+        assertTrue(arnoldi.hasConverged());
+        // The conjugate is returned with the wanted eigenvalue.
+        assertArrayEquals(new double[] { 3.0, 3.0 }, arnoldi.getRealEigenvalues(), 1e-10);
+        assertArrayEquals(new double[] { 4.0, -4.0 }, arnoldi.getImagEigenvalues(), 1e-10);
+        assertEigenpairs(A, arnoldi);
+    }
+
+    @Test
+    public void testArnoldiSmallestReal() {
+        CSRMatrix A = IterativeSolverTest.convectionDiffusion(12, 0.5);
+        Matrix D = A.toMatrix();
+        double[] wr = new EigenvalueDecomposition(D).getRealEigenvalues().clone();
+        Arrays.sort(wr);
+
+        ArnoldiEigenSolver arnoldi = new ArnoldiEigenSolver(A);
+        arnoldi.solve(3, KrylovEigenSolver.Which.SMALLEST_REAL);
+        assertTrue(arnoldi.hasConverged());
+        double[] mr = arnoldi.getRealEigenvalues();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(wr[i], mr[i], 1e-8);
+        }
+        assertEigenpairs(D, arnoldi);
+    }
+
+    @Test
+    public void testInvariantStartVector() {
+        // An eigenvector as start vector spans an invariant subspace at once.
+        Matrix A = Matrix.identity(30, 30);
+        for (int i = 0; i < 30; i++) {
+            A.set(i, i, i + 1.0);
+        }
+        double[] v0 = new double[30];
+        v0[29] = 1.0;
+        LanczosEigenSolver lanczos = new LanczosEigenSolver(A);
+        lanczos.setStartVector(v0);
+        lanczos.solve(3, KrylovEigenSolver.Which.LARGEST_REAL);
+        assertTrue(lanczos.hasConverged());
+        assertArrayEquals(new double[] { 30.0, 29.0, 28.0 }, lanczos.getRealEigenvalues(), 1e-10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyEigenvalues() {
+        new LanczosEigenSolver(Matrix.identity(5, 5)).solve(5, KrylovEigenSolver.Which.LARGEST_REAL);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotSquare() {
+        new ArnoldiEigenSolver(new Matrix(3, 4));
+    }
+}
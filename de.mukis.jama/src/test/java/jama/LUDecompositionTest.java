@@ -0,0 +1,77 @@
+package jama;
+
+import static jama.MatrixAsserts.assertMatrixEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import jama.rules.ParallelPool;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+public class LUDecompositionTest {
+
+    @Rule
+    public final ParallelPool parallel = new ParallelPool();
+
+    @Test
+    public void testBlockedFactorization() {
+        int[][] shapes = { { 65, 65 }, { 200, 200 }, { 300, 170 }, { 257, 129 } };
+        for (int[] shape : shapes) {
+            Matrix A = Matrix.random(shape[0], shape[1]);
+            LUDecomposition lu = A.lu();
+            int k = Math.min(shape[0], shape[1]);
+            Matrix L = lu.getL().getMatrix(0, shape[0] - 1, 0, k - 1);
+            Matrix U = lu.getU().getMatrix(0, k - 1, 0, shape[1] - 1);
+            assertMatrixEquals(A.getMatrix(lu.getPivot(), 0, shape[1] - 1), L.times(U), 1e-10);
+        }
+    }
+
+    @Test
+    public void testBlockedSolveAndDeterminant() {
+        Matrix A = Matrix.random(250, 250);
+        Matrix X = Matrix.random(250, 3);
+        Matrix B = A.times(X);
+        assertMatrixEquals(X, A.solve(B), 1e-8);
+
+        // det of a block diagonal matrix is the product of the block dets
+        Matrix D = new Matrix(150, 150);
+        Matrix D1 = Matrix.random(5, 5);
+        Matrix D2 = Matrix.identity(145, 145).times(1.01);
+        D.setMatrix(0, 4, 0, 4, D1);
+        D.setMatrix(5, 149, 5, 149, D2);
+        double expected = D1.det() * Math.pow(1.01, 145);
+        assertEquals(expected, D.det(), Math.abs(expected) * 1e-10);
+    }
+
+    @Test
+    public void testInverse() {
+        Matrix A = Matrix.random(230, 230);
+        Matrix X = A.lu().inverse();
+        assertMatrixEquals(Matrix.identity(230, 230), A.times(X), 1e-8);
+        assertMatrixEquals(Matrix.identity(230, 230), X.times(A), 1e-8);
+        assertMatrixEquals(A.solve(Matrix.identity(230, 230)), A.inverse(), 1e-8);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testInverseOfSingular() {
+        Matrix A = Matrix.random(80, 80);
+        A.setMatrix(0, 79, 10, 10, new Matrix(80, 1));
+        A.inverse();
+    }
+
+    @Test
+    public void testBlockedSingular() {
+        Matrix A = Matrix.random(100, 100);
+        A.setMatrix(0, 99, 70, 70, new Matrix(100, 1));
+        assertFalse(A.lu().isNonsingular());
+        assertEquals(0., A.det(), 0.);
+    }
+
+    @Test
+    @ParallelPool.Enabled
+    public void testParallelTrailingUpdate() {
+        Matrix A = Matrix.random(310, 310);
+        LUDecomposition lu = A.lu();
+        assertMatrixEquals(A.getMatrix(lu.getPivot(), 0, 309), lu.getL().times(lu.getU()), 1e-10);
+    }
+}
@@ -34,6 +34,19 @@ public class MatrixAsserts {
         }
     }
 
+    /** Single precision copy of A. */
+    public static FloatMatrix toFloat(Matrix A) {
+        int m = A.getRowDimension();
+        int n = A.getColumnDimension();
+        FloatMatrix F = new FloatMatrix(m, n);
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                F.set(i, j, (float) A.get(i, j));
+            }
+        }
+        return F;
+    }
+
     public static void assertDeepArraysEquals(double[][] a1, double[][] a2) {
         assertEquals("Length must be the same", a1.length, a2.length);
         for (int i = 0; i < a1.length; i++) {
@@ -0,0 +1,119 @@
+package jama;
+
+import static jama.MatrixAsserts.assertMatrixEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class MatrixExpressionTest {
+
+    private final Matrix A = Matrix.random(7, 5);
+    private final Matrix B = Matrix.random(7, 5);
+    private final Matrix S = Matrix.random(5, 5);
+    private final Matrix x = Matrix.random(5, 2);
+    private final Matrix b = Matrix.random(7, 2);
+
+    @Test
+    public void testResidual() {
+        Matrix expected = A.times(x).minus(b).times(2.0);
+        Matrix r = MatrixExpression.of(A).times(x).minus(b).times(2.0).evaluate();
+        assertMatrixEquals(expected, r, 1e-12);
+    }
+
+    @Test
+    public void testLinearCombination() {
+        Matrix expected = A.times(3.0).minus(B).plus(A.times(0.5)).uminus();
+        MatrixExpression e = MatrixExpression.of(A).times(3.0).minus(B).plus(MatrixExpression.of(A).times(0.5))
+                .uminus();
+        assertMatrixEquals(expected, e.evaluate(), 1e-12);
+    }
+
+    @Test
+    public void testTranspose() {
+        Matrix expected = A.transpose().times(B).plus(S.transpose().times(2.0));
+        MatrixExpression e = MatrixExpression.of(A).transpose().times(B)
+                .plus(MatrixExpression.of(S).times(2.0).transpose());
+        assertMatrixEquals(expected, e.evaluate(), 1e-12);
+
+        // (A*S)' = S'*A'
+        e = MatrixExpression.of(A).times(S).transpose();
+        assertMatrixEquals(S.transpose().times(A.transpose()), e.evaluate(), 1e-12);
+    }
+
+    @Test
+    public void testScaledRightFactor() {
+        Matrix expected = A.times(S).times(2.0);
+        MatrixExpression e = MatrixExpression.of(A).times(MatrixExpression.of(S).times(2.0));
+        assertMatrixEquals(expected, e.evaluate(), 1e-12);
+
+        e = MatrixExpression.of(A).times(MatrixExpression.of(S).uminus());
+        assertMatrixEquals(A.times(S).uminus(), e.evaluate(), 1e-12);
+
+        e = MatrixExpression.of(A).times(3.0).times(MatrixExpression.of(S).times(-0.5));
+        assertMatrixEquals(A.times(S).times(-1.5), e.evaluate(), 1e-12);
+    }
+
+    @Test
+    public void testScaledProductTransposed() {
+        // (2*A*S)' = (S'*A')*2, with the factors swapped
+        MatrixExpression e = MatrixExpression.of(A).times(2.0).times(S).transpose();
+        assertMatrixEquals(S.transpose().times(A.transpose()).times(2.0), e.evaluate(), 1e-12);
+
+        e = MatrixExpression.of(A).times(MatrixExpression.of(S).times(2.0)).transpose();
+        assertMatrixEquals(S.transpose().times(A.transpose()).times(2.0), e.evaluate(), 1e-12);
+    }
+
+    @Test
+    public void testProductOfExpressions() {
+        Matrix expected = A.plus(B).times(S.minus(S.transpose())).times(x);
+        MatrixExpression e = MatrixExpression.of(A).plus(B)
+                .times(MatrixExpression.of(S).minus(MatrixExpression.of(S).transpose())).times(x);
+        assertMatrixEquals(expected, e.evaluate(), 1e-12);
+    }
+
+    @Test
+    public void testEvaluateIntoOperand() {
+        // r = r - A*x in place
+        Matrix r = b.copy();
+        Matrix result = MatrixExpression.of(r).minus(MatrixExpression.of(A).times(x)).evaluateInto(r);
+        assertSame(r, result);
+        assertMatrixEquals(b.minus(A.times(x)), r, 1e-12);
+
+        // C = B + 2*C - C
+        Matrix C = A.copy();
+        MatrixExpression.of(B).plus(MatrixExpression.of(C).times(2.0)).minus(C).evaluateInto(C);
+        assertMatrixEquals(B.plus(A), C, 1e-12);
+
+        // Q = Q*Q and Q = Q' need a temporary.
+        Matrix Q = S.copy();
+        MatrixExpression.of(Q).times(Q).evaluateInto(Q);
+        assertMatrixEquals(S.times(S), Q, 1e-12);
+        Q = S.copy();
+        MatrixExpression.of(Q).transpose().plus(Q).evaluateInto(Q);
+        assertMatrixEquals(S.transpose().plus(S), Q, 1e-12);
+    }
+
+    @Test
+    public void testEvaluateIntoDropsCachedDecompositions() {
+        Matrix C = Matrix.identity(5, 5);
+        C.lu();
+        MatrixExpression.of(S).times(S.transpose()).evaluateInto(C);
+        Matrix y = C.solve(x);
+        assertMatrixEquals(x, S.times(S.transpose()).times(y), 1e-9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSumDimensions() {
+        MatrixExpression.of(A).plus(S);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testProductDimensions() {
+        MatrixExpression.of(A).times(b);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOutputDimensions() {
+        MatrixExpression.of(A).times(x).evaluateInto(new Matrix(7, 3));
+    }
+}
@@ -1,8 +1,11 @@
 package jama;
 
 import static jama.MatrixAsserts.assertDeepArraysEquals;
+import static jama.MatrixAsserts.assertMatrixEquals;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import jama.Matrix;
 
@@ -462,4 +465,75 @@ public class MatrixTest {
         assertEquals(TMP, A.arrayRightDivideEquals(B));
     }
 
+    @Test
+    public void testFactorizationReused() {
+        Matrix X = Matrix.random(5, 5);
+        LUDecomposition lu = X.lu();
+        assertSame(lu, X.lu());
+        Matrix b = Matrix.random(5, 2);
+        assertMatrixEquals(lu.solve(b), X.solve(b), 0.);
+        assertEquals(lu.det(), X.det(), 0.);
+        assertSame(lu, X.lu());
+        assertSame(X.qr(), X.qr());
+    }
+
+    @Test
+    public void testFactorizationKeptByReaders() {
+        Matrix X = Matrix.random(5, 5);
+        X = X.plus(X.transpose()).plus(Matrix.identity(5, 5).times(10.));
+        LUDecomposition lu = X.lu();
+        X.chol();
+        X.eig();
+        new SingularValueDecomposition(X);
+        new JacobiSingularValueDecomposition(X);
+        new DenseMatrix(X, DenseMatrix.Layout.ROW_MAJOR);
+        X.view(0, 2, 0, 2).get(1, 1);
+        X.getArray();
+        assertSame(lu, X.lu());
+    }
+
+    @Test
+    public void testFactorizationInvalidated() {
+        Matrix X = Matrix.random(4, 4).plus(Matrix.identity(4, 4).times(4.));
+        double det = X.det();
+        X.set(0, 0, X.get(0, 0) + 1.);
+        assertTrue(det != X.det());
+        assertEquals(new LUDecomposition(X).det(), X.det(), 0.);
+
+        LUDecomposition lu = X.lu();
+        X.plusEquals(Matrix.identity(4, 4));
+        assertNotSame(lu, X.lu());
+        lu = X.lu();
+        X.timesEquals(2.);
+        assertNotSame(lu, X.lu());
+        lu = X.lu();
+        X.view(1, 2, 1, 2).fill(3.);
+        assertNotSame(lu, X.lu());
+        assertMatrixEquals(new LUDecomposition(X).solve(Matrix.identity(4, 4)), X.inverse(), 0.);
+
+        QRDecomposition qr = X.qr();
+        X.getArray()[3][3] = 7.;
+        assertNotSame(qr, X.qr());
+        assertMatrixEquals(new QRDecomposition(X).getR(), X.qr().getR(), 0.);
+    }
+
+    @Test
+    public void testFactorizationSeesArrayWrites() {
+        // The constructor shares the caller's array.
+        double[][] d = { { 2., 0. }, { 0., 2. } };
+        Matrix X = new Matrix(d);
+        assertEquals(4., X.det(), 0.);
+        d[0][0] = 5.;
+        assertEquals(10., X.det(), 0.);
+
+        // An array obtained earlier is written after solving.
+        double[][] a = X.getArray();
+        assertMatrixEquals(new Matrix(new double[][] { { .2, 0. }, { 0., .5 } }), X.inverse(), 1e-15);
+        a[1][1] = 7.;
+        assertEquals(35., X.det(), 0.);
+        assertMatrixEquals(new Matrix(new double[][] { { .2, 0. }, { 0., 1. / 7. } }), X.inverse(), 1e-15);
+        Matrix b = new Matrix(new double[][] { { 5. }, { 7. } });
+        assertMatrixEquals(new Matrix(2, 1, 1.), X.solve(b), 1e-15);
+    }
+
 }
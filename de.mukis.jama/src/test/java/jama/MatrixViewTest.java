@@ -0,0 +1,126 @@
+package jama;
+
+import static jama.MatrixAsserts.assertMatrixEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MatrixViewTest {
+
+    @Test
+    public void testViewWritesThrough() {
+        Matrix A = Matrix.random(6, 8);
+        MatrixView v = A.view(1, 4, 2, 6);
+        assertEquals(4, v.getRowDimension());
+        assertEquals(5, v.getColumnDimension());
+        assertSame(A, v.getParent());
+        assertMatrixEquals(A.getMatrix(1, 4, 2, 6), v.copy(), 0.);
+
+        v.set(0, 0, 42.);
+        assertEquals(42., A.get(1, 2), 0.);
+        v.view(1, 2, 1, 2).fill(-1.);
+        assertEquals(-1., A.get(3, 4), 0.);
+        assertEquals(-1., v.transpose().get(2, 1), 0.);
+    }
+
+    @Test
+    public void testStridedAndTransposedViews() {
+        Matrix A = Matrix.random(9, 7);
+        MatrixView v = A.view(1, 8, 3, 0, 6, 2);
+        assertEquals(3, v.getRowDimension());
+        assertEquals(4, v.getColumnDimension());
+        assertFalse(v.isContiguous());
+        assertEquals(A.get(7, 6), v.get(2, 3), 0.);
+        assertMatrixEquals(A.getMatrix(new int[] { 1, 4, 7 }, new int[] { 0, 2, 4, 6 }), v.copy(), 0.);
+
+        MatrixView t = v.transpose();
+        assertMatrixEquals(v.copy().transpose(), t.copy(), 0.);
+        assertMatrixEquals(v.copy().transpose().getMatrix(1, 2, 0, 1), t.view(1, 2, 0, 1).copy(), 0.);
+    }
+
+    @Test
+    public void testArithmeticInPlace() {
+        Matrix A = Matrix.random(5, 5);
+        Matrix B = Matrix.random(5, 5);
+        Matrix expected = A.copy();
+        expected.setMatrix(0, 1, 0, 2, A.getMatrix(0, 1, 0, 2).plus(B.getMatrix(3, 4, 2, 4)).times(2.));
+
+        MatrixView v = A.view(0, 1, 0, 2);
+        assertMatrixEquals(A.getMatrix(0, 1, 0, 2).minus(B.getMatrix(3, 4, 2, 4)), v.minus(B.view(3, 4, 2, 4)), 0.);
+        v.plusEquals(B.view(3, 4, 2, 4)).timesEquals(2.);
+        assertMatrixEquals(expected, A, 1e-15);
+    }
+
+    @Test
+    public void testOverlappingAssign() {
+        Matrix A = Matrix.random(4, 4);
+        Matrix expected = A.copy();
+        expected.setMatrix(1, 3, 0, 3, A.getMatrix(0, 2, 0, 3));
+        A.view(1, 3, 0, 3).assign(A.view(0, 2, 0, 3));
+        assertMatrixEquals(expected, A, 0.);
+    }
+
+    @Test
+    public void testTimesAndGemm() {
+        Matrix A = Matrix.random(200, 200);
+        Matrix B = Matrix.random(120, 90);
+        Matrix A1 = A.getMatrix(10, 109, 20, 139);
+        assertMatrixEquals(A1.times(B), A.view(10, 109, 20, 139).times(B.view()), 1e-10);
+        assertMatrixEquals(A1.transpose().times(A1), A.view(10, 109, 20, 139).transpose()
+                .times(A.view(10, 109, 20, 139)), 1e-10);
+    }
+
+    @Test
+    public void testGemmUpdatesBlock() {
+        Matrix A = Matrix.random(150, 150);
+        Matrix expected = A.copy();
+        Matrix A12 = A.getMatrix(0, 69, 70, 149);
+        expected.setMatrix(70, 149, 70, 149, A.getMatrix(70, 149, 70, 149).minus(A12.transpose().times(A12)));
+
+        MatrixView v12 = A.view(0, 69, 70, 149);
+        A.view(70, 149, 70, 149).gemm(-1., v12.transpose(), v12, 1.);
+        assertMatrixEquals(expected, A, 1e-10);
+
+        Matrix S = Matrix.random(4, 6);
+        Matrix small = S.copy();
+        small.setMatrix(0, 1, 0, 1, S.getMatrix(0, 1, 0, 2).times(S.getMatrix(1, 3, 3, 4)).times(0.5));
+        S.view(0, 1, 0, 1).gemm(0.5, S.view(0, 1, 0, 2), S.view(1, 3, 3, 4), 0.);
+        assertMatrixEquals(small, S, 1e-15);
+    }
+
+    @Test
+    public void testDecompositionsOfViews() {
+        Matrix A = Matrix.random(8, 8);
+        Matrix M = A.getMatrix(2, 6, 1, 5);
+        Matrix b = Matrix.random(5, 2);
+        MatrixView v = A.view(2, 6, 1, 5);
+        assertMatrixEquals(M.solve(b), v.solve(b.view()), 1e-10);
+        assertEquals(M.det(), v.lu().det(), 1e-12);
+        assertMatrixEquals(M.qr().getR(), v.qr().getR(), 1e-12);
+        assertEquals(M.norm2(), v.svd().norm2(), 1e-12);
+
+        Matrix S = M.transpose().times(M);
+        Matrix P = new Matrix(6, 6);
+        P.setMatrix(1, 5, 1, 5, S);
+        assertTrue(P.view(1, 5, 1, 5).chol().isSPD());
+        assertMatrixEquals(S.chol().getL(), P.view(1, 5, 1, 5).chol().getL(), 1e-12);
+        assertMatrixEquals(S.eig().getD(), P.view(1, 5, 1, 5).eig().getD(), 1e-12);
+    }
+
+    @Test
+    public void testFloatViews() {
+        FloatMatrix A = FloatMatrix.random(120, 120);
+        FloatMatrix A1 = A.getFloatMatrix(0, 79, 10, 109);
+        FloatMatrix B = FloatMatrix.random(100, 70);
+        assertMatrixEquals(A1.times(B), A.view(0, 79, 10, 109).times(B.view()), 1e-4f);
+
+        A.view(0, 0, 0, 119).fill(3f);
+        assertEquals(3f, A.get(0, 77), 0f);
+        float expected = A.get(2, 1) + A.get(1, 1);
+        A.view(1, 2, 0, 1).plusEquals(A.view(0, 1, 1, 0, 1, 1).transpose());
+        assertEquals(expected, A.get(2, 1), 1e-6f);
+    }
+}
@@ -0,0 +1,75 @@
+package jama;
+
+import static jama.MatrixAsserts.assertMatrixEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MixedPrecisionSolverTest {
+
+    @Test
+    public void testRefinesToDoubleAccuracy() {
+        Matrix A = Matrix.random(300, 300).plus(Matrix.identity(300, 300).times(10.0));
+        Matrix X = Matrix.random(300, 4);
+        Matrix B = A.times(X);
+        MixedPrecisionSolver solver = new MixedPrecisionSolver(A);
+        assertTrue(solver.isSinglePrecision());
+
+        Matrix Y = solver.solve(B);
+        assertFalse(solver.usedFallback());
+        assertTrue(solver.getIterations() > 0);
+        assertMatrixEquals(X, Y, 1e-12);
+        assertMatrixEquals(A.lu().solve(B), Y, 1e-12);
+    }
+
+    @Test
+    public void testFallbackForIllConditioned() {
+        int n = 12;
+        Matrix H = new Matrix(n, n);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                H.set(i, j, 1.0 / (i + j + 1));
+            }
+        }
+        Matrix B = H.times(new Matrix(n, 1, 1.0));
+        MixedPrecisionSolver solver = new MixedPrecisionSolver(H);
+        Matrix X = solver.solve(B);
+        assertTrue(solver.usedFallback());
+        assertMatrixEquals(H.solve(B), X, 0.0);
+    }
+
+    @Test
+    public void testFallbackWithoutRefinement() {
+        Matrix A = Matrix.random(50, 50).plus(Matrix.identity(50, 50).times(5.0));
+        Matrix B = Matrix.random(50, 2);
+        MixedPrecisionSolver solver = new MixedPrecisionSolver(A, 0);
+        Matrix X = solver.solve(B);
+        assertTrue(solver.usedFallback());
+        assertEquals(0, solver.getIterations());
+        assertMatrixEquals(A.solve(B), X, 0.0);
+    }
+
+    @Test
+    public void testOutOfSinglePrecisionRange() {
+        Matrix A = Matrix.identity(3, 3).times(1e300);
+        MixedPrecisionSolver solver = new MixedPrecisionSolver(A);
+        assertFalse(solver.isSinglePrecision());
+        Matrix X = solver.solve(new Matrix(3, 1, 1e300));
+        assertTrue(solver.usedFallback());
+        assertMatrixEquals(new Matrix(3, 1, 1.0), X, 1e-15);
+    }
+
+    @Test
+    public void testFloatLU() {
+        FloatMatrix A = FloatMatrix.random(150, 150);
+        FloatLUDecomposition lu = new FloatLUDecomposition(A);
+        FloatMatrix PA = A.getFloatMatrix(lu.getPivot(), 0, 149);
+        assertMatrixEquals(PA, lu.getL().times(lu.getU()), 1e-3f);
+
+        FloatMatrix S = FloatMatrix.random(8, 8);
+        double det = S.toMatrix().det();
+        assertEquals(det, new FloatLUDecomposition(S).det(), Math.abs(det) * 1e-3);
+    }
+}
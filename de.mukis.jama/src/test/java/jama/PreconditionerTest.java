@@ -0,0 +1,169 @@
+package jama;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PreconditionerTest {
+
+    /** D*A*D with a diagonal D spanning two orders of magnitude. */
+    private static CSRMatrix badlyScaled(CSRMatrix A, long seed) {
+        Random random = new Random(seed);
+        int n = A.getRowDimension();
+        double[] d = new double[n];
+        for (int i = 0; i < n; i++) {
+            d[i] = Math.pow(10.0, 2.0 * random.nextDouble());
+        }
+        int[] ptr = A.getRowPointers();
+        int[] idx = A.getColumnIndices();
+        double[] val = A.getValues().clone();
+        for (int i = 0; i < n; i++) {
+            for (int p = ptr[i]; p < ptr[i + 1]; p++) {
+                val[p] *= d[i] * d[idx[p]];
+            }
+        }
+        return new CSRMatrix(n, n, ptr.clone(), idx.clone(), val);
+    }
+
+    private static double[] rhs(LinearOperator A) {
+        double[] x = new double[A.getRowDimension()];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = Math.sin(i);
+        }
+        double[] b = new double[x.length];
+        A.apply(x, b);
+        return b;
+    }
+
+    private static int iterations(IterativeSolver solver, Preconditioner M, double[] b) {
+        solver.setPreconditioner(M);
+        solver.setTolerance(1e-8);
+        solver.setMaxIterations(5000);
+        solver.solve(b);
+        assertTrue(solver.hasConverged());
+        return solver.getIterations();
+    }
+
+    /** M^-1*(A*x) for a preconditioner which is exact for A. */
+    private static void assertExact(Preconditioner M, LinearOperator A) {
+        int n = A.getRowDimension();
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = i + 1.0;
+        }
+        double[] b = new double[n];
+        A.apply(x, b);
+        double[] z = new double[n];
+        M.apply(b, z);
+        assertArrayEquals(x, z, 1e-9);
+    }
+
+    @Test
+    public void testExactOnFullPattern() {
+        Matrix A = Matrix.random(8, 8).plus(Matrix.identity(8, 8).times(8.0));
+        Matrix S = A.transpose().times(A);
+        assertExact(new ILU0Preconditioner(new CSRMatrix(A)), A);
+        assertExact(new IncompleteCholeskyPreconditioner(new CSRMatrix(S)), S);
+        assertExact(new BlockJacobiPreconditioner(new CSRMatrix(A), 8), A);
+        assertExact(new BlockJacobiPreconditioner(new CSRMatrix(A), 3), new BlockDiagonal(A, 3));
+    }
+
+    @Test
+    public void testExactOnTridiagonal() {
+        // No fill-in occurs for a tridiagonal matrix.
+        int n = 50;
+        SparseMatrixBuilder b = new SparseMatrixBuilder(n, n);
+        for (int i = 0; i < n; i++) {
+            b.add(i, i, 3.0);
+            if (i > 0) {
+                b.add(i, i - 1, -1.0);
+                b.add(i - 1, i, -1.0);
+            }
+        }
+        CSRMatrix T = b.toCSR();
+        assertExact(new ILU0Preconditioner(T), T);
+        assertExact(new IncompleteCholeskyPreconditioner(T), T);
+    }
+
+    @Test
+    public void testConjugateGradientIterations() {
+        CSRMatrix A = badlyScaled(IterativeSolverTest.laplacian(30), 1);
+        double[] b = rhs(A);
+        ConjugateGradientSolver cg = new ConjugateGradientSolver(A);
+        int none = iterations(cg, null, b);
+        int jacobi = iterations(cg, new JacobiPreconditioner(A), b);
+        int block = iterations(cg, new BlockJacobiPreconditioner(A, 30), b);
+        int ic = iterations(cg, new IncompleteCholeskyPreconditioner(A), b);
+        assertTrue(none + " vs " + jacobi, 10 * jacobi < none);
+        assertTrue(jacobi + " vs " + block, block < jacobi);
+        assertTrue(block + " vs " + ic, ic < block);
+    }
+
+    @Test
+    public void testNonsymmetricIterations() {
+        CSRMatrix A = badlyScaled(IterativeSolverTest.convectionDiffusion(30, 0.8), 2);
+        double[] b = rhs(A);
+        ILU0Preconditioner ilu = new ILU0Preconditioner(A);
+        int gmres = iterations(new GMRESSolver(A, 50), null, b);
+        int gmresIlu = iterations(new GMRESSolver(A, 50), ilu, b);
+        assertTrue(gmres + " vs " + gmresIlu, 10 * gmresIlu < gmres);
+        int bicg = iterations(new BiCGSTABSolver(A), null, b);
+        int bicgIlu = iterations(new BiCGSTABSolver(A), ilu, b);
+        assertTrue(bicg + " vs " + bicgIlu, 10 * bicgIlu < bicg);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testZeroPivot() {
+        SparseMatrixBuilder b = new SparseMatrixBuilder(2, 2);
+        b.add(0, 1, 1.0).add(1, 0, 1.0).add(1, 1, 1.0);
+        new ILU0Preconditioner(b.toCSR());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testIndefinite() {
+        Matrix A = Matrix.identity(3, 3);
+        A.set(1, 1, -2.0);
+        new IncompleteCholeskyPreconditioner(new CSRMatrix(A));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testZeroDiagonal() {
+        new JacobiPreconditioner(new double[] { 1.0, 0.0 });
+    }
+
+    /** The block diagonal part of A, for which block Jacobi is exact. */
+    private static final class BlockDiagonal implements LinearOperator {
+
+        private final Matrix D;
+
+        BlockDiagonal(Matrix A, int bs) {
+            int n = A.getRowDimension();
+            D = new Matrix(n, n);
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    if (i / bs == j / bs) {
+                        D.set(i, j, A.get(i, j));
+                    }
+                }
+            }
+        }
+
+        @Override
+        public int getRowDimension() {
+            return D.getRowDimension();
+        }
+
+        @Override
+        public int getColumnDimension() {
+            return D.getColumnDimension();
+        }
+
+        @Override
+        public void apply(double[] x, double[] y) {
+            D.apply(x, y);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package jama;
+
+import static jama.MatrixAsserts.assertMatrixEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class QRDecompositionTest {
+
+    @Test
+    public void testBlockedFactorization() {
+        int[][] shapes = { { 33, 33 }, { 200, 70 }, { 500, 97 }, { 128, 128 } };
+        for (int[] shape : shapes) {
+            Matrix A = Matrix.random(shape[0], shape[1]);
+            QRDecomposition qr = A.qr();
+            Matrix Q = qr.getQ();
+            Matrix R = qr.getR();
+            assertMatrixEquals(A, Q.times(R), 1e-10);
+            assertMatrixEquals(Matrix.identity(shape[1], shape[1]), Q.transpose().times(Q), 1e-10);
+            for (int i = 1; i < shape[1]; i++) {
+                for (int j = 0; j < i; j++) {
+                    assertEquals(0., R.get(i, j), 0.);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBlockedMatchesHouseholderVectors() {
+        // Q = prod(I - h_k*h_k'/h_kk), built from getH without the blocked code
+        Matrix A = Matrix.random(90, 40);
+        QRDecomposition qr = A.qr();
+        Matrix H = qr.getH();
+        Matrix Q = Matrix.identity(90, 90);
+        for (int k = 0; k < 40; k++) {
+            Matrix h = H.getMatrix(0, 89, k, k);
+            Q = Q.minus(Q.times(h).times(h.transpose()).times(1.0 / h.get(k, 0)));
+        }
+        assertMatrixEquals(Q.getMatrix(0, 89, 0, 39), qr.getQ(), 1e-12);
+    }
+
+    @Test
+    public void testBlockedSolve() {
+        Matrix A = Matrix.random(300, 60);
+        Matrix X = Matrix.random(60, 40);
+        Matrix B = A.times(X);
+        assertMatrixEquals(X, A.qr().solve(B), 1e-9);
+        assertMatrixEquals(X.getMatrix(0, 59, 0, 0), A.qr().solve(B.getMatrix(0, 299, 0, 0)), 1e-9);
+
+        // least squares: residual is orthogonal to the range of A
+        Matrix b = Matrix.random(300, 40);
+        Matrix r = A.times(A.solve(b)).minus(b);
+        assertMatrixEquals(new Matrix(60, 40), A.transpose().times(r), 1e-9);
+    }
+
+    @Test
+    public void testInsertRow() {
+        Matrix A = Matrix.random(60, 40);
+        double[] x = Matrix.random(1, 40).getRowPackedCopy();
+        for (int k : new int[] { 0, 17, 60 }) {
+            Matrix Ak = new Matrix(61, 40);
+            Ak.setMatrix(0, k - 1, 0, 39, A.getMatrix(0, k - 1, 0, 39));
+            Ak.setMatrix(k, k, 0, 39, new Matrix(x, 1));
+            Ak.setMatrix(k + 1, 60, 0, 39, A.getMatrix(k, 59, 0, 39));
+            assertUpdated(Ak, A.qr().insertRow(k, x));
+        }
+    }
+
+    @Test
+    public void testDeleteRow() {
+        Matrix A = Matrix.random(60, 40);
+        QRDecomposition qr = A.qr();
+        for (int k : new int[] { 0, 33, 59 }) {
+            Matrix Ak = new Matrix(59, 40);
+            Ak.setMatrix(0, k - 1, 0, 39, A.getMatrix(0, k - 1, 0, 39));
+            Ak.setMatrix(k, 58, 0, 39, A.getMatrix(k + 1, 59, 0, 39));
+            assertUpdated(Ak, qr.deleteRow(k));
+        }
+    }
+
+    @Test
+    public void testSlidingWindow() {
+        // Add one row and drop the oldest, repeatedly.
+        Matrix A = Matrix.random(50, 10);
+        QRDecomposition qr = A.qr();
+        for (int step = 0; step < 30; step++) {
+            double[] x = Matrix.random(1, 10).getRowPackedCopy();
+            qr = qr.insertRow(50, x).deleteRow(0);
+            A = A.getMatrix(1, 49, 0, 9);
+            Matrix Ax = new Matrix(50, 10);
+            Ax.setMatrix(0, 48, 0, 9, A);
+            Ax.setMatrix(49, 49, 0, 9, new Matrix(x, 1));
+            A = Ax;
+        }
+        assertUpdated(A, qr);
+        Matrix b = Matrix.random(50, 3);
+        assertMatrixEquals(A.qr().solve(b), qr.solve(b), 1e-10);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUpdatedHasNoHouseholderVectors() {
+        Matrix.random(5, 3).qr().deleteRow(1).getH();
+    }
+
+    private static void assertUpdated(Matrix A, QRDecomposition qr) {
+        int n = A.getColumnDimension();
+        Matrix Q = qr.getQ();
+        Matrix R = qr.getR();
+        assertEquals(A.getRowDimension(), Q.getRowDimension());
+        assertMatrixEquals(Matrix.identity(n, n), Q.transpose().times(Q), 1e-12);
+        assertMatrixEquals(A, Q.times(R), 1e-12);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < i; j++) {
+                assertEquals(0., R.get(i, j), 0.);
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package jama;
+
+import static jama.MatrixAsserts.assertMatrixEquals;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RandomizedSingularValueDecompositionTest {
+
+    @Test
+    public void testExactLowRank() {
+        Matrix A = Matrix.random(400, 8).times(Matrix.random(8, 150));
+        RandomizedSingularValueDecomposition svd = new RandomizedSingularValueDecomposition(A, 8, 5, 0,
+                new Random(1));
+        Matrix U = svd.getU();
+        Matrix V = svd.getV();
+        assertEquals(400, U.getRowDimension());
+        assertEquals(8, U.getColumnDimension());
+        assertMatrixEquals(Matrix.identity(8, 8), U.transpose().times(U), 1e-12);
+        assertMatrixEquals(Matrix.identity(8, 8), V.transpose().times(V), 1e-12);
+        assertMatrixEquals(A, U.times(svd.getS()).times(V.transpose()), 1e-9);
+        double[] expected = Arrays.copyOf(A.svd().getSingularValues(), 8);
+        assertArrayEquals(expected, svd.getSingularValues(), 1e-9);
+    }
+
+    @Test
+    public void testLeadingSingularValues() {
+        // Singular values 1, 1/2, 1/3, ... with random singular vectors.
+        int m = 300, n = 120;
+        Matrix U = Matrix.random(m, n).qr().getQ();
+        Matrix V = Matrix.random(n, n).qr().getQ();
+        Matrix S = new Matrix(n, n);
+        for (int i = 0; i < n; i++) {
+            S.set(i, i, 1. / (i + 1));
+        }
+        Matrix A = U.times(S).times(V.transpose());
+        RandomizedSingularValueDecomposition svd = new RandomizedSingularValueDecomposition(A, 10, 10, 3,
+                new Random(7));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(1. / (i + 1), svd.getSingularValues()[i], 1e-3 / (i + 1));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRankTooLarge() {
+        new RandomizedSingularValueDecomposition(Matrix.random(5, 3), 4);
+    }
+}
@@ -0,0 +1,117 @@
+package jama;
+
+import static jama.MatrixAsserts.assertMatrixEquals;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class SingularValueDecompositionTest {
+
+    @Test
+    public void testValuesOnly() {
+        for (int[] mn : new int[][] { { 1, 1 }, { 30, 30 }, { 80, 50 }, { 500, 40 } }) {
+            Matrix A = Matrix.random(mn[0], mn[1]);
+            SingularValueDecomposition full = A.svd();
+            SingularValueDecomposition values = new SingularValueDecomposition(A, false, false);
+            assertArrayEquals(full.getSingularValues(), values.getSingularValues(), 1e-12 * mn[0]);
+            assertEquals(full.rank(), values.rank());
+            assertEquals(full.cond(), values.cond(), 1e-9 * full.cond());
+        }
+    }
+
+    @Test
+    public void testValuesOnlyWide() {
+        Matrix A = Matrix.random(20, 70);
+        double[] expected = A.transpose().svd().getSingularValues();
+        double[] actual = new SingularValueDecomposition(A, false, false).getSingularValues();
+        // Padded to min(m+1,n) like the full decomposition.
+        assertArrayEquals(Arrays.copyOf(expected, 21), actual, 1e-12);
+        assertEquals(A.transpose().norm2(), A.norm2(), 1e-12);
+        assertEquals(20, A.rank());
+    }
+
+    @Test
+    public void testValuesOnlyOneColumnMore() {
+        // m = n-1, where the full decomposition is defined for a wide matrix.
+        Matrix A = Matrix.random(3, 4);
+        SingularValueDecomposition full = A.svd();
+        SingularValueDecomposition values = new SingularValueDecomposition(A, false, false);
+        assertEquals(full.getSingularValues().length, values.getSingularValues().length);
+        assertArrayEquals(full.getSingularValues(), values.getSingularValues(), 1e-12);
+        assertMatrixEquals(full.getS(), values.getS(), 1e-12);
+        assertEquals(4, values.getS().getRowDimension());
+
+        Matrix S = new SingularValueDecomposition(Matrix.random(3, 6), false, false).getS();
+        assertEquals(6, S.getColumnDimension());
+        assertEquals(0.0, S.get(3, 3), 0.0);
+    }
+
+    @Test
+    public void testSerializedFlags() throws IOException, ClassNotFoundException {
+        // Which singular vectors exist follows from U and V, not from
+        // serialized flags.
+        Matrix A = Matrix.random(6, 4);
+        SingularValueDecomposition full = copy(A.svd());
+        assertMatrixEquals(A.svd().getU(), full.getU(), 0.);
+        assertMatrixEquals(A.svd().getV(), full.getV(), 0.);
+        SingularValueDecomposition noU = copy(new SingularValueDecomposition(A, false, true));
+        Matrix V = noU.getV();
+        assertMatrixEquals(Matrix.identity(4, 4), V.transpose().times(V), 1e-12);
+        try {
+            noU.getU();
+            throw new AssertionError("U must not be available.");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private static SingularValueDecomposition copy(SingularValueDecomposition svd) throws IOException,
+            ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(svd);
+        out.close();
+        return (SingularValueDecomposition) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))
+                .readObject();
+    }
+
+    @Test
+    public void testWithoutU() {
+        Matrix A = Matrix.random(300, 25);
+        SingularValueDecomposition full = A.svd();
+        SingularValueDecomposition noU = new SingularValueDecomposition(A, false, true);
+        assertArrayEquals(full.getSingularValues(), noU.getSingularValues(), 1e-12);
+        Matrix V = noU.getV();
+        assertMatrixEquals(Matrix.identity(25, 25), V.transpose().times(V), 1e-12);
+        // A*V has orthogonal columns with norms equal to the singular values.
+        Matrix AV = A.times(V);
+        assertMatrixEquals(noU.getS().times(noU.getS()), AV.transpose().times(AV), 1e-10);
+    }
+
+    @Test
+    public void testWithoutV() {
+        Matrix A = Matrix.random(60, 40);
+        SingularValueDecomposition full = A.svd();
+        SingularValueDecomposition noV = new SingularValueDecomposition(A, true, false);
+        assertArrayEquals(full.getSingularValues(), noV.getSingularValues(), 1e-12);
+        assertMatrixEquals(full.getU().times(full.getS()), noV.getU().times(noV.getS()), 1e-10);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testValuesOnlyHasNoU() {
+        new SingularValueDecomposition(Matrix.random(4, 3), false, true).getU();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testValuesOnlyHasNoV() {
+        new SingularValueDecomposition(Matrix.random(4, 3), true, false).getV();
+    }
+}
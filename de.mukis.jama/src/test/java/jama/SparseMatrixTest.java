@@ -0,0 +1,162 @@
+package jama;
+
+import static jama.MatrixAsserts.assertMatrixEquals;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import jama.rules.ParallelPool;
+
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+public class SparseMatrixTest {
+
+    @Rule
+    public final ParallelPool parallel = new ParallelPool();
+
+    /** Random m-by-n matrix with about the given fraction of non-zeros. */
+    private static Matrix sparseRandom(int m, int n, double density, long seed) {
+        Random random = new Random(seed);
+        Matrix A = new Matrix(m, n);
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                if (random.nextDouble() < density) {
+                    A.set(i, j, random.nextDouble() - 0.5);
+                }
+            }
+        }
+        return A;
+    }
+
+    /** Dense A*x. */
+    private static double[] times(Matrix A, double[] x) {
+        return A.times(new Matrix(x, x.length)).getColumnPackedCopy();
+    }
+
+    @Test
+    public void testBuilderSumsDuplicates() {
+        SparseMatrixBuilder b = new SparseMatrixBuilder(3, 4);
+        b.add(2, 3, 1.0).add(0, 1, 2.0).add(2, 0, 3.0).add(0, 1, 0.5).add(1, 2, -1.0);
+        assertEquals(5, b.size());
+
+        CSRMatrix csr = b.toCSR();
+        assertEquals(4, csr.getNonZeros());
+        assertArrayEquals(new int[] { 0, 1, 2, 4 }, csr.getRowPointers());
+        assertArrayEquals(new int[] { 1, 2, 0, 3 }, csr.getColumnIndices());
+        assertEquals(2.5, csr.get(0, 1), 0.0);
+        assertEquals(0.0, csr.get(0, 0), 0.0);
+
+        CSCMatrix csc = b.toCSC();
+        assertEquals(4, csc.getNonZeros());
+        assertArrayEquals(new int[] { 0, 1, 2, 3, 4 }, csc.getColumnPointers());
+        assertArrayEquals(new int[] { 2, 0, 1, 2 }, csc.getRowIndices());
+        assertMatrixEquals(csr.toMatrix(), csc.toMatrix(), 0.0);
+    }
+
+    @Test
+    public void testDenseConversion() {
+        Matrix A = sparseRandom(13, 9, 0.3, 1);
+        assertMatrixEquals(A, new CSRMatrix(A).toMatrix(), 0.0);
+        assertMatrixEquals(A, new CSCMatrix(A).toMatrix(), 0.0);
+        assertMatrixEquals(A, new CSRMatrix(A).toCSC().toMatrix(), 0.0);
+        assertMatrixEquals(A, new CSCMatrix(A).toCSR().toMatrix(), 0.0);
+        assertMatrixEquals(A.transpose(), new CSRMatrix(A).transpose().toMatrix(), 0.0);
+        assertMatrixEquals(A.transpose(), new CSCMatrix(A).transpose().toMatrix(), 0.0);
+    }
+
+    @Test
+    public void testSparseDenseProducts() {
+        Matrix A = sparseRandom(20, 15, 0.2, 2);
+        Matrix B = Matrix.random(15, 4);
+        double[] x = Matrix.random(15, 1).getColumnPackedCopy();
+        double[] z = Matrix.random(20, 1).getColumnPackedCopy();
+        CSRMatrix csr = new CSRMatrix(A);
+        CSCMatrix csc = new CSCMatrix(A);
+
+        assertMatrixEquals(A.times(B), csr.times(B), 1e-13);
+        assertMatrixEquals(A.times(B), csc.times(B), 1e-13);
+        assertArrayEquals(times(A, x), csr.times(x), 1e-13);
+        assertArrayEquals(times(A, x), csc.times(x), 1e-13);
+        assertArrayEquals(times(A.transpose(), z), csr.transposeTimes(z), 1e-13);
+        assertArrayEquals(times(A.transpose(), z), csc.transposeTimes(z), 1e-13);
+        assertMatrixEquals(A.times(-2.0), csr.times(-2.0).toMatrix(), 0.0);
+        assertMatrixEquals(A.times(-2.0), csc.times(-2.0).toMatrix(), 0.0);
+    }
+
+    @Test
+    public void testSparseSparseProduct() {
+        Matrix A = sparseRandom(30, 25, 0.1, 3);
+        Matrix B = sparseRandom(25, 18, 0.15, 4);
+        CSRMatrix C = new CSRMatrix(A).times(new CSRMatrix(B));
+        assertMatrixEquals(A.times(B), C.toMatrix(), 1e-13);
+        assertMatrixEquals(A.times(B), new CSCMatrix(A).times(new CSCMatrix(B)).toMatrix(), 1e-13);
+
+        // Column indices of the product are sorted.
+        int[] ptr = C.getRowPointers();
+        int[] idx = C.getColumnIndices();
+        for (int i = 0; i < C.getRowDimension(); i++) {
+            for (int p = ptr[i] + 1; p < ptr[i + 1]; p++) {
+                assertTrue(idx[p - 1] < idx[p]);
+            }
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        CSRMatrix Z = new SparseMatrixBuilder(4, 3).toCSR();
+        assertEquals(0, Z.getNonZeros());
+        assertMatrixEquals(new Matrix(4, 3), Z.toMatrix(), 0.0);
+        assertEquals(0, Z.times(Z.transpose()).getNonZeros());
+    }
+
+    @Test
+    @ParallelPool.Enabled
+    public void testParallelProducts() {
+        Matrix A = sparseRandom(1200, 300, 0.02, 5);
+        Matrix B = Matrix.random(300, 3);
+        double[] x = Matrix.random(300, 1).getColumnPackedCopy();
+        CSRMatrix csr = new CSRMatrix(A);
+        assertMatrixEquals(A.times(B), csr.times(B), 1e-13);
+        assertArrayEquals(times(A, x), csr.times(x), 1e-13);
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void testBuilderIndexOutOfBounds() {
+        new SparseMatrixBuilder(3, 3).add(3, 0, 1.0);
+    }
+
+    @Test
+    public void testArrayConstructorChecksStructure() {
+        double[] v = { 1.0, 2.0, 3.0 };
+        // Valid: rows {0, 2}, {}, {1}.
+        assertEquals(3, new CSRMatrix(3, 3, new int[] { 0, 2, 2, 3 }, new int[] { 0, 2, 1 }, v).getNonZeros());
+        assertInvalid(new int[] { 0, 2, 1, 3 }, new int[] { 0, 2, 1 }, v);
+        assertInvalid(new int[] { 0, 2, 2, 3 }, new int[] { 0, 3, 1 }, v);
+        assertInvalid(new int[] { 0, 2, 2, 3 }, new int[] { 0, -1, 1 }, v);
+        assertInvalid(new int[] { 0, 2, 2, 3 }, new int[] { 2, 0, 1 }, v);
+        assertInvalid(new int[] { 0, 2, 2, 3 }, new int[] { 1, 1, 1 }, v);
+    }
+
+    private static void assertInvalid(int[] ptr, int[] idx, double[] v) {
+        try {
+            new CSRMatrix(3, 3, ptr, idx, v);
+            fail("CSR arrays accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new CSCMatrix(3, 3, ptr, idx, v);
+            fail("CSC arrays accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testProductDimensions() {
+        new CSRMatrix(new Matrix(3, 4)).times(new Matrix(3, 4));
+    }
+}
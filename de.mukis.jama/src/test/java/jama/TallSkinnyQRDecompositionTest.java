@@ -0,0 +1,82 @@
+package jama;
+
+import static jama.MatrixAsserts.assertMatrixEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import jama.rules.ParallelPool;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+public class TallSkinnyQRDecompositionTest {
+
+    @Rule
+    public final ParallelPool parallel = new ParallelPool();
+
+    @Test
+    public void testStreamedLeastSquares() {
+        Matrix A = Matrix.random(3000, 12);
+        Matrix B = Matrix.random(3000, 2);
+        TallSkinnyQRDecomposition tsqr = new TallSkinnyQRDecomposition(12, 2);
+        for (int i0 = 0; i0 < 3000; i0 += 137) {
+            int i1 = Math.min(i0 + 137, 3000) - 1;
+            tsqr.update(A.getMatrix(i0, i1, 0, 11), B.getMatrix(i0, i1, 0, 1));
+        }
+        assertEquals(3000, tsqr.getRowCount());
+
+        Matrix X = A.solve(B);
+        assertMatrixEquals(X, tsqr.solve(), 1e-10);
+        double[] residuals = tsqr.getResidualNorms();
+        for (int j = 0; j < 2; j++) {
+            Matrix r = A.times(X.getMatrix(0, 11, j, j)).minus(B.getMatrix(0, 2999, j, j));
+            assertEquals(r.normF(), residuals[j], 1e-10);
+        }
+    }
+
+    @Test
+    public void testRMatchesQRUpToSigns() {
+        Matrix A = Matrix.random(500, 7);
+        Matrix R = new TallSkinnyQRDecomposition(A).getR();
+        Matrix expected = A.qr().getR();
+        for (int i = 0; i < 7; i++) {
+            double sign = Math.signum(R.get(i, i)) * Math.signum(expected.get(i, i));
+            for (int j = 0; j < 7; j++) {
+                assertEquals(expected.get(i, j), sign * R.get(i, j), 1e-10);
+            }
+        }
+    }
+
+    @Test
+    @ParallelPool.Enabled
+    public void testParallelBlocks() {
+        Matrix A = Matrix.random(5000, 9);
+        Matrix B = Matrix.random(5000, 1);
+        assertMatrixEquals(A.solve(B), new TallSkinnyQRDecomposition(A, B).solve(), 1e-10);
+    }
+
+    @Test
+    public void testShortChunksAndRankDeficiency() {
+        TallSkinnyQRDecomposition tsqr = new TallSkinnyQRDecomposition(3, 0);
+        tsqr.update(new Matrix(new double[][] { { 1., 2., 3. } }));
+        assertFalse(tsqr.isFullRank());
+        tsqr.update(new Matrix(new double[][] { { 0., 1., 0. }, { 0., 0., 1. } }));
+        Matrix R = tsqr.getR();
+        assertEquals(1., Math.abs(R.get(0, 0)), 1e-15);
+        assertEquals(1., Math.abs(R.get(1, 1) * R.get(2, 2)), 1e-12);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSolveWithoutRightHandSides() {
+        new TallSkinnyQRDecomposition(Matrix.random(10, 2)).solve();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnexpectedRightHandSides() {
+        new TallSkinnyQRDecomposition(2, 0).update(Matrix.random(10, 2), Matrix.random(10, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRightHandSideColumns() {
+        new TallSkinnyQRDecomposition(2, 1).update(Matrix.random(10, 2), Matrix.random(10, 2));
+    }
+}
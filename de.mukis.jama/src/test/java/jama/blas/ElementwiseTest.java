@@ -0,0 +1,159 @@
+package jama.blas;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import jama.FloatMatrix;
+import jama.Matrix;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class ElementwiseTest {
+
+    private final double[] a = { 1, 2, 3, 4, 5 };
+    private final double[] b = { 2, 4, 8, 16, 32 };
+
+    @Test
+    public void testPlainLoops() {
+        double[] c = new double[5];
+        Elementwise.add(a, b, c, 4);
+        assertArrayEquals(new double[] { 3, 6, 11, 20, 0 }, c, 0.);
+        Elementwise.subtract(a, b, c, 4);
+        assertArrayEquals(new double[] { -1, -2, -5, -12, 0 }, c, 0.);
+        Elementwise.multiply(a, b, c, 5);
+        assertArrayEquals(new double[] { 2, 8, 24, 64, 160 }, c, 0.);
+        Elementwise.divide(a, b, c, 5);
+        assertArrayEquals(new double[] { 0.5, 0.5, 0.375, 0.25, 5. / 32 }, c, 0.);
+        Elementwise.scale(2., a, c, 5);
+        assertArrayEquals(new double[] { 2, 4, 6, 8, 10 }, c, 0.);
+        Elementwise.axpy(-1., b, c, 3);
+        assertArrayEquals(new double[] { 0, 0, -2, 8, 10 }, c, 0.);
+
+        // in place
+        c = a.clone();
+        Elementwise.add(c, b, c, 5);
+        assertArrayEquals(new double[] { 3, 6, 11, 20, 37 }, c, 0.);
+    }
+
+    @Test
+    public void testPlainLoopsFloat() {
+        float[] x = { 1, 2, 3 };
+        float[] y = { 4, 8, 16 };
+        float[] z = new float[3];
+        Elementwise.add(x, y, z, 3);
+        assertArrayEquals(new float[] { 5, 10, 19 }, z, 0f);
+        Elementwise.subtract(x, y, z, 3);
+        assertArrayEquals(new float[] { -3, -6, -13 }, z, 0f);
+        Elementwise.multiply(x, y, z, 2);
+        assertArrayEquals(new float[] { 4, 16, -13 }, z, 0f);
+        Elementwise.divide(x, y, z, 3);
+        assertArrayEquals(new float[] { 0.25f, 0.25f, 0.1875f }, z, 0f);
+        Elementwise.scale(3f, x, z, 3);
+        assertArrayEquals(new float[] { 3, 6, 9 }, z, 0f);
+        Elementwise.axpy(0.5f, y, z, 3);
+        assertArrayEquals(new float[] { 5, 10, 17 }, z, 0f);
+    }
+
+    @Test
+    public void testBackend() {
+        CountingBackend counting = new CountingBackend();
+        ElementwiseBackend previous = Elementwise.getBackend();
+        Elementwise.setBackend(counting);
+        try {
+            Matrix A = Matrix.random(3, 4);
+            Matrix C = A.plus(A).minus(A).times(2.0);
+            assertEquals(9, counting.calls);
+            // the backend fills with its marker
+            assertArrayEquals(new double[] { 42, 42, 42, 42 }, C.getArray()[0], 0.);
+
+            new FloatMatrix(2, 2).plusEquals(new FloatMatrix(2, 2));
+            assertEquals(11, counting.calls);
+        } finally {
+            Elementwise.setBackend(previous);
+        }
+
+        double[] c = new double[5];
+        Elementwise.add(a, b, c, 5);
+        assertEquals(11, counting.calls);
+        assertArrayEquals(new double[] { 3, 6, 11, 20, 37 }, c, 0.);
+    }
+
+    /**
+     * Counts the calls and fills the output with 42.
+     */
+    private static class CountingBackend implements ElementwiseBackend {
+
+        int calls;
+
+        private void fill(double[] c, int n) {
+            calls++;
+            Arrays.fill(c, 0, n, 42.);
+        }
+
+        private void fill(float[] c, int n) {
+            calls++;
+            Arrays.fill(c, 0, n, 42f);
+        }
+
+        @Override
+        public void add(double[] a, double[] b, double[] c, int n) {
+            fill(c, n);
+        }
+
+        @Override
+        public void subtract(double[] a, double[] b, double[] c, int n) {
+            fill(c, n);
+        }
+
+        @Override
+        public void multiply(double[] a, double[] b, double[] c, int n) {
+            fill(c, n);
+        }
+
+        @Override
+        public void divide(double[] a, double[] b, double[] c, int n) {
+            fill(c, n);
+        }
+
+        @Override
+        public void scale(double s, double[] a, double[] c, int n) {
+            fill(c, n);
+        }
+
+        @Override
+        public void axpy(double s, double[] a, double[] c, int n) {
+            fill(c, n);
+        }
+
+        @Override
+        public void add(float[] a, float[] b, float[] c, int n) {
+            fill(c, n);
+        }
+
+        @Override
+        public void subtract(float[] a, float[] b, float[] c, int n) {
+            fill(c, n);
+        }
+
+        @Override
+        public void multiply(float[] a, float[] b, float[] c, int n) {
+            fill(c, n);
+        }
+
+        @Override
+        public void divide(float[] a, float[] b, float[] c, int n) {
+            fill(c, n);
+        }
+
+        @Override
+        public void scale(float s, float[] a, float[] c, int n) {
+            fill(c, n);
+        }
+
+        @Override
+        public void axpy(float s, float[] a, float[] c, int n) {
+            fill(c, n);
+        }
+    }
+}
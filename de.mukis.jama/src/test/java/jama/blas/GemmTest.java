@@ -0,0 +1,170 @@
+package jama.blas;
+
+import static jama.MatrixAsserts.assertMatrixEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import jama.FloatMatrix;
+import jama.Matrix;
+import jama.rules.ParallelPool;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+public class GemmTest {
+
+    @Rule
+    public final ParallelPool parallel = new ParallelPool();
+
+    @Test
+    public void testBlockedMatchesNaive() {
+        int[][] shapes = { { 1, 1, 1 }, { 5, 3, 7 }, { 67, 129, 33 }, { 131, 77, 301 }, { 300, 5, 260 } };
+        for (int[] shape : shapes) {
+            Matrix A = Matrix.random(shape[0], shape[2]);
+            Matrix B = Matrix.random(shape[2], shape[1]);
+            Matrix C = new Matrix(shape[0], shape[1]);
+            Gemm.dgemm(A.getArray(), B.getArray(), C.getArray(), shape[0], shape[1], shape[2]);
+            assertMatrixEquals(naive(A, B), C, 1e-10);
+        }
+    }
+
+    @Test
+    public void testTransposedOperandsAndScaling() {
+        Matrix A = Matrix.random(70, 90);
+        Matrix B = Matrix.random(110, 70);
+        Matrix C = Matrix.random(90, 110);
+        Matrix expected = naive(A.transpose(), B.transpose()).times(-2.0).plus(C.times(0.5));
+        Gemm.dgemm(true, true, 90, 110, 70, -2.0, A.getArray(), 0, 0, B.getArray(), 0, 0, 0.5, C.getArray(), 0, 0);
+        assertMatrixEquals(expected, C, 1e-10);
+    }
+
+    @Test
+    public void testOffsetsOnlyTouchTheBlock() {
+        Matrix A = Matrix.random(80, 80);
+        Matrix B = Matrix.random(80, 80);
+        Matrix C = new Matrix(80, 80, 1.0);
+        Gemm.dgemm(false, false, 40, 30, 50, 1.0, A.getArray(), 10, 20, B.getArray(), 5, 15, 0.0, C.getArray(), 30, 40);
+
+        Matrix expected = new Matrix(80, 80, 1.0);
+        expected.setMatrix(30, 69, 40, 69, naive(A.getMatrix(10, 49, 20, 69), B.getMatrix(5, 54, 15, 44)));
+        assertMatrixEquals(expected, C, 1e-10);
+    }
+
+    @Test
+    public void testMatrixTimesDispatch() {
+        assertFalse(Gemm.isBlockingWorthwhile(3, 3, 3));
+        assertTrue(Gemm.isBlockingWorthwhile(200, 200, 200));
+        Matrix A = Matrix.random(200, 150);
+        Matrix B = Matrix.random(150, 170);
+        assertMatrixEquals(naive(A, B), A.times(B), 1e-10);
+    }
+
+    @Test
+    public void testFloatMatrixTimes() {
+        FloatMatrix A = FloatMatrix.random(130, 90);
+        FloatMatrix B = FloatMatrix.random(90, 70);
+        Matrix expected = naive(A.toMatrix(), B.toMatrix());
+        assertMatrixEquals(expected, A.times(B).toMatrix(), 1e-3);
+    }
+
+    @Test
+    @ParallelPool.Enabled(threshold = Gemm.BLOCKING_THRESHOLD)
+    public void testParallelMatchesSerial() {
+        Matrix A = Matrix.random(301, 257);
+        Matrix B = Matrix.random(257, 199);
+        assertMatrixEquals(naive(A, B), A.times(B), 1e-10);
+
+        Matrix C = Matrix.random(257, 301);
+        Matrix expected = naive(A.transpose(), A).times(0.5).plus(C.getMatrix(0, 256, 0, 256));
+        Gemm.parallelDgemm(true, false, 257, 257, 301, 0.5, A.getArray(), 0, 0, A.getArray(), 0, 0, 1.0,
+                C.getArray(), 0, 0);
+        assertMatrixEquals(expected, C.getMatrix(0, 256, 0, 256), 1e-10);
+
+        FloatMatrix F = FloatMatrix.random(200, 150);
+        FloatMatrix G = FloatMatrix.random(150, 180);
+        assertMatrixEquals(naive(F.toMatrix(), G.toMatrix()), F.times(G).toMatrix(), 1e-3);
+    }
+
+    @Test
+    public void testBackend() {
+        // 67x129 leaves partial tiles at the borders
+        Matrix A = Matrix.random(67, 33);
+        Matrix B = Matrix.random(33, 129);
+        Matrix expected = naive(A, B);
+        ScalarBackend scalar = new ScalarBackend();
+        GemmBackend previous = Gemm.getBackend();
+        Gemm.setBackend(scalar);
+        try {
+            Matrix C = new Matrix(67, 129);
+            Gemm.dgemm(A.getArray(), B.getArray(), C.getArray(), 67, 129, 33);
+            assertMatrixEquals(expected, C, 1e-10);
+            assertEquals(17 * 33, scalar.calls);
+
+            double[] a = A.getRowPackedCopy();
+            double[] b = B.getRowPackedCopy();
+            double[] c = new double[67 * 129];
+            Gemm.dgemm(67, 129, 33, 1.0, a, 0, 33, 1, b, 0, 129, 1, 0.0, c, 0, 129, 1);
+            assertMatrixEquals(expected, new Matrix(c, 129).transpose(), 1e-10);
+            assertEquals(2 * 17 * 33, scalar.calls);
+
+            FloatMatrix F = FloatMatrix.random(67, 33);
+            FloatMatrix G = FloatMatrix.random(33, 129);
+            FloatMatrix H = new FloatMatrix(67, 129);
+            Gemm.sgemm(F.getArray(), G.getArray(), H.getArray(), 67, 129, 33);
+            assertMatrixEquals(naive(F.toMatrix(), G.toMatrix()), H.toMatrix(), 1e-3);
+            assertEquals(3 * 17 * 33, scalar.calls);
+        } finally {
+            Gemm.setBackend(previous);
+        }
+    }
+
+    /**
+     * Computes the tile with plain loops and counts the calls.
+     */
+    private static class ScalarBackend implements GemmBackend {
+
+        int calls;
+
+        @Override
+        public void kernel(int kc, double[] Ap, int ao, double[] Bp, int bo, double[] tile) {
+            calls++;
+            for (int i = 0; i < 4; i++) {
+                for (int j = 0; j < 4; j++) {
+                    double s = 0;
+                    for (int p = 0; p < kc; p++) {
+                        s += Ap[ao + 4 * p + i] * Bp[bo + 4 * p + j];
+                    }
+                    tile[4 * i + j] = s;
+                }
+            }
+        }
+
+        @Override
+        public void kernel(int kc, float[] Ap, int ao, float[] Bp, int bo, float[] tile) {
+            calls++;
+            for (int i = 0; i < 4; i++) {
+                for (int j = 0; j < 4; j++) {
+                    float s = 0;
+                    for (int p = 0; p < kc; p++) {
+                        s += Ap[ao + 4 * p + i] * Bp[bo + 4 * p + j];
+                    }
+                    tile[4 * i + j] = s;
+                }
+            }
+        }
+    }
+
+    private static Matrix naive(Matrix A, Matrix B) {
+        Matrix C = new Matrix(A.getRowDimension(), B.getColumnDimension());
+        for (int i = 0; i < A.getRowDimension(); i++) {
+            for (int j = 0; j < B.getColumnDimension(); j++) {
+                double s = 0;
+                for (int k = 0; k < A.getColumnDimension(); k++) {
+                    s += A.get(i, k) * B.get(k, j);
+                }
+                C.set(i, j, s);
+            }
+        }
+        return C;
+    }
+}
@@ -0,0 +1,112 @@
+package jama.blas;
+
+import static jama.MatrixAsserts.assertMatrixEquals;
+import static jama.MatrixAsserts.toFloat;
+import jama.FloatMatrix;
+import jama.Matrix;
+import jama.rules.ParallelPool;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+public class TrsmTest {
+
+    @Rule
+    public final ParallelPool parallel = new ParallelPool();
+
+    @Test
+    public void testAllVariants() {
+        int n = 150;
+        for (int variant = 0; variant < 8; variant++) {
+            boolean upper = (variant & 1) != 0;
+            boolean trans = (variant & 2) != 0;
+            boolean unit = (variant & 4) != 0;
+            Matrix T = triangular(n, upper, unit);
+            Matrix X = Matrix.random(n, 7);
+            Matrix B = (trans ? T.transpose() : T).times(X);
+            // garbage in the unreferenced triangle must be ignored
+            Matrix A = T.copy();
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    if ((i == j && unit) || (i != j && upper == (j < i))) {
+                        A.set(i, j, 100.0);
+                    }
+                }
+            }
+            Trsm.dtrsm(upper, trans, unit, n, 7, A.getArray(), 0, 0, B.getArray(), 0, 0);
+            assertMatrixEquals(X, B, 1e-8);
+        }
+    }
+
+    @Test
+    public void testOffsetsOnlyTouchTheBlock() {
+        Matrix T = triangular(70, false, false);
+        Matrix A = new Matrix(90, 90, 1.0);
+        A.setMatrix(10, 79, 20, 89, T);
+        Matrix X = Matrix.random(70, 5);
+        Matrix B = new Matrix(100, 20, 1.0);
+        B.setMatrix(30, 99, 15, 19, T.times(X));
+        Trsm.dtrsm(false, false, false, 70, 5, A.getArray(), 10, 20, B.getArray(), 30, 15);
+
+        Matrix expected = new Matrix(100, 20, 1.0);
+        expected.setMatrix(30, 99, 15, 19, X);
+        assertMatrixEquals(expected, B, 1e-8);
+    }
+
+    @Test
+    public void testInverse() {
+        for (int variant = 0; variant < 4; variant++) {
+            boolean upper = (variant & 1) != 0;
+            boolean unit = (variant & 2) != 0;
+            Matrix T = triangular(140, upper, unit);
+            Matrix X = new Matrix(140, 140, 5.0);
+            Trsm.dtrtri(upper, unit, 140, T.getArray(), 0, 0, X.getArray(), 0, 0);
+            assertMatrixEquals(Matrix.identity(140, 140), T.times(X), 1e-8);
+        }
+    }
+
+    @Test
+    public void testSinglePrecision() {
+        Matrix T = triangular(120, false, false);
+        Matrix X = Matrix.random(120, 9);
+        FloatMatrix A = toFloat(T);
+        FloatMatrix B = toFloat(T.transpose().times(X));
+        Trsm.strsm(false, true, false, 120, 9, A.getArray(), 0, 0, B.getArray(), 0, 0);
+        assertMatrixEquals(X, B.toMatrix(), 1e-4);
+    }
+
+    @Test
+    @ParallelPool.Enabled
+    public void testParallelMatchesSerial() {
+        Matrix T = triangular(200, true, false);
+        Matrix X = Matrix.random(200, 300);
+        Matrix B = T.transpose().times(X);
+        Trsm.parallelDtrsm(true, true, false, 200, 300, T.getArray(), 0, 0, B.getArray(), 0, 0);
+        assertMatrixEquals(X, B, 1e-8);
+
+        Matrix x = Matrix.random(200, 1);
+        Matrix b = T.times(x);
+        Trsm.parallelDtrsm(true, false, false, 200, 1, T.getArray(), 0, 0, b.getArray(), 0, 0);
+        assertMatrixEquals(x, b, 1e-8);
+
+        Matrix L = triangular(200, false, true);
+        Matrix Y = new Matrix(200, 200);
+        Trsm.parallelDtrtri(false, true, 200, L.getArray(), 0, 0, Y.getArray(), 0, 0);
+        assertMatrixEquals(Matrix.identity(200, 200), L.times(Y), 1e-8);
+    }
+
+    /** Well conditioned triangular matrix, with unit diagonal if requested. */
+    private static Matrix triangular(int n, boolean upper, boolean unit) {
+        Matrix T = new Matrix(n, n);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i == j) {
+                    T.set(i, j, unit ? 1.0 : 2.0 + Math.random());
+                } else if (upper == (j > i)) {
+                    T.set(i, j, (Math.random() - 0.5) / n);
+                }
+            }
+        }
+        return T;
+    }
+}
@@ -0,0 +1,67 @@
+package jama.rules;
+
+import jama.blas.Parallel;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+/**
+ * Runs the test methods annotated with {@link Enabled} on their own
+ * {@link ForkJoinPool} with a lowered {@link Parallel#setThreshold(long)
+ * threshold}, so that the parallel code paths are taken even for small
+ * problems. The default pool and threshold are restored afterwards. Other
+ * methods run unchanged.
+ *
+ * <pre>
+ * &#064;Rule
+ * public final ParallelPool parallel = new ParallelPool();
+ *
+ * &#064;Test
+ * &#064;ParallelPool.Enabled
+ * public void testParallel() { ... }
+ * </pre>
+ */
+public class ParallelPool implements TestRule {
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.METHOD)
+    public @interface Enabled {
+
+        /** Parallelism of the pool. */
+        int threads() default 4;
+
+        /** Work threshold of {@link Parallel} while the test runs. */
+        long threshold() default 1;
+    }
+
+    @Override
+    public Statement apply(final Statement base, Description description) {
+        final Enabled annotation = description.getAnnotation(Enabled.class);
+        if (annotation == null) {
+            return base;
+        }
+
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                ForkJoinPool pool = new ForkJoinPool(annotation.threads());
+                Parallel.setPool(pool);
+                Parallel.setThreshold(annotation.threshold());
+                try {
+                    base.evaluate();
+                } finally {
+                    Parallel.setPool(null);
+                    Parallel.setThreshold(Parallel.DEFAULT_THRESHOLD);
+                    pool.shutdown();
+                }
+            }
+        };
+    }
+}
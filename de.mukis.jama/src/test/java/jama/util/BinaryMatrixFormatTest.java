@@ -0,0 +1,176 @@
+package jama.util;
+
+import static jama.MatrixAsserts.assertMatrixEquals;
+import static jama.MatrixAsserts.toFloat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import jama.DenseMatrix;
+import jama.DenseMatrix.Layout;
+import jama.FloatMatrix;
+import jama.Matrix;
+import jama.util.BinaryMatrixFormat.DataType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.ReadOnlyBufferException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BinaryMatrixFormatTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("matrix", ".bin");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private void overwrite(long pos, int b) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.seek(pos);
+            raf.write(b);
+        } finally {
+            raf.close();
+        }
+    }
+
+    @Test
+    public void testMatrixRoundTrip() throws IOException {
+        Matrix A = Matrix.random(37, 23);
+        for (Layout layout : Layout.values()) {
+            for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+                new BinaryMatrixWriter().setLayout(layout).setByteOrder(order).writeMatrix(A, file);
+                assertEquals(BinaryMatrixFormat.HEADER_SIZE + 37 * 23 * 8, file.length());
+                BinaryMatrixReader reader = new BinaryMatrixReader(file);
+                assertEquals(37, reader.getRowDimension());
+                assertEquals(23, reader.getColumnDimension());
+                assertEquals(DataType.FLOAT64, reader.getDataType());
+                assertEquals(layout, reader.getLayout());
+                assertEquals(order, reader.getByteOrder());
+                assertMatrixEquals(A, reader.readMatrix(), 0.0);
+                assertMatrixEquals(A, reader.readDenseMatrix().toMatrix(), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testFloatMatrixRoundTrip() throws IOException {
+        FloatMatrix F = toFloat(Matrix.random(19, 41));
+        for (Layout layout : Layout.values()) {
+            new BinaryMatrixWriter().setLayout(layout).writeMatrix(F, file);
+            BinaryMatrixReader reader = new BinaryMatrixReader(file);
+            assertEquals(DataType.FLOAT32, reader.getDataType());
+            assertMatrixEquals(F, reader.readFloatMatrix(), 0.0f);
+            // Widened exactly.
+            assertMatrixEquals(toFloat(reader.readMatrix()), F, 0.0f);
+        }
+    }
+
+    @Test
+    public void testNarrowing() throws IOException {
+        Matrix A = Matrix.random(5, 7);
+        new BinaryMatrixWriter().writeMatrix(A, file);
+        assertMatrixEquals(toFloat(A), new BinaryMatrixReader(file).readFloatMatrix(), 0.0f);
+    }
+
+    @Test
+    public void testLongLines() throws IOException {
+        // Rows and columns which span several write buffers.
+        int n = BinaryMatrixFormat.CHUNK + 1000;
+        Matrix A = Matrix.random(2, n);
+        for (Layout layout : Layout.values()) {
+            new BinaryMatrixWriter().setLayout(layout).writeMatrix(A, file);
+            assertMatrixEquals(A, new BinaryMatrixReader(file).readMatrix(), 0.0);
+            new BinaryMatrixWriter().setLayout(layout).writeMatrix(A.transpose(), file);
+            assertMatrixEquals(A.transpose(), new BinaryMatrixReader(file).readMatrix(), 0.0);
+        }
+    }
+
+    @Test
+    public void testDenseMatrixView() throws IOException {
+        Matrix A = Matrix.random(12, 9);
+        DenseMatrix D = new DenseMatrix(A, Layout.COLUMN_MAJOR).view(2, 10, 1, 7);
+        for (Layout layout : Layout.values()) {
+            new BinaryMatrixWriter().setLayout(layout).writeMatrix(D, file);
+            DenseMatrix R = new BinaryMatrixReader(file).readDenseMatrix();
+            assertEquals(layout, R.getLayout());
+            assertMatrixEquals(A.getMatrix(2, 10, 1, 7), R.toMatrix(), 0.0);
+        }
+    }
+
+    @Test
+    public void testBufferView() throws IOException {
+        Matrix A = Matrix.random(4, 3);
+        new BinaryMatrixWriter().setLayout(Layout.COLUMN_MAJOR).writeMatrix(A, file);
+        DoubleBuffer b = new BinaryMatrixReader(file).asDoubleBuffer();
+        assertEquals(12, b.remaining());
+        assertEquals(A.get(3, 1), b.get(1 * 4 + 3), 0.0);
+        assertTrue(b.isReadOnly());
+        try {
+            b.put(0, 1.0);
+            throw new AssertionError("Mapped buffer must be read-only.");
+        } catch (ReadOnlyBufferException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        new BinaryMatrixWriter().writeMatrix(new Matrix(0, 3), file);
+        Matrix A = new BinaryMatrixReader(file).readMatrix();
+        assertEquals(0, A.getRowDimension());
+        assertEquals(3, A.getColumnDimension());
+
+        for (Layout layout : Layout.values()) {
+            for (int[] mn : new int[][] { { 0, 3 }, { 3, 0 } }) {
+                new BinaryMatrixWriter().setLayout(layout).writeMatrix(new Matrix(mn[0], mn[1]), file);
+                DenseMatrix D = new BinaryMatrixReader(file).readDenseMatrix();
+                assertEquals(mn[0], D.getRowDimension());
+                assertEquals(mn[1], D.getColumnDimension());
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorruptData() throws IOException {
+        new BinaryMatrixWriter().writeMatrix(Matrix.random(3, 3), file);
+        overwrite(BinaryMatrixFormat.HEADER_SIZE + 5, 0x55);
+        new BinaryMatrixReader(file).readMatrix();
+    }
+
+    @Test(expected = IOException.class)
+    public void testBadMagic() throws IOException {
+        new BinaryMatrixWriter().writeMatrix(Matrix.random(3, 3), file);
+        overwrite(0, 'X');
+        new BinaryMatrixReader(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncated() throws IOException {
+        new BinaryMatrixWriter().writeMatrix(Matrix.random(3, 3), file);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(file.length() - 8);
+        } finally {
+            raf.close();
+        }
+        new BinaryMatrixReader(file);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWrongBufferType() throws IOException {
+        new BinaryMatrixWriter().writeMatrix(Matrix.random(3, 3), file);
+        new BinaryMatrixReader(file).asFloatBuffer();
+    }
+}